@@ -106,9 +106,21 @@ public class BusinessRulesApi implements Microservice {
     @io.swagger.annotations.ApiResponses(value = {
             @io.swagger.annotations.ApiResponse(code = 200, message = "successful operation",
                     response = Object.class, responseContainer = "List")})
-    public Response getBusinessRules(@Context Request request)
+    public Response getBusinessRules(@Context Request request,
+                                     @ApiParam(value = "Text contained in the names of the business rules.")
+                                     @QueryParam("name") String name,
+                                     @ApiParam(value = "UUID of the template group of the business rules.")
+                                     @QueryParam("templateGroupID") String templateGroupID,
+                                     @ApiParam(value = "Type of the business rules.")
+                                     @QueryParam("type") String type,
+                                     @ApiParam(value = "Deployment status of the business rules.")
+                                     @QueryParam("status") Integer status,
+                                     @ApiParam(value = "Number of matching business rules to skip.")
+                                     @DefaultValue("0") @QueryParam("offset") Integer offset,
+                                     @ApiParam(value = "Maximum number of business rules to return.")
+                                     @DefaultValue("-1") @QueryParam("limit") Integer limit)
             throws NotFoundException {
-        return delegate.getBusinessRules(request);
+        return delegate.getBusinessRules(request, name, templateGroupID, type, status, offset, limit);
     }
 
     @GET
@@ -234,9 +246,11 @@ public class BusinessRulesApi implements Microservice {
     public Response redeployBusinessRule(@Context Request request,
                                          @ApiParam(value = "UUID of the business rule which needed to be re-deployed.",
             required = true) @PathParam("businessRuleInstanceID") String businessRuleInstanceID,
-                                         @DefaultValue("false") @QueryParam("shouldUndeploy") Boolean shouldUndeploy)
+                                         @DefaultValue("false") @QueryParam("shouldUndeploy") Boolean shouldUndeploy,
+                                         @ApiParam(value = "Whether to redeploy in the background.")
+                                         @DefaultValue("false") @QueryParam("async") Boolean async)
             throws NotFoundException {
-        return delegate.deployOrUndeployBusinessRule(request, businessRuleInstanceID, shouldUndeploy);
+        return delegate.deployOrUndeployBusinessRule(request, businessRuleInstanceID, shouldUndeploy, async);
     }
 
     @PUT
@@ -32,7 +32,8 @@ public abstract class BusinessRulesApiService {
             , Boolean forceDelete
     ) throws NotFoundException;
 
-    public abstract Response getBusinessRules(Request request) throws NotFoundException;
+    public abstract Response getBusinessRules(Request request, String name, String templateGroupID, String type,
+                                              Integer status, int offset, int limit) throws NotFoundException;
 
     public abstract Response getRuleTemplate(Request request, String templateGroupID
             , String ruleTemplateID
@@ -53,7 +54,8 @@ public abstract class BusinessRulesApiService {
     ) throws NotFoundException;
 
     public abstract Response deployOrUndeployBusinessRule(Request request, String businessRuleInstanceID,
-                                                          boolean shouldUndeploy) throws NotFoundException;
+                                                          boolean shouldUndeploy, boolean async)
+            throws NotFoundException;
 
     public abstract Response updateBusinessRule(Request request, Object businessRule
             , String businessRuleInstanceID, Boolean deploy) throws NotFoundException;
@@ -186,7 +186,8 @@ public class BusinessRulesApiServiceImpl extends BusinessRulesApiService {
     }
 
     @Override
-    public Response getBusinessRules(Request request) throws NotFoundException {
+    public Response getBusinessRules(Request request, String name, String templateGroupID, String type,
+                                     Integer status, int offset, int limit) throws NotFoundException {
         TemplateManagerService templateManagerService = TemplateManagerInstance.getInstance();
         if (!hasPermission(request, RequestMethod.GET_BUSINESS_RULES)) {
             return Response.status(Response.Status.FORBIDDEN).build();
@@ -195,15 +196,15 @@ public class BusinessRulesApiServiceImpl extends BusinessRulesApiService {
         Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
         int role = getUserRole(request) == Role.MANAGER ? 0 : 1;
         try {
-            Map<String, BusinessRule> businessRuleMap = templateManagerService.loadBusinessRules();
-            if (businessRuleMap.isEmpty()) {
+            List list = templateManagerService.loadBusinessRulesWithStatus(name, templateGroupID, type, status,
+                    Math.max(offset, 0), limit);
+            if (list.isEmpty()) {
                 responseData.add("Unable to find Business Rules");
                 responseData.add("Could not find any business rule");
                 responseData.add(new String[]{});
                 responseData.add(role);
                 return Response.ok().entity(gson.toJson(responseData)).build();
             }
-            List list = templateManagerService.loadBusinessRulesWithStatus();
             responseData.add("Found Business Rules");
             responseData.add("Loaded available business rules");
             responseData.add(list);
@@ -369,9 +370,15 @@ public class BusinessRulesApiServiceImpl extends BusinessRulesApiService {
                 responseData.add(null);
                 return Response.serverError().entity(gson.toJson(responseData)).build();
             }
-            responseData.add("Retreived Business Rule Deployment Information");
-            responseData.add("Retreived nodewise Siddhi App deployment information for '" +
-                    businessRuleInstanceID + "'");
+            if (templateManagerService.isDeploymentInProgress(businessRuleInstanceID)) {
+                responseData.add("Deployment In Progress");
+                responseData.add("Business rule '" + businessRuleInstanceID + "' is being deployed in the " +
+                        "background. Retreived nodewise Siddhi App deployment information so far");
+            } else {
+                responseData.add("Retreived Business Rule Deployment Information");
+                responseData.add("Retreived nodewise Siddhi App deployment information for '" +
+                        businessRuleInstanceID + "'");
+            }
             responseData.add(deploymentInfo);
             return Response.ok().entity(gson.toJson(responseData)).build();
         } catch (BusinessRulesDatasourceException e) {
@@ -394,7 +401,7 @@ public class BusinessRulesApiServiceImpl extends BusinessRulesApiService {
 
     @Override
     public Response deployOrUndeployBusinessRule(Request request, String businessRuleInstanceID,
-                                                 boolean shouldUndeploy) throws NotFoundException {
+                                                 boolean shouldUndeploy, boolean async) throws NotFoundException {
         if (!hasPermission(request, RequestMethod.REDEPLOY_BUSINESS_RULE)) {
             return Response.status(Response.Status.FORBIDDEN).build();
         }
@@ -404,7 +411,12 @@ public class BusinessRulesApiServiceImpl extends BusinessRulesApiService {
         List<Object> responseData = new ArrayList<Object>();
         try {
 
-            int status = templateManagerService.deployOrUndeployBusinessRule(businessRuleInstanceID, shouldUndeploy);
+            int status;
+            if (async && !shouldUndeploy) {
+                status = templateManagerService.redeployBusinessRuleInBackground(businessRuleInstanceID);
+            } else {
+                status = templateManagerService.deployOrUndeployBusinessRule(businessRuleInstanceID, shouldUndeploy);
+            }
 
             switch (status) {
                 case (TemplateManagerConstants.DEPLOYED):
@@ -435,6 +447,10 @@ public class BusinessRulesApiServiceImpl extends BusinessRulesApiService {
                     responseData.add("Undeployment Failure");
                     responseData.add("Failed to undeploy the business rule");
                     break;
+                case (TemplateManagerConstants.DEPLOYMENT_IN_PROGRESS):
+                    responseData.add("Deployment In Progress");
+                    responseData.add("Deploying the business rule in the background");
+                    break;
                 default:
                     responseData.add("Deployment Error");
                     responseData.add("Failed to deploy the business rule.");
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.datasource;
+
+import org.wso2.carbon.business.rules.core.bean.BusinessRule;
+import org.wso2.carbon.business.rules.core.exceptions.BusinessRulesDatasourceException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory catalogue of the listing columns of the business rules, which are the UUID, name, template group, type
+ * and deployment status. The catalogue is read from the database once, and entries are invalidated when the business
+ * rules are written, so that listing the business rules only reads the rows which changed since the previous listing.
+ * Since other nodes sharing the database may write business rules too, the catalogue is read again once it is older
+ * than the reload interval.
+ */
+class BusinessRuleCatalogue {
+    private static final long RELOAD_INTERVAL_MILLIS = 30000;
+    private static final BusinessRuleCatalogue INSTANCE = new BusinessRuleCatalogue(RELOAD_INTERVAL_MILLIS);
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Set<String> staleEntries = new HashSet<>();
+    private final long reloadIntervalMillis;
+    private boolean loaded;
+    private long loadedTime;
+
+    BusinessRuleCatalogue(long reloadIntervalMillis) {
+        this.reloadIntervalMillis = reloadIntervalMillis;
+    }
+
+    static BusinessRuleCatalogue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Marks the entry of the given business rule to be read again, after the business rule is inserted or updated.
+     */
+    synchronized void invalidate(String uuid) {
+        if (loaded) {
+            staleEntries.add(uuid);
+        }
+    }
+
+    synchronized void updateDeploymentStatus(String uuid, int deploymentStatus) {
+        Entry entry = entries.get(uuid);
+        if (entry != null) {
+            entry.deploymentStatus = deploymentStatus;
+        }
+    }
+
+    synchronized void remove(String uuid) {
+        entries.remove(uuid);
+        staleEntries.remove(uuid);
+    }
+
+    /**
+     * Lists the business rules that match all the given filters, which are ignored when null.
+     *
+     * @param source            Source of the entries which are not loaded yet
+     * @param name              Text contained in the name of the business rules, ignoring case
+     * @param templateGroupUUID UUID of the template group of the business rules
+     * @param type              Type of the business rules
+     * @param deploymentStatus  Deployment status of the business rules
+     * @param offset            Number of matching business rules to skip
+     * @param limit             Maximum number of business rules to return, or a negative value for no limit
+     * @return Business rules with only the listing columns, each paired with its deployment status
+     * @throws BusinessRulesDatasourceException when reading the business rules from the database fails
+     */
+    synchronized List<Object[]> list(Source source, String name, String templateGroupUUID,
+                                     String type, Integer deploymentStatus, int offset, int limit)
+            throws BusinessRulesDatasourceException {
+        refresh(source);
+        String lowerCaseName = name == null ? null : name.toLowerCase(Locale.ENGLISH);
+        List<Object[]> businessRules = new ArrayList<>();
+        int skipped = 0;
+        for (Entry entry : entries.values()) {
+            if (limit >= 0 && businessRules.size() >= limit) {
+                break;
+            }
+            BusinessRule businessRule = entry.businessRule;
+            if ((lowerCaseName != null &&
+                    !businessRule.getName().toLowerCase(Locale.ENGLISH).contains(lowerCaseName)) ||
+                    (templateGroupUUID != null && !templateGroupUUID.equals(businessRule.getTemplateGroupUUID())) ||
+                    (type != null && !type.equalsIgnoreCase(businessRule.getType())) ||
+                    (deploymentStatus != null && deploymentStatus != entry.deploymentStatus)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            businessRules.add(new Object[]{businessRule, entry.deploymentStatus});
+        }
+        return businessRules;
+    }
+
+    private void refresh(Source source) throws BusinessRulesDatasourceException {
+        long currentTime = System.currentTimeMillis();
+        if (!loaded || currentTime - loadedTime >= reloadIntervalMillis) {
+            entries.clear();
+            for (Object[] businessRule : source.readAll()) {
+                put(businessRule);
+            }
+            staleEntries.clear();
+            loaded = true;
+            loadedTime = currentTime;
+            return;
+        }
+        for (String uuid : staleEntries) {
+            Object[] businessRule = source.read(uuid);
+            if (businessRule == null) {
+                entries.remove(uuid);
+            } else {
+                put(businessRule);
+            }
+        }
+        staleEntries.clear();
+    }
+
+    private void put(Object[] businessRuleWithStatus) {
+        BusinessRule businessRule = (BusinessRule) businessRuleWithStatus[0];
+        entries.put(businessRule.getUuid(), new Entry(businessRule, (Integer) businessRuleWithStatus[1]));
+    }
+
+    /**
+     * Source of the listing columns of the business rules, each given as the business rule paired with its
+     * deployment status.
+     */
+    interface Source {
+        List<Object[]> readAll() throws BusinessRulesDatasourceException;
+
+        /**
+         * @return Business rule with the given UUID paired with its deployment status, or null if there is none
+         */
+        Object[] read(String uuid) throws BusinessRulesDatasourceException;
+    }
+
+    private static class Entry {
+        private final BusinessRule businessRule;
+        private int deploymentStatus;
+
+        private Entry(BusinessRule businessRule, int deploymentStatus) {
+            this.businessRule = businessRule;
+            this.deploymentStatus = deploymentStatus;
+        }
+    }
+}
@@ -19,6 +19,9 @@ package org.wso2.carbon.business.rules.core.datasource;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.business.rules.core.bean.BusinessRule;
@@ -29,7 +32,11 @@ import org.wso2.carbon.business.rules.core.datasource.util.BusinessRuleDatasourc
 import org.wso2.carbon.business.rules.core.exceptions.BusinessRulesDatasourceException;
 import org.wso2.carbon.business.rules.core.util.TemplateManagerConstants;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -52,6 +59,17 @@ public class QueryExecutor {
     private DataSource dataSource;
     private QueryManager queryManager;
     private Gson gson;
+    private final BusinessRuleCatalogue.Source catalogueSource = new BusinessRuleCatalogue.Source() {
+        @Override
+        public List<Object[]> readAll() throws BusinessRulesDatasourceException {
+            return executeRetrieveAllBusinessRuleListings();
+        }
+
+        @Override
+        public Object[] read(String uuid) throws BusinessRulesDatasourceException {
+            return executeRetrieveBusinessRuleListing(uuid);
+        }
+    };
 
     public QueryExecutor() {
         dataSource = DataSourceServiceProvider.getInstance().getDataSource();
@@ -70,6 +88,7 @@ public class QueryExecutor {
             statement = getStatementForInsertingBusinessRule(conn, uuid, businessRule, deploymentStatus, artifactCount);
             result = statement.execute();
             conn.commit();
+            BusinessRuleCatalogue.getInstance().invalidate(uuid);
             return result;
         } catch (SQLException e) {
             throw new BusinessRulesDatasourceException("Inserting business rule with uuid '" + uuid +
@@ -89,6 +108,7 @@ public class QueryExecutor {
             statement = getStatementForDeletingBusinessRule(conn, uuid);
             result = statement.execute();
             conn.commit();
+            BusinessRuleCatalogue.getInstance().remove(uuid);
             return result;
         } catch (SQLException e) {
             throw new BusinessRulesDatasourceException("Deleting business rule with uuid '" + uuid +
@@ -128,6 +148,7 @@ public class QueryExecutor {
             statement = getStatementForUpdatingBusinessRule(conn, uuid, newBusinessRule, deploymentStatus);
             result = statement.execute();
             conn.commit();
+            BusinessRuleCatalogue.getInstance().invalidate(uuid);
             return result;
         } catch (SQLException e) {
             throw new BusinessRulesDatasourceException("Updating business rule with uuid '" + uuid +
@@ -148,6 +169,7 @@ public class QueryExecutor {
             statement = getStatementForUpdatingDeploymentStatus(conn, uuid, deploymentStatus);
             result = statement.execute();
             conn.commit();
+            BusinessRuleCatalogue.getInstance().updateDeploymentStatus(uuid, deploymentStatus);
             return result;
         } catch (SQLException e) {
             throw new BusinessRulesDatasourceException("Updating deployment status of the business rule with uuid '" +
@@ -354,6 +376,127 @@ public class QueryExecutor {
         }
     }
 
+    /**
+     * Lists the business rules matching the given filters, from the in memory catalogue of the business rules. Only
+     * the UUID, name, template group UUID and type of the returned business rules are populated.
+     *
+     * @param name              Text contained in the name of the business rules, or null
+     * @param templateGroupUUID UUID of the template group of the business rules, or null
+     * @param type              Type of the business rules, or null
+     * @param deploymentStatus  Deployment status of the business rules, or null
+     * @param offset            Number of matching business rules to skip
+     * @param limit             Maximum number of business rules to return, or a negative value for no limit
+     * @return Business rules, each paired with its deployment status
+     * @throws BusinessRulesDatasourceException when reading the business rules from the database fails
+     */
+    public List<Object[]> executeRetrieveBusinessRulesWithStatus(String name, String templateGroupUUID, String type,
+                                                                 Integer deploymentStatus, int offset, int limit)
+            throws BusinessRulesDatasourceException {
+        return BusinessRuleCatalogue.getInstance().list(catalogueSource, name, templateGroupUUID, type,
+                deploymentStatus, offset, limit);
+    }
+
+    private List<Object[]> executeRetrieveAllBusinessRuleListings() throws BusinessRulesDatasourceException {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet;
+        List<Object[]> list = new ArrayList<>();
+        try {
+            conn = dataSource.getConnection();
+            String dbType = conn.getMetaData().getDatabaseProductName();
+            statement = getStatementForRetrievingAllBusinessRules(conn);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                BusinessRule businessRule = readBusinessRuleListing(getBusinessRuleBytes(resultSet, dbType));
+                if (businessRule != null) {
+                    list.add(new Object[]{businessRule, resultSet.getInt(3)});
+                }
+            }
+            return list;
+        } catch (SQLException | IOException | JsonParseException e) {
+            throw new BusinessRulesDatasourceException("Retrieving all the business rules from database " +
+                    "is failed. ", e);
+        } finally {
+            BusinessRuleDatasourceUtils.cleanupConnection(null, statement, conn);
+        }
+    }
+
+    private Object[] executeRetrieveBusinessRuleListing(String uuid) throws BusinessRulesDatasourceException {
+        ResultSet resultSet;
+        Connection conn = null;
+        PreparedStatement statement = null;
+        try {
+            conn = dataSource.getConnection();
+            String dbType = conn.getMetaData().getDatabaseProductName();
+            statement = getStatementForRetrievingBusinessRule(conn, uuid);
+            resultSet = statement.executeQuery();
+            if (resultSet.next()) {
+                BusinessRule businessRule = readBusinessRuleListing(getBusinessRuleBytes(resultSet, dbType));
+                if (businessRule != null) {
+                    return new Object[]{businessRule, resultSet.getInt(3)};
+                }
+            }
+            return null;
+        } catch (SQLException | IOException | JsonParseException e) {
+            throw new BusinessRulesDatasourceException("Retrieving the business rule with uuid '" + uuid +
+                    "' from database is failed due to: " + e.getMessage(), e);
+        } finally {
+            BusinessRuleDatasourceUtils.cleanupConnection(null, statement, conn);
+        }
+    }
+
+    private byte[] getBusinessRuleBytes(ResultSet resultSet, String dbType) throws SQLException {
+        if (dbType.equalsIgnoreCase(POSTGRESQL_DB_TYPE)) {
+            return resultSet.getBytes(2);
+        }
+        Blob blob = resultSet.getBlob(2);
+        return blob.getBytes(1, (int) blob.length());
+    }
+
+    /**
+     * Reads only the listing fields of a stored business rule, skipping the properties without building them.
+     *
+     * @return Business rule with the listing fields, or null when the business rule is of an unknown type
+     */
+    private BusinessRule readBusinessRuleListing(byte[] businessRuleBytes) throws IOException {
+        String uuid = null;
+        String name = null;
+        String templateGroupUUID = null;
+        String type = null;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(businessRuleBytes),
+                StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() != JsonToken.STRING) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (field) {
+                    case TemplateManagerConstants.BUSINESS_RULE_UUID:
+                        uuid = reader.nextString();
+                        break;
+                    case TemplateManagerConstants.BUSINESS_RULE_NAME:
+                        name = reader.nextString();
+                        break;
+                    case TemplateManagerConstants.BUSINESS_RULE_TEMPLATE_GROUP_UUID:
+                        templateGroupUUID = reader.nextString();
+                        break;
+                    case TemplateManagerConstants.BUSINESS_RULE_TYPE:
+                        type = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+        }
+        if (!TemplateManagerConstants.BUSINESS_RULE_TYPE_SCRATCH.equalsIgnoreCase(type) &&
+                !TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE.equalsIgnoreCase(type)) {
+            return null;
+        }
+        return new BusinessRule(uuid, name, templateGroupUUID, type);
+    }
+
     public int executeRetrieveArtifactCountQuery(String uuid) throws BusinessRulesDatasourceException {
         ResultSet resultSet;
         Connection conn = null;
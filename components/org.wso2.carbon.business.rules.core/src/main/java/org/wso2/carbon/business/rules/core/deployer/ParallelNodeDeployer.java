@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.deployer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.business.rules.core.exceptions.SiddhiAppsApiHelperException;
+import org.wso2.carbon.business.rules.core.util.TemplateManagerConstants;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a deployment action on a set of worker nodes in parallel, with a bounded number of concurrent requests.
+ * Actions that fail because a connection could not be made to a node are retried with an exponential back-off, as
+ * the request is known not to have reached the node. Deployments can also be run as
+ * background jobs, whose progress is tracked by business rule UUID.
+ */
+public class ParallelNodeDeployer {
+    private static final Logger log = LoggerFactory.getLogger(ParallelNodeDeployer.class);
+    private static final int MAX_CONCURRENT_REQUESTS = 16;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final String CONNECT_TIMEOUT_MESSAGE = "connect timed out";
+
+    private final ExecutorService requestExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS,
+            new DaemonThreadFactory("business-rules-deployer"));
+    private final ExecutorService jobExecutor = Executors.newCachedThreadPool(
+            new DaemonThreadFactory("business-rules-deployment-job"));
+    private final Map<String, Future<Integer>> jobs = new ConcurrentHashMap<>();
+    private final long initialBackoffMillis;
+
+    public ParallelNodeDeployer() {
+        this(INITIAL_BACKOFF_MILLIS);
+    }
+
+    ParallelNodeDeployer(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Runs the given action on all the given nodes, and waits until it is completed on all of them.
+     *
+     * @param nodeList        URLs of the nodes
+     * @param action          Action to run on each node
+     * @param failedOperation Description of the action, used when logging failures
+     * @return Deployment status, which is one of {@link TemplateManagerConstants#DEPLOYED},
+     * {@link TemplateManagerConstants#PARTIALLY_DEPLOYED} and {@link TemplateManagerConstants#DEPLOYMENT_FAILURE}
+     */
+    public int deploy(List<String> nodeList, NodeAction action, String failedOperation) {
+        List<Future<Boolean>> results = new ArrayList<>(nodeList.size());
+        for (String nodeURL : nodeList) {
+            results.add(requestExecutor.submit(() -> runWithRetry(nodeURL, action, failedOperation)));
+        }
+        int deployedNodesCount = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) {
+                    deployedNodesCount += 1;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting for the deployment on the nodes.", e);
+                for (Future<Boolean> pendingResult : results) {
+                    pendingResult.cancel(true);
+                }
+                break;
+            } catch (ExecutionException e) {
+                log.error(failedOperation, e.getCause());
+            }
+        }
+        return getDeploymentStatus(deployedNodesCount, nodeList.size());
+    }
+
+    /**
+     * Runs the given deployment in the background, unless a deployment of the same business rule is in progress.
+     *
+     * @param businessRuleUUID UUID of the business rule
+     * @param deployment       Deployment which returns the deployment status
+     * @return Whether the deployment was started
+     */
+    public synchronized boolean deployInBackground(String businessRuleUUID, Callable<Integer> deployment) {
+        if (isDeploymentInProgress(businessRuleUUID)) {
+            return false;
+        }
+        jobs.put(businessRuleUUID, jobExecutor.submit(() -> {
+            try {
+                return deployment.call();
+            } catch (Exception e) {
+                log.error("Background deployment of business rule " + businessRuleUUID + " failed.", e);
+                return TemplateManagerConstants.ERROR;
+            }
+        }));
+        return true;
+    }
+
+    /**
+     * @param businessRuleUUID UUID of the business rule
+     * @return Whether a background deployment of the business rule is in progress
+     */
+    public boolean isDeploymentInProgress(String businessRuleUUID) {
+        Future<Integer> job = jobs.get(businessRuleUUID);
+        if (job == null) {
+            return false;
+        }
+        if (job.isDone()) {
+            jobs.remove(businessRuleUUID, job);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Aggregates the number of nodes an action succeeded on, to a deployment status.
+     *
+     * @param deployedNodesCount Number of nodes on which the action succeeded
+     * @param nodesCount         Number of nodes
+     * @return Deployment status
+     */
+    public static int getDeploymentStatus(int deployedNodesCount, int nodesCount) {
+        if (deployedNodesCount == nodesCount) {
+            return TemplateManagerConstants.DEPLOYED;
+        } else if (deployedNodesCount == 0) {
+            return TemplateManagerConstants.DEPLOYMENT_FAILURE;
+        } else {
+            return TemplateManagerConstants.PARTIALLY_DEPLOYED;
+        }
+    }
+
+    private boolean runWithRetry(String nodeURL, NodeAction action, String failedOperation)
+            throws InterruptedException {
+        long backoffMillis = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                action.run(nodeURL);
+                return true;
+            } catch (SiddhiAppsApiHelperException e) {
+                if (!isConnectFailure(e) || attempt == MAX_ATTEMPTS) {
+                    log.error(String.format("%s on node %s", failedOperation, nodeURL), e);
+                    return false;
+                }
+                log.warn(String.format("%s on node %s, retrying in %d ms. %s", failedOperation, nodeURL,
+                        backoffMillis, e.getMessage()));
+                Thread.sleep(backoffMillis);
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    /**
+     * Whether the action failed because a connection could not be made to the node. Other failures, such as read
+     * timeouts, may happen after the node received the request, hence retrying them could apply it twice.
+     */
+    static boolean isConnectFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException ||
+                    cause instanceof UnknownHostException) {
+                return true;
+            }
+            if (cause instanceof SocketTimeoutException && cause.getMessage() != null &&
+                    cause.getMessage().contains(CONNECT_TIMEOUT_MESSAGE)) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deployment action run on a node.
+     */
+    @FunctionalInterface
+    public interface NodeAction {
+        void run(String nodeURL) throws SiddhiAppsApiHelperException;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -19,14 +19,26 @@
 
 package org.wso2.carbon.business.rules.core.deployer.util;
 
+import org.wso2.carbon.analytics.idp.client.core.api.AnalyticsHttpClientBuilderService;
 import org.wso2.carbon.business.rules.core.datasource.configreader.DataHolder;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 /**
- * Factory that is used to produce a HTTPS client for calling a Worker
+ * Factory that is used to produce a HTTPS client for calling a Worker. Clients are reused per Worker, so that their
+ * connections are kept alive across requests.
  */
 public class SiddhiAppDeployerFactory {
     private static final int CLIENT_CONNECTION_TIMEOUT = 5000;
     private static final int CLIENT_READ_TIMEOUT = 5000;
+    private static final Map<ClientKey, SiddhiAppDeployerServiceStub> clients = new HashMap<>();
+    private static AnalyticsHttpClientBuilderService clientBuilderService;
 
     /**
      * Returns an HTTPS client for deploying Siddhi apps to the Worker
@@ -37,7 +49,60 @@ public class SiddhiAppDeployerFactory {
      */
     public static SiddhiAppDeployerServiceStub getSiddhiAppDeployerHttpsClient(String httpsUrl, String username,
                                                                                String password) {
-        return DataHolder.getInstance().getClientBuilderService().build(username, password, CLIENT_CONNECTION_TIMEOUT,
-                CLIENT_READ_TIMEOUT, SiddhiAppDeployerServiceStub.class, httpsUrl);
+        AnalyticsHttpClientBuilderService builderService = DataHolder.getInstance().getClientBuilderService();
+        ClientKey clientKey = new ClientKey(httpsUrl, username, password);
+        synchronized (clients) {
+            if (builderService != clientBuilderService) {
+                // Clients built by a previous builder service can not be used after it is unregistered
+                clients.clear();
+                clientBuilderService = builderService;
+            }
+            return clients.computeIfAbsent(clientKey, key -> builderService.build(username, password,
+                    CLIENT_CONNECTION_TIMEOUT, CLIENT_READ_TIMEOUT, SiddhiAppDeployerServiceStub.class, httpsUrl));
+        }
+    }
+
+    /**
+     * Key of a cached client, which holds a digest of the password instead of the password itself.
+     */
+    static final class ClientKey {
+        private final String httpsUrl;
+        private final String username;
+        private final byte[] passwordDigest;
+
+        ClientKey(String httpsUrl, String username, String password) {
+            this.httpsUrl = httpsUrl;
+            this.username = username;
+            this.passwordDigest = digest(password);
+        }
+
+        private static byte[] digest(String password) {
+            if (password == null) {
+                return new byte[0];
+            }
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientKey)) {
+                return false;
+            }
+            ClientKey that = (ClientKey) o;
+            return Objects.equals(httpsUrl, that.httpsUrl) && Objects.equals(username, that.username) &&
+                    MessageDigest.isEqual(passwordDigest, that.passwordDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(httpsUrl, username) + Arrays.hashCode(passwordDigest);
+        }
     }
 }
@@ -32,6 +32,7 @@ import org.wso2.carbon.business.rules.core.bean.scratch.BusinessRuleFromScratchP
 import org.wso2.carbon.business.rules.core.bean.template.BusinessRuleFromTemplate;
 import org.wso2.carbon.business.rules.core.datasource.QueryExecutor;
 import org.wso2.carbon.business.rules.core.datasource.configreader.ConfigReader;
+import org.wso2.carbon.business.rules.core.deployer.ParallelNodeDeployer;
 import org.wso2.carbon.business.rules.core.deployer.SiddhiAppApiHelper;
 import org.wso2.carbon.business.rules.core.exceptions.BusinessRuleNotFoundException;
 import org.wso2.carbon.business.rules.core.exceptions.BusinessRulesDatasourceException;
@@ -52,9 +53,15 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.wso2.carbon.business.rules.core.util.TemplateManagerConstants.DEPLOYMENT_PATTERN_LOAD_BALANCING;
@@ -66,7 +73,15 @@ import static org.wso2.carbon.business.rules.core.util.TemplateManagerConstants.
 public class TemplateManagerService implements BusinessRulesService {
     private static final Logger log = LoggerFactory.getLogger(TemplateManagerService.class);
     private static final int DEFAULT_ARTIFACT_COUNT = 1;
+    private static final long STATUS_UPDATE_INTERVAL_SECONDS = 60;
     private static SiddhiAppApiHelper siddhiAppApiHelper = new SiddhiAppApiHelper();
+    private final ParallelNodeDeployer nodeDeployer = new ParallelNodeDeployer();
+    // Reconciles the recorded deployment statuses with the workers, since listing the business rules does not
+    private final ScheduledExecutorService statusUpdater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "business-rules-status-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
     ConfigReader configReader;
     // Available Template Groups from the directory
     private Map<String, TemplateGroup> availableTemplateGroups;
@@ -106,6 +121,8 @@ public class TemplateManagerService implements BusinessRulesService {
             }
         }
         loadBusinessRules();
+        statusUpdater.scheduleWithFixedDelay(this::updateStatusesInBackground, STATUS_UPDATE_INTERVAL_SECONDS,
+                STATUS_UPDATE_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     public int createBusinessRuleFromTemplate(BusinessRuleFromTemplate businessRuleFromTemplate, Boolean shouldDeploy)
@@ -146,24 +163,12 @@ public class TemplateManagerService implements BusinessRulesService {
 
         // Deploy each artifact
         if (shouldDeploy) {
-            int deployedNodesCount = 0;
-            for (String nodeURL : nodeList) {
-                try {
-                    deployBusinessRule(nodeURL, constructedArtifacts);
-                    deployedNodesCount += 1;
-                } catch (SiddhiAppsApiHelperException e) {
-                    log.error(String.format("Failed to deploy business rule %s ",
-                            businessRuleFromTemplate.getName()), e);
-                }
-            }
             // Set status with respect to deployed node count
-            if (deployedNodesCount == nodeList.size()) {
-                status = TemplateManagerConstants.DEPLOYED;
-            } else if (deployedNodesCount == 0) {
-                status = TemplateManagerConstants.DEPLOYMENT_FAILURE;
-            } else {
-                status = TemplateManagerConstants.PARTIALLY_DEPLOYED;
-            }
+            // Artifacts deployed on each node, so that a retried deployment does not deploy them again
+            Map<String, Set<String>> deployedArtifacts = new ConcurrentHashMap<>();
+            status = nodeDeployer.deploy(nodeList, nodeURL -> deployBusinessRule(nodeURL, constructedArtifacts,
+                    deployedArtifacts.computeIfAbsent(nodeURL, key -> new HashSet<>())),
+                    String.format("Failed to deploy business rule %s ", businessRuleFromTemplate.getName()));
             updateDeploymentStatus(businessRuleUUID, status);
         }
 
@@ -202,7 +207,6 @@ public class TemplateManagerService implements BusinessRulesService {
             return TemplateManagerConstants.ERROR;
         }
         if (toDeploy) {
-            int deployedNodesCount = 0;
             Artifact deployableSiddhiApp;
             try {
                 deployableSiddhiApp = buildSiddhiAppFromScratch(constructedArtifacts, businessRuleFromScratch);
@@ -210,23 +214,11 @@ public class TemplateManagerService implements BusinessRulesService {
                 log.error("Creating siddhi app for the business rule is failed.", e);
                 return TemplateManagerConstants.ERROR;
             }
-            for (String nodeURL : nodeList) {
-                try {
-                    deployBusinessRule(nodeURL, deployableSiddhiApp, businessRuleFromScratch);
-                    deployedNodesCount += 1;
-                } catch (SiddhiAppsApiHelperException e) {
-                    log.error(String.format("Deploying siddhi app %s for business rule" +
-                                    " %s is failed. ", LogEncoder.removeCRLFCharacters(deployableSiddhiApp.toString()),
-                            LogEncoder.removeCRLFCharacters(businessRuleFromScratch.getUuid())), e);
-                }
-            }
-            if (deployedNodesCount == nodeList.size()) {
-                status = TemplateManagerConstants.DEPLOYED;
-            } else if (deployedNodesCount == 0) {
-                status = TemplateManagerConstants.DEPLOYMENT_FAILURE;
-            } else {
-                status = TemplateManagerConstants.PARTIALLY_DEPLOYED;
-            }
+            status = nodeDeployer.deploy(nodeList,
+                    nodeURL -> deployBusinessRule(nodeURL, deployableSiddhiApp, businessRuleFromScratch),
+                    String.format("Deploying siddhi app %s for business rule %s is failed. ",
+                            LogEncoder.removeCRLFCharacters(deployableSiddhiApp.toString()),
+                            LogEncoder.removeCRLFCharacters(businessRuleFromScratch.getUuid())));
             updateDeploymentStatus(businessRuleUUID, status);
         }
         return status;
@@ -257,30 +249,13 @@ public class TemplateManagerService implements BusinessRulesService {
             log.error("Failed to find configurations of nodes for deploying business rules.");
             return TemplateManagerConstants.ERROR;
         }
-        int deployedNodesCount = 0;
         if (shouldDeploy) {
-            for (String nodeURL : nodeList) {
-                int deployedArtifactCount = 0;
-                for (Map.Entry<String, Artifact> artifact : derivedArtifacts.entrySet()) {
-                    try {
-                        updateDeployedArtifact(nodeURL, artifact.getValue());
-                        deployedArtifactCount += 1;
-                    } catch (SiddhiAppsApiHelperException e) {
-                        log.error(String.format("Deploying artifact with uuid %s is" + " failed. ",
-                                LogEncoder.removeCRLFCharacters(artifact.getKey())), e);
-                    }
-                }
-                if (deployedArtifactCount == derivedArtifacts.keySet().size()) {
-                    deployedNodesCount += 1;
-                }
-            }
-            if (deployedNodesCount == nodeList.size()) {
-                status = TemplateManagerConstants.DEPLOYED;
-            } else if (deployedNodesCount == 0) {
-                status = TemplateManagerConstants.DEPLOYMENT_FAILURE;
-            } else {
-                status = TemplateManagerConstants.PARTIALLY_DEPLOYED;
-            }
+            // Artifacts updated on each node, so that a retried deployment does not update them again
+            Map<String, Set<String>> updatedArtifacts = new ConcurrentHashMap<>();
+            status = nodeDeployer.deploy(nodeList, nodeURL -> updateDeployedArtifacts(nodeURL, derivedArtifacts,
+                    updatedArtifacts.computeIfAbsent(nodeURL, key -> new HashSet<>()), true),
+                    String.format("Deploying artifacts of business rule %s is failed. ",
+                            LogEncoder.removeCRLFCharacters(businessRuleUUID)));
             updateDeploymentStatus(businessRuleUUID, status);
         }
         return status;
@@ -317,25 +292,9 @@ public class TemplateManagerService implements BusinessRulesService {
                     businessRuleFromScratch.getName() + "' to the database is failed. ", e);
         }
         if (toDeploy) {
-            int deployedNodesCount = 0;
-            for (String nodeURL : nodeList) {
-                try {
-                    updateDeployedArtifact(nodeURL, deployableSiddhiApp);
-                    deployedNodesCount += 1;
-                } catch (SiddhiAppsApiHelperException e) {
-                    log.error(String.format("Deploying siddhi app for the business rule %s on node %s is failed." +
-                                    " Hence stopping deploying the business rule.",
-                            removeCRLFCharacters(businessRuleFromScratch.getUuid()),
-                            removeCRLFCharacters(nodeURL)), e);
-                }
-            }
-            if (deployedNodesCount == nodeList.size()) {
-                status = TemplateManagerConstants.DEPLOYED;
-            } else if (deployedNodesCount == 0) {
-                status = TemplateManagerConstants.DEPLOYMENT_FAILURE;
-            } else {
-                status = TemplateManagerConstants.PARTIALLY_DEPLOYED;
-            }
+            status = nodeDeployer.deploy(nodeList, nodeURL -> updateDeployedArtifact(nodeURL, deployableSiddhiApp),
+                    String.format("Deploying siddhi app for the business rule %s is failed.",
+                            removeCRLFCharacters(businessRuleFromScratch.getUuid())));
             updateDeploymentStatus(businessRuleUUID, status);
         }
         return status;
@@ -574,10 +533,13 @@ public class TemplateManagerService implements BusinessRulesService {
         return null;
     }
 
-    private void deployBusinessRule(String nodeURL, Map<String, Artifact> derivedArtifacts)
-            throws SiddhiAppsApiHelperException {
-        for (Map.Entry template : derivedArtifacts.entrySet()) {
-            deployArtifact(nodeURL, template.getKey().toString(), (Artifact) template.getValue());
+    private void deployBusinessRule(String nodeURL, Map<String, Artifact> derivedArtifacts,
+                                    Set<String> deployedArtifacts) throws SiddhiAppsApiHelperException {
+        for (Map.Entry<String, Artifact> template : derivedArtifacts.entrySet()) {
+            if (!deployedArtifacts.contains(template.getKey())) {
+                deployArtifact(nodeURL, template.getKey(), template.getValue());
+                deployedArtifacts.add(template.getKey());
+            }
         }
     }
 
@@ -631,23 +593,9 @@ public class TemplateManagerService implements BusinessRulesService {
                 throw new TemplateManagerServiceException("Failed to build siddhi app for the business rule '" +
                         businessRuleFromScratch.getName() + "'. ", e);
             }
-            int deployedNodesCount = 0;
-            for (String nodeURL : nodeList) {
-                try {
-                    updateDeployedArtifact(nodeURL, deployableSiddhiApp);
-                    deployedNodesCount += 1;
-                } catch (SiddhiAppsApiHelperException e) {
-                    log.error(String.format("Failed to update the deployed artifact for business rule %s ",
-                            removeCRLFCharacters(businessRuleUUID)), e);
-                }
-            }
-            if (deployedNodesCount == nodeList.size()) {
-                status = TemplateManagerConstants.DEPLOYED;
-            } else if (deployedNodesCount == 0) {
-                status = TemplateManagerConstants.DEPLOYMENT_FAILURE;
-            } else {
-                status = TemplateManagerConstants.PARTIALLY_DEPLOYED;
-            }
+            status = nodeDeployer.deploy(nodeList, nodeURL -> updateDeployedArtifact(nodeURL, deployableSiddhiApp),
+                    String.format("Failed to update the deployed artifact for business rule %s ",
+                            removeCRLFCharacters(businessRuleUUID)));
             updateDeploymentStatus(businessRuleUUID, status);
         } else if (businessRule instanceof BusinessRuleFromTemplate) {
             BusinessRuleFromTemplate businessRuleFromTemplate = (BusinessRuleFromTemplate) businessRule;
@@ -664,29 +612,40 @@ public class TemplateManagerService implements BusinessRulesService {
                 log.error("Deriving artifacts for business rule while redeploying is failed. ", e);
                 return TemplateManagerConstants.ERROR;
             }
-            int deployedNodesCount = 0;
-            for (String nodeURL : nodeList) {
-                try {
-                    updateDeployedArtifacts(nodeURL, derivedArtifacts);
-                    deployedNodesCount += 1;
-                } catch (SiddhiAppsApiHelperException e) {
-                    log.error(String.format("Failed to update the deployed artifact for business rule %s ",
-                            removeCRLFCharacters(businessRuleUUID)), e);
-                }
-            }
             // Set status with respect to deployed node count
-            if (deployedNodesCount == nodeList.size()) {
-                status = TemplateManagerConstants.DEPLOYED;
-            } else if (deployedNodesCount == 0) {
-                status = TemplateManagerConstants.DEPLOYMENT_FAILURE;
-            } else {
-                status = TemplateManagerConstants.PARTIALLY_DEPLOYED;
-            }
+            Map<String, Set<String>> updatedArtifacts = new ConcurrentHashMap<>();
+            status = nodeDeployer.deploy(nodeList, nodeURL -> updateDeployedArtifacts(nodeURL, derivedArtifacts,
+                    updatedArtifacts.computeIfAbsent(nodeURL, key -> new HashSet<>()), false),
+                    String.format("Failed to update the deployed artifact for business rule %s ",
+                            removeCRLFCharacters(businessRuleUUID)));
             updateDeploymentStatus(businessRuleUUID, status);
         }
         return status;
     }
 
+    /**
+     * Redeploys the business rule with the given UUID in the background. The deployment status of the business rule
+     * is updated once the deployment is completed on all the nodes.
+     *
+     * @param businessRuleUUID UUID of the business rule
+     * @return {@link TemplateManagerConstants#DEPLOYMENT_IN_PROGRESS}
+     */
+    public int redeployBusinessRuleInBackground(String businessRuleUUID) {
+        if (nodeDeployer.deployInBackground(businessRuleUUID, () -> redeployBusinessRule(businessRuleUUID))) {
+            log.info(String.format("Started redeploying business rule %s in the background.",
+                    removeCRLFCharacters(businessRuleUUID)));
+        }
+        return TemplateManagerConstants.DEPLOYMENT_IN_PROGRESS;
+    }
+
+    /**
+     * @param businessRuleUUID UUID of the business rule
+     * @return Whether the business rule is being redeployed in the background
+     */
+    public boolean isDeploymentInProgress(String businessRuleUUID) {
+        return nodeDeployer.isDeploymentInProgress(businessRuleUUID);
+    }
+
     /**
      * Gets un-deployment state of the given Siddhi app, in the given node.
      *
@@ -852,6 +811,31 @@ public class TemplateManagerService implements BusinessRulesService {
         }
     }
 
+    /**
+     * This method is used to get a page of the business rules which match the given filters, with their statuses
+     * which are recorded to the database. Only the uuid, name, template group uuid and type of the returned business
+     * rules are populated.
+     *
+     * @param name              Text contained in the names of the business rules, or null to match any name
+     * @param templateGroupUUID UUID of the template group of the business rules, or null to match any
+     * @param type              Type of the business rules, or null to match any type
+     * @param deploymentStatus  Deployment status of the business rules, or null to match any status
+     * @param offset            Number of matching business rules to skip
+     * @param limit             Maximum number of business rules to return, or a negative value for all of them
+     * @return A list of business rules with their statuses
+     * @throws TemplateManagerServiceException
+     */
+    public List<Object[]> loadBusinessRulesWithStatus(String name, String templateGroupUUID, String type,
+                                                      Integer deploymentStatus, int offset, int limit)
+            throws TemplateManagerServiceException {
+        try {
+            return queryExecutor.executeRetrieveBusinessRulesWithStatus(name, templateGroupUUID, type,
+                    deploymentStatus, offset, limit);
+        } catch (BusinessRulesDatasourceException e) {
+            throw new TemplateManagerServiceException(e);
+        }
+    }
+
     /**
      * This method is used to load a given business rule form the database
      *
@@ -935,17 +919,37 @@ public class TemplateManagerService implements BusinessRulesService {
 
     private void updateStatuses() throws TemplateManagerServiceException {
         try {
+            Map<String, Integer> recordedStatuses = new HashMap<>();
+            for (Object[] businessRuleWithStatus : queryExecutor.executeRetrieveBusinessRulesWithStatus(null, null,
+                    null, null, 0, -1)) {
+                recordedStatuses.put(((BusinessRule) businessRuleWithStatus[0]).getUuid(),
+                        (Integer) businessRuleWithStatus[1]);
+            }
             Map<String, BusinessRule> businessRules = loadBusinessRulesFromDB();
             for (Map.Entry entry : businessRules.entrySet()) {
                 BusinessRule businessRule = (BusinessRule) entry.getValue();
+                if (nodeDeployer.isDeploymentInProgress(businessRule.getUuid())) {
+                    // The status is recorded by the deployment when it completes
+                    continue;
+                }
                 int status = getDeploymentState(businessRule);
-                queryExecutor.executeUpdateDeploymentStatusQuery(businessRule.getUuid(), status);
+                if (!Objects.equals(recordedStatuses.get(businessRule.getUuid()), status)) {
+                    queryExecutor.executeUpdateDeploymentStatusQuery(businessRule.getUuid(), status);
+                }
             }
         } catch (BusinessRulesDatasourceException e) {
             throw new TemplateManagerServiceException("Failed to update statuses of available business rules. ", e);
         }
     }
 
+    private void updateStatusesInBackground() {
+        try {
+            updateStatuses();
+        } catch (TemplateManagerServiceException | RuntimeException e) {
+            log.error("Failed to update the deployment statuses of the business rules from the worker nodes. ", e);
+        }
+    }
+
     private boolean isDeployedInNode(String nodeURL, String siddhiAppName) throws SiddhiAppsApiHelperException {
         String status = siddhiAppApiHelper.getStatus(nodeURL, siddhiAppName);
         return ("active".equalsIgnoreCase(status));
@@ -1044,10 +1048,8 @@ public class TemplateManagerService implements BusinessRulesService {
         // Process script and get variables when script is present
         if (ruleTemplate.getScript() != null) {
             String templatedScript = ruleTemplate.getScript();
-            String runnableScript = TemplateManagerHelper.replaceTemplateString(templatedScript,
-                    businessRuleFromTemplate.getProperties());
             Map<String, String> scriptGeneratedVariables = TemplateManagerHelper.
-                    getScriptGeneratedVariables(runnableScript);
+                    getScriptGeneratedVariables(templatedScript, businessRuleFromTemplate.getProperties());
             replacementValues.putAll(scriptGeneratedVariables);
         }
         Map<String, Artifact> constructedArtifacts = new HashMap<>();
@@ -1086,18 +1088,14 @@ public class TemplateManagerService implements BusinessRulesService {
         // Process script and get variables when script is present
         if (inputRuleTemplate.getScript() != null) {
             String inputRuleTemplateScript = inputRuleTemplate.getScript();
-            String runnableInputScript = TemplateManagerHelper.replaceTemplateString(inputRuleTemplateScript,
-                    businessRuleFromScratch.getProperties().getInputData());
             Map<String, String> inputScriptGeneratedVariables = TemplateManagerHelper.getScriptGeneratedVariables
-                    (runnableInputScript);
+                    (inputRuleTemplateScript, businessRuleFromScratch.getProperties().getInputData());
             inputPropertiesToMap.putAll(inputScriptGeneratedVariables);
         }
         if (outputRuleTemplate.getScript() != null) {
             String outputRuleTemplateScript = outputRuleTemplate.getScript();
-            String runnableOutputScript = TemplateManagerHelper.replaceTemplateString(outputRuleTemplateScript,
-                    businessRuleFromScratch.getProperties().getOutputData());
             Map<String, String> outputScriptGeneratedVariables = TemplateManagerHelper.getScriptGeneratedVariables
-                    (runnableOutputScript);
+                    (outputRuleTemplateScript, businessRuleFromScratch.getProperties().getOutputData());
             outputPropertiesToMap.putAll(outputScriptGeneratedVariables);
         }
 
@@ -1461,17 +1459,34 @@ public class TemplateManagerService implements BusinessRulesService {
     }
 
     /**
-     * @param nodeURL   : URL of the node on which artifacts are going to be updated
-     * @param artifacts : Mao of artifacts to be updated
+     * @param nodeURL           : URL of the node on which artifacts are going to be updated
+     * @param artifacts         : Mao of artifacts to be updated
+     * @param updatedArtifacts  : UUIDs of the artifacts already updated on the node, which are skipped
+     * @param continueOnFailure : whether to update the remaining artifacts when updating one of them fails
      * @throws SiddhiAppsApiHelperException : occurs when dealing with SiddhiAppsApi
      */
-    private void updateDeployedArtifacts(String nodeURL, Map<String, Artifact> artifacts) throws
-            SiddhiAppsApiHelperException {
-        for (Map.Entry entry : artifacts.entrySet()) {
-            Artifact artifact = (Artifact) entry.getValue();
-            if (artifact.getType().equals(TemplateManagerConstants.TEMPLATE_TYPE_SIDDHI_APP)) {
-                updateDeployedSiddhiApp(nodeURL, artifact);
+    private void updateDeployedArtifacts(String nodeURL, Map<String, Artifact> artifacts,
+                                         Set<String> updatedArtifacts, boolean continueOnFailure)
+            throws SiddhiAppsApiHelperException {
+        SiddhiAppsApiHelperException failure = null;
+        for (Map.Entry<String, Artifact> entry : artifacts.entrySet()) {
+            if (updatedArtifacts.contains(entry.getKey())) {
+                continue;
             }
+            try {
+                updateDeployedArtifact(nodeURL, entry.getValue());
+                updatedArtifacts.add(entry.getKey());
+            } catch (SiddhiAppsApiHelperException e) {
+                if (!continueOnFailure) {
+                    throw e;
+                }
+                log.error(String.format("Deploying artifact with uuid %s on node %s is failed. ",
+                        LogEncoder.removeCRLFCharacters(entry.getKey()), removeCRLFCharacters(nodeURL)), e);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+/**
+ * Pool of JavaScript engines used to run rule template scripts. Starting an engine is far more expensive than running
+ * a template script, hence engines are reused, and each of them keeps the scripts it compiled. Every script runs with
+ * new global bindings, so that the variables of one script are never visible to another. Scripts of templates are
+ * compiled with their templated elements replaced by variables, so that a template is compiled once for all the
+ * values of its elements.
+ */
+final class ScriptEnginePool {
+    private static final int MAX_COMPILED_SCRIPTS_PER_ENGINE = 100;
+    private static final BlockingQueue<PooledEngine> idleEngines =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    private static ScriptEngineManager scriptEngineManager;
+
+    private ScriptEnginePool() {
+    }
+
+    /**
+     * Runs the given script.
+     *
+     * @param script JavaScript
+     * @return Global bindings of the script, after running it
+     * @throws ScriptException when the script fails
+     */
+    static Bindings eval(String script) throws ScriptException {
+        return eval(script, Collections.emptyMap());
+    }
+
+    /**
+     * Runs the given script, with the given variables bound to it.
+     *
+     * @param script    JavaScript
+     * @param variables Values of the global variables of the script
+     * @return Global bindings of the script, after running it
+     * @throws ScriptException when the script fails
+     */
+    static Bindings eval(String script, Map<String, Object> variables) throws ScriptException {
+        PooledEngine engine = idleEngines.poll();
+        if (engine == null) {
+            engine = new PooledEngine(getScriptEngineManager().getEngineByName("JavaScript"));
+        }
+        try {
+            return engine.eval(script, variables);
+        } finally {
+            // Engines beyond the pool capacity are discarded
+            idleEngines.offer(engine);
+        }
+    }
+
+    private static synchronized ScriptEngineManager getScriptEngineManager() {
+        if (scriptEngineManager == null) {
+            scriptEngineManager = new ScriptEngineManager();
+        }
+        return scriptEngineManager;
+    }
+
+    private static class PooledEngine {
+        private final ScriptEngine engine;
+        private final Map<String, CompiledScript> compiledScripts =
+                new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                        return size() > MAX_COMPILED_SCRIPTS_PER_ENGINE;
+                    }
+                };
+
+        private PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        private Bindings eval(String script, Map<String, Object> variables) throws ScriptException {
+            Bindings bindings = engine.createBindings();
+            bindings.putAll(variables);
+            if (!(engine instanceof Compilable)) {
+                engine.eval(script, bindings);
+                return bindings;
+            }
+            CompiledScript compiledScript = compiledScripts.get(script);
+            if (compiledScript == null) {
+                compiledScript = ((Compilable) engine).compile(script);
+                compiledScripts.put(script, compiledScript);
+            }
+            compiledScript.eval(bindings);
+            return bindings;
+        }
+    }
+}
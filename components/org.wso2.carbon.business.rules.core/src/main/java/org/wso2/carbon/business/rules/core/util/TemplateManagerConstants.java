@@ -82,6 +82,7 @@ public class TemplateManagerConstants {
     public static final int SCRIPT_EXECUTION_ERROR = 7;
     public static final int SUCCESSFULLY_UNDEPLOYED = 8;
     public static final int UNDEPLOYMENT_FAILURE = 9;
+    public static final int DEPLOYMENT_IN_PROGRESS = 10;
 
     // Directory locations
     private static final String CARBON_RUNTIME = Utils.getRuntimePath().toString();
@@ -22,7 +22,6 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.text.StrSubstitutor;
 import org.wso2.carbon.business.rules.core.bean.RuleTemplate;
 import org.wso2.carbon.business.rules.core.bean.RuleTemplateProperty;
 import org.wso2.carbon.business.rules.core.bean.Template;
@@ -41,21 +40,21 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import javax.script.ScriptContext;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
-import javax.script.SimpleScriptContext;
 
 /**
  * Consists of methods for additional features for the exposed Template Manager service
  */
 public class TemplateManagerHelper {
+    // Largest integer up to which all integers are exactly represented by a double
+    private static final double MAX_EXACT_INTEGER = 9007199254740992d;
     private static Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
 
     /**
@@ -256,10 +255,8 @@ public class TemplateManagerHelper {
         if (scriptWithTemplatedElements != null) {
             /* Replace the the templated properties in the script with their default values , run the script, and add
          variables generated from that to the hashmap */
-            String runnableScript =
-                    TemplateManagerHelper.replaceTemplateString(scriptWithTemplatedElements, propertyReplacements);
             Map<String, String> scriptGeneratedVariables = TemplateManagerHelper.
-                    getScriptGeneratedVariables(runnableScript);
+                    getScriptGeneratedVariables(scriptWithTemplatedElements, propertyReplacements);
             propertyReplacements.putAll(scriptGeneratedVariables);
         }
         // Validate each template for replacement value
@@ -417,8 +414,7 @@ public class TemplateManagerHelper {
      */
     public static String replaceTemplateString(String templateString, Map<String, String> replacementValues) throws
             TemplateManagerHelperException {
-        StrSubstitutor substitutor = new StrSubstitutor(replacementValues);
-        String replacedString = substitutor.replace(templateString);
+        String replacedString = TemplateTokens.of(templateString).replace(replacementValues);
         // If any templated value has no replacements
         if (replacedString.contains(TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX)) {
             throw new TemplateManagerHelperException("No matching replacement found for the value - " +
@@ -466,27 +462,70 @@ public class TemplateManagerHelper {
      * @throws TemplateManagerHelperException
      */
     public static Map<String, String> getScriptGeneratedVariables(String script) throws RuleTemplateScriptException {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine engine = manager.getEngineByName("JavaScript");
-        ScriptContext scriptContext = new SimpleScriptContext();
-        scriptContext.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
         try {
             // Run script
-            engine.eval(script);
-            Map<String, Object> returnedScriptContextBindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+            return toScriptVariables(ScriptEnginePool.eval(script), Collections.emptySet());
+        } catch (ScriptException e) {
+            throw new RuleTemplateScriptException(e.getCause().getMessage(), e);
+        }
+    }
 
-            // Variable names and their values as strings, from the script context binding
-            Map<String, String> scriptVariables = new HashMap<>();
-            for (Map.Entry scriptVariable : returnedScriptContextBindings.entrySet()) {
-                if (scriptVariable.getValue() == null) {
-                    scriptVariables.put(scriptVariable.getKey().toString(), null);
-                } else {
-                    scriptVariables.put(scriptVariable.getKey().toString(), scriptVariable.getValue().toString());
-                }
-            }
-            return scriptVariables;
+    /**
+     * Runs the script of a rule template with the given values of its templated elements, and gives all the variables
+     * specified in the script. The script is compiled once, with the values bound to it, unless a value is script
+     * code, in which case the values are substituted into the script.
+     *
+     * @param templatedScript   Script with templated elements
+     * @param replacementValues Values of the templated elements
+     * @return Map of Strings
+     * @throws RuleTemplateScriptException    when the script fails
+     * @throws TemplateManagerHelperException when a templated element has no value
+     */
+    public static Map<String, String> getScriptGeneratedVariables(String templatedScript,
+                                                                  Map<String, String> replacementValues)
+            throws RuleTemplateScriptException, TemplateManagerHelperException {
+        TemplatedScript script = TemplatedScript.of(templatedScript);
+        Map<String, Object> variables = script.getVariables(replacementValues);
+        if (variables == null) {
+            return getScriptGeneratedVariables(replaceTemplateString(templatedScript, replacementValues));
+        }
+        try {
+            return toScriptVariables(ScriptEnginePool.eval(script.getSource(), variables), variables.keySet());
         } catch (ScriptException e) {
             throw new RuleTemplateScriptException(e.getCause().getMessage(), e);
         }
     }
+
+    /**
+     * Variable names and their values as strings, from the script context binding
+     */
+    private static Map<String, String> toScriptVariables(Map<String, Object> returnedScriptContextBindings,
+                                                         Set<String> boundVariables) {
+        Map<String, String> scriptVariables = new HashMap<>();
+        for (Map.Entry scriptVariable : returnedScriptContextBindings.entrySet()) {
+            if (boundVariables.contains(scriptVariable.getKey())) {
+                continue;
+            }
+            if (scriptVariable.getValue() == null) {
+                scriptVariables.put(scriptVariable.getKey().toString(), null);
+            } else {
+                scriptVariables.put(scriptVariable.getKey().toString(), toString(scriptVariable.getValue()));
+            }
+        }
+        return scriptVariables;
+    }
+
+    /**
+     * Converts a script value to a string. Whole numbers are given without a fraction as in JavaScript, since whether
+     * the engine holds them as integers or doubles depends on whether their values were bound or in the script.
+     */
+    private static String toString(Object value) {
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (number == Math.rint(number) && Math.abs(number) <= MAX_EXACT_INTEGER) {
+                return Long.toString((long) number);
+            }
+        }
+        return value.toString();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.util;
+
+import org.apache.commons.lang3.text.StrSubstitutor;
+import org.wso2.carbon.business.rules.core.exceptions.TemplateManagerHelperException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A template, split into its literal parts and the names of the elements templated within '${' and '}'. Templates
+ * are tokenized once and cached, so that replacing the templated elements of a template is a single pass.
+ */
+final class TemplateTokens {
+    private static final int MAX_CACHED_TEMPLATES = 1000;
+    private static final String ESCAPED_PREFIX = "$" + TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX;
+    // Separates the name of an element from its default value, as in ${name:-default}
+    static final String DEFAULT_VALUE_DELIMITER = ":-";
+    private static final Map<String, TemplateTokens> cache = new ConcurrentHashMap<>();
+
+    private final String template;
+    // Literal parts, with a literal before each element name and one after the last element name
+    private final String[] literals;
+    private final String[] elementNames;
+    // Templates using escapes, nested elements or default values are replaced with StrSubstitutor, which supports them
+    private final boolean requiresSubstitutor;
+
+    private TemplateTokens(String template) {
+        this.template = template;
+        List<String> literalList = new ArrayList<>();
+        List<String> elementNameList = new ArrayList<>();
+        boolean useSubstitutor = template.contains(ESCAPED_PREFIX);
+        int position = 0;
+        while (true) {
+            int start = template.indexOf(TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX, position);
+            int end = start < 0 ? -1 : template.indexOf(TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_SUFFIX,
+                    start + TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX.length());
+            if (end < 0) {
+                literalList.add(template.substring(position));
+                break;
+            }
+            String elementName = template.substring(
+                    start + TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX.length(), end);
+            useSubstitutor |= elementName.contains(TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX) ||
+                    elementName.contains(DEFAULT_VALUE_DELIMITER);
+            literalList.add(template.substring(position, start));
+            elementNameList.add(elementName);
+            position = end + TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_SUFFIX.length();
+        }
+        this.literals = literalList.toArray(new String[0]);
+        this.elementNames = elementNameList.toArray(new String[0]);
+        this.requiresSubstitutor = useSubstitutor;
+    }
+
+    static TemplateTokens of(String template) {
+        TemplateTokens tokens = cache.get(template);
+        if (tokens == null) {
+            if (cache.size() >= MAX_CACHED_TEMPLATES) {
+                cache.clear();
+            }
+            tokens = new TemplateTokens(template);
+            cache.put(template, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Replaces the templated elements with the given values.
+     *
+     * @param replacementValues Values of the templated elements
+     * @return Template with the elements replaced
+     * @throws TemplateManagerHelperException when a templated element has no value
+     */
+    String replace(Map<String, String> replacementValues) throws TemplateManagerHelperException {
+        if (requiresSubstitutor) {
+            return new StrSubstitutor(replacementValues).replace(template);
+        }
+        StringBuilder replacedString = new StringBuilder(template.length());
+        for (int i = 0; i < elementNames.length; i++) {
+            String value = replacementValues.get(elementNames[i]);
+            if (value == null) {
+                throw new TemplateManagerHelperException("No matching replacement found for the value - " +
+                        elementNames[i]);
+            }
+            if (value.contains(TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX)) {
+                // Values referring to other elements are resolved recursively by StrSubstitutor
+                return new StrSubstitutor(replacementValues).replace(template);
+            }
+            replacedString.append(literals[i]).append(value);
+        }
+        return replacedString.append(literals[elementNames.length]).toString();
+    }
+}
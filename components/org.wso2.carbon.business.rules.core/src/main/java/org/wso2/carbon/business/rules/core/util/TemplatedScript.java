@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.util;
+
+import org.wso2.carbon.business.rules.core.exceptions.TemplateManagerHelperException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A rule template script, in which the templated elements are replaced with script variables, so that the script can
+ * be compiled once and run with the values of the elements bound to those variables. An element within a string
+ * literal is bound as a string, unless its value has escape sequences, quotes or line breaks, which are interpreted
+ * only when substituted. An element in code is bound only when its value is an integer or a boolean, since any other
+ * value is script code. Scripts that can not be rewritten, such as those having elements within regular expressions,
+ * with default values, or in code next to a name, a number, a '.' or another element, have no source, and their
+ * elements are substituted into the script instead.
+ */
+final class TemplatedScript {
+    static final String VARIABLE_PREFIX = "__templatedElement";
+    private static final int MAX_CACHED_SCRIPTS = 1000;
+    private static final String PREFIX = TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_PREFIX;
+    private static final String SUFFIX = TemplateManagerConstants.TEMPLATED_ELEMENT_PATTERN_SUFFIX;
+    private static final Pattern INTEGER_PATTERN = Pattern.compile("-?(0|[1-9]\\d{0,8})");
+    // Characters of a string value which are interpreted differently when substituted into a string literal
+    private static final Pattern LITERAL_SPECIAL_CHARACTERS = Pattern.compile("[\\\\'\"\\r\\n\\u2028\\u2029]");
+    private static final Set<String> KEYWORDS_BEFORE_EXPRESSION = new HashSet<>(Arrays.asList("return", "typeof",
+            "case", "do", "else", "in", "instanceof", "new", "delete", "void", "throw"));
+    private static final Map<String, TemplatedScript> cache = new ConcurrentHashMap<>();
+
+    private final String template;
+    // Names of the templated elements, including those within comments
+    private final Set<String> elementNames = new HashSet<>();
+    // Element name and whether it is in code, by the index of the variable it is bound to
+    private final List<String> variableElementNames = new ArrayList<>();
+    private final List<Boolean> variablesInCode = new ArrayList<>();
+    private final String source;
+
+    private TemplatedScript(String template) {
+        this.template = template;
+        this.source = rewrite();
+    }
+
+    static TemplatedScript of(String template) {
+        TemplatedScript script = cache.get(template);
+        if (script == null) {
+            if (cache.size() >= MAX_CACHED_SCRIPTS) {
+                cache.clear();
+            }
+            script = new TemplatedScript(template);
+            cache.put(template, script);
+        }
+        return script;
+    }
+
+    /**
+     * @return Script with the templated elements replaced by variables, or null if the script can not be rewritten
+     */
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Gives the values of the variables the templated elements are replaced with.
+     *
+     * @param replacementValues Values of the templated elements
+     * @return Variable values by variable name, or null if a value can not be bound to a variable
+     * @throws TemplateManagerHelperException when a templated element has no value
+     */
+    Map<String, Object> getVariables(Map<String, String> replacementValues) throws TemplateManagerHelperException {
+        if (source == null) {
+            return null;
+        }
+        for (String elementName : elementNames) {
+            if (replacementValues.get(elementName) == null) {
+                throw new TemplateManagerHelperException("No matching replacement found for the value - " +
+                        elementName);
+            }
+        }
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < variableElementNames.size(); i++) {
+            String value = replacementValues.get(variableElementNames.get(i));
+            if (!variablesInCode.get(i)) {
+                if (LITERAL_SPECIAL_CHARACTERS.matcher(value).find()) {
+                    return null;
+                }
+                variables.put(VARIABLE_PREFIX + i, value);
+            } else if (INTEGER_PATTERN.matcher(value).matches()) {
+                variables.put(VARIABLE_PREFIX + i, Integer.valueOf(value));
+            } else if (value.equals("true") || value.equals("false")) {
+                variables.put(VARIABLE_PREFIX + i, Boolean.valueOf(value));
+            } else {
+                return null;
+            }
+        }
+        return variables;
+    }
+
+    private String rewrite() {
+        if (template.contains("$" + PREFIX)) {
+            // Escaped elements are left to StrSubstitutor
+            return null;
+        }
+        StringBuilder rewritten = new StringBuilder(template.length());
+        // Last token before the current position, which tells whether a '/' starts a regular expression
+        char previous = 0;
+        String previousWord = "";
+        int position = 0;
+        while (position < template.length()) {
+            char current = template.charAt(position);
+            char next = position + 1 < template.length() ? template.charAt(position + 1) : 0;
+            int end;
+            if (template.startsWith(PREFIX, position)) {
+                end = addVariable(position, true);
+                if (end < 0 || !isSeparated(position, end)) {
+                    return null;
+                }
+                rewritten.append('(').append(VARIABLE_PREFIX).append(variableElementNames.size() - 1).append(')');
+                previous = ')';
+                previousWord = "";
+            } else if (current == '/' && (next == '/' || next == '*')) {
+                end = next == '/' ? template.indexOf('\n', position) : template.indexOf("*/", position + 2);
+                if (end < 0 && next == '*') {
+                    return null;
+                }
+                end = end < 0 ? template.length() : (next == '*' ? end + 2 : end);
+                if (!addCommentedElements(position, end)) {
+                    return null;
+                }
+                rewritten.append(template, position, end);
+            } else if (current == '\'' || current == '"') {
+                end = appendStringLiteral(position, rewritten);
+                if (end < 0) {
+                    return null;
+                }
+                previous = current;
+                previousWord = "";
+            } else if (current == '/' && isExpressionExpected(previous, previousWord)) {
+                end = getRegularExpressionEnd(position);
+                if (end < 0) {
+                    return null;
+                }
+                rewritten.append(template, position, end);
+                // A regular expression is an operand, hence a '/' after it is a division
+                previous = ')';
+                previousWord = "";
+            } else if (Character.isJavaIdentifierPart(current)) {
+                end = position;
+                while (end < template.length() && Character.isJavaIdentifierPart(template.charAt(end)) &&
+                        !template.startsWith(PREFIX, end)) {
+                    end++;
+                }
+                previousWord = template.substring(position, end);
+                previous = template.charAt(end - 1);
+                rewritten.append(previousWord);
+            } else {
+                end = position + 1;
+                rewritten.append(current);
+                if (!Character.isWhitespace(current)) {
+                    previous = current;
+                    previousWord = "";
+                }
+            }
+            position = end;
+        }
+        return rewritten.toString();
+    }
+
+    /**
+     * @return Position after the regular expression literal starting at the given position, or -1 if it has a
+     * templated element or is not terminated
+     */
+    private int getRegularExpressionEnd(int start) {
+        boolean inClass = false;
+        int position = start + 1;
+        while (position < template.length()) {
+            char current = template.charAt(position);
+            if (current == '\n' || template.startsWith(PREFIX, position)) {
+                return -1;
+            } else if (current == '\\') {
+                position++;
+            } else if (current == '[') {
+                inClass = true;
+            } else if (current == ']') {
+                inClass = false;
+            } else if (current == '/' && !inClass) {
+                position++;
+                while (position < template.length() && Character.isJavaIdentifierPart(template.charAt(position))) {
+                    position++;
+                }
+                return position;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends a string literal, with the templated elements within it concatenated as variables.
+     *
+     * @return Position after the string literal, or -1 if the literal can not be rewritten
+     */
+    private int appendStringLiteral(int start, StringBuilder rewritten) {
+        char quote = template.charAt(start);
+        StringBuilder literal = new StringBuilder().append(quote);
+        boolean hasElements = false;
+        int position = start + 1;
+        while (position < template.length()) {
+            char current = template.charAt(position);
+            if (current == '\\' && position + 1 < template.length()) {
+                literal.append(current).append(template.charAt(position + 1));
+                position += 2;
+            } else if (current == quote) {
+                literal.append(quote);
+                rewritten.append(hasElements ? "(" + literal + ")" : literal);
+                return position + 1;
+            } else if (current == '\n') {
+                return -1;
+            } else if (template.startsWith(PREFIX, position)) {
+                position = addVariable(position, false);
+                if (position < 0) {
+                    return -1;
+                }
+                literal.append(quote).append(" + ").append(VARIABLE_PREFIX).append(variableElementNames.size() - 1)
+                        .append(" + ").append(quote);
+                hasElements = true;
+            } else {
+                literal.append(current);
+                position++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the templated element starting at the given position as a variable.
+     *
+     * @return Position after the element, or -1 if the element is not supported
+     */
+    private int addVariable(int start, boolean inCode) {
+        int end = template.indexOf(SUFFIX, start + PREFIX.length());
+        if (end < 0) {
+            return -1;
+        }
+        String elementName = template.substring(start + PREFIX.length(), end);
+        if (!isSupported(elementName)) {
+            return -1;
+        }
+        elementNames.add(elementName);
+        variableElementNames.add(elementName);
+        variablesInCode.add(inCode);
+        return end + SUFFIX.length();
+    }
+
+    /**
+     * Adds the names of the templated elements within a comment, which need values although they are not bound.
+     *
+     * @return Whether the elements are supported
+     */
+    private boolean addCommentedElements(int start, int end) {
+        int position = template.indexOf(PREFIX, start);
+        while (position >= 0 && position < end) {
+            int elementEnd = template.indexOf(SUFFIX, position + PREFIX.length());
+            if (elementEnd < 0 || elementEnd >= end) {
+                return false;
+            }
+            String elementName = template.substring(position + PREFIX.length(), elementEnd);
+            if (!isSupported(elementName)) {
+                return false;
+            }
+            elementNames.add(elementName);
+            position = template.indexOf(PREFIX, elementEnd);
+        }
+        return true;
+    }
+
+    /**
+     * Whether the element in code at the given range is separated from the tokens around it, so that replacing it
+     * with a parenthesized variable keeps the meaning of the script. An element next to a name, a number, a '.' or
+     * another element is part of a larger token, such as in ${count}000 or x${n}.
+     */
+    private boolean isSeparated(int start, int end) {
+        char before = start > 0 ? template.charAt(start - 1) : ' ';
+        char after = end < template.length() ? template.charAt(end) : ' ';
+        return !isTokenPart(before) && !isTokenPart(after) && !template.startsWith(PREFIX, end);
+    }
+
+    private static boolean isTokenPart(char character) {
+        return Character.isLetterOrDigit(character) || character == '_' || character == '$' || character == '.';
+    }
+
+    private static boolean isSupported(String elementName) {
+        return !elementName.isEmpty() && !elementName.contains(PREFIX) &&
+                !elementName.contains(TemplateTokens.DEFAULT_VALUE_DELIMITER);
+    }
+
+    /**
+     * Whether a '/' after the given token starts a regular expression literal, rather than being a division.
+     */
+    private static boolean isExpressionExpected(char previous, String previousWord) {
+        if (!previousWord.isEmpty()) {
+            return KEYWORDS_BEFORE_EXPRESSION.contains(previousWord);
+        }
+        return previous == 0 || "(,=:[!&|?{};+-*%<>~^".indexOf(previous) >= 0;
+    }
+}
@@ -32,6 +32,7 @@ import org.wso2.carbon.business.rules.core.util.TemplateManagerHelper;
 import org.wso2.carbon.business.rules.core.util.TestUtil;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -616,6 +617,142 @@ public class BusinessRulesManagerTestcase {
         }
     }
 
+    @Test
+    public void replaceRepeatedElementsTest() {
+        log.info("BusinessRulesManager Test : validating replacements of repeated and adjacent elements");
+        String templatedString = "${replace1}${replace2} ${replace1}-${replace2}${replace1}";
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("replace1", "A");
+        replacements.put("replace2", "B");
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                Assert.assertEquals(TemplateManagerHelper.replaceTemplateString(templatedString, replacements),
+                        "AB A-BA");
+            }
+        } catch (TemplateManagerHelperException e) {
+            log.error("Failed to process when values were provided. Hence failing the test", e);
+            Assert.fail("Failed to process when values were provided. Hence failing the test");
+        }
+    }
+
+    @Test
+    public void replaceDefaultValueTest() throws TemplateManagerHelperException {
+        log.info("BusinessRulesManager Test : validating replacements of elements with default values");
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("replace1", "A");
+        Assert.assertEquals(TemplateManagerHelper.replaceTemplateString("${replace1} ${replace2:-B}", replacements),
+                "A B");
+        replacements.put("replace2", "C");
+        Assert.assertEquals(TemplateManagerHelper.replaceTemplateString("${replace1} ${replace2:-B}", replacements),
+                "A C");
+    }
+
+    @Test
+    public void templatedScriptVariablesTest() throws RuleTemplateScriptException, TemplateManagerHelperException {
+        log.info("BusinessRulesManager Test : validating variables of scripts with bound templated elements");
+        String templatedScript = "var timeRange = validateTimeRange(${timeRangeInput});\n" +
+                "var username = getUsername('${email}');\n" +
+                "var half = ${timeRangeInput} / 2;\n" +
+                "var enabled = ${enabled} ? 'yes' : 'no';\n" +
+                "// Validates the input provided for time range, such as ${timeRangeInput}\n" +
+                "function validateTimeRange(number) {\n" +
+                "\tif (!isNaN(number) && (number > 0)) {\n" +
+                "\t\treturn number;\n" +
+                "\t}\n" +
+                "\tthrow 'A positive number expected for time range';\n" +
+                "}\n" +
+                "function getUsername(email) {\n" +
+                "\tif (email.match(/^\\S+@\\S+$/)) {\n" +
+                "\t\treturn email.split('@')[0];\n" +
+                "\t}\n" +
+                "\tthrow 'Invalid email address provided';\n" +
+                "}";
+        for (String timeRange : new String[]{"5", "8"}) {
+            Map<String, String> replacements = new HashMap<String, String>();
+            replacements.put("timeRangeInput", timeRange);
+            replacements.put("email", "john@wso2.com");
+            replacements.put("enabled", "true");
+            Map<String, String> substitutedValues = TemplateManagerHelper.getScriptGeneratedVariables(
+                    TemplateManagerHelper.replaceTemplateString(templatedScript, replacements));
+            Map<String, String> boundValues = TemplateManagerHelper.getScriptGeneratedVariables(templatedScript,
+                    replacements);
+            Assert.assertEquals(boundValues, substitutedValues);
+            Assert.assertEquals(boundValues.get("timeRange"), timeRange);
+            Assert.assertEquals(boundValues.get("username"), "john");
+            Assert.assertEquals(boundValues.get("enabled"), "yes");
+        }
+
+        // Values which are script code are substituted into the script
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("timeRangeInput", "2 + 3");
+        replacements.put("email", "o'brien@wso2.com");
+        replacements.put("enabled", "false");
+        Map<String, String> values = TemplateManagerHelper.getScriptGeneratedVariables(
+                "var timeRange = ${timeRangeInput}; var username = \"${email}\";", replacements);
+        Assert.assertEquals(values.get("timeRange"), "5");
+        Assert.assertEquals(values.get("username"), "o'brien@wso2.com");
+
+        try {
+            TemplateManagerHelper.getScriptGeneratedVariables(templatedScript,
+                    Collections.singletonMap("email", "john@wso2.com"));
+            Assert.fail("Failed to detect a non-given replacement. Hence failing the test");
+        } catch (TemplateManagerHelperException e) {
+            Assert.assertTrue(e.getMessage().startsWith("No matching replacement found for the value - "));
+        }
+    }
+
+    @Test
+    public void templatedScriptAdjacentElementsTest() throws RuleTemplateScriptException,
+            TemplateManagerHelperException {
+        log.info("BusinessRulesManager Test : validating scripts with elements next to other tokens");
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("count", "5");
+        replacements.put("a", "1");
+        replacements.put("b", "2");
+        replacements.put("n", "3");
+        String templatedScript = "var limit = ${count}000; var joined = ${a}${b}; var x${n} = 1; " +
+                "var fixed = ${count}.5;";
+        Map<String, String> values = TemplateManagerHelper.getScriptGeneratedVariables(templatedScript,
+                replacements);
+        Assert.assertEquals(values, TemplateManagerHelper.getScriptGeneratedVariables(
+                TemplateManagerHelper.replaceTemplateString(templatedScript, replacements)));
+        Assert.assertEquals(values.get("limit"), "5000");
+        Assert.assertEquals(values.get("joined"), "12");
+        Assert.assertEquals(values.get("x3"), "1");
+        Assert.assertEquals(values.get("fixed"), "5.5");
+
+        // Escape sequences in a value are interpreted as they are when substituted into a string literal
+        replacements.put("path", "C:\\temp\\new");
+        replacements.put("text", "line1\\nline2");
+        templatedScript = "var path = '${path}'; var text = \"${text}\";";
+        values = TemplateManagerHelper.getScriptGeneratedVariables(templatedScript, replacements);
+        Assert.assertEquals(values, TemplateManagerHelper.getScriptGeneratedVariables(
+                TemplateManagerHelper.replaceTemplateString(templatedScript, replacements)));
+        Assert.assertEquals(values.get("path"), "C:\temp\new");
+        Assert.assertEquals(values.get("text"), "line1\nline2");
+    }
+
+    @Test
+    public void scriptVariablesIsolationTest() {
+        log.info("BusinessRulesManager Test : validating that script variables do not leak between scripts");
+        try {
+            Map<String, String> firstValues = TemplateManagerHelper.getScriptGeneratedVariables(
+                    "var variable1 = 'first';");
+            Assert.assertEquals(firstValues.get("variable1"), "first");
+            Map<String, String> secondValues = TemplateManagerHelper.getScriptGeneratedVariables(
+                    "var variable2 = typeof variable1;");
+            Assert.assertEquals(secondValues.get("variable2"), "undefined");
+            Assert.assertFalse(secondValues.containsKey("variable1"));
+            Map<String, String> repeatedValues = TemplateManagerHelper.getScriptGeneratedVariables(
+                    "var variable1 = 'first';");
+            Assert.assertEquals(repeatedValues, firstValues);
+        } catch (RuleTemplateScriptException e) {
+            log.error("Failed to process with a valid script. Hence failing the test", e);
+            Assert.fail("Failed to process with a valid script. Hence failing the test");
+        }
+    }
+
     @Test
     public void getScriptGeneratedVariablesTest() {
         log.info("BusinessRulesManager Test : validating script generated variables");
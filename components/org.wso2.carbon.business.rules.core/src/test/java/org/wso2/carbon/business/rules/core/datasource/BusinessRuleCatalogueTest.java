@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.datasource;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.business.rules.core.bean.BusinessRule;
+import org.wso2.carbon.business.rules.core.exceptions.BusinessRulesDatasourceException;
+import org.wso2.carbon.business.rules.core.util.TemplateManagerConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BusinessRuleCatalogueTest {
+    private static final long NO_RELOAD = Long.MAX_VALUE;
+
+    private InMemorySource source;
+
+    @BeforeMethod
+    public void init() {
+        source = new InMemorySource();
+        source.put("rule-1", "Sweet Production", "group-1", TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE,
+                TemplateManagerConstants.DEPLOYED);
+        source.put("rule-2", "Sweet Sales", "group-1", TemplateManagerConstants.BUSINESS_RULE_TYPE_SCRATCH,
+                TemplateManagerConstants.SAVED);
+        source.put("rule-3", "Toffee Production", "group-2", TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE,
+                TemplateManagerConstants.DEPLOYED);
+        source.put("rule-4", "Candy Sales", "group-2", TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE,
+                TemplateManagerConstants.PARTIALLY_DEPLOYED);
+    }
+
+    @Test
+    public void testFiltering() throws BusinessRulesDatasourceException {
+        BusinessRuleCatalogue catalogue = new BusinessRuleCatalogue(NO_RELOAD);
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, null, 0, -1)),
+                Arrays.asList("rule-1", "rule-2", "rule-3", "rule-4"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, "production", null, null, null, 0, -1)),
+                Arrays.asList("rule-1", "rule-3"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, "group-1", null, null, 0, -1)),
+                Arrays.asList("rule-1", "rule-2"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, "SCRATCH", null, 0, -1)),
+                Arrays.asList("rule-2"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, TemplateManagerConstants.DEPLOYED,
+                0, -1)), Arrays.asList("rule-1", "rule-3"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, "sales", "group-2",
+                TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE, TemplateManagerConstants.PARTIALLY_DEPLOYED,
+                0, -1)), Arrays.asList("rule-4"));
+        Assert.assertTrue(catalogue.list(source, "fudge", null, null, null, 0, -1).isEmpty());
+    }
+
+    @Test
+    public void testPagination() throws BusinessRulesDatasourceException {
+        BusinessRuleCatalogue catalogue = new BusinessRuleCatalogue(NO_RELOAD);
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, null, 0, 3)),
+                Arrays.asList("rule-1", "rule-2", "rule-3"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, null, 3, 3)),
+                Arrays.asList("rule-4"));
+        Assert.assertTrue(catalogue.list(source, null, null, null, null, 4, 3).isEmpty());
+        // The offset and limit apply to the matching business rules
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, TemplateManagerConstants.DEPLOYED,
+                1, 1)), Arrays.asList("rule-3"));
+        Assert.assertTrue(catalogue.list(source, null, null, null, null, 0, 0).isEmpty());
+    }
+
+    @Test
+    public void testInvalidation() throws BusinessRulesDatasourceException {
+        BusinessRuleCatalogue catalogue = new BusinessRuleCatalogue(NO_RELOAD);
+        catalogue.list(source, null, null, null, null, 0, -1);
+        catalogue.list(source, null, null, null, null, 0, -1);
+        Assert.assertEquals(source.readAllCount, 1);
+        Assert.assertTrue(source.readUUIDs.isEmpty());
+
+        // Updated and inserted business rules are read again, one by one
+        source.put("rule-2", "Sweet Returns", "group-1", TemplateManagerConstants.BUSINESS_RULE_TYPE_SCRATCH,
+                TemplateManagerConstants.SAVED);
+        source.put("rule-5", "Fudge Production", "group-1", TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE,
+                TemplateManagerConstants.SAVED);
+        catalogue.invalidate("rule-2");
+        catalogue.invalidate("rule-5");
+        Assert.assertEquals(getUUIDs(catalogue.list(source, "sweet", null, null, null, 0, -1)),
+                Arrays.asList("rule-1", "rule-2"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, "returns", null, null, null, 0, -1)),
+                Arrays.asList("rule-2"));
+        Assert.assertEquals(getUUIDs(catalogue.list(source, "fudge", null, null, null, 0, -1)),
+                Arrays.asList("rule-5"));
+        Assert.assertEquals(source.readAllCount, 1);
+        Assert.assertEquals(source.readUUIDs, Arrays.asList("rule-2", "rule-5"));
+
+        // Deletes and status updates are applied without reading
+        catalogue.remove("rule-1");
+        catalogue.updateDeploymentStatus("rule-3", TemplateManagerConstants.SAVED);
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, TemplateManagerConstants.SAVED,
+                0, -1)), Arrays.asList("rule-2", "rule-3", "rule-5"));
+        Assert.assertEquals(source.readAllCount, 1);
+        Assert.assertEquals(source.readUUIDs.size(), 2);
+
+        // A deleted business rule which was invalidated is dropped when it is read again
+        source.businessRules.remove("rule-5");
+        catalogue.invalidate("rule-5");
+        Assert.assertEquals(getUUIDs(catalogue.list(source, null, null, null, null, 0, -1)),
+                Arrays.asList("rule-2", "rule-3", "rule-4"));
+    }
+
+    @Test
+    public void testReloadedAfterInterval() throws BusinessRulesDatasourceException {
+        BusinessRuleCatalogue catalogue = new BusinessRuleCatalogue(0);
+        catalogue.list(source, null, null, null, null, 0, -1);
+        // Written by another node, hence not invalidated
+        source.put("rule-5", "Fudge Production", "group-1", TemplateManagerConstants.BUSINESS_RULE_TYPE_TEMPLATE,
+                TemplateManagerConstants.SAVED);
+        Assert.assertEquals(getUUIDs(catalogue.list(source, "fudge", null, null, null, 0, -1)),
+                Arrays.asList("rule-5"));
+        Assert.assertEquals(source.readAllCount, 2);
+    }
+
+    private static List<String> getUUIDs(List<Object[]> businessRules) {
+        List<String> uuids = new ArrayList<>();
+        for (Object[] businessRule : businessRules) {
+            uuids.add(((BusinessRule) businessRule[0]).getUuid());
+        }
+        return uuids;
+    }
+
+    private static class InMemorySource implements BusinessRuleCatalogue.Source {
+        private final Map<String, Object[]> businessRules = new LinkedHashMap<>();
+        private final List<String> readUUIDs = new ArrayList<>();
+        private int readAllCount;
+
+        private void put(String uuid, String name, String templateGroupUUID, String type, int deploymentStatus) {
+            businessRules.put(uuid, new Object[]{new BusinessRule(uuid, name, templateGroupUUID, type),
+                    deploymentStatus});
+        }
+
+        @Override
+        public List<Object[]> readAll() {
+            readAllCount++;
+            return new ArrayList<>(businessRules.values());
+        }
+
+        @Override
+        public Object[] read(String uuid) {
+            readUUIDs.add(uuid);
+            return businessRules.get(uuid);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.business.rules.core.deployer;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.business.rules.core.exceptions.SiddhiAppsApiHelperException;
+import org.wso2.carbon.business.rules.core.util.TemplateManagerConstants;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelNodeDeployerTest {
+    private static final String FAILED_OPERATION = "Failed to deploy";
+
+    private final ParallelNodeDeployer nodeDeployer = new ParallelNodeDeployer(1);
+
+    @Test
+    public void testDeploymentStatus() {
+        Assert.assertEquals(ParallelNodeDeployer.getDeploymentStatus(3, 3), TemplateManagerConstants.DEPLOYED);
+        Assert.assertEquals(ParallelNodeDeployer.getDeploymentStatus(1, 3),
+                TemplateManagerConstants.PARTIALLY_DEPLOYED);
+        Assert.assertEquals(ParallelNodeDeployer.getDeploymentStatus(0, 3),
+                TemplateManagerConstants.DEPLOYMENT_FAILURE);
+    }
+
+    @Test
+    public void testResultsAggregated() {
+        List<String> nodeList = Arrays.asList("node1:9443", "node2:9443", "node3:9443");
+        Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        ParallelNodeDeployer.NodeAction action = nodeURL -> {
+            attempts.computeIfAbsent(nodeURL, key -> new AtomicInteger()).incrementAndGet();
+            if (nodeURL.startsWith("node2")) {
+                throw new SiddhiAppsApiHelperException("Siddhi app already exists", 409);
+            }
+        };
+        Assert.assertEquals(nodeDeployer.deploy(nodeList, action, FAILED_OPERATION),
+                TemplateManagerConstants.PARTIALLY_DEPLOYED);
+        Assert.assertEquals(attempts.size(), nodeList.size());
+        for (String nodeURL : nodeList) {
+            Assert.assertEquals(attempts.get(nodeURL).get(), 1, nodeURL);
+        }
+
+        Assert.assertEquals(nodeDeployer.deploy(nodeList, nodeURL -> { }, FAILED_OPERATION),
+                TemplateManagerConstants.DEPLOYED);
+        Assert.assertEquals(nodeDeployer.deploy(nodeList, nodeURL -> {
+            throw new SiddhiAppsApiHelperException("Unexpected error", 500);
+        }, FAILED_OPERATION), TemplateManagerConstants.DEPLOYMENT_FAILURE);
+    }
+
+    @Test
+    public void testRetriedOnConnectFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        int status = nodeDeployer.deploy(Collections.singletonList("node1:9443"), nodeURL -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new SiddhiAppsApiHelperException("Cannot connect to the worker node",
+                        new RuntimeException(new ConnectException("Connection refused")));
+            }
+        }, FAILED_OPERATION);
+        Assert.assertEquals(status, TemplateManagerConstants.DEPLOYED);
+        Assert.assertEquals(attempts.get(), 3);
+    }
+
+    @Test
+    public void testRetriesLimited() {
+        AtomicInteger attempts = new AtomicInteger();
+        int status = nodeDeployer.deploy(Collections.singletonList("node1:9443"), nodeURL -> {
+            attempts.incrementAndGet();
+            throw new SiddhiAppsApiHelperException("Cannot connect to the worker node",
+                    new RuntimeException(new SocketTimeoutException("connect timed out")));
+        }, FAILED_OPERATION);
+        Assert.assertEquals(status, TemplateManagerConstants.DEPLOYMENT_FAILURE);
+        Assert.assertEquals(attempts.get(), 3);
+    }
+
+    @Test
+    public void testNotRetriedAfterRequestSent() {
+        AtomicInteger attempts = new AtomicInteger();
+        int status = nodeDeployer.deploy(Collections.singletonList("node1:9443"), nodeURL -> {
+            attempts.incrementAndGet();
+            throw new SiddhiAppsApiHelperException("Cannot connect to the worker node",
+                    new RuntimeException(new SocketTimeoutException("Read timed out")));
+        }, FAILED_OPERATION);
+        Assert.assertEquals(status, TemplateManagerConstants.DEPLOYMENT_FAILURE);
+        Assert.assertEquals(attempts.get(), 1);
+
+        attempts.set(0);
+        status = nodeDeployer.deploy(Collections.singletonList("node1:9443"), nodeURL -> {
+            attempts.incrementAndGet();
+            throw new SiddhiAppsApiHelperException("Failed to deploy siddhi app", new IllegalStateException());
+        }, FAILED_OPERATION);
+        Assert.assertEquals(status, TemplateManagerConstants.DEPLOYMENT_FAILURE);
+        Assert.assertEquals(attempts.get(), 1);
+    }
+}
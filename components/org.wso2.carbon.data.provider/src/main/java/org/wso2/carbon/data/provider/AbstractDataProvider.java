@@ -28,9 +28,6 @@ import org.wso2.carbon.data.provider.exception.DataProviderException;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract data provider class.
@@ -39,12 +36,11 @@ public abstract class AbstractDataProvider implements DataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDataProvider.class);
     private String topic;
     private String sessionId;
-    private ScheduledExecutorService dataPublishingExecutorService = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledExecutorService dataPurgingExecutorService = Executors.newSingleThreadScheduledExecutor();
     private long publishingInterval;
     private long purgingInterval;
     private boolean isPurgingEnable;
     private boolean isPaginationEnabled;
+    private volatile DataProviderPollingRegistry.PollingJob pollingJob;
 
     public DataProvider init(String topic, String sessionId, ProviderConfig providerConfig)
             throws DataProviderException {
@@ -65,25 +61,23 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public void stop() {
-        dataPublishingExecutorService.shutdown();
-        dataPurgingExecutorService.shutdown();
+        DataProviderPollingRegistry.unsubscribe(this);
     }
 
+    /**
+     * Subscribes the provider to the polling job of its data. Providers with the same sharing key share one job.
+     */
     @Override
     public void start() {
-        if (!this.isPaginationEnabled) {
-            this.dataPublishingExecutorService.scheduleAtFixedRate(() -> {
-                this.publish(this.topic, this.sessionId);
-            }, 0L, this.publishingInterval, TimeUnit.SECONDS);
-        }
-        if (isPurgingEnable) {
-            dataPublishingExecutorService.scheduleAtFixedRate(() -> {
-                purging();
-            }, 0, purgingInterval, TimeUnit.SECONDS);
-        }
+        DataProviderPollingRegistry.subscribe(this);
     }
 
     public void publishToEndPoint(ArrayList<Object[]> data, String sessionId, String topic) {
+        DataProviderPollingRegistry.PollingJob job = pollingJob;
+        if (job != null && job.isLeader(this) && sessionId.equals(this.sessionId) && topic.equals(this.topic)) {
+            job.publish(getMetadata(), data.toArray(new Object[0][0]));
+            return;
+        }
         DataModel dataModel = new DataModel(getMetadata(), data.toArray(new Object[0][0]), -1, topic);
         try {
             DataProviderEndPoint.sendText(sessionId, new Gson().toJson(dataModel));
@@ -92,6 +86,56 @@ public abstract class AbstractDataProvider implements DataProvider {
         }
     }
 
+    /**
+     * Key of the data published by the provider. Started providers with equal keys, and equal publishing and
+     * purging intervals, share one polling job which sends its result to all of their sessions.
+     *
+     * @return sharing key, or null if the data of the provider can not be shared with other sessions.
+     */
+    protected String getSharingKey() {
+        return null;
+    }
+
+    /**
+     * Takes over the polling state of the provider which previously polled the shared job of this provider.
+     *
+     * @param previousProvider provider which polled the job so far.
+     */
+    protected void inheritPollingState(AbstractDataProvider previousProvider) {
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    String getSessionId() {
+        return sessionId;
+    }
+
+    long getPublishingInterval() {
+        return publishingInterval;
+    }
+
+    long getPurgingInterval() {
+        return purgingInterval;
+    }
+
+    boolean isPurgingEnable() {
+        return isPurgingEnable;
+    }
+
+    boolean isPaginationEnabled() {
+        return isPaginationEnabled;
+    }
+
+    DataProviderPollingRegistry.PollingJob getPollingJob() {
+        return pollingJob;
+    }
+
+    void setPollingJob(DataProviderPollingRegistry.PollingJob pollingJob) {
+        this.pollingJob = pollingJob;
+    }
+
     @Override
     public abstract boolean configValidator(ProviderConfig providerConfig) throws DataProviderException;
 
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.data.provider.bean.DataModel;
+import org.wso2.carbon.data.provider.bean.DataSetMetadata;
+import org.wso2.carbon.data.provider.endpoint.DataProviderEndPoint;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the polling jobs of the started data providers. Providers polling the same data, identified by their
+ * sharing key and intervals, subscribe to one job which polls through one of them, the leader, and sends the result
+ * to the sessions of all of them. A provider joining a job gets the last result the job published, rather than polling
+ * its own, so that it does not get rows which the next result of the job sends again. Jobs run on a bounded scheduler
+ * shared by all the providers.
+ */
+final class DataProviderPollingRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataProviderPollingRegistry.class);
+    private static final String KEY_SEPARATOR = "\u0000";
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final AtomicLong unsharedJobCount = new AtomicLong();
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(POOL_SIZE, runnable -> {
+        Thread thread = new Thread(runnable, "DataProviderPoller-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, PollingJob> jobs = new HashMap<>();
+
+    static {
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    private DataProviderPollingRegistry() {
+    }
+
+    static void subscribe(AbstractDataProvider provider) {
+        String sharingKey = provider.isPaginationEnabled() ? null : provider.getSharingKey();
+        String key = sharingKey == null ? "unshared-" + unsharedJobCount.incrementAndGet() :
+                provider.getClass().getName() + KEY_SEPARATOR + provider.getPublishingInterval() + KEY_SEPARATOR +
+                        provider.isPurgingEnable() + KEY_SEPARATOR + provider.getPurgingInterval() + KEY_SEPARATOR +
+                        sharingKey;
+        boolean joined;
+        synchronized (jobs) {
+            PollingJob job = jobs.get(key);
+            joined = job != null;
+            if (joined) {
+                job.join(provider);
+            } else {
+                job = new PollingJob(key, provider);
+                jobs.put(key, job);
+                job.schedule();
+            }
+            provider.setPollingJob(job);
+        }
+        if (joined) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Session " + provider.getSessionId() + " joined the shared polling job of " +
+                        provider.providerName() + ".");
+            }
+        }
+    }
+
+    static void unsubscribe(AbstractDataProvider provider) {
+        synchronized (jobs) {
+            PollingJob job = provider.getPollingJob();
+            if (job == null) {
+                return;
+            }
+            provider.setPollingJob(null);
+            job.remove(provider);
+            if (job.subscribers.isEmpty()) {
+                job.cancel();
+                jobs.remove(job.key);
+            }
+        }
+    }
+
+    /**
+     * Polling job shared by the providers subscribed to it.
+     */
+    static final class PollingJob {
+        private final String key;
+        private final List<AbstractDataProvider> subscribers = new CopyOnWriteArrayList<>();
+        private volatile AbstractDataProvider leader;
+        private DataSetMetadata lastMetadata;
+        private Object[][] lastData;
+        private ScheduledFuture<?> publishingFuture;
+        private ScheduledFuture<?> purgingFuture;
+
+        private PollingJob(String key, AbstractDataProvider leader) {
+            this.key = key;
+            this.leader = leader;
+            this.subscribers.add(leader);
+        }
+
+        boolean isLeader(AbstractDataProvider provider) {
+            return leader == provider;
+        }
+
+        /**
+         * Sends the data published by the leader to the sessions of all the subscribers, serializing it once per
+         * topic.
+         */
+        synchronized void publish(DataSetMetadata metadata, Object[][] data) {
+            lastMetadata = metadata;
+            lastData = data;
+            Map<String, String> messages = new HashMap<>();
+            Gson gson = new Gson();
+            for (AbstractDataProvider subscriber : subscribers) {
+                String message = messages.computeIfAbsent(subscriber.getTopic(),
+                        topic -> gson.toJson(new DataModel(metadata, data, -1, topic)));
+                try {
+                    DataProviderEndPoint.sendText(subscriber.getSessionId(), message);
+                } catch (IOException e) {
+                    LOGGER.error("Failed to deliver message to client " + e.getMessage(), e);
+                }
+            }
+        }
+
+        /**
+         * Subscribes a provider to the job and sends it the last result of the job. Results published later are sent
+         * to it along with the other subscribers, and no result is sent to it twice as both happen under the lock of
+         * the job.
+         */
+        private synchronized void join(AbstractDataProvider provider) {
+            subscribers.add(provider);
+            if (lastData == null) {
+                // The job has not published yet, its first result is sent to the new subscriber as well
+                return;
+            }
+            try {
+                DataProviderEndPoint.sendText(provider.getSessionId(), new Gson().toJson(new DataModel(lastMetadata,
+                        lastData, -1, provider.getTopic())));
+            } catch (IOException e) {
+                LOGGER.error("Failed to deliver message to client " + e.getMessage(), e);
+            }
+        }
+
+        private void schedule() {
+            if (!leader.isPaginationEnabled()) {
+                publishingFuture = scheduler.scheduleAtFixedRate(this::poll, 0L, leader.getPublishingInterval(),
+                        TimeUnit.SECONDS);
+            }
+            if (leader.isPurgingEnable()) {
+                purgingFuture = scheduler.scheduleAtFixedRate(this::purge, 0L, leader.getPurgingInterval(),
+                        TimeUnit.SECONDS);
+            }
+        }
+
+        private synchronized void poll() {
+            AbstractDataProvider provider = leader;
+            try {
+                provider.publish(provider.getTopic(), provider.getSessionId());
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while publishing data of " + provider.providerName() + ". " + e.getMessage(), e);
+            }
+        }
+
+        private void purge() {
+            AbstractDataProvider provider = leader;
+            try {
+                provider.purging();
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while purging data of " + provider.providerName() + ". " + e.getMessage(), e);
+            }
+        }
+
+        private synchronized void remove(AbstractDataProvider provider) {
+            subscribers.remove(provider);
+            if (leader == provider && !subscribers.isEmpty()) {
+                AbstractDataProvider nextLeader = subscribers.get(0);
+                nextLeader.inheritPollingState(provider);
+                leader = nextLeader;
+            }
+        }
+
+        private void cancel() {
+            if (publishingFuture != null) {
+                publishingFuture.cancel(false);
+            }
+            if (purgingFuture != null) {
+                purgingFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -65,6 +65,7 @@ import static org.wso2.carbon.data.provider.utils.DataProviderValueHolder.getDat
 public class AbstractRDBMSDataProvider extends AbstractDataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractRDBMSDataProvider.class);
     private static final String DB2_DB_TYPE = "DB2";
+    private static final String SHARING_KEY_SEPARATOR = "\u0000";
     private String recordLimitQuery;
     private String purgingQuery;
     private String totalRecordCountQuery;
@@ -263,6 +264,23 @@ public class AbstractRDBMSDataProvider extends AbstractDataProvider {
         return rdbmsDataProviderConfBean;
     }
 
+    /**
+     * Key made of every configuration which changes the data polled or purged, including the query data of the
+     * client and the incremental column the streaming provider tracks its last record by.
+     */
+    @Override
+    protected String getSharingKey() {
+        if (recordLimitQuery == null) {
+            return null;
+        }
+        return rdbmsProviderConfig.getDatasourceName() + SHARING_KEY_SEPARATOR + rdbmsProviderConfig.getTableName() +
+                SHARING_KEY_SEPARATOR + rdbmsProviderConfig.getIncrementalColumn() + SHARING_KEY_SEPARATOR +
+                rdbmsProviderConfig.getTimeColumns() + SHARING_KEY_SEPARATOR +
+                rdbmsProviderConfig.getPublishingLimit() + SHARING_KEY_SEPARATOR +
+                rdbmsProviderConfig.getPurgingLimit() + SHARING_KEY_SEPARATOR + rdbmsProviderConfig.getQuery() +
+                SHARING_KEY_SEPARATOR + recordLimitQuery + SHARING_KEY_SEPARATOR + greaterThanWhereSQLQuery;
+    }
+
     @Override
     public void setProviderConfig(ProviderConfig providerConfig) {
         this.rdbmsProviderConfig = (RDBMSDataProviderConf) providerConfig;
@@ -18,6 +18,7 @@ package org.wso2.carbon.data.provider.rdbms;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.data.provider.AbstractDataProvider;
 import org.wso2.carbon.data.provider.DataProvider;
 import org.wso2.carbon.data.provider.bean.DataSetMetadata;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
@@ -39,7 +40,12 @@ import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.L
 )
 public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(RDBMSStreamingDataProvider.class);
-    private double lastRecordValue = 0;
+    private volatile double lastRecordValue = 0;
+
+    @Override
+    protected void inheritPollingState(AbstractDataProvider previousProvider) {
+        lastRecordValue = ((RDBMSStreamingDataProvider) previousProvider).lastRecordValue;
+    }
 
     @Override
     public void publish(String topic, String sessionId) {
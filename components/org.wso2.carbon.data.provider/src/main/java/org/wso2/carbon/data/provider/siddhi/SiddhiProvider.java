@@ -58,6 +58,7 @@ public class SiddhiProvider extends AbstractDataProvider {
     private static final String PULISHING_INTERVAL = "publishingInterval";
     private static final String TIME_COLUMNS = "timeColumns";
     private static final String QUERY = "query";
+    private static final String SHARING_KEY_SEPARATOR = "\u0000";
     private static final Pattern LIMIT_FILTER_REGEX = Pattern.compile("(?<=limit )([0-9]*)");
     private static final Pattern OFFSET_AND_VALUE_REGEX = Pattern.compile("(offset )(?<=offset )([0-9]*)");
     private static SiddhiManager siddhiManager = null;
@@ -193,6 +194,13 @@ public class SiddhiProvider extends AbstractDataProvider {
         }
     }
 
+    @Override
+    protected String getSharingKey() {
+        return siddhiDataProviderConfig.getSiddhiAppContext() + SHARING_KEY_SEPARATOR +
+                siddhiDataProviderConfig.getTimeColumns() + SHARING_KEY_SEPARATOR +
+                siddhiDataProviderConfig.getQueryData().getAsJsonObject().get(QUERY).getAsString();
+    }
+
     @Override
     public void purging() {
         //In siddhi-store provider, we do not have a requirement to purge the data.
@@ -19,6 +19,8 @@
 package org.wso2.carbon.data.provider;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.testng.Assert;
@@ -36,6 +38,7 @@ import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.data.provider.bean.DataModel;
 import org.wso2.carbon.data.provider.bean.DataSetMetadata;
 import org.wso2.carbon.data.provider.endpoint.DataProviderEndPoint;
+import org.wso2.carbon.data.provider.exception.DataProviderException;
 import org.wso2.carbon.data.provider.rdbms.RDBMSBatchDataProvider;
 import org.wso2.carbon.data.provider.rdbms.RDBMSStreamingDataProvider;
 import org.wso2.carbon.data.provider.rdbms.bean.RDBMSDataProviderConfBean;
@@ -53,6 +56,7 @@ import java.net.URISyntaxException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -380,4 +384,119 @@ public class RDBMSQueriesIT {
         Assert.assertEquals(dataModel.getLastRow(), expected.getLastRow());
         webSocketClient.shutDown();
     }
+
+    @Test(description = "RDBMS data providers of identical configurations share a polling job.")
+    public void sharedPollingJobTest() throws DataProviderException {
+        AbstractDataProvider provider1 = startStreamingDataProvider("session-1", "recipe_id",
+                "select * from Foo_Table");
+        AbstractDataProvider provider2 = startStreamingDataProvider("session-2", "recipe_id",
+                "select * from Foo_Table");
+        try {
+            Assert.assertNotNull(provider1.getSharingKey());
+            Assert.assertEquals(provider2.getSharingKey(), provider1.getSharingKey());
+            Assert.assertNotNull(provider1.getPollingJob());
+            Assert.assertSame(provider2.getPollingJob(), provider1.getPollingJob());
+        } finally {
+            provider1.stop();
+            provider2.stop();
+        }
+        Assert.assertNull(provider1.getPollingJob());
+        Assert.assertNull(provider2.getPollingJob());
+    }
+
+    @Test(description = "RDBMS data providers polling different data do not share a polling job.")
+    public void unsharedPollingJobTest() throws DataProviderException {
+        AbstractDataProvider provider = startStreamingDataProvider("session-1", "recipe_id",
+                "select * from Foo_Table");
+        AbstractDataProvider otherColumnProvider = startStreamingDataProvider("session-2", "recipe_name",
+                "select * from Foo_Table");
+        AbstractDataProvider otherQueryProvider = startStreamingDataProvider("session-3", "recipe_id",
+                "select * from Foo_Table where recipe_id > 1");
+        try {
+            Assert.assertNotEquals(otherColumnProvider.getSharingKey(), provider.getSharingKey());
+            Assert.assertNotEquals(otherQueryProvider.getSharingKey(), provider.getSharingKey());
+            Assert.assertNotSame(otherColumnProvider.getPollingJob(), provider.getPollingJob());
+            Assert.assertNotSame(otherQueryProvider.getPollingJob(), provider.getPollingJob());
+        } finally {
+            provider.stop();
+            otherColumnProvider.stop();
+            otherQueryProvider.stop();
+        }
+    }
+
+    @Test(description = "RDBMS streaming data providers sharing a polling job deliver each row once.",
+            dependsOnMethods = "dataBatchProviderPurgingTest")
+    public void sharedPollingJobDeliveryTest() throws InterruptedException, SQLException, URISyntaxException,
+            SSLException {
+        String message = "{" +
+                "\"providerName\": \"RDBMSStreamingDataProvider\"," +
+                "\"dataProviderConfiguration\": {" +
+                "\"datasourceName\": \"DEMO_DB\"," +
+                "\"queryData\": {\"query\": \"select * from Foo_Table\"}," +
+                "\"tableName\": \"Foo_Table\"," +
+                "\"incrementalColumn\": \"recipe_id\"," +
+                "\"publishingInterval\": 3," +
+                "\"purgingInterval\": 1000," +
+                "\"publishingLimit\": 1000," +
+                "\"purgingLimit\": 1000," +
+                "\"isPurgingEnable\": false" +
+                "}," +
+                "\"topic\": \"test-topic\"," +
+                "\"action\": \"subscribe\"" +
+                "}";
+        WebSocketClient webSocketClient1 = new WebSocketClient(dataproviderUrl);
+        WebSocketClient webSocketClient2 = new WebSocketClient(dataproviderUrl);
+        Assert.assertTrue(webSocketClient1.handhshake());
+        Assert.assertTrue(webSocketClient2.handhshake());
+        try {
+            webSocketClient1.sendText(message);
+            Thread.sleep(sleepTime);
+            // The row is inserted after the last poll of the job, so the job sends it on its next round
+            RDBMSTableTestUtils.insertRecords(4, "Pizza");
+            webSocketClient2.sendText(message);
+            Thread.sleep(sleepTime);
+            RDBMSTableTestUtils.insertRecords(5, "Pasta");
+            Thread.sleep(sleepTime);
+
+            List<Object> rows1 = getReceivedRows(webSocketClient1);
+            List<Object> rows2 = getReceivedRows(webSocketClient2);
+            Assert.assertEquals(rows1.size(), new HashSet<>(rows1).size(), String.valueOf(rows1));
+            Assert.assertEquals(rows2.size(), new HashSet<>(rows2).size(), String.valueOf(rows2));
+            Assert.assertTrue(rows1.contains(4.0) && rows1.contains(5.0), String.valueOf(rows1));
+            Assert.assertTrue(rows2.contains(5.0), String.valueOf(rows2));
+        } finally {
+            webSocketClient1.shutDown();
+            webSocketClient2.shutDown();
+        }
+    }
+
+    private List<Object> getReceivedRows(WebSocketClient webSocketClient) {
+        List<Object> recipeIds = new ArrayList<>();
+        for (String text : webSocketClient.getTextsReceived()) {
+            DataModel dataModel = new Gson().fromJson(text, DataModel.class);
+            for (Object[] row : dataModel.getData()) {
+                recipeIds.add(row[0]);
+            }
+        }
+        return recipeIds;
+    }
+
+    private AbstractDataProvider startStreamingDataProvider(String sessionId, String incrementalColumn,
+                                                            String query) throws DataProviderException {
+        JsonElement configuration = new JsonParser().parse("{" +
+                "\"datasourceName\": \"DEMO_DB\"," +
+                "\"queryData\": {\"query\": \"" + query + "\"}," +
+                "\"tableName\": \"Foo_Table\"," +
+                "\"incrementalColumn\": \"" + incrementalColumn + "\"," +
+                "\"publishingInterval\": 1000," +
+                "\"purgingInterval\": 1000," +
+                "\"publishingLimit\": 1000," +
+                "\"purgingLimit\": 1000," +
+                "\"isPurgingEnable\": false" +
+                "}");
+        AbstractDataProvider provider = new RDBMSStreamingDataProvider();
+        provider.init("test-topic", sessionId, configuration);
+        provider.start();
+        return provider;
+    }
 }
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.SSLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 
 /**
  * WebSocket client class for test
@@ -163,6 +164,13 @@ public class WebSocketClient {
         return handler.getTextReceived();
     }
 
+    /**
+     * @return all the texts received from the server, in the order they were received.
+     */
+    public List<String> getTextsReceived() {
+        return handler.getTextsReceived();
+    }
+
     /**
      * Shutdown the WebSocket Client.
      */
@@ -35,6 +35,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * WebSocket Client Handler for Testing.
@@ -48,6 +50,7 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
     private ChannelHandlerContext ctx;
 
     private String textReceived = "";
+    private final List<String> textsReceived = new ArrayList<>();
     private boolean isOpen = false;
 
     public WebSocketClientHandler(WebSocketClientHandshaker handshaker) {
@@ -100,6 +103,9 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
             TextWebSocketFrame textFrame = (TextWebSocketFrame) frame;
             logger.debug("WebSocket Client received text message: " + textFrame.text());
             textReceived = textFrame.text();
+            synchronized (textsReceived) {
+                textsReceived.add(textReceived);
+            }
         } else if (frame instanceof BinaryWebSocketFrame) {
             BinaryWebSocketFrame binaryFrame = (BinaryWebSocketFrame) frame;
             bufferReceived = binaryFrame.content().nioBuffer();
@@ -121,6 +127,15 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
         return textReceived;
     }
 
+    /**
+     * @return all the texts received from the server, in the order they were received.
+     */
+    public List<String> getTextsReceived() {
+        synchronized (textsReceived) {
+            return new ArrayList<>(textsReceived);
+        }
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         if (!handshakeFuture.isDone()) {
@@ -31,8 +31,10 @@ import org.wso2.carbon.event.simulator.core.internal.util.SimulationConfigUpload
 import org.wso2.carbon.event.simulator.core.service.EventSimulator;
 import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
 import org.wso2.carbon.event.simulator.core.service.EventSimulatorMap;
+import org.wso2.carbon.event.simulator.core.service.LoadGenerator;
 import org.wso2.carbon.event.simulator.core.service.bean.ActiveSimulatorData;
 import org.wso2.carbon.event.simulator.core.service.bean.ResourceDependencyData;
+import org.wso2.carbon.event.simulator.core.service.bean.SimulationStatusResponse;
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
 import org.wso2.carbon.streaming.integrator.common.exception.ResponseMapper;
 import org.wso2.carbon.utils.Utils;
@@ -48,7 +50,8 @@ import javax.ws.rs.core.Response;
 @javax.annotation.Generated(value = "io.swagger.codegen.languages.JavaMSF4JServerCodegen",
                             date = "2017-07-20T09:30:14.336Z")
 public class FeedApiServiceImpl extends FeedApiService {
-    private static final ExecutorService executorServices = Executors.newFixedThreadPool(10);
+    // each running simulation holds a thread, hence the pool is not bounded to a fixed number of simulations
+    private static final ExecutorService executorServices = Executors.newCachedThreadPool();
     private static final String PERMISSION_APP_NAME = "SIM";
     private static final String MANAGE_SIMULATOR_PERMISSION_STRING = "simulator.manage";
     private static final String VIEW_SIMULATOR_PERMISSION_STRING = "simulator.view";
@@ -336,6 +339,14 @@ public class FeedApiServiceImpl extends FeedApiService {
                 .get(simulationName);
         if (activeSimulatorData != null) {
             EventSimulator eventSimulator = activeSimulatorData.getEventSimulator();
+            LoadGenerator loadGenerator = eventSimulator.getLoadGenerator();
+            if (loadGenerator != null) {
+                return Response.ok()
+                        .header("Access-Control-Allow-Origin", "*")
+                        .entity(new SimulationStatusResponse(Response.Status.OK, eventSimulator.getStatus().name(),
+                                                             loadGenerator.getStatistics()))
+                        .build();
+            }
             return Response.ok()
                     .header("Access-Control-Allow-Origin", "*")
                     .entity(new ResponseMapper(Response.Status.OK, eventSimulator.getStatus().name()))
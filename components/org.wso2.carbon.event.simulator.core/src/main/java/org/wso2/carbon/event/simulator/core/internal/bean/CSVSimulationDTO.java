@@ -18,6 +18,8 @@
 package org.wso2.carbon.event.simulator.core.internal.bean;
 
 
+import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
+
 import java.util.List;
 
 /**
@@ -32,6 +34,10 @@ public class CSVSimulationDTO extends StreamConfigurationDTO {
      * Flag to indicate whether the CSV records are ordered by timestamp or not
      */
     private boolean isOrdered = true;
+    /**
+     * Maximum number of records sorted in memory at once when the CSV records are not ordered by timestamp
+     */
+    private int sortChunkSize = EventSimulatorConstants.DEFAULT_SORT_CHUNK_SIZE;
 
     public CSVSimulationDTO() {
     }
@@ -60,6 +66,14 @@ public class CSVSimulationDTO extends StreamConfigurationDTO {
         isOrdered = ordered;
     }
 
+    public int getSortChunkSize() {
+        return sortChunkSize;
+    }
+
+    public void setSortChunkSize(int sortChunkSize) {
+        this.sortChunkSize = sortChunkSize;
+    }
+
     public List<Integer> getIndices() {
         return indices;
     }
@@ -74,6 +88,7 @@ public class CSVSimulationDTO extends StreamConfigurationDTO {
                 "\n fileName : " + fileName +
                 "\n delimiter : " + delimiter +
                 "\n isOrdered : " + isOrdered +
+                (isOrdered ? "" : "\n sortChunkSize : " + sortChunkSize) +
                 "\n indices : " + indices + "\n";
 
     }
@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.event.simulator.core.internal.bean;
 
+import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
+
 import java.util.List;
 
 /**
@@ -31,6 +33,10 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
     private String password;
     private String tableName;
     private List<String> columnNames;
+    /**
+     * Number of rows read from the database at once
+     */
+    private int fetchSize = EventSimulatorConstants.DEFAULT_FETCH_SIZE;
 
 
     public DBSimulationDTO() {
@@ -85,6 +91,14 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
         this.columnNames = columns;
     }
 
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
     @Override
     public String toString() {
         return getStreamConfiguration() +
@@ -93,6 +107,7 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
                 "\n username : " + username +
                 "\n password : " + password +
                 "\n tableName : " + tableName +
-                "\n columnNames : " + columnNames + "\n";
+                "\n columnNames : " + columnNames +
+                "\n fetchSize : " + fetchSize + "\n";
     }
 }
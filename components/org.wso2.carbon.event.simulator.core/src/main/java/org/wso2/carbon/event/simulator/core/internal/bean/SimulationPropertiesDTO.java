@@ -30,6 +30,10 @@ public class SimulationPropertiesDTO {
     private int noOfEventsRequired;
     private long startTimestamp;
     private long endTimestamp;
+    private double targetEventsPerSecond = -1;
+    private long rampUpTime;
+    private long duration = -1;
+    private int threadCount = 1;
 
     public String getSimulationName() {
         return simulationName;
@@ -79,4 +83,43 @@ public class SimulationPropertiesDTO {
         this.endTimestamp = endTimestamp;
     }
 
+    public double getTargetEventsPerSecond() {
+        return targetEventsPerSecond;
+    }
+
+    public void setTargetEventsPerSecond(double targetEventsPerSecond) {
+        this.targetEventsPerSecond = targetEventsPerSecond;
+    }
+
+    public long getRampUpTime() {
+        return rampUpTime;
+    }
+
+    public void setRampUpTime(long rampUpTime) {
+        this.rampUpTime = rampUpTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @return whether events are generated at a target rate rather than at a fixed time interval
+     */
+    public boolean isLoadGeneration() {
+        return targetEventsPerSecond > 0;
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * EventGeneratorScheduler merges the events of several event generators in the order of their timestamps.
+ * The generators are kept in a min heap keyed by the timestamp of their next event, so that finding the next event
+ * costs O(log n) for n generators. Generators having events with the same timestamp are ordered as they are listed.
+ */
+public class EventGeneratorScheduler {
+    private final List<EventGenerator> generators;
+    private final PriorityQueue<ScheduledGenerator> heap;
+
+    public EventGeneratorScheduler(List<EventGenerator> generators) {
+        this.generators = generators;
+        this.heap = new PriorityQueue<>(Math.max(generators.size(), 1),
+                Comparator.<ScheduledGenerator>comparingLong(scheduledGenerator -> scheduledGenerator.timestamp)
+                        .thenComparingInt(scheduledGenerator -> scheduledGenerator.order));
+        reset();
+    }
+
+    /**
+     * reset() rebuilds the schedule from the next events of the generators. This must be called whenever the next
+     * events of the generators are changed without polling them through the scheduler, e.g. when resuming them.
+     */
+    public void reset() {
+        heap.clear();
+        for (int i = 0; i < generators.size(); i++) {
+            schedule(new ScheduledGenerator(generators.get(i), i));
+        }
+    }
+
+    /**
+     * peek() returns the generator having the event with the least timestamp
+     *
+     * @return the generator to be polled next, or null if none of the generators have more events
+     */
+    public EventGenerator peek() {
+        ScheduledGenerator head = heap.peek();
+        return head == null ? null : head.generator;
+    }
+
+    /**
+     * poll() retrieves the event with the least timestamp, and schedules the next event of its generator
+     *
+     * @return the event with the least timestamp, or null if none of the generators have more events
+     */
+    public Event poll() {
+        ScheduledGenerator head = heap.poll();
+        if (head == null) {
+            return null;
+        }
+        Event event = head.generator.poll();
+        schedule(head);
+        return event;
+    }
+
+    private void schedule(ScheduledGenerator scheduledGenerator) {
+        Event nextEvent = scheduledGenerator.generator.peek();
+        if (nextEvent != null) {
+            scheduledGenerator.timestamp = nextEvent.getTimestamp();
+            heap.add(scheduledGenerator);
+        }
+    }
+
+    /**
+     * ScheduledGenerator is a heap entry holding the timestamp of the next event of a generator
+     */
+    private static class ScheduledGenerator {
+        private final EventGenerator generator;
+        private final int order;
+        private long timestamp;
+
+        private ScheduledGenerator(EventGenerator generator, int order) {
+            this.generator = generator;
+            this.order = order;
+        }
+    }
+}
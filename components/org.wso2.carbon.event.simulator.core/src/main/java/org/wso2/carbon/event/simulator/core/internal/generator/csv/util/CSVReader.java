@@ -19,8 +19,6 @@
 package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
 
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
@@ -42,9 +40,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.TreeMap;
 
 
 /**
@@ -54,7 +50,6 @@ public class CSVReader {
     private final Logger log = LoggerFactory.getLogger(CSVReader.class);
     private Reader fileReader = null;
     private BufferedReader bufferedReader = null;
-    private CSVParser csvParser = null;
     private long lineNumber = 0;
     private long eventNumber = 0;
 
@@ -191,123 +186,22 @@ public class CSVReader {
 
 
     /**
-     * If the CSV is not ordered by timestamp, getEventsMap() method is used to create a treeMap of events.
+     * getCSVFormat() method returns the format used to parse a CSV file having the given delimiter
      *
-     * @param csvConfig        configuration of csv simulation
-     * @param streamAttributes list of attributes of the stream to which events are produced
-     * @param startTimestamp   start timestamp of event simulation
-     * @param endTimestamp     end timestamp of event simulation
-     * @return treeMap of events
-     */
-    public TreeMap<Long, ArrayList<Event>> getEventsMap(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes,
-                                                        long startTimestamp, long endTimestamp) {
-        try {
-            csvParser = parseFile(csvConfig.getDelimiter());
-            return createEventsMap(csvConfig, streamAttributes, startTimestamp,
-                    endTimestamp);
-        } catch (IOException e) {
-            log.error("Error occurred when initializing CSVParser for CSV file '" + csvConfig.getFileName() + "' to " +
-                    "simulate stream '" + csvConfig.getStreamName() + "' using source configuration : " +
-                    csvConfig.toString(), e);
-            throw new EventGenerationException("Error occurred when initializing CSVParser for CSV file '" +
-                    csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using source " +
-                    "configuration : " + csvConfig.toString(), e);
-        } finally {
-            closeParser(csvConfig.getFileName(), false);
-        }
-    }
-
-
-    /**
-     * parseFile() method is used to parse the CSV file using the delimiter specified in CSV simulation Configuration
-     *
-     * @param delimiter delimiter to be used when parsing CSV file
-     * @throws IOException if an error occurs when creating a CSVReader
+     * @param delimiter delimiter specified in CSV simulation configuration
+     * @return CSV format for the delimiter
      */
-    private CSVParser parseFile(String delimiter) throws IOException {
+    static CSVFormat getCSVFormat(String delimiter) {
         switch (delimiter) {
             case ",":
-                return new CSVParser(fileReader, CSVFormat.DEFAULT);
+                return CSVFormat.DEFAULT;
             case ";":
-                return new CSVParser(fileReader, CSVFormat.EXCEL);
+                return CSVFormat.EXCEL;
             case "\\t":
-                return new CSVParser(fileReader, CSVFormat.TDF);
+                return CSVFormat.TDF;
             default:
-                return new CSVParser(fileReader, CSVFormat.newFormat(delimiter.charAt(0)));
-        }
-    }
-
-
-    /**
-     * createEventsMap() methods creates a treeMap of events using the data in the CSV file.
-     * The key of the treeMap will be the event timestamp and the value will be an array list of events belonging to
-     * the timestamp.
-     *
-     * @param csvConfig        configuration of csv simulation
-     * @param streamAttributes list of attributes of the stream to which events are produced
-     * @param startTimestamp   start timestamp of event simulation
-     * @param endTimestamp     end timestamp of event simulation
-     * @return a treeMap of events
-     */
-    private TreeMap<Long, ArrayList<Event>> createEventsMap(CSVSimulationDTO csvConfig,
-                                                            List<Attribute> streamAttributes,
-                                                            long startTimestamp, long endTimestamp) {
-        TreeMap<Long, ArrayList<Event>> eventsMap = new TreeMap<>();
-        int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
-        long lineNumber;
-        long timestamp;
-        List<Integer> indices = csvConfig.getIndices();
-        Event event;
-        if (csvParser != null) {
-            for (CSVRecord record : csvParser) {
-                lineNumber = csvParser.getCurrentLineNumber();
-                ArrayList<String> attributes = new ArrayList<>();
-                for (String attribute : record) {
-                    attributes.add(attribute);
-                }
-                /*
-                 * retrieve the value at the position specified by timestamp attribute as the timestamp
-                 * if the timestamp is within the range specified by the startTimestamp and endTimestamp, proceed to
-                 * creating an event, else ignore record and proceed to next record
-                 * retrieve the data elements required for event using record using the indices specified
-                 * */
-                try {
-                    timestamp = Long.parseLong(attributes.get(timestampPosition));
-                    if (timestamp >= startTimestamp) {
-                        if (endTimestamp == -1 || timestamp <= endTimestamp) {
-                            List<String> eventData = new ArrayList<>();
-                            indices.forEach(index -> eventData.add(attributes.get(index)));
-                            try {
-                                event = EventConverter.eventConverter(streamAttributes, eventData.toArray(), timestamp);
-                            } catch (EventGenerationException e) {
-                                log.error("Error occurred when generating event using CSV event generator to simulate" +
-                                        " stream '" + csvConfig.getStreamName() + "' using source configuration : " +
-                                        csvConfig.toString() + "Drop event and create next event.", e);
-                                continue;
-                            }
-                            if (!eventsMap.containsKey(timestamp)) {
-                                eventsMap.put(timestamp, new ArrayList<>(Collections.singletonList(event)));
-                            } else {
-                                eventsMap.get(timestamp).add(event);
-                            }
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid data '" + attributes.get(timestampPosition) + "' provided for timestamp" +
-                            "attribute in line " + lineNumber + ". Line content : " + attributes + ". " +
-                            "Ignore line and read next line. Source configuration : " + csvConfig.toString());
-                } catch (IndexOutOfBoundsException e) {
-                    log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices "  +
-                            indices + ". Line content : " + attributes + ". Ignore line and read next line." +
-                            " Source configuration : " + csvConfig.toString());
-                }
-            }
+                return CSVFormat.newFormat(delimiter.charAt(0));
         }
-        if (log.isDebugEnabled()) {
-            log.debug("Create an ordered events map from CSV file '" + csvConfig.getFileName() + "' to simulate " +
-                    "stream '" + csvConfig.getStreamName() + "'.");
-        }
-        return eventsMap;
     }
 
 
@@ -321,14 +215,8 @@ public class CSVReader {
             if (fileReader != null) {
                 fileReader.close();
             }
-            if (isOrdered) {
-                if (bufferedReader != null) {
-                    bufferedReader.close();
-                }
-            } else {
-                if (csvParser != null && !csvParser.isClosed()) {
-                    csvParser.close();
-                }
+            if (isOrdered && bufferedReader != null) {
+                bufferedReader.close();
             }
         } catch (IOException e) {
             log.error("Error occurred when closing CSV resources used for CSV file '" + fileName + "'", e);
@@ -147,8 +147,10 @@ public class FileUploader {
                  * */
                 fileStore.deleteFile(fileName);
             }
-            return Files.deleteIfExists(SecurityUtil.resolvePath(Paths.get(baseDirPath).toAbsolutePath(),
+            boolean deleted = Files.deleteIfExists(SecurityUtil.resolvePath(Paths.get(baseDirPath).toAbsolutePath(),
                     Paths.get(fileName)));
+            SortedCSVReader.deleteSortedFiles(fileName);
+            return deleted;
         } catch (IOException e) {
             log.error("Error occurred while deleting the file '" + LogEncoder.removeCRLFCharacters(fileName) + "'", e);
             throw new FileOperationsException("Error occurred while deleting the file '" + fileName + "'", e);
@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+import org.wso2.carbon.event.simulator.core.exception.SimulatorInitializationException;
+import org.wso2.carbon.event.simulator.core.internal.bean.CSVSimulationDTO;
+import org.wso2.carbon.event.simulator.core.internal.util.EventConverter;
+import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
+import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * SortedCSVReader reads a CSV file that is not ordered by timestamp, one event at a time in timestamp order.
+ * <p>
+ * The file is sorted using an external merge sort. Records are read in chunks of at most the sort chunk size of the
+ * CSV simulation configuration, and each chunk is sorted in memory and written to a temporary file. The chunks are
+ * then merged into a sorted copy of the file, which is cached under the checksum of the file so that simulating the
+ * same file again skips the sort. Records having the same timestamp are read in the order they appear in the file.
+ * <p>
+ * The sorted copies of a file are sorted and deleted under a lock per file, and a sorted copy is not deleted while
+ * it is being read. A copy found to be stale while it is being read is deleted once its last reader is closed.
+ */
+public class SortedCSVReader {
+    /**
+     * Maximum number of chunks merged at once, which bounds the number of files open during a merge
+     */
+    private static final int MAX_MERGE_FAN_IN = 64;
+    static final Path CACHE_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "event-simulator",
+            "sorted-csv");
+    private static final String SORTED_FILE_EXTENSION = ".csv";
+    private static final String CHUNK_FILE_EXTENSION = ".chunk";
+    private static final Comparator<SortRecord> RECORD_COMPARATOR = Comparator
+            .comparingLong((SortRecord record) -> record.timestamp);
+    private static final Comparator<ChunkCursor> CURSOR_COMPARATOR = Comparator
+            .comparingLong((ChunkCursor cursor) -> cursor.timestamp)
+            .thenComparingInt(cursor -> cursor.chunkIndex);
+    // locks of the cache directories of the CSV files, held when sorting a file or deleting its sorted copies
+    private static final ConcurrentMap<Path, Object> SORT_LOCKS = new ConcurrentHashMap<>();
+    // number of readers of each sorted copy being read, guarded by itself
+    private static final Map<Path, Integer> SORTED_FILE_READERS = new HashMap<>();
+    // sorted copies to be deleted once they are no longer read, guarded by SORTED_FILE_READERS
+    private static final Set<Path> STALE_SORTED_FILES = new HashSet<>();
+    private static final Logger log = LoggerFactory.getLogger(SortedCSVReader.class);
+
+    private final CSVSimulationDTO csvConfig;
+    private final Path sortedFile;
+    private final CSVParser sortedFileParser;
+    private final Iterator<CSVRecord> sortedRecords;
+    private boolean released;
+
+    /**
+     * Constructor SortedCSVReader sorts the CSV file, unless a sorted copy of it is already cached, and opens the
+     * sorted copy for reading.
+     *
+     * @param csvConfig configuration of CSV simulation
+     * @throws ResourceNotFoundException if the CSV file is not found
+     */
+    public SortedCSVReader(CSVSimulationDTO csvConfig) throws ResourceNotFoundException {
+        this.csvConfig = csvConfig;
+        String fileName = csvConfig.getFileName();
+        File csvFile = Paths.get(EventSimulatorDataHolder.getInstance().getCsvFileDirectory(), fileName).toFile();
+        if (!csvFile.exists()) {
+            throw new ResourceNotFoundException("File '" + fileName + "' cannot be found.",
+                    ResourceNotFoundException.ResourceType.CSV_FILE, fileName);
+        }
+        if (csvFile.length() == 0) {
+            throw new EventGenerationException("File '" + fileName + "' is empty.");
+        }
+        Path cacheDirectory = getCacheDirectory(fileName);
+        try {
+            synchronized (getSortLock(cacheDirectory)) {
+                sortedFile = getSortedFile(csvFile.toPath(), cacheDirectory);
+                acquireSortedFile(sortedFile);
+            }
+            try {
+                sortedFileParser = new CSVParser(Files.newBufferedReader(sortedFile, StandardCharsets.UTF_8),
+                        CSVFormat.DEFAULT);
+            } catch (IOException e) {
+                releaseSortedFile(sortedFile);
+                throw e;
+            }
+            sortedRecords = sortedFileParser.iterator();
+        } catch (IOException e) {
+            log.error("Error occurred when sorting CSV file '" + fileName + "' by timestamp : ", e);
+            throw new SimulatorInitializationException("Error occurred when sorting CSV file '" + fileName +
+                    "' by timestamp : ", e);
+        }
+    }
+
+    /**
+     * getNextEvent() reads the next record of the sorted file that falls within the timestamp range and produces an
+     * event
+     *
+     * @param streamAttributes list of attributes of the stream to which events are produced
+     * @param startTimestamp   start timestamp of event simulation
+     * @param endTimestamp     end timestamp of event simulation
+     * @return event produced, or null if there are no more events within the timestamp range
+     */
+    public Event getNextEvent(List<Attribute> streamAttributes, long startTimestamp, long endTimestamp) {
+        List<Integer> indices = csvConfig.getIndices();
+        try {
+            while (sortedRecords.hasNext()) {
+                CSVRecord record = sortedRecords.next();
+                long timestamp = Long.parseLong(record.get(0));
+                if (timestamp < startTimestamp) {
+                    continue;
+                }
+                if (endTimestamp != -1 && timestamp > endTimestamp) {
+                    // records are sorted, hence none of the remaining records fall within the range
+                    break;
+                }
+                // the first column of the sorted file holds the timestamp, followed by the columns of the CSV file
+                Object[] eventData = new Object[indices.size()];
+                try {
+                    for (int i = 0; i < eventData.length; i++) {
+                        eventData[i] = record.get(indices.get(i) + 1);
+                    }
+                    return EventConverter.eventConverter(streamAttributes, eventData, timestamp);
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    log.warn("Cannot retrieve data elements for all indices " + indices + " from record with " +
+                            "timestamp " + timestamp + ". Ignore record and read next record. Source " +
+                            "configuration : " + csvConfig.toString());
+                } catch (EventGenerationException e) {
+                    log.error("Error occurred when generating event using CSV event generator to simulate stream '" +
+                            csvConfig.getStreamName() + "' using source configuration : " + csvConfig.toString() +
+                            "Drop event and create next event.", e);
+                }
+            }
+        } catch (IllegalStateException e) {
+            // the iterator of a CSVParser wraps the IOExceptions thrown when reading records
+            log.error("Error occurred when reading sorted copy of CSV file '" + csvConfig.getFileName() + "' to " +
+                    "simulate stream '" + csvConfig.getStreamName() + "'.", e);
+            close();
+            throw new EventGenerationException("Error occurred when reading sorted copy of CSV file '" +
+                    csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "'.", e);
+        }
+        return null;
+    }
+
+    /**
+     * close() method is used to release the resources used to read the sorted file
+     */
+    public synchronized void close() {
+        try {
+            if (!sortedFileParser.isClosed()) {
+                sortedFileParser.close();
+            }
+        } catch (IOException e) {
+            log.error("Error occurred when closing sorted copy of CSV file '" + csvConfig.getFileName() + "'", e);
+        }
+        if (!released) {
+            released = true;
+            releaseSortedFile(sortedFile);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Close resources used for sorted copy of CSV file '" + csvConfig.getFileName() + "'.");
+        }
+    }
+
+    /**
+     * deleteSortedFiles() deletes the sorted copies of a CSV file, e.g. when the file is deleted. Copies being read
+     * are deleted once they are no longer read.
+     *
+     * @param fileName name of the CSV file
+     */
+    public static void deleteSortedFiles(String fileName) {
+        Path cacheDirectory = getCacheDirectory(fileName);
+        synchronized (getSortLock(cacheDirectory)) {
+            if (!Files.isDirectory(cacheDirectory)) {
+                return;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory)) {
+                for (Path file : files) {
+                    if (file.getFileName().toString().endsWith(SORTED_FILE_EXTENSION)) {
+                        deleteUnlessRead(file);
+                    } else {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Error occurred when deleting sorted copies of CSV file '" + fileName + "'.", e);
+            }
+            try {
+                Files.deleteIfExists(cacheDirectory);
+            } catch (DirectoryNotEmptyException e) {
+                // sorted copies being read are deleted when they are closed, leaving the directory behind
+            } catch (IOException e) {
+                log.warn("Error occurred when deleting sorted copies of CSV file '" + fileName + "'.", e);
+            }
+        }
+    }
+
+    private static Path getCacheDirectory(String fileName) {
+        return SecurityUtil.resolvePath(CACHE_DIRECTORY.toAbsolutePath(), Paths.get(fileName));
+    }
+
+    private static Object getSortLock(Path cacheDirectory) {
+        return SORT_LOCKS.computeIfAbsent(cacheDirectory, directory -> new Object());
+    }
+
+    private static void acquireSortedFile(Path sortedFile) {
+        synchronized (SORTED_FILE_READERS) {
+            SORTED_FILE_READERS.merge(sortedFile, 1, Integer::sum);
+            // the copy is current again, e.g. when a deleted file is uploaded again
+            STALE_SORTED_FILES.remove(sortedFile);
+        }
+    }
+
+    private static void releaseSortedFile(Path sortedFile) {
+        synchronized (SORTED_FILE_READERS) {
+            Integer readers = SORTED_FILE_READERS.get(sortedFile);
+            if (readers == null || readers > 1) {
+                if (readers != null) {
+                    SORTED_FILE_READERS.put(sortedFile, readers - 1);
+                }
+                return;
+            }
+            SORTED_FILE_READERS.remove(sortedFile);
+            if (STALE_SORTED_FILES.remove(sortedFile)) {
+                deleteSortedFile(sortedFile);
+            }
+        }
+    }
+
+    /**
+     * deleteUnlessRead() deletes a sorted copy, or marks it to be deleted once it is no longer read
+     */
+    private static void deleteUnlessRead(Path sortedFile) {
+        synchronized (SORTED_FILE_READERS) {
+            if (SORTED_FILE_READERS.containsKey(sortedFile)) {
+                STALE_SORTED_FILES.add(sortedFile);
+            } else {
+                deleteSortedFile(sortedFile);
+            }
+        }
+    }
+
+    private static void deleteSortedFile(Path sortedFile) {
+        try {
+            Files.deleteIfExists(sortedFile);
+        } catch (IOException e) {
+            log.warn("Error occurred when deleting sorted copy '" + sortedFile + "' of a CSV file.", e);
+        }
+    }
+
+    /**
+     * getSortedFile() returns the cached sorted copy of the CSV file, sorting the file if it is not cached yet.
+     * The cache key covers the delimiter and the timestamp attribute as well, since both decide how records are
+     * sorted. Sorted copies of earlier versions of the file are deleted, unless they are being read. The caller
+     * holds the sort lock of the cache directory.
+     *
+     * @param csvFile        CSV file
+     * @param cacheDirectory directory holding sorted copies of the CSV file
+     * @return path of the sorted copy
+     * @throws IOException if an error occurs when sorting the file
+     */
+    private Path getSortedFile(Path csvFile, Path cacheDirectory) throws IOException {
+        String cacheKey = Long.toHexString(getChecksum(csvFile));
+        Path sortedFile = cacheDirectory.resolve(cacheKey + SORTED_FILE_EXTENSION);
+        if (Files.exists(sortedFile)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Use cached sorted copy of CSV file '" + csvConfig.getFileName() + "'.");
+            }
+            return sortedFile;
+        }
+        long sortStartTime = System.currentTimeMillis();
+        Files.createDirectories(cacheDirectory);
+        List<Path> temporaryFiles = new ArrayList<>();
+        try {
+            List<Path> chunks = sortChunks(csvFile, cacheDirectory, temporaryFiles);
+            while (chunks.size() > MAX_MERGE_FAN_IN) {
+                List<Path> mergedChunks = new ArrayList<>();
+                for (int i = 0; i < chunks.size(); i += MAX_MERGE_FAN_IN) {
+                    Path mergedChunk = createTemporaryFile(cacheDirectory, temporaryFiles);
+                    mergeChunks(chunks.subList(i, Math.min(i + MAX_MERGE_FAN_IN, chunks.size())), mergedChunk);
+                    mergedChunks.add(mergedChunk);
+                }
+                deleteFiles(chunks);
+                chunks = mergedChunks;
+            }
+            Path temporarySortedFile = createTemporaryFile(cacheDirectory, temporaryFiles);
+            mergeChunks(chunks, temporarySortedFile);
+            try {
+                Files.move(temporarySortedFile, sortedFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporarySortedFile, sortedFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            deleteFiles(temporaryFiles);
+        }
+        deleteStaleSortedFiles(cacheDirectory, sortedFile);
+        if (log.isDebugEnabled()) {
+            log.debug("Sorted CSV file '" + csvConfig.getFileName() + "' by timestamp in " +
+                    (System.currentTimeMillis() - sortStartTime) + " ms.");
+        }
+        return sortedFile;
+    }
+
+    /**
+     * getChecksum() computes the checksum of the CSV file along with the configuration used to sort it
+     *
+     * @param csvFile CSV file
+     * @return checksum
+     * @throws IOException if an error occurs when reading the file
+     */
+    private long getChecksum(Path csvFile) throws IOException {
+        CRC32 checksum = new CRC32();
+        byte[] buffer = new byte[65536];
+        try (InputStream inputStream = Files.newInputStream(csvFile)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                checksum.update(buffer, 0, bytesRead);
+            }
+        }
+        checksum.update((csvConfig.getDelimiter() + '\n' + csvConfig.getTimestampAttribute())
+                .getBytes(StandardCharsets.UTF_8));
+        return checksum.getValue();
+    }
+
+    /**
+     * sortChunks() reads the CSV file in chunks and writes each chunk sorted by timestamp to a temporary file.
+     * Records having an invalid timestamp are dropped.
+     *
+     * @param csvFile        CSV file
+     * @param cacheDirectory directory in which the chunks are created
+     * @param temporaryFiles list to which the temporary files created are added
+     * @return sorted chunks, in the order they were read from the CSV file
+     * @throws IOException if an error occurs when reading the file or writing a chunk
+     */
+    private List<Path> sortChunks(Path csvFile, Path cacheDirectory, List<Path> temporaryFiles) throws IOException {
+        List<Path> chunks = new ArrayList<>();
+        int chunkSize = csvConfig.getSortChunkSize();
+        int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
+        List<SortRecord> chunk = new ArrayList<>(Math.min(chunkSize, 1024));
+        try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+             CSVParser csvParser = new CSVParser(reader, CSVReader.getCSVFormat(csvConfig.getDelimiter()))) {
+            for (CSVRecord record : csvParser) {
+                try {
+                    chunk.add(new SortRecord(Long.parseLong(record.get(timestampPosition)), record));
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid data '" + record.get(timestampPosition) + "' provided for timestamp " +
+                            "attribute in line " + csvParser.getCurrentLineNumber() + ". Line content : " + record +
+                            ". Ignore line and read next line. Source configuration : " + csvConfig.toString());
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    log.warn("Cannot retrieve timestamp attribute from line " + csvParser.getCurrentLineNumber() +
+                            ". Line content : " + record + ". Ignore line and read next line. Source " +
+                            "configuration : " + csvConfig.toString());
+                }
+                if (chunk.size() == chunkSize) {
+                    chunks.add(writeChunk(chunk, cacheDirectory, temporaryFiles));
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty() || chunks.isEmpty()) {
+            chunks.add(writeChunk(chunk, cacheDirectory, temporaryFiles));
+        }
+        return chunks;
+    }
+
+    /**
+     * writeChunk() sorts a chunk of records by timestamp and writes it to a temporary file. The sort is stable, hence
+     * records having the same timestamp keep their order.
+     *
+     * @param chunk          records of the chunk
+     * @param cacheDirectory directory in which the chunk is created
+     * @param temporaryFiles list to which the chunk is added
+     * @return path of the chunk
+     * @throws IOException if an error occurs when writing the chunk
+     */
+    private Path writeChunk(List<SortRecord> chunk, Path cacheDirectory, List<Path> temporaryFiles)
+            throws IOException {
+        chunk.sort(RECORD_COMPARATOR);
+        Path chunkFile = createTemporaryFile(cacheDirectory, temporaryFiles);
+        try (BufferedWriter writer = Files.newBufferedWriter(chunkFile, StandardCharsets.UTF_8);
+             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+            for (SortRecord record : chunk) {
+                csvPrinter.print(record.timestamp);
+                csvPrinter.printRecord(record.values);
+            }
+        }
+        return chunkFile;
+    }
+
+    /**
+     * mergeChunks() merges sorted chunks into a single sorted file. Records having the same timestamp are taken from
+     * the earlier chunk first, which keeps the order of the CSV file.
+     *
+     * @param chunks     sorted chunks, in the order they were read from the CSV file
+     * @param targetFile file to which the merged records are written
+     * @throws IOException if an error occurs when reading a chunk or writing the target file
+     */
+    private void mergeChunks(List<Path> chunks, Path targetFile) throws IOException {
+        List<CSVParser> chunkParsers = new ArrayList<>(chunks.size());
+        PriorityQueue<ChunkCursor> cursors = new PriorityQueue<>(Math.max(1, chunks.size()), CURSOR_COMPARATOR);
+        try (BufferedWriter writer = Files.newBufferedWriter(targetFile, StandardCharsets.UTF_8);
+             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+            for (int i = 0; i < chunks.size(); i++) {
+                CSVParser chunkParser = new CSVParser(Files.newBufferedReader(chunks.get(i), StandardCharsets.UTF_8),
+                        CSVFormat.DEFAULT);
+                chunkParsers.add(chunkParser);
+                ChunkCursor cursor = new ChunkCursor(i, chunkParser.iterator());
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            while (!cursors.isEmpty()) {
+                ChunkCursor cursor = cursors.poll();
+                csvPrinter.printRecord(cursor.record);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        } finally {
+            for (CSVParser chunkParser : chunkParsers) {
+                chunkParser.close();
+            }
+        }
+    }
+
+    private Path createTemporaryFile(Path cacheDirectory, List<Path> temporaryFiles) throws IOException {
+        Path temporaryFile = Files.createTempFile(cacheDirectory, "sort", CHUNK_FILE_EXTENSION);
+        temporaryFiles.add(temporaryFile);
+        return temporaryFile;
+    }
+
+    private void deleteFiles(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Error occurred when deleting temporary file '" + file + "' used to sort CSV file '" +
+                        csvConfig.getFileName() + "'.", e);
+            }
+        }
+    }
+
+    private void deleteStaleSortedFiles(Path cacheDirectory, Path sortedFile) {
+        List<Path> staleFiles = new ArrayList<>();
+        try (DirectoryStream<Path> sortedFiles = Files.newDirectoryStream(cacheDirectory,
+                "*" + SORTED_FILE_EXTENSION)) {
+            for (Path file : sortedFiles) {
+                if (!file.equals(sortedFile)) {
+                    staleFiles.add(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Error occurred when listing sorted copies of CSV file '" + csvConfig.getFileName() + "'.", e);
+        }
+        staleFiles.forEach(SortedCSVReader::deleteUnlessRead);
+    }
+
+    /**
+     * Record of the CSV file buffered for sorting
+     */
+    private static class SortRecord {
+        private final long timestamp;
+        private final CSVRecord values;
+
+        private SortRecord(long timestamp, CSVRecord values) {
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Current record of a chunk being merged
+     */
+    private static class ChunkCursor {
+        private final int chunkIndex;
+        private final Iterator<CSVRecord> records;
+        private CSVRecord record;
+        private long timestamp;
+
+        private ChunkCursor(int chunkIndex, Iterator<CSVRecord> records) {
+            this.chunkIndex = chunkIndex;
+            this.records = records;
+        }
+
+        private boolean advance() {
+            if (records.hasNext()) {
+                record = records.next();
+                timestamp = Long.parseLong(record.get(0));
+                return true;
+            }
+            return false;
+        }
+    }
+}
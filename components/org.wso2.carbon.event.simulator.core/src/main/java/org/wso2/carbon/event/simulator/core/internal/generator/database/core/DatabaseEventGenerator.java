@@ -28,7 +28,7 @@ import org.wso2.carbon.event.simulator.core.exception.*;
 import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
 import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
 import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseConnector;
-import org.wso2.carbon.event.simulator.core.internal.util.EventConverter;
+import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseEventPrefetcher;
 import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
 import org.wso2.carbon.event.simulator.core.model.DBConnectionModel;
 import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
@@ -38,7 +38,6 @@ import io.siddhi.core.event.Event;
 import io.siddhi.query.api.definition.Attribute;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -57,10 +56,9 @@ public class DatabaseEventGenerator implements EventGenerator {
     private long currentTimestamp;
     private DBSimulationDTO dbSimulationConfig;
     private Event nextEvent = null;
-    private ResultSet resultSet;
     private DatabaseConnector databaseConnection;
+    private DatabaseEventPrefetcher eventPrefetcher;
     private List<Attribute> streamAttributes;
-    private List<String> columnNames;
 
     public DatabaseEventGenerator() {
     }
@@ -103,7 +101,6 @@ public class DatabaseEventGenerator implements EventGenerator {
         if (dbSimulationConfig.getTimestampAttribute() == null) {
             currentTimestamp = startTimestamp;
         }
-        columnNames = dbSimulationConfig.getColumnNames();
         try {
             databaseConnection = new DatabaseConnector();
             databaseConnection.connectToDatabase(dbSimulationConfig.getDriver(),
@@ -123,10 +120,14 @@ public class DatabaseEventGenerator implements EventGenerator {
     }
 
     /**
-     * start() method is used to retrieve the resultSet from the data source and to obtain the first event
+     * start() method is used to start reading events from the data source and to obtain the first event
      */
     @Override
     public void start() {
+        /*
+         * a new connector is used for each run, since the connector of the previous run is closed by its prefetcher
+         * */
+        databaseConnection = new DatabaseConnector();
         try {
             databaseConnection.connectToDatabase(dbSimulationConfig.getDriver(),
                     dbSimulationConfig.getDataSourceLocation(),
@@ -143,33 +144,15 @@ public class DatabaseEventGenerator implements EventGenerator {
         if (startTimestamp == -1 && "-1".equals(dbSimulationConfig.getTimestampAttribute())) {
             startTimestamp = System.currentTimeMillis();
         }
-        try {
-            resultSet = databaseConnection.getDatabaseEventItems(dbSimulationConfig.getTableName(),
-                                                                 dbSimulationConfig.getColumnNames(),
-                                                                 dbSimulationConfig.getTimestampAttribute(),
-                                                                 startTimestamp, endTimestamp);
-            if (resultSet != null && !resultSet.isBeforeFirst()) {
-                throw new EventGenerationException("Table '" + dbSimulationConfig.getTableName()
-                                                           + "' contains  no entries for the columns specified in "
-                                                           + "source configuration " + dbSimulationConfig.toString());
-            }
-            getNextEvent();
-        } catch (SQLException e) {
-            log.error("Error occurred when retrieving resultset from database ' " +
-                              dbSimulationConfig.getDataSourceLocation() + "' to simulate to simulate stream '" +
-                              dbSimulationConfig.getStreamName() + "' using source configuration " +
-                              dbSimulationConfig.toString(), e);
-            throw new SimulatorInitializationException("Error occurred when retrieving resultset from database ' "
-                                                               +dbSimulationConfig.getDataSourceLocation()
-                                                               + "' to simulate to simulate stream '"
-                                                               + dbSimulationConfig.getStreamName()
-                                                               + "' using source configuration "
-                                                               + dbSimulationConfig.toString(), e);
-        }
-
-        if (log.isDebugEnabled() && resultSet != null) {
-            log.debug("Retrieved resultset to simulate stream '" + dbSimulationConfig.getStreamName() +
-                              "' and initialized variable nextEvent.");
+        databaseConnection.validateSource(dbSimulationConfig.getTableName(), dbSimulationConfig.getColumnNames());
+        eventPrefetcher = new DatabaseEventPrefetcher(databaseConnection, dbSimulationConfig, streamAttributes,
+                startTimestamp, endTimestamp);
+        eventPrefetcher.start();
+        getNextEvent();
+        if (nextEvent == null) {
+            throw new EventGenerationException("Table '" + dbSimulationConfig.getTableName()
+                                                       + "' contains  no entries for the columns specified in "
+                                                       + "source configuration " + dbSimulationConfig.toString());
         }
         if (log.isDebugEnabled()) {
             log.debug("Start database generator for stream '" + dbSimulationConfig.getStreamName() + "'");
@@ -182,7 +165,11 @@ public class DatabaseEventGenerator implements EventGenerator {
     @Override
     public void stop() {
         currentTimestamp = -1;
-        if (databaseConnection != null) {
+        if (eventPrefetcher != null) {
+            // the prefetcher closes the database connection once it stops
+            eventPrefetcher.stop();
+            eventPrefetcher = null;
+        } else if (databaseConnection != null) {
             databaseConnection.closeConnection();
         }
         if (log.isDebugEnabled()) {
@@ -240,80 +227,26 @@ public class DatabaseEventGenerator implements EventGenerator {
      */
     @Override
     public void getNextEvent() {
-        try {
-            /*
-             * if the resultset has a next entry, create an event using that entry and assign it to nextEvent
-             * else, assign null to nextEvent
-             * */
-            if (resultSet != null) {
-                if (resultSet.next()) {
-                    Object[] attributeValues = new Object[streamAttributes.size()];
-                    long timestamp = -1;
-                    /*
-                     * if timestamp attribute is specified use the value of the respective column as timestamp
-                     * else, calculate the timestamp.
-                     * timestamp of first event will be currentTimestamp and timestamp of successive event
-                     * will be (last event timestamp + interval)
-                     * */
-                    if (dbSimulationConfig.getTimestampAttribute() != null) {
-                        timestamp = resultSet.getLong(dbSimulationConfig.getTimestampAttribute());
-                    } else if (endTimestamp == -1 || currentTimestamp <= endTimestamp) {
-                        // If the start timestamp is not given, then the system timestamp will be used.
-                        if (currentTimestamp == -1) {
-                            currentTimestamp = System.currentTimeMillis();
-                        }
-                        timestamp = currentTimestamp;
-                        currentTimestamp += dbSimulationConfig.getTimestampInterval();
-                    }
-                    if (timestamp != -1) {
-                        int i = 0;
-                        /*
-                         * For each attribute in streamAttributes, use attribute type to determine the getter method
-                         * to be used to access the resultset and use the attribute name to access a particular field
-                         * in resultset
-                         * */
-                        for (Attribute attribute : streamAttributes) {
-                            switch (attribute.getType()) {
-                                case STRING:
-                                    attributeValues[i] = resultSet.getString(columnNames.get(i++));
-                                    break;
-                                case INT:
-                                    attributeValues[i] = resultSet.getInt(columnNames.get(i++));
-                                    break;
-                                case DOUBLE:
-                                    attributeValues[i] = resultSet.getDouble(columnNames.get(i++));
-                                    break;
-                                case FLOAT:
-                                    attributeValues[i] = resultSet.getFloat(columnNames.get(i++));
-                                    break;
-                                case BOOL:
-                                    attributeValues[i] = resultSet.getBoolean(columnNames.get(i++));
-                                    break;
-                                case LONG:
-                                    attributeValues[i] = resultSet.getLong(columnNames.get(i++));
-                                    break;
-                                default:
-//                                this statement is never reaches since attribute type is an enum
-                            }
-                        }
-                    }
-                    nextEvent = EventConverter.eventConverter(streamAttributes, attributeValues, timestamp);
-                } else {
-                    nextEvent = null;
+        /*
+         * take the next event read by the prefetcher and assign it to nextEvent.
+         * if timestamp attribute is not specified, calculate the timestamp.
+         * timestamp of first event will be currentTimestamp and timestamp of successive event
+         * will be (last event timestamp + interval)
+         * */
+        Event event = eventPrefetcher.take();
+        if (event != null && dbSimulationConfig.getTimestampAttribute() == null) {
+            if (endTimestamp == -1 || currentTimestamp <= endTimestamp) {
+                // If the start timestamp is not given, then the system timestamp will be used.
+                if (currentTimestamp == -1) {
+                    currentTimestamp = System.currentTimeMillis();
                 }
+                event.setTimestamp(currentTimestamp);
+                currentTimestamp += dbSimulationConfig.getTimestampInterval();
+            } else {
+                event = null;
             }
-        } catch (EventGenerationException e) {
-            log.error("Error occurred when generating event using database event "
-                              + "generator to simulate stream '" + dbSimulationConfig.getStreamName()
-                              + "' using source configuration " + dbSimulationConfig.toString()
-                              + "Drop event and create next event. ", e);
-            getNextEvent();
-        } catch (SQLException e) {
-            throw new EventGenerationException("Error occurred when accessing result set to simulate to simulate "
-                                                       + "stream '" + dbSimulationConfig.getStreamName()
-                                                       + "' using source configuration "
-                                                       + dbSimulationConfig.toString(), e);
         }
+        nextEvent = event;
     }
 
     /**
@@ -481,6 +414,31 @@ public class DatabaseEventGenerator implements EventGenerator {
                     }
                 }
             }
+            if (checkAvailability(sourceConfig, EventSimulatorConstants.FETCH_SIZE)
+                    && sourceConfig.getInt(EventSimulatorConstants.FETCH_SIZE) <= 0) {
+                throw new InvalidConfigException(
+                                ResourceNotFoundException.ResourceType.DATABASE_SIMULATION,
+                                sourceConfig.getString(EventSimulatorConstants.FETCH_SIZE),
+                                "Fetch size must be a positive value for database simulation of stream '" +
+                                sourceConfig.getString(EventSimulatorConstants.STREAM_NAME) +
+                                "'. Invalid source configuration in '" + simulationName + "' simulation.\n" +
+                                SourceConfigLogger.getLoggedEnabledSourceConfig(sourceConfig));
+            }
+            /*
+             * two pages of events are queued in memory by the prefetcher, hence the fetch size is bounded
+             * */
+            if (checkAvailability(sourceConfig, EventSimulatorConstants.FETCH_SIZE)
+                    && sourceConfig.getInt(EventSimulatorConstants.FETCH_SIZE) >
+                    EventSimulatorConstants.MAX_FETCH_SIZE) {
+                throw new InvalidConfigException(
+                                ResourceNotFoundException.ResourceType.DATABASE_SIMULATION,
+                                sourceConfig.getString(EventSimulatorConstants.FETCH_SIZE),
+                                "Fetch size must not exceed " + EventSimulatorConstants.MAX_FETCH_SIZE +
+                                " for database simulation of stream '" +
+                                sourceConfig.getString(EventSimulatorConstants.STREAM_NAME) +
+                                "'. Invalid source configuration in '" + simulationName + "' simulation.\n" +
+                                SourceConfigLogger.getLoggedEnabledSourceConfig(sourceConfig));
+            }
             if (sourceConfig.has(EventSimulatorConstants.COLUMN_NAMES_LIST)) {
                 if (!sourceConfig.isNull(EventSimulatorConstants.COLUMN_NAMES_LIST)) {
                     if (!sourceConfig.getString(EventSimulatorConstants.COLUMN_NAMES_LIST).isEmpty()) {
@@ -591,6 +549,9 @@ public class DatabaseEventGenerator implements EventGenerator {
             dbSimulationDTO.setTableName(sourceConfig.getString(EventSimulatorConstants.TABLE_NAME));
             dbSimulationDTO.setTimestampAttribute(timestampAttribute);
             dbSimulationDTO.setTimestampInterval(timestampInterval);
+            if (checkAvailability(sourceConfig, EventSimulatorConstants.FETCH_SIZE)) {
+                dbSimulationDTO.setFetchSize(sourceConfig.getInt(EventSimulatorConstants.FETCH_SIZE));
+            }
             if (sourceConfig.isNull(EventSimulatorConstants.COLUMN_NAMES_LIST)) {
                 List<String> columns = new ArrayList<>();
                 streamAttributes.forEach(attribute -> columns.add(attribute.getName()));
@@ -41,17 +41,18 @@ import java.util.Properties;
  * DatabaseConnector is a utility class performs the following tasks
  * 1. Load the driver
  * 2. Connect to the database
- * 3. Create and execute a SELECT query
- * 4. Return a result set containing data required for database event simulation
+ * 3. Create and execute SELECT queries, reading a range of timestamps at a time
+ * 4. Return result sets containing data required for database event simulation
  * 5. Close database connection
  */
 public class DatabaseConnector {
 
     private static final Logger log = Logger.getLogger(DatabaseConnector.class);
-    private static final String query_attribute_OnlyStartTime = "SELECT %s,%s FROM %s WHERE %s >= %d ORDER BY ABS(%s);";
-    private static final String query_attribute_WithBothLimits = "SELECT %s,%s FROM %s WHERE %s >= %d AND %s <= %d " +
-            "ORDER BY ABS(%s);";
-    private static final String query_interval = "SELECT %s FROM %s;";
+    private static final String query_attribute_FromInclusive = "SELECT %s,%s FROM %s WHERE %s >= ?";
+    private static final String query_attribute_FromExclusive = "SELECT %s,%s FROM %s WHERE %s > ?";
+    private static final String query_attribute_EndTime = " AND %s <= ?";
+    private static final String query_attribute_OrderBy = " ORDER BY %s";
+    private static final String query_interval = "SELECT %s FROM %s";
     private HikariDataSource dataSource;
     private Connection dbConnection;
     private String dataSourceLocation;
@@ -63,53 +64,111 @@ public class DatabaseConnector {
     }
 
     /**
-     * getDatabaseEvenItems method is used to obtain data from a database
+     * validateSource method checks whether the table and the columns to be retrieved exist in the database
      *
-     * @param tableName          table from which data must be retrieved
-     * @param columnNames        list of columns to be retrieved
-     * @param timestampAttribute column containing timestamp
-     * @param timestampStartTime least possible timestamp
-     * @param timestampEndTime   maximum possible timestamp
-     * @return resultset containing data needed for event simulation
+     * @param tableName   table from which data must be retrieved
+     * @param columnNames list of columns to be retrieved
      */
-    public ResultSet getDatabaseEventItems(String tableName, List<String> columnNames, String timestampAttribute,
-                                           long timestampStartTime, long timestampEndTime) {
-        /*
-         * check whether,
-         * 1. database connection is established
-         * 2. table exists
-         * 3. column names are valid
-         *
-         * if successful, create an sql query and retrieve data for event generation
-         * else throw an exception
-         * */
+    public void validateSource(String tableName, List<String> columnNames) {
         try {
             if (dbConnection != null && !dbConnection.isClosed()) {
-                if (checkTableExists(tableName) && validateColumns(tableName, columnNames)) {
-                    prepareSQLstatement(tableName, columnNames, timestampAttribute, timestampStartTime,
-                            timestampEndTime);
-                    this.resultSet = preparedStatement.executeQuery();
-                }
+                checkTableExists(tableName);
+                validateColumns(tableName, columnNames);
+                // drivers such as PostgreSQL fetch rows in chunks of the fetch size only outside auto commit mode
+                dbConnection.setAutoCommit(false);
             } else {
                 throw new EventGenerationException("Unable to connect to source '" + dataSourceLocation + "' to " +
-                        "retrieve data for the configuration, table name : '" + tableName + "', column names : '" +
-                        columnNames + "', timestamp attribute : '" + timestampAttribute + "', timestamp start time : " +
-                        "'" + timestampStartTime + "' and timestamp end time : '" + timestampEndTime + "'.");
+                        "retrieve data from table '" + tableName + "' for columns '" + columnNames + "'.");
+            }
+        } catch (SQLException e) {
+            log.error("Error occurred when validating table '" + tableName + "' and columns '" + columnNames +
+                    "' in source '" + dataSourceLocation + "'. ", e);
+            closeConnection();
+            throw new EventGenerationException("Error occurred when validating table '" + tableName + "' and " +
+                    "columns '" + columnNames + "' in source '" + dataSourceLocation + "'. ", e);
+        }
+    }
+
+    /**
+     * getDatabaseEventItems method is used to obtain all rows of a table, when events are not timestamped using a
+     * column of the table
+     *
+     * @param tableName   table from which data must be retrieved
+     * @param columnNames list of columns to be retrieved
+     * @param fetchSize   number of rows fetched from the database at once
+     * @return resultset containing data needed for event simulation
+     */
+    @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    public ResultSet getDatabaseEventItems(String tableName, List<String> columnNames, int fetchSize) {
+        String columns = String.join(",", columnNames);
+        try {
+            closeResultSet();
+            preparedStatement = dbConnection.prepareStatement(String.format(query_interval, columns, tableName));
+            preparedStatement.setFetchSize(fetchSize);
+            resultSet = preparedStatement.executeQuery();
+            return resultSet;
+        } catch (SQLException e) {
+            log.error("Error occurred when retrieving resultset from source '" + dataSourceLocation + "' " +
+                    "to retrieve data for the configuration table name : '" + tableName + "' and column names : '" +
+                    columnNames + "'. ", e);
+            closeConnection();
+            throw new EventGenerationException("Error occurred when retrieving resultset from source '" +
+                    dataSourceLocation + "' to retrieve data for the configuration table name : '" + tableName +
+                    "' and column names : '" + columnNames + "'. ", e);
+        }
+    }
+
+    /**
+     * getDatabaseEventItems method is used to obtain rows of a table ordered by the timestamp attribute, starting
+     * from the given timestamp. Reading a table a range of timestamps at a time lets the timestamp column be used
+     * as a key to page through the table.
+     *
+     * @param tableName            table from which data must be retrieved
+     * @param columnNames          list of columns to be retrieved
+     * @param timestampAttribute   column containing timestamp
+     * @param fromTimestamp        least timestamp to be retrieved
+     * @param includeFromTimestamp whether rows having the fromTimestamp must be retrieved
+     * @param timestampEndTime     maximum possible timestamp, or -1 if there is no maximum
+     * @param fetchSize            number of rows fetched from the database at once
+     * @param maxRows              maximum number of rows to be retrieved, or 0 if there is no maximum
+     * @return resultset containing data needed for event simulation
+     */
+    @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    public ResultSet getDatabaseEventItems(String tableName, List<String> columnNames, String timestampAttribute,
+                                           long fromTimestamp, boolean includeFromTimestamp, long timestampEndTime,
+                                           int fetchSize, int maxRows) {
+        String columns = String.join(",", columnNames);
+        StringBuilder query = new StringBuilder(String.format(includeFromTimestamp ?
+                query_attribute_FromInclusive : query_attribute_FromExclusive, timestampAttribute, columns,
+                tableName, timestampAttribute));
+        if (timestampEndTime != -1) {
+            query.append(String.format(query_attribute_EndTime, timestampAttribute));
+        }
+        query.append(String.format(query_attribute_OrderBy, timestampAttribute));
+        try {
+            closeResultSet();
+            preparedStatement = dbConnection.prepareStatement(query.toString());
+            preparedStatement.setLong(1, fromTimestamp);
+            if (timestampEndTime != -1) {
+                preparedStatement.setLong(2, timestampEndTime);
             }
+            preparedStatement.setFetchSize(fetchSize);
+            preparedStatement.setMaxRows(maxRows);
+            resultSet = preparedStatement.executeQuery();
+            return resultSet;
         } catch (SQLException e) {
             log.error("Error occurred when retrieving resultset from source '" + dataSourceLocation + "' " +
                     "to retrieve data for the configuration table name : '" + tableName + "'," +
                     " column names : '" + columnNames + "', timestamp attribute : '" + timestampAttribute + "', " +
-                    "timestamp start time : '" + timestampStartTime + "' and timestamp end time : '" +
+                    "timestamp start time : '" + fromTimestamp + "' and timestamp end time : '" +
                     timestampEndTime + "'. ", e);
             closeConnection();
             throw new EventGenerationException("Error occurred when retrieving resultset from source '" +
                     dataSourceLocation + "' to retrieve data for the configuration, table name : '" + tableName + "'," +
                     " column names : '" + columnNames + "', timestamp attribute : '" + timestampAttribute + "', " +
-                    "timestamp start time : '" + timestampStartTime + "' and timestamp end time : '" +
+                    "timestamp start time : '" + fromTimestamp + "' and timestamp end time : '" +
                     timestampEndTime + "'. ", e);
         }
-        return resultSet;
     }
 
     /**
@@ -223,51 +282,6 @@ public class DatabaseConnector {
         return true;
     }
 
-    /**
-     * PrepareSQLstatement() method creates the prepared statement needed to retrieve resultset
-     *
-     * @param tableName          table from which data must be retrieved
-     * @param columnNames        list of columns to be retrieved
-     * @param timestampAttribute column containing timestamp
-     * @param timestampStartTime least possible value for timestamp
-     * @param timestampEndTime   maximum possible value for timestamp
-     */
-    @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
-    private void prepareSQLstatement(String tableName, List<String> columnNames, String timestampAttribute,
-                                     long timestampStartTime, long timestampEndTime) {
-        /*
-         * create a prepared statement based on the timestamp start time and timestamp end time provided
-         * if an exception occurs while creating the prepared statement close resources and throw an exception
-         * */
-        String columns = String.join(",", columnNames);
-        try {
-            if (timestampAttribute == null) {
-                this.preparedStatement = dbConnection.prepareStatement(String.format(query_interval, columns,
-                        tableName));
-            } else {
-                if (timestampEndTime == -1) {
-                    this.preparedStatement = dbConnection.prepareStatement(String.format(query_attribute_OnlyStartTime,
-                            timestampAttribute, columns, tableName, timestampAttribute, timestampStartTime,
-                            timestampAttribute));
-                } else {
-                    this.preparedStatement = dbConnection.prepareStatement(String.format(query_attribute_WithBothLimits,
-                            timestampAttribute, columns, tableName, timestampAttribute, timestampStartTime,
-                            timestampAttribute, timestampEndTime, timestampAttribute));
-                }
-            }
-        } catch (SQLException e) {
-            log.error("Error occurred when forming prepared statement for the configuration table name : '" +
-                    tableName + "', columns : '" + columns + "', timestamp attribute : '" + timestampAttribute + "', " +
-                    "timestamp start time : '" + timestampStartTime + "' and timestamp end time : '" +
-                    timestampEndTime + "'. ", e);
-            closeConnection();
-            throw new EventGenerationException("Error occurred when forming prepared statement for the configuration" +
-                    "table name : '" + tableName + "', columns : '" + columns + "', timestamp attribute : '" +
-                    timestampAttribute + "', timestamp start time : '" + timestampStartTime + "' and timestamp end " +
-                    "time : '" + timestampEndTime + "'. ", e);
-        }
-    }
-
     public static HikariDataSource initializeDatasource(DBConnectionModel connectionDetails) {
         Properties connectionProperties = new Properties();
         String url = connectionDetails.getDataSourceLocation();
@@ -329,12 +343,7 @@ public class DatabaseConnector {
      */
     public void closeConnection() {
         try {
-            if (resultSet != null) {
-                resultSet.close();
-            }
-            if (preparedStatement != null) {
-                preparedStatement.close();
-            }
+            closeResultSet();
             if (dbConnection != null && !dbConnection.isClosed()) {
                 dbConnection.close();
                 dataSource.close();
@@ -350,4 +359,20 @@ public class DatabaseConnector {
         }
     }
 
+    /**
+     * closeResultSet method releases the resultset and prepared statement of the previous query
+     *
+     * @throws SQLException if an error occurs when closing the resources
+     */
+    private void closeResultSet() throws SQLException {
+        if (resultSet != null) {
+            resultSet.close();
+            resultSet = null;
+        }
+        if (preparedStatement != null) {
+            preparedStatement.close();
+            preparedStatement = null;
+        }
+    }
+
 }
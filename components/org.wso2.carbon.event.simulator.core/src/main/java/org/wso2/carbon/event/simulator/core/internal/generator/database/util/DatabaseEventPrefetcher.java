@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.util;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
+import org.wso2.carbon.event.simulator.core.internal.util.EventConverter;
+import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * DatabaseEventPrefetcher reads the events of a database simulation source on a background thread into a bounded
+ * queue, so that event generation does not wait for database round trips.
+ * <p>
+ * If a timestamp attribute is specified, the table is read in pages of at most the fetch size ordered by timestamp,
+ * each page starting at the timestamp where the previous page stopped. Since a full page may not hold all the rows of
+ * its last timestamp, those rows are read again by the next page. If all the rows of a page have the same timestamp,
+ * the rows of that timestamp are read by a single query instead. Each page is a range query on the timestamp column,
+ * hence the column must be indexed for the pages to be read without scanning the table.
+ * Otherwise, the table is read by a single query, fetching the fetch size of rows at a time. Such events are queued
+ * with a timestamp of -1, to be timestamped by the event generator.
+ */
+public class DatabaseEventPrefetcher {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseEventPrefetcher.class);
+    /**
+     * Number of pages of events that can be queued
+     */
+    private static final int PREFETCH_PAGES = 2;
+    private static final Event END_OF_EVENTS = new Event();
+
+    private final DatabaseConnector databaseConnector;
+    private final DBSimulationDTO dbSimulationConfig;
+    private final List<Attribute> streamAttributes;
+    private final List<String> columnNames;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final int fetchSize;
+    private final BlockingQueue<Event> events;
+    private final Thread prefetchThread;
+    private volatile boolean running = true;
+    private volatile EventGenerationException error;
+    private boolean finished = false;
+
+    /**
+     * Constructor DatabaseEventPrefetcher initializes a prefetcher reading from a connected database
+     *
+     * @param databaseConnector  connector with a validated connection to the database, which is closed by the
+     *                           prefetcher once it stops
+     * @param dbSimulationConfig configuration of database simulation
+     * @param streamAttributes   list of attributes of the stream to which events are produced
+     * @param startTimestamp     least possible value for timestamp
+     * @param endTimestamp       maximum possible value for timestamp
+     */
+    public DatabaseEventPrefetcher(DatabaseConnector databaseConnector, DBSimulationDTO dbSimulationConfig,
+                                   List<Attribute> streamAttributes, long startTimestamp, long endTimestamp) {
+        this.databaseConnector = databaseConnector;
+        this.dbSimulationConfig = dbSimulationConfig;
+        this.streamAttributes = streamAttributes;
+        this.columnNames = dbSimulationConfig.getColumnNames();
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.fetchSize = dbSimulationConfig.getFetchSize();
+        // bounded as well for configurations that were not validated, which may hold any fetch size
+        this.events = new ArrayBlockingQueue<>(PREFETCH_PAGES * Math.min(Math.max(fetchSize, 1),
+                EventSimulatorConstants.MAX_FETCH_SIZE));
+        this.prefetchThread = new Thread(this::prefetch, "DatabaseEventPrefetcher-" +
+                dbSimulationConfig.getStreamName());
+        this.prefetchThread.setDaemon(true);
+    }
+
+    /**
+     * start() method starts reading events in the background
+     */
+    public void start() {
+        prefetchThread.start();
+    }
+
+    /**
+     * stop() method stops reading events. The database connection is closed by the background thread once the
+     * database call in progress, if any, returns.
+     */
+    public void stop() {
+        running = false;
+        prefetchThread.interrupt();
+    }
+
+    /**
+     * take() method returns the next event, waiting for it to be read if necessary
+     *
+     * @return next event, or null if there are no more events
+     * @throws EventGenerationException if an error occurred when reading events
+     */
+    public Event take() {
+        if (finished) {
+            return null;
+        }
+        Event event;
+        try {
+            event = events.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (event == END_OF_EVENTS) {
+            finished = true;
+            if (error != null) {
+                throw error;
+            }
+            return null;
+        }
+        return event;
+    }
+
+    private void prefetch() {
+        try {
+            if (dbSimulationConfig.getTimestampAttribute() == null) {
+                prefetchAll();
+            } else {
+                prefetchPages();
+            }
+        } catch (InterruptedException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Stop reading events from data source '" + dbSimulationConfig.getDataSourceLocation() +
+                        "' to simulate stream '" + dbSimulationConfig.getStreamName() + "'.");
+            }
+        } catch (SQLException e) {
+            log.error("Error occurred when accessing result set to simulate stream '" +
+                    dbSimulationConfig.getStreamName() + "' using source configuration " +
+                    dbSimulationConfig.toString(), e);
+            error = new EventGenerationException("Error occurred when accessing result set to simulate stream '" +
+                    dbSimulationConfig.getStreamName() + "' using source configuration " +
+                    dbSimulationConfig.toString(), e);
+        } catch (EventGenerationException e) {
+            error = e;
+        } finally {
+            try {
+                databaseConnector.closeConnection();
+            } catch (EventGenerationException e) {
+                log.error("Error occurred when closing database connection used to simulate stream '" +
+                        dbSimulationConfig.getStreamName() + "'.", e);
+            }
+            finish();
+        }
+    }
+
+    /**
+     * prefetchAll() method reads all rows of the table
+     */
+    private void prefetchAll() throws SQLException, InterruptedException {
+        ResultSet resultSet = databaseConnector.getDatabaseEventItems(dbSimulationConfig.getTableName(), columnNames,
+                fetchSize);
+        while (running && resultSet.next()) {
+            put(createEvent(resultSet, -1));
+        }
+    }
+
+    /**
+     * prefetchPages() method reads the rows of the table within the timestamp range, a page at a time
+     */
+    private void prefetchPages() throws SQLException, InterruptedException {
+        String timestampAttribute = dbSimulationConfig.getTimestampAttribute();
+        long fromTimestamp = startTimestamp;
+        boolean includeFromTimestamp = true;
+        List<Event> lastTimestampEvents = new ArrayList<>();
+        while (running) {
+            ResultSet resultSet = databaseConnector.getDatabaseEventItems(dbSimulationConfig.getTableName(),
+                    columnNames, timestampAttribute, fromTimestamp, includeFromTimestamp, endTimestamp, fetchSize,
+                    fetchSize);
+            int rowCount = 0;
+            boolean hasEarlierTimestamps = false;
+            long lastTimestamp = fromTimestamp;
+            lastTimestampEvents.clear();
+            /*
+             * queue the events of a timestamp once a row with a later timestamp is read, since only then all rows of
+             * the timestamp are known to have been read
+             * */
+            while (resultSet.next()) {
+                rowCount++;
+                long timestamp = resultSet.getLong(timestampAttribute);
+                if (rowCount > 1 && timestamp != lastTimestamp) {
+                    putAll(lastTimestampEvents);
+                    hasEarlierTimestamps = true;
+                }
+                lastTimestamp = timestamp;
+                lastTimestampEvents.add(createEvent(resultSet, timestamp));
+            }
+            if (rowCount < fetchSize) {
+                putAll(lastTimestampEvents);
+                return;
+            }
+            if (hasEarlierTimestamps) {
+                // the next page reads the rows of the last timestamp again
+                fromTimestamp = lastTimestamp;
+                includeFromTimestamp = true;
+            } else {
+                resultSet = databaseConnector.getDatabaseEventItems(dbSimulationConfig.getTableName(), columnNames,
+                        timestampAttribute, lastTimestamp, true, lastTimestamp, fetchSize, 0);
+                while (running && resultSet.next()) {
+                    put(createEvent(resultSet, lastTimestamp));
+                }
+                fromTimestamp = lastTimestamp;
+                includeFromTimestamp = false;
+            }
+        }
+    }
+
+    /**
+     * createEvent() method creates an event using the current row of the resultset
+     *
+     * @param resultSet resultset positioned at a row
+     * @param timestamp timestamp of the event
+     * @return event created, or null if the row cannot be converted to an event
+     */
+    private Event createEvent(ResultSet resultSet, long timestamp) throws SQLException {
+        Object[] attributeValues = new Object[streamAttributes.size()];
+        /*
+         * For each attribute in streamAttributes, use attribute type to determine the getter method
+         * to be used to access the resultset and use the attribute name to access a particular field
+         * in resultset
+         * */
+        for (int i = 0; i < attributeValues.length; i++) {
+            switch (streamAttributes.get(i).getType()) {
+                case STRING:
+                    attributeValues[i] = resultSet.getString(columnNames.get(i));
+                    break;
+                case INT:
+                    attributeValues[i] = resultSet.getInt(columnNames.get(i));
+                    break;
+                case DOUBLE:
+                    attributeValues[i] = resultSet.getDouble(columnNames.get(i));
+                    break;
+                case FLOAT:
+                    attributeValues[i] = resultSet.getFloat(columnNames.get(i));
+                    break;
+                case BOOL:
+                    attributeValues[i] = resultSet.getBoolean(columnNames.get(i));
+                    break;
+                case LONG:
+                    attributeValues[i] = resultSet.getLong(columnNames.get(i));
+                    break;
+                default:
+//                this statement is never reaches since attribute type is an enum
+            }
+        }
+        try {
+            return EventConverter.eventConverter(streamAttributes, attributeValues, timestamp);
+        } catch (EventGenerationException e) {
+            log.error("Error occurred when generating event using database event generator to simulate stream '" +
+                    dbSimulationConfig.getStreamName() + "' using source configuration " +
+                    dbSimulationConfig.toString() + "Drop event and create next event. ", e);
+            return null;
+        }
+    }
+
+    private void putAll(List<Event> pendingEvents) throws InterruptedException {
+        for (Event event : pendingEvents) {
+            put(event);
+        }
+        pendingEvents.clear();
+    }
+
+    private void put(Event event) throws InterruptedException {
+        if (event != null) {
+            events.put(event);
+        }
+    }
+
+    /**
+     * finish() method marks the end of the events, discarding the queued events if the prefetcher was stopped
+     */
+    private void finish() {
+        if (running) {
+            try {
+                events.put(END_OF_EVENTS);
+                return;
+            } catch (InterruptedException e) {
+                // stopped while waiting for queued events to be taken
+            }
+        }
+        events.clear();
+        events.offer(END_OF_EVENTS);
+    }
+}
@@ -38,6 +38,10 @@ public class EventSimulatorConstants {
     public static final String END_TIMESTAMP = "endTimestamp";
     public static final String SIMULATION_TIME_INTERVAL = "timeInterval";
     public static final String NUMBER_OF_EVENTS_REQUIRED = "noOfEvents";
+    public static final String TARGET_EVENTS_PER_SECOND = "targetEventsPerSecond";
+    public static final String RAMP_UP_TIME = "rampUpTime";
+    public static final String SIMULATION_DURATION = "duration";
+    public static final String THREAD_COUNT = "threadCount";
 
     public static final String JSON_CONFIGURATION_RESOURCE_NAME = "JSON configuration";
     public static final String PROPERTIES_RESOURCE_NAME = "properties";
@@ -61,6 +65,8 @@ public class EventSimulatorConstants {
     public static final String DELIMITER = "delimiter";
     public static final String IS_ORDERED = "isOrdered";
     public static final String INDICES = "indices";
+    public static final String SORT_CHUNK_SIZE = "sortChunkSize";
+    public static final int DEFAULT_SORT_CHUNK_SIZE = 100000;
 
 
     //Random data simulation constants
@@ -81,4 +87,7 @@ public class EventSimulatorConstants {
     public static final String PASSWORD = "password";
     public static final String TABLE_NAME = "tableName";
     public static final String COLUMN_NAMES_LIST = "columnNamesList";
+    public static final String FETCH_SIZE = "fetchSize";
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int MAX_FETCH_SIZE = 100000;
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenBucket paces load generation to a target number of events per second. The rate is ramped up linearly from
+ * zero to the target rate over the ramp up time, and permits stop being issued once the duration has elapsed or the
+ * maximum number of permits has been issued. Permits which are not taken on time are accumulated up to the burst
+ * size, so that a slow consumer can catch up without flooding the receivers.
+ * Paused time is not counted towards the ramp up time or the duration.
+ */
+public class TokenBucket {
+    public static final int FINISHED = -1;
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double ratePerNano;
+    private final long rampUpNanos;
+    private final long durationNanos;
+    private final long maxPermits;
+    private final int burstSize;
+    private long startNanos;
+    private long pausedAt = -1;
+    // permits consumed from the rate, including the permits discarded when the bucket is full
+    private double consumed;
+    private long issued;
+    private boolean closed;
+
+    /**
+     * @param eventsPerSecond target number of permits per second
+     * @param rampUpTime      time taken to reach the target rate, in milliseconds
+     * @param duration        time after which no more permits are issued in milliseconds, or -1 for no limit
+     * @param maxPermits      maximum number of permits to issue, or -1 for no limit
+     * @param burstSize       maximum number of permits accumulated while permits are not taken
+     */
+    public TokenBucket(double eventsPerSecond, long rampUpTime, long duration, long maxPermits, int burstSize) {
+        this.ratePerNano = eventsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.rampUpNanos = TimeUnit.MILLISECONDS.toNanos(rampUpTime);
+        this.durationNanos = duration < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(duration);
+        this.maxPermits = maxPermits;
+        this.burstSize = Math.max(burstSize, 1);
+    }
+
+    public synchronized void start(long now) {
+        startNanos = now;
+        pausedAt = -1;
+        consumed = 0;
+        issued = 0;
+        closed = false;
+    }
+
+    public synchronized void pause(long now) {
+        if (pausedAt == -1) {
+            pausedAt = now;
+        }
+    }
+
+    public synchronized void resume(long now) {
+        if (pausedAt != -1) {
+            startNanos += now - pausedAt;
+            pausedAt = -1;
+        }
+    }
+
+    /**
+     * close() stops issuing permits, and releases the threads waiting for them
+     */
+    public synchronized void close() {
+        closed = true;
+    }
+
+    /**
+     * acquire() waits till at least one permit is available and takes the available permits
+     *
+     * @param permits maximum number of permits to take
+     * @return the number of permits taken, or {@link #FINISHED} if no more permits will be issued
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public int acquire(int permits) throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                int taken = tryAcquire(permits, now);
+                if (taken != 0) {
+                    return taken;
+                }
+                waitNanos = nanosUntilNextPermit(now);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(Math.min(waitNanos, MAX_WAIT_NANOS), 1));
+        }
+    }
+
+    /**
+     * tryAcquire() takes the permits available at the given time without waiting
+     *
+     * @param permits maximum number of permits to take
+     * @param now     current value of {@link System#nanoTime()}
+     * @return the number of permits taken, or {@link #FINISHED} if no more permits will be issued
+     */
+    public synchronized int tryAcquire(int permits, long now) {
+        if (closed || (maxPermits >= 0 && issued >= maxPermits)) {
+            return FINISHED;
+        }
+        if (pausedAt != -1) {
+            return 0;
+        }
+        long elapsed = now - startNanos;
+        if (durationNanos >= 0 && elapsed >= durationNanos) {
+            return FINISHED;
+        }
+        double available = permitsAt(elapsed) - consumed;
+        if (available > burstSize) {
+            consumed += available - burstSize;
+            available = burstSize;
+        }
+        long taken = Math.min(permits, (long) available);
+        if (maxPermits >= 0) {
+            taken = Math.min(taken, maxPermits - issued);
+        }
+        consumed += taken;
+        issued += taken;
+        return (int) taken;
+    }
+
+    /**
+     * @param now current value of {@link System#nanoTime()}
+     * @return the target rate at the given time, in permits per second
+     */
+    public synchronized double getCurrentRate(long now) {
+        long elapsed = (pausedAt == -1 ? now : pausedAt) - startNanos;
+        double rate = ratePerNano * TimeUnit.SECONDS.toNanos(1);
+        return elapsed < rampUpNanos ? rate * Math.max(elapsed, 0) / rampUpNanos : rate;
+    }
+
+    /**
+     * @param now current value of {@link System#nanoTime()}
+     * @return the time the bucket has been running for excluding the paused time, in nanoseconds
+     */
+    public synchronized long getElapsedNanos(long now) {
+        return (pausedAt == -1 ? now : pausedAt) - startNanos;
+    }
+
+    public synchronized long getIssuedPermits() {
+        return issued;
+    }
+
+    private long nanosUntilNextPermit(long now) {
+        if (pausedAt != -1) {
+            return MAX_WAIT_NANOS;
+        }
+        return startNanos + elapsedFor(consumed + 1) - now;
+    }
+
+    /**
+     * permitsAt() integrates the ramped rate up to the given time
+     */
+    private double permitsAt(long elapsed) {
+        if (elapsed <= 0) {
+            return 0;
+        }
+        if (elapsed < rampUpNanos) {
+            return ratePerNano * elapsed * elapsed / (2.0 * rampUpNanos);
+        }
+        return ratePerNano * (elapsed - rampUpNanos / 2.0);
+    }
+
+    /**
+     * elapsedFor() is the inverse of {@link #permitsAt(long)}
+     */
+    private long elapsedFor(double permits) {
+        if (permits <= ratePerNano * rampUpNanos / 2.0) {
+            return (long) Math.ceil(Math.sqrt(2.0 * rampUpNanos * permits / ratePerNano));
+        }
+        return (long) Math.ceil(permits / ratePerNano + rampUpNanos / 2.0);
+    }
+}
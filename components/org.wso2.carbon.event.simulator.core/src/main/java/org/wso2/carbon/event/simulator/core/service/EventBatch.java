@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service;
+
+import io.siddhi.core.event.Event;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.streaming.integrator.common.EventStreamService;
+
+import java.util.Arrays;
+
+/**
+ * EventBatch collects consecutive events of the same event generator, and pushes them to the generator's stream
+ * in one call, so that the input handler of the stream is resolved once per batch rather than once per event.
+ */
+class EventBatch {
+    private final EventStreamService eventStreamService;
+    private final Event[] events;
+    private EventGenerator generator;
+    private int size;
+
+    EventBatch(EventStreamService eventStreamService, int capacity) {
+        this.eventStreamService = eventStreamService;
+        this.events = new Event[capacity];
+    }
+
+    /**
+     * add() adds an event of the given generator, pushing the events collected so far if they belong to another
+     * generator or fill the batch
+     *
+     * @return the number of events pushed
+     */
+    int add(EventGenerator eventGenerator, Event event) {
+        int pushed = 0;
+        if (eventGenerator != generator) {
+            pushed = flush();
+            generator = eventGenerator;
+        }
+        events[size++] = event;
+        if (size == events.length) {
+            pushed += flush();
+        }
+        return pushed;
+    }
+
+    /**
+     * flush() pushes the events collected so far
+     *
+     * @return the number of events pushed
+     */
+    int flush() {
+        int pushed = size;
+        if (size == 1) {
+            eventStreamService.pushEvent(generator.getSiddhiAppName(), generator.getStreamName(), events[0]);
+        } else if (size > 1) {
+            // the pushed array is not reused, since the receivers may hold on to it
+            eventStreamService.pushEvents(generator.getSiddhiAppName(), generator.getStreamName(),
+                                          Arrays.copyOf(events, size));
+        }
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+        return pushed;
+    }
+}
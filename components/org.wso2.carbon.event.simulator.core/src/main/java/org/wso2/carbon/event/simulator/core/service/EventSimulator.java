@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.event.simulator.core.exception.*;
 import org.wso2.carbon.event.simulator.core.internal.bean.SimulationPropertiesDTO;
 import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGeneratorScheduler;
 import org.wso2.carbon.event.simulator.core.internal.util.EventGeneratorFactoryImpl;
 import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
 import org.wso2.carbon.event.simulator.core.util.LogEncoder;
@@ -50,6 +51,8 @@ import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperation
 @NotThreadSafe
 public class EventSimulator implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(EventSimulator.class);
+    // maximum number of events having the same timestamp that are sent together
+    private static final int MAX_BATCH_SIZE = 1024;
     private List<EventGenerator> generators = new ArrayList<>();
     private SimulationPropertiesDTO simulationProperties;
     private String simulationName;
@@ -59,6 +62,10 @@ public class EventSimulator implements Runnable {
     private final Semaphore lock = new Semaphore(1, true);
     // lockStop is used to ensure that stop() will not be called in the middle of an event generation(avoid IOException)
     private final ReentrantLock lockStop = new ReentrantLock();
+    // generatorsResumed is used to reschedule the generators after their next events are changed by resume()
+    private volatile boolean generatorsResumed = false;
+    // loadGenerator is used instead of the generators when the simulation has a target events per second
+    private LoadGenerator loadGenerator;
 
 
     /**
@@ -89,6 +96,9 @@ public class EventSimulator implements Runnable {
                                                                      simulationProperties.getEndTimestamp(),
                                                                      simulationName));
             }
+            if (simulationProperties.isLoadGeneration()) {
+                loadGenerator = new LoadGenerator(simulationName, simulationProperties, sourceConfig);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Successfully created simulator for simulation configuration '" + simulationName + "'");
             }
@@ -245,6 +255,7 @@ public class EventSimulator implements Runnable {
                     }
                 }
             }
+            validateLoadGenerationProperties(simulationPropertiesConfig);
         } catch (JSONException e) {
             log.error("Error occurred when accessing simulation configuration of simulation '" +
                         simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME) +
@@ -260,16 +271,69 @@ public class EventSimulator implements Runnable {
         }
     }
 
+    /**
+     * validateLoadGenerationProperties() validates the optional properties used to generate events at a target rate
+     *
+     * @param simulationPropertiesConfig a JSON object containing simulation properties
+     * @throws InvalidConfigException if the load generation properties contain invalid data
+     */
+    private static void validateLoadGenerationProperties(JSONObject simulationPropertiesConfig)
+            throws InvalidConfigException {
+        String simulationName = simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME);
+        if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.TARGET_EVENTS_PER_SECOND)
+                && simulationPropertiesConfig.getDouble(EventSimulatorConstants.TARGET_EVENTS_PER_SECOND) <= 0) {
+            throw new InvalidConfigException(
+                            ResourceNotFoundException.ResourceType.SIMULATION,
+                            EventSimulatorConstants.TARGET_EVENTS_PER_SECOND,
+                            "Target events per second must be a positive value for simulation '" + simulationName +
+                            "'. Invalid simulation properties configuration provided : " +
+                            simulationPropertiesConfig.toString());
+        }
+        if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.RAMP_UP_TIME)
+                && simulationPropertiesConfig.getLong(EventSimulatorConstants.RAMP_UP_TIME) < 0) {
+            throw new InvalidConfigException(
+                            ResourceNotFoundException.ResourceType.SIMULATION,
+                            EventSimulatorConstants.RAMP_UP_TIME,
+                            "Ramp up time must not be a negative value for simulation '" + simulationName +
+                            "'. Invalid simulation properties configuration provided : " +
+                            simulationPropertiesConfig.toString());
+        }
+        if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SIMULATION_DURATION)
+                && simulationPropertiesConfig.getLong(EventSimulatorConstants.SIMULATION_DURATION) <= 0) {
+            throw new InvalidConfigException(
+                            ResourceNotFoundException.ResourceType.SIMULATION,
+                            EventSimulatorConstants.SIMULATION_DURATION,
+                            "Duration must be a positive value for simulation '" + simulationName +
+                            "'. Invalid simulation properties configuration provided : " +
+                            simulationPropertiesConfig.toString());
+        }
+        if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.THREAD_COUNT)
+                && simulationPropertiesConfig.getInt(EventSimulatorConstants.THREAD_COUNT) <= 0) {
+            throw new InvalidConfigException(
+                            ResourceNotFoundException.ResourceType.SIMULATION,
+                            EventSimulatorConstants.THREAD_COUNT,
+                            "Thread count must be a positive value for simulation '" + simulationName +
+                            "'. Invalid simulation properties configuration provided : " +
+                            simulationPropertiesConfig.toString());
+        }
+    }
+
     /**
      * eventSimulation() method is responsible for sending events belonging to one simulation configuration in the
      * order of their timestamps
-     * Events will be sent at time intervals equal to the delay
+     * Events will be sent at time intervals equal to the delay. If there is no delay, the events having the same
+     * timestamp are sent together.
      */
     @SuppressWarnings("SWL_SLEEP_WITH_LOCK_HELD")
     private void eventSimulation() {
-        long minTimestamp;
         EventGenerator generator;
         int eventsRemaining = simulationProperties.getNoOfEventsRequired();
+        long timeInterval = simulationProperties.getTimeInterval();
+        int maxBatchSize = timeInterval > 0 ? 1 : MAX_BATCH_SIZE;
+        EventGeneratorScheduler scheduler = new EventGeneratorScheduler(generators);
+        EventBatch batch = new EventBatch(EventSimulatorDataHolder.getInstance().getEventStreamService(),
+                                          maxBatchSize);
+        generatorsResumed = false;
         try {
             while (!status.equals(Status.STOP) && !status.equals(Status.PENDING_STOP)) {
 //                if the simulator is paused, wait till it is resumed
@@ -277,58 +341,54 @@ public class EventSimulator implements Runnable {
                     lock.acquire();
                     lock.release();
                 }
+//                resuming the generators changes the timestamps of their next events
+                if (generatorsResumed) {
+                    generatorsResumed = false;
+                    scheduler.reset();
+                }
 
                 /*
                  * if there is no limit to the number of events to be sent or is the number of event remaining to be
                  * sent is > 0, send an event, else stop event simulation
                  * */
                 if (eventsRemaining == -1 || eventsRemaining > 0) {
-                    minTimestamp = -1L;
-                    generator = null;
                     /*
-                     * 1. for each event generator peek the next event (i.e. the next event with least timestamp)
-                     * 2. take the first event generator will a not null nextEvent as the first refferal value for
-                     * generator with minimum timestamp event, and take the events timestamp as the minimum
-                     * timestamp refferal value
-                     * 3. then compare the timestamp of the remaining not null nextEvents with the minimum timestamp
-                     * and update the minimum timestamp refferal value accordingly.
-                     * 4. once all generators are iterated and the event with minimum timestamp if obtained, send
-                     * event.
-                     * 5. if all generators has nextEvent == null, then stop event simulation
+                     * 1. the scheduler keeps the generators ordered by the timestamp of their next event
+                     * 2. send the event of the generator with the least timestamp, followed by the events of the
+                     * same timestamp, up to the batch size. consecutive events of the same generator are pushed
+                     * to its stream together
+                     * 3. if none of the generators have a next event, then stop event simulation
                      * */
                     lockStop.lock();
                     try {
-                        for (EventGenerator eventGenerator : generators) {
-                            if (eventGenerator.peek() != null) {
-                                if (minTimestamp == -1L) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                } else if (eventGenerator.peek().getTimestamp() < minTimestamp) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                }
-                            } else {
-                                generator = null;
-                            }
+                        generator = scheduler.peek();
+                        if (generator == null) {
+                            break;
                         }
-                        if (minTimestamp >= 0L && generator != null) {
+                        long timestamp = generator.peek().getTimestamp();
+                        int batchSize = 0;
+                        do {
                             if (log.isDebugEnabled()) {
                                 log.debug("Input Event (Simulation : '" + simulationName + "') : "
                                                   + Arrays.deepToString(generator.peek().getData()));
                             }
-                            EventSimulatorDataHolder.getInstance().getEventStreamService()
-                                    .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(),
-                                               generator.poll());
-                        } else {
-                            break;
-                        }
-                        if (eventsRemaining > 0) {
-                            eventsRemaining--;
-                        }
+                            batch.add(generator, scheduler.poll());
+                            batchSize++;
+                            if (eventsRemaining > 0) {
+                                eventsRemaining--;
+                            }
+                            generator = scheduler.peek();
+                        } while (batchSize < maxBatchSize && eventsRemaining != 0 && generator != null
+                                && generator.peek().getTimestamp() == timestamp);
+                        batch.flush();
                     } finally {
                         lockStop.unlock();
                     }
-                    Thread.sleep(simulationProperties.getTimeInterval());
+                    if (timeInterval > 0) {
+                        Thread.sleep(timeInterval);
+                    } else if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
                 } else {
                     break;
                 }
@@ -351,6 +411,24 @@ public class EventSimulator implements Runnable {
         }
     }
 
+    /**
+     * loadSimulation() method sends the events of the simulation at the target rate using the load generator, and
+     * returns once the load generation finishes or is stopped
+     */
+    private void loadSimulation() {
+        try {
+            loadGenerator.run();
+            stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        } catch (EventGenerationException | SimulatorInitializationException e) {
+            stop();
+            throw new EventGenerationException("Error occurred when generating events for simulation '" +
+                                                       simulationProperties.getSimulationName() + "'. ", e);
+        }
+    }
+
     /**
      * validateSimulationConfiguration() is used to parse the simulation configuration
      *
@@ -420,6 +498,26 @@ public class EventSimulator implements Runnable {
             simulationPropertiesDTO.setStartTimestamp(startTimestamp);
             simulationPropertiesDTO.setEndTimestamp(endTimestamp);
             simulationPropertiesDTO.setNoOfEventsRequired(noOfEventsRequired);
+            /*
+             * if targetEventsPerSecond is provided, events are sent at that rate for the given duration, ramping the
+             * rate up from zero over the rampUpTime, and pushed by up to threadCount threads
+             * */
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.TARGET_EVENTS_PER_SECOND)) {
+                simulationPropertiesDTO.setTargetEventsPerSecond(simulationPropertiesConfig.getDouble(
+                        EventSimulatorConstants.TARGET_EVENTS_PER_SECOND));
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.RAMP_UP_TIME)) {
+                simulationPropertiesDTO.setRampUpTime(simulationPropertiesConfig.getLong(
+                        EventSimulatorConstants.RAMP_UP_TIME));
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SIMULATION_DURATION)) {
+                simulationPropertiesDTO.setDuration(simulationPropertiesConfig.getLong(
+                        EventSimulatorConstants.SIMULATION_DURATION));
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.THREAD_COUNT)) {
+                simulationPropertiesDTO.setThreadCount(simulationPropertiesConfig.getInt(
+                        EventSimulatorConstants.THREAD_COUNT));
+            }
             return simulationPropertiesDTO;
 
         } catch (JSONException e) {
@@ -442,6 +540,14 @@ public class EventSimulator implements Runnable {
      */
     @Override
     public void run() {
+        if (loadGenerator != null) {
+            status = Status.RUN;
+            if (log.isDebugEnabled()) {
+                log.debug("Begin load generation of '" + simulationName + "'");
+            }
+            loadSimulation();
+            return;
+        }
         try {
             generators.forEach(EventGenerator::start);
             if (log.isDebugEnabled()) {
@@ -468,7 +574,18 @@ public class EventSimulator implements Runnable {
      * @see EventGenerator#stop()
      */
     public void stop() {
-        if (!status.equals(Status.STOP)) {
+        if (!status.equals(Status.STOP) && loadGenerator != null) {
+            boolean paused = status.equals(Status.PAUSE);
+            status = Status.STOP;
+            loadGenerator.stop();
+            if (paused) {
+                // release the lock taken when pausing, so that the simulation can be paused when it is rerun
+                lock.release();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Stop simulation '" + simulationName + "'");
+            }
+        } else if (!status.equals(Status.STOP)) {
             if(!lockStop.tryLock()){
                 status = Status.PENDING_STOP;
             } else{
@@ -493,6 +610,9 @@ public class EventSimulator implements Runnable {
             try {
                 lock.acquire();
                 status = Status.PAUSE;
+                if (loadGenerator != null) {
+                    loadGenerator.pause();
+                }
                 if (log.isDebugEnabled()) {
                     log.debug("Pause event simulation '" + simulationName + "'");
                 }
@@ -510,7 +630,12 @@ public class EventSimulator implements Runnable {
      */
     public void resume() {
         if (status.equals(Status.PAUSE)) {
-            generators.forEach(EventGenerator::resume);
+            if (loadGenerator != null) {
+                loadGenerator.resume();
+            } else {
+                generators.forEach(EventGenerator::resume);
+                generatorsResumed = true;
+            }
             lock.release();
             status = Status.RUN;
             if (log.isDebugEnabled()) {
@@ -523,6 +648,13 @@ public class EventSimulator implements Runnable {
         return status;
     }
 
+    /**
+     * @return the load generator of the simulation, or null if the simulation has no target events per second
+     */
+    public LoadGenerator getLoadGenerator() {
+        return loadGenerator;
+    }
+
     public String getStatusMessage() {
         return statusMessage;
     }
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service;
+
+import io.siddhi.core.event.Event;
+import org.json.JSONArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+import org.wso2.carbon.event.simulator.core.exception.SimulationValidationException;
+import org.wso2.carbon.event.simulator.core.exception.SimulatorInitializationException;
+import org.wso2.carbon.event.simulator.core.internal.bean.SimulationPropertiesDTO;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGeneratorScheduler;
+import org.wso2.carbon.event.simulator.core.internal.util.EventGeneratorFactoryImpl;
+import org.wso2.carbon.event.simulator.core.internal.util.TokenBucket;
+import org.wso2.carbon.event.simulator.core.service.bean.LoadGenerationStatistics;
+import org.wso2.carbon.streaming.integrator.common.EventStreamService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LoadGenerator sends the events of a feed simulation at a target rate, to load test Siddhi apps.
+ * The events are generated once, in the order of their timestamps, by a single producer which owns the event
+ * generators of the simulation. The producer takes permits from a {@link TokenBucket}, which ramps the rate up to the
+ * target rate and stops issuing permits once the duration has elapsed, and hands the events of the permits to a
+ * number of pusher threads. The streams are partitioned among the pushers, so that the events of a stream are pushed
+ * by one pusher in the order they were generated, in batches.
+ */
+public class LoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+    // maximum number of permits the producer takes at once
+    private static final int PERMIT_BATCH_SIZE = 128;
+    // number of event batches a pusher may lag behind the producer
+    private static final int PENDING_BATCHES_PER_PUSHER = 4;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long PUSHER_CHECK_MILLIS = 100;
+    private static final PendingEvents END_OF_EVENTS = new PendingEvents(0);
+
+    private final String simulationName;
+    private final SimulationPropertiesDTO simulationProperties;
+    private final Supplier<List<EventGenerator>> generatorFactory;
+    private final Supplier<EventStreamService> eventStreamServiceProvider;
+    private final TokenBucket tokenBucket;
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder pushTime = new LongAdder();
+    private final AtomicLong maxPushTime = new AtomicLong();
+    private long windowStartTime;
+    private long windowStartEventsSent;
+    private double windowEventsPerSecond = -1;
+
+    public LoadGenerator(String simulationName, SimulationPropertiesDTO simulationProperties, JSONArray sourceConfig) {
+        this(simulationName, simulationProperties,
+                () -> createGenerators(simulationName, simulationProperties, sourceConfig),
+                () -> EventSimulatorDataHolder.getInstance().getEventStreamService());
+    }
+
+    LoadGenerator(String simulationName, SimulationPropertiesDTO simulationProperties,
+                  Supplier<List<EventGenerator>> generatorFactory,
+                  Supplier<EventStreamService> eventStreamServiceProvider) {
+        this.simulationName = simulationName;
+        this.simulationProperties = simulationProperties;
+        this.generatorFactory = generatorFactory;
+        this.eventStreamServiceProvider = eventStreamServiceProvider;
+        this.tokenBucket = new TokenBucket(simulationProperties.getTargetEventsPerSecond(),
+                simulationProperties.getRampUpTime(), simulationProperties.getDuration(),
+                simulationProperties.getNoOfEventsRequired(),
+                PERMIT_BATCH_SIZE * simulationProperties.getThreadCount());
+    }
+
+    /**
+     * run() generates the events and waits till all of them are pushed, which ends when the duration elapsed, the
+     * required number of events were sent, the generators ran out of events or the load generation was stopped
+     */
+    public void run() throws InterruptedException {
+        synchronized (this) {
+            eventsSent.reset();
+            pushTime.reset();
+            maxPushTime.set(0);
+            windowStartTime = 0;
+            windowStartEventsSent = 0;
+            windowEventsPerSecond = -1;
+            tokenBucket.start(System.nanoTime());
+        }
+        List<EventGenerator> generators = generatorFactory.get();
+        ExecutorService pushers = null;
+        try {
+            generators.forEach(EventGenerator::start);
+            Map<EventGenerator, Integer> partitions = partition(generators);
+            int pusherCount = (int) partitions.values().stream().distinct().count();
+            AtomicInteger threadId = new AtomicInteger();
+            pushers = Executors.newFixedThreadPool(Math.max(pusherCount, 1), runnable -> {
+                Thread thread = new Thread(runnable, "LoadGenerator-" + simulationName + "-" +
+                        threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            EventStreamService eventStreamService = eventStreamServiceProvider.get();
+            List<BlockingQueue<PendingEvents>> queues = new ArrayList<>(pusherCount);
+            List<Future<?>> futures = new ArrayList<>(pusherCount);
+            for (int i = 0; i < pusherCount; i++) {
+                BlockingQueue<PendingEvents> queue = new ArrayBlockingQueue<>(PENDING_BATCHES_PER_PUSHER);
+                queues.add(queue);
+                futures.add(pushers.submit(() -> push(queue, eventStreamService)));
+            }
+            produce(new EventGeneratorScheduler(generators), partitions, queues, futures);
+            for (BlockingQueue<PendingEvents> queue : queues) {
+                handOver(queue, END_OF_EVENTS, futures);
+            }
+            for (Future<?> future : futures) {
+                checkPusher(future);
+            }
+        } finally {
+            tokenBucket.close();
+            if (pushers != null) {
+                pushers.shutdownNow();
+            }
+            generators.forEach(EventGenerator::stop);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Load generation of simulation '" + simulationName + "' finished after sending " +
+                    eventsSent.sum() + " events.");
+        }
+    }
+
+    public void pause() {
+        tokenBucket.pause(System.nanoTime());
+    }
+
+    public void resume() {
+        tokenBucket.resume(System.nanoTime());
+    }
+
+    public void stop() {
+        tokenBucket.close();
+    }
+
+    /**
+     * getStatistics() reports the achieved rate against the target rate. The achieved rate is measured over the last
+     * window of at least a second of the simulation, excluding the paused time, while the average rate and push
+     * latency are measured since the load generation started.
+     *
+     * @return statistics of the load generation
+     */
+    public synchronized LoadGenerationStatistics getStatistics() {
+        long now = System.nanoTime();
+        updateWindow(now);
+        long elapsedTime = Math.max(tokenBucket.getElapsedNanos(now), 0);
+        long sent = eventsSent.sum();
+        LoadGenerationStatistics statistics = new LoadGenerationStatistics();
+        statistics.setTargetEventsPerSecond(simulationProperties.getTargetEventsPerSecond());
+        statistics.setCurrentTargetEventsPerSecond(tokenBucket.getCurrentRate(now));
+        // till the first window is over, the achieved rate is the average rate
+        statistics.setAchievedEventsPerSecond(windowEventsPerSecond < 0 ? perSecond(sent, elapsedTime) :
+                windowEventsPerSecond);
+        statistics.setAverageEventsPerSecond(perSecond(sent, elapsedTime));
+        statistics.setEventsSent(sent);
+        statistics.setElapsedTime(TimeUnit.NANOSECONDS.toMillis(elapsedTime));
+        statistics.setThreadCount(simulationProperties.getThreadCount());
+        statistics.setAveragePushLatency(sent == 0 ? 0 : (double) pushTime.sum() / sent / 1000);
+        statistics.setMaxPushLatency((double) maxPushTime.get() / 1000);
+        return statistics;
+    }
+
+    /**
+     * updateWindow() closes the current window once it is a second long, and keeps the rate achieved in it
+     */
+    private synchronized void updateWindow(long now) {
+        long elapsedTime = tokenBucket.getElapsedNanos(now);
+        if (elapsedTime - windowStartTime >= WINDOW_NANOS) {
+            long sent = eventsSent.sum();
+            windowEventsPerSecond = perSecond(sent - windowStartEventsSent, elapsedTime - windowStartTime);
+            windowStartTime = elapsedTime;
+            windowStartEventsSent = sent;
+        }
+    }
+
+    /**
+     * partition() assigns the streams of the generators to pushers in a round robin manner, so that the generators
+     * of the same stream share a pusher
+     *
+     * @return the index of the pusher of each generator
+     */
+    private Map<EventGenerator, Integer> partition(List<EventGenerator> generators) {
+        int threadCount = Math.max(simulationProperties.getThreadCount(), 1);
+        Map<String, Integer> streamPartitions = new HashMap<>();
+        Map<EventGenerator, Integer> partitions = new IdentityHashMap<>();
+        for (EventGenerator generator : generators) {
+            String stream = generator.getSiddhiAppName() + ":" + generator.getStreamName();
+            Integer partition = streamPartitions.get(stream);
+            if (partition == null) {
+                partition = streamPartitions.size() % threadCount;
+                streamPartitions.put(stream, partition);
+            }
+            partitions.put(generator, partition);
+        }
+        return partitions;
+    }
+
+    private void produce(EventGeneratorScheduler scheduler, Map<EventGenerator, Integer> partitions,
+                         List<BlockingQueue<PendingEvents>> queues, List<Future<?>> futures)
+            throws InterruptedException {
+        while (true) {
+            updateWindow(System.nanoTime());
+            int permits = tokenBucket.acquire(PERMIT_BATCH_SIZE);
+            if (permits == TokenBucket.FINISHED) {
+                return;
+            }
+            PendingEvents[] pendingEvents = new PendingEvents[queues.size()];
+            boolean exhausted = false;
+            for (int i = 0; i < permits; i++) {
+                EventGenerator generator = scheduler.peek();
+                if (generator == null) {
+                    exhausted = true;
+                    break;
+                }
+                int partition = partitions.get(generator);
+                if (pendingEvents[partition] == null) {
+                    pendingEvents[partition] = new PendingEvents(permits);
+                }
+                pendingEvents[partition].add(generator, scheduler.poll());
+            }
+            for (int i = 0; i < pendingEvents.length; i++) {
+                if (pendingEvents[i] != null) {
+                    handOver(queues.get(i), pendingEvents[i], futures);
+                }
+            }
+            if (exhausted) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * handOver() waits till the pusher takes the events, failing if any of the pushers failed meanwhile
+     */
+    private void handOver(BlockingQueue<PendingEvents> queue, PendingEvents pendingEvents, List<Future<?>> futures)
+            throws InterruptedException {
+        while (!queue.offer(pendingEvents, PUSHER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            for (Future<?> future : futures) {
+                if (future.isDone()) {
+                    checkPusher(future);
+                }
+            }
+        }
+    }
+
+    private void checkPusher(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            tokenBucket.close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EventGenerationException("Error occurred when generating events for simulation '" +
+                    simulationName + "'. ", e.getCause());
+        }
+    }
+
+    private Void push(BlockingQueue<PendingEvents> queue, EventStreamService eventStreamService)
+            throws InterruptedException {
+        EventBatch batch = new EventBatch(eventStreamService, PERMIT_BATCH_SIZE);
+        while (true) {
+            PendingEvents pendingEvents = queue.take();
+            if (pendingEvents == END_OF_EVENTS) {
+                return null;
+            }
+            for (int i = 0; i < pendingEvents.size; i++) {
+                long pushStart = System.nanoTime();
+                recordPush(batch.add(pendingEvents.generators[i], pendingEvents.events[i]), pushStart);
+            }
+            long pushStart = System.nanoTime();
+            recordPush(batch.flush(), pushStart);
+        }
+    }
+
+    private void recordPush(int eventsPushed, long pushStart) {
+        if (eventsPushed > 0) {
+            long pushDuration = System.nanoTime() - pushStart;
+            pushTime.add(pushDuration);
+            maxPushTime.accumulateAndGet(pushDuration, Math::max);
+            eventsSent.add(eventsPushed);
+        }
+    }
+
+    private static List<EventGenerator> createGenerators(String simulationName,
+                                                         SimulationPropertiesDTO simulationProperties,
+                                                         JSONArray sourceConfig) {
+        EventGeneratorFactoryImpl generatorFactory = new EventGeneratorFactoryImpl();
+        List<EventGenerator> generators = new ArrayList<>(sourceConfig.length());
+        try {
+            for (int i = 0; i < sourceConfig.length(); i++) {
+                generators.add(generatorFactory.createEventGenerator(sourceConfig.getJSONObject(i),
+                        simulationProperties.getStartTimestamp(), simulationProperties.getEndTimestamp(),
+                        simulationName));
+            }
+        } catch (SimulationValidationException e) {
+            throw new SimulatorInitializationException("Error occurred when creating event generators for load " +
+                    "generation of simulation '" + simulationName + "'. ", e);
+        }
+        return generators;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * PendingEvents holds the events handed over to a pusher, with the generators they were polled from
+     */
+    private static class PendingEvents {
+        private final EventGenerator[] generators;
+        private final Event[] events;
+        private int size;
+
+        private PendingEvents(int capacity) {
+            this.generators = new EventGenerator[capacity];
+            this.events = new Event[capacity];
+        }
+
+        private void add(EventGenerator generator, Event event) {
+            generators[size] = generator;
+            events[size++] = event;
+        }
+    }
+}
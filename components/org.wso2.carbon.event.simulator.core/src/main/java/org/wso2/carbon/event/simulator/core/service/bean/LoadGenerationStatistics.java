@@ -0,0 +1,108 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service.bean;
+
+/**
+ * LoadGenerationStatistics holds the achieved and target rates of a load generating simulation. Times are in
+ * milliseconds and push latencies are in microseconds. The average push latency is the push time per event, while
+ * the maximum push latency is of the longest push, which may carry a batch of events.
+ */
+public class LoadGenerationStatistics {
+    private double targetEventsPerSecond;
+    private double currentTargetEventsPerSecond;
+    private double achievedEventsPerSecond;
+    private double averageEventsPerSecond;
+    private long eventsSent;
+    private long elapsedTime;
+    private int threadCount;
+    private double averagePushLatency;
+    private double maxPushLatency;
+
+    public double getTargetEventsPerSecond() {
+        return targetEventsPerSecond;
+    }
+
+    public void setTargetEventsPerSecond(double targetEventsPerSecond) {
+        this.targetEventsPerSecond = targetEventsPerSecond;
+    }
+
+    public double getCurrentTargetEventsPerSecond() {
+        return currentTargetEventsPerSecond;
+    }
+
+    public void setCurrentTargetEventsPerSecond(double currentTargetEventsPerSecond) {
+        this.currentTargetEventsPerSecond = currentTargetEventsPerSecond;
+    }
+
+    public double getAchievedEventsPerSecond() {
+        return achievedEventsPerSecond;
+    }
+
+    public void setAchievedEventsPerSecond(double achievedEventsPerSecond) {
+        this.achievedEventsPerSecond = achievedEventsPerSecond;
+    }
+
+    public double getAverageEventsPerSecond() {
+        return averageEventsPerSecond;
+    }
+
+    public void setAverageEventsPerSecond(double averageEventsPerSecond) {
+        this.averageEventsPerSecond = averageEventsPerSecond;
+    }
+
+    public long getEventsSent() {
+        return eventsSent;
+    }
+
+    public void setEventsSent(long eventsSent) {
+        this.eventsSent = eventsSent;
+    }
+
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public double getAveragePushLatency() {
+        return averagePushLatency;
+    }
+
+    public void setAveragePushLatency(double averagePushLatency) {
+        this.averagePushLatency = averagePushLatency;
+    }
+
+    public double getMaxPushLatency() {
+        return maxPushLatency;
+    }
+
+    public void setMaxPushLatency(double maxPushLatency) {
+        this.maxPushLatency = maxPushLatency;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service.bean;
+
+import org.wso2.carbon.streaming.integrator.common.exception.ResponseMapper;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * SimulationStatusResponse carries the status of a load generating simulation together with its statistics
+ */
+public class SimulationStatusResponse extends ResponseMapper {
+    private LoadGenerationStatistics loadGenerationStatistics;
+
+    public SimulationStatusResponse(Response.Status status, String message,
+                                    LoadGenerationStatistics loadGenerationStatistics) {
+        super(status, message);
+        this.loadGenerationStatistics = loadGenerationStatistics;
+    }
+
+    public LoadGenerationStatistics getLoadGenerationStatistics() {
+        return loadGenerationStatistics;
+    }
+
+    public void setLoadGenerationStatistics(LoadGenerationStatistics loadGenerationStatistics) {
+        this.loadGenerationStatistics = loadGenerationStatistics;
+    }
+}
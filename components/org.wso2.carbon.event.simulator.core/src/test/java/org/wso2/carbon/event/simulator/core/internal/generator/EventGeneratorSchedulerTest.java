@@ -0,0 +1,123 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+public class EventGeneratorSchedulerTest {
+
+    @Test
+    public void testMergeInTimestampOrder() {
+        EventGeneratorScheduler scheduler = new EventGeneratorScheduler(Arrays.asList(
+                new TimestampGenerator("A", 1, 4, 4, 9),
+                new TimestampGenerator("B"),
+                new TimestampGenerator("C", 2, 4, 7),
+                new TimestampGenerator("D", 4)));
+        List<String> events = new ArrayList<>();
+        EventGenerator generator;
+        while ((generator = scheduler.peek()) != null) {
+            events.add(generator.getStreamName() + scheduler.poll().getTimestamp());
+        }
+        Assert.assertEquals(events, Arrays.asList("A1", "C2", "A4", "A4", "C4", "D4", "C7", "A9"));
+        Assert.assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testResetAfterTimestampsChange() {
+        TimestampGenerator first = new TimestampGenerator("A", 5, 6);
+        TimestampGenerator second = new TimestampGenerator("B", 3);
+        EventGeneratorScheduler scheduler = new EventGeneratorScheduler(Arrays.asList(first, second));
+        Assert.assertEquals(scheduler.peek(), second);
+        first.peek().setTimestamp(1);
+        scheduler.reset();
+        Assert.assertEquals(scheduler.poll().getTimestamp(), 1);
+        Assert.assertEquals(scheduler.poll().getTimestamp(), 3);
+        Assert.assertEquals(scheduler.poll().getTimestamp(), 6);
+        Assert.assertNull(scheduler.peek());
+    }
+
+    private static class TimestampGenerator implements EventGenerator {
+        private final String streamName;
+        private final Deque<Event> events = new ArrayDeque<>();
+
+        private TimestampGenerator(String streamName, long... timestamps) {
+            this.streamName = streamName;
+            for (long timestamp : timestamps) {
+                events.add(new Event(timestamp, new Object[]{timestamp}));
+            }
+        }
+
+        @Override
+        public void init(JSONObject sourceConfig, long startTimestamp, long endTimestamp, String simulationName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public Event poll() {
+            return events.poll();
+        }
+
+        @Override
+        public Event peek() {
+            return events.peek();
+        }
+
+        @Override
+        public void getNextEvent() {
+        }
+
+        @Override
+        public String getStreamName() {
+            return streamName;
+        }
+
+        @Override
+        public String getSiddhiAppName() {
+            return "TestSiddhiApp";
+        }
+
+        @Override
+        public void validateSourceConfiguration(JSONObject sourceConfig, String simulationName) {
+        }
+
+        @Override
+        public void setStartTimestamp(long startTimestamp) {
+        }
+    }
+}
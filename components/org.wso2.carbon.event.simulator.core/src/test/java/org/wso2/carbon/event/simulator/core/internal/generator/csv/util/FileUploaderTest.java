@@ -33,6 +33,7 @@ import org.wso2.msf4j.formparam.FileInfo;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 /**
@@ -74,11 +75,17 @@ public class FileUploaderTest {
     @Test (dependsOnMethods = "testUploadValidCSV")
     public void testDeleteCSVFIle() throws Exception {
         uploadFile(sampleOrderedCSVFile);
+        Path sortedFile = SortedCSVReader.CACHE_DIRECTORY.resolve(FilenameUtils.getName(sampleOrderedCSVFile))
+                .resolve("sorted.csv");
+        Files.createDirectories(sortedFile.getParent());
+        Files.write(sortedFile, new byte[]{'1'});
         boolean deleted = FileUploader.getFileUploaderInstance().deleteFile(FilenameUtils.getName(sampleOrderedCSVFile),
                 FilenameUtils.concat(testDir.toString(), "tempCSVFolder"));
         Assert.assertTrue(deleted);
         Assert.assertFalse(new File(Paths.get(testDir.toString(), "tempCSVFolder", FilenameUtils
                 .getName(sampleOrderedCSVFile)).toString()).exists());
+        // the sorted copies of the file are deleted along with it
+        Assert.assertFalse(Files.exists(sortedFile.getParent()));
     }
 
     @Test(expectedExceptions = FileAlreadyExistsException.class, dependsOnMethods = "testDeleteCSVFIle")
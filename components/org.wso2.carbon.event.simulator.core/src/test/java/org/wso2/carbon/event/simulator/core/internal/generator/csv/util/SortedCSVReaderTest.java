@@ -0,0 +1,213 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.CSVSimulationDTO;
+import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SortedCSVReaderTest verifies that CSV files which are not ordered by timestamp are read in timestamp order
+ */
+public class SortedCSVReaderTest {
+    private static final String FILE_NAME = "unordered.csv";
+    private static final String SHARED_FILE_NAME = "shared.csv";
+    private static final int RECORD_COUNT = 150;
+    private static File testDir = Paths.get("target", "SortedCSVReaderTest").toFile();
+    private static List<Attribute> streamAttributes = Collections.singletonList(
+            new Attribute("id", Attribute.Type.INT));
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        FileUtils.deleteDirectory(testDir);
+        FileUtils.deleteDirectory(SortedCSVReader.CACHE_DIRECTORY.resolve(FILE_NAME).toFile());
+        testDir.mkdirs();
+        EventSimulatorDataHolder.getInstance().setCsvFileDirectory(testDir.getAbsolutePath());
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            lines.add(i + "," + getTimestamp(i));
+        }
+        lines.add("150,invalid");
+        Files.write(new File(testDir, FILE_NAME).toPath(), lines, StandardCharsets.UTF_8);
+        FileUtils.deleteDirectory(SortedCSVReader.CACHE_DIRECTORY.resolve(SHARED_FILE_NAME).toFile());
+        Files.write(new File(testDir, SHARED_FILE_NAME).toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(SortedCSVReader.CACHE_DIRECTORY.resolve(FILE_NAME).toFile());
+        FileUtils.deleteDirectory(SortedCSVReader.CACHE_DIRECTORY.resolve(SHARED_FILE_NAME).toFile());
+    }
+
+    @Test
+    public void testMergeOfChunks() throws Exception {
+        // a chunk size of 1 requires more chunks than can be merged at once
+        List<Event> events = readEvents(createCSVConfiguration(1), -1, -1);
+        Assert.assertEquals(events.size(), RECORD_COUNT);
+        for (int i = 1; i < events.size(); i++) {
+            Event previous = events.get(i - 1);
+            Event current = events.get(i);
+            Assert.assertTrue(previous.getTimestamp() <= current.getTimestamp());
+            if (previous.getTimestamp() == current.getTimestamp()) {
+                // records having the same timestamp keep the order of the file
+                Assert.assertTrue((int) previous.getData(0) < (int) current.getData(0));
+            }
+            Assert.assertEquals(current.getTimestamp(), getTimestamp((int) current.getData(0)));
+        }
+    }
+
+    @Test(dependsOnMethods = "testMergeOfChunks")
+    public void testCachedSortedFile() throws Exception {
+        Path cacheDirectory = SortedCSVReader.CACHE_DIRECTORY.resolve(FILE_NAME);
+        Assert.assertEquals(listSortedFiles(cacheDirectory).size(), 1);
+        Path sortedFile = listSortedFiles(cacheDirectory).get(0);
+        long lastModified = Files.getLastModifiedTime(sortedFile).toMillis();
+        List<Event> events = readEvents(createCSVConfiguration(16), 10, 20);
+        Assert.assertEquals(Files.getLastModifiedTime(sortedFile).toMillis(), lastModified);
+        Assert.assertEquals(events.size(), 33);
+        Assert.assertEquals(events.get(0).getTimestamp(), 10);
+        Assert.assertEquals(events.get(events.size() - 1).getTimestamp(), 20);
+    }
+
+    @Test
+    public void testConcurrentSorts() throws Exception {
+        int threadCount = 4;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<List<Event>>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executorService.submit(() -> readEvents(createCSVConfiguration(SHARED_FILE_NAME, 8),
+                        -1, -1)));
+            }
+            for (Future<List<Event>> future : futures) {
+                Assert.assertEquals(future.get().size(), RECORD_COUNT);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Path cacheDirectory = SortedCSVReader.CACHE_DIRECTORY.resolve(SHARED_FILE_NAME);
+        Assert.assertEquals(listSortedFiles(cacheDirectory).size(), 1);
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(cacheDirectory, "*.chunk")) {
+            Assert.assertFalse(directoryStream.iterator().hasNext());
+        }
+    }
+
+    @Test(dependsOnMethods = "testConcurrentSorts")
+    public void testSortedFileKeptWhileRead() throws Exception {
+        Path cacheDirectory = SortedCSVReader.CACHE_DIRECTORY.resolve(SHARED_FILE_NAME);
+        Path csvFile = new File(testDir, SHARED_FILE_NAME).toPath();
+        List<String> lines = Files.readAllLines(csvFile, StandardCharsets.UTF_8);
+        SortedCSVReader staleReader = new SortedCSVReader(createCSVConfiguration(SHARED_FILE_NAME, 8));
+        try {
+            // a new version of the file is sorted while the copy of the earlier version is being read
+            lines.add(RECORD_COUNT + ",0");
+            Files.write(csvFile, lines, StandardCharsets.UTF_8);
+            Assert.assertEquals(readEvents(createCSVConfiguration(SHARED_FILE_NAME, 8), -1, -1).size(),
+                    RECORD_COUNT + 1);
+            Assert.assertEquals(listSortedFiles(cacheDirectory).size(), 2);
+            int events = 0;
+            while (staleReader.getNextEvent(streamAttributes, -1, -1) != null) {
+                events++;
+            }
+            Assert.assertEquals(events, RECORD_COUNT);
+        } finally {
+            staleReader.close();
+        }
+        Assert.assertEquals(listSortedFiles(cacheDirectory).size(), 1);
+    }
+
+    @Test(dependsOnMethods = "testSortedFileKeptWhileRead")
+    public void testDeleteSortedFiles() throws Exception {
+        Path cacheDirectory = SortedCSVReader.CACHE_DIRECTORY.resolve(SHARED_FILE_NAME);
+        SortedCSVReader sortedCSVReader = new SortedCSVReader(createCSVConfiguration(SHARED_FILE_NAME, 8));
+        try {
+            SortedCSVReader.deleteSortedFiles(SHARED_FILE_NAME);
+            Assert.assertEquals(listSortedFiles(cacheDirectory).size(), 1);
+            Assert.assertNotNull(sortedCSVReader.getNextEvent(streamAttributes, -1, -1));
+        } finally {
+            sortedCSVReader.close();
+        }
+        Assert.assertEquals(listSortedFiles(cacheDirectory).size(), 0);
+
+        readEvents(createCSVConfiguration(SHARED_FILE_NAME, 8), -1, -1);
+        SortedCSVReader.deleteSortedFiles(SHARED_FILE_NAME);
+        Assert.assertFalse(Files.exists(cacheDirectory));
+    }
+
+    private List<Event> readEvents(CSVSimulationDTO csvConfig, long startTimestamp, long endTimestamp)
+            throws Exception {
+        List<Event> events = new ArrayList<>();
+        SortedCSVReader sortedCSVReader = new SortedCSVReader(csvConfig);
+        try {
+            Event event;
+            while ((event = sortedCSVReader.getNextEvent(streamAttributes, startTimestamp, endTimestamp)) != null) {
+                events.add(event);
+            }
+        } finally {
+            sortedCSVReader.close();
+        }
+        return events;
+    }
+
+    private CSVSimulationDTO createCSVConfiguration(int sortChunkSize) {
+        return createCSVConfiguration(FILE_NAME, sortChunkSize);
+    }
+
+    private CSVSimulationDTO createCSVConfiguration(String fileName, int sortChunkSize) {
+        CSVSimulationDTO csvConfig = new CSVSimulationDTO();
+        csvConfig.setFileName(fileName);
+        csvConfig.setDelimiter(",");
+        csvConfig.setTimestampAttribute("1");
+        csvConfig.setIsOrdered(false);
+        csvConfig.setSortChunkSize(sortChunkSize);
+        csvConfig.setIndices(Collections.singletonList(0));
+        return csvConfig;
+    }
+
+    private List<Path> listSortedFiles(Path cacheDirectory) throws Exception {
+        List<Path> sortedFiles = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(cacheDirectory, "*.csv")) {
+            directoryStream.forEach(sortedFiles::add);
+        }
+        return sortedFiles;
+    }
+
+    private static long getTimestamp(int id) {
+        return (id * 37) % 50;
+    }
+}
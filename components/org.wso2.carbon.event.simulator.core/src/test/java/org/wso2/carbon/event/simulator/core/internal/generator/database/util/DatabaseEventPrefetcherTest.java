@@ -0,0 +1,173 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.util;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DatabaseEventPrefetcherTest verifies that database simulation sources are read in timestamp order, a page at a time
+ */
+public class DatabaseEventPrefetcherTest {
+    private static final String DATA_SOURCE_LOCATION = "jdbc:h2:mem:DatabaseEventPrefetcherTest;DB_CLOSE_DELAY=-1";
+    private static final int ROW_COUNT = 40;
+    private static List<Attribute> streamAttributes = Collections.singletonList(
+            new Attribute("ID", Attribute.Type.INT));
+    private Connection connection;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection(DATA_SOURCE_LOCATION, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE EVENTS (ID INT, TS BIGINT)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO EVENTS VALUES (?, ?)")) {
+            // insert the rows out of timestamp order
+            for (int i = ROW_COUNT - 1; i >= 0; i--) {
+                statement.setInt(1, i);
+                statement.setLong(2, getTimestamp(i));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE EVENTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testPagesByTimestamp() throws Exception {
+        List<Event> events = readEvents(createDBConfiguration("TS", 4), -1, -1);
+        Assert.assertEquals(events.size(), ROW_COUNT);
+        Set<Object> ids = new HashSet<>();
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            Assert.assertTrue(ids.add(event.getData(0)));
+            Assert.assertEquals(event.getTimestamp(), getTimestamp((int) event.getData(0)));
+            if (i > 0) {
+                Assert.assertTrue(events.get(i - 1).getTimestamp() <= event.getTimestamp());
+            }
+        }
+    }
+
+    @Test
+    public void testTimestampRange() throws Exception {
+        List<Event> events = readEvents(createDBConfiguration("TS", 3), 3, 100);
+        Assert.assertEquals(events.size(), 14);
+        Assert.assertEquals(events.get(0).getTimestamp(), 3);
+        Assert.assertEquals(events.get(events.size() - 1).getTimestamp(), 100);
+    }
+
+    @Test
+    public void testWithoutTimestampAttribute() throws Exception {
+        List<Event> events = readEvents(createDBConfiguration(null, 7), -1, -1);
+        Assert.assertEquals(events.size(), ROW_COUNT);
+        Assert.assertEquals(events.get(0).getTimestamp(), -1);
+    }
+
+    @Test
+    public void testFetchSizeBeyondMaximum() throws Exception {
+        // the queue of the prefetcher is bounded by the maximum fetch size rather than the configured one
+        List<Event> events = readEvents(createDBConfiguration("TS", Integer.MAX_VALUE), -1, -1);
+        Assert.assertEquals(events.size(), ROW_COUNT);
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        DatabaseConnector databaseConnector = connect(createDBConfiguration("TS", 2));
+        DatabaseEventPrefetcher eventPrefetcher = new DatabaseEventPrefetcher(databaseConnector,
+                createDBConfiguration("TS", 2), streamAttributes, -1, -1);
+        eventPrefetcher.start();
+        Assert.assertNotNull(eventPrefetcher.take());
+        eventPrefetcher.stop();
+        // only the events queued before the prefetcher stopped can be taken
+        int queuedEvents = 0;
+        while (eventPrefetcher.take() != null) {
+            queuedEvents++;
+        }
+        Assert.assertTrue(queuedEvents < ROW_COUNT - 1);
+        Assert.assertNull(eventPrefetcher.take());
+    }
+
+    private List<Event> readEvents(DBSimulationDTO dbSimulationConfig, long startTimestamp, long endTimestamp) {
+        DatabaseEventPrefetcher eventPrefetcher = new DatabaseEventPrefetcher(connect(dbSimulationConfig),
+                dbSimulationConfig, streamAttributes, startTimestamp, endTimestamp);
+        eventPrefetcher.start();
+        List<Event> events = new ArrayList<>();
+        Event event;
+        while ((event = eventPrefetcher.take()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    private DatabaseConnector connect(DBSimulationDTO dbSimulationConfig) {
+        DatabaseConnector databaseConnector = new DatabaseConnector();
+        databaseConnector.connectToDatabase(dbSimulationConfig.getDriver(),
+                dbSimulationConfig.getDataSourceLocation(), dbSimulationConfig.getUsername(),
+                dbSimulationConfig.getPassword());
+        databaseConnector.validateSource(dbSimulationConfig.getTableName(), dbSimulationConfig.getColumnNames());
+        return databaseConnector;
+    }
+
+    private DBSimulationDTO createDBConfiguration(String timestampAttribute, int fetchSize) {
+        DBSimulationDTO dbSimulationConfig = new DBSimulationDTO();
+        dbSimulationConfig.setStreamName("EventsStream");
+        dbSimulationConfig.setDriver("org.h2.Driver");
+        dbSimulationConfig.setDataSourceLocation(DATA_SOURCE_LOCATION);
+        dbSimulationConfig.setUsername("sa");
+        dbSimulationConfig.setPassword("");
+        dbSimulationConfig.setTableName("EVENTS");
+        dbSimulationConfig.setColumnNames(Collections.singletonList("ID"));
+        dbSimulationConfig.setTimestampAttribute(timestampAttribute);
+        dbSimulationConfig.setFetchSize(fetchSize);
+        return dbSimulationConfig;
+    }
+
+    /**
+     * Timestamps repeat, and the rows of timestamp 100 do not fit in a page
+     */
+    private static long getTimestamp(int id) {
+        if (id < 10) {
+            return id / 2;
+        } else if (id < 20) {
+            return 100;
+        }
+        return id * 10;
+    }
+}
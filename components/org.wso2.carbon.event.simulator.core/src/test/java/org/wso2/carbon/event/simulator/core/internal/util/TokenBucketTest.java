@@ -0,0 +1,69 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testTargetRate() {
+        TokenBucket tokenBucket = new TokenBucket(1000, 0, -1, -1, 10000);
+        tokenBucket.start(0);
+        Assert.assertEquals(tokenBucket.tryAcquire(10000, SECOND / 2), 500);
+        Assert.assertEquals(tokenBucket.tryAcquire(10000, SECOND / 2), 0);
+        Assert.assertEquals(tokenBucket.tryAcquire(100, 2 * SECOND), 100);
+        Assert.assertEquals(tokenBucket.tryAcquire(10000, 2 * SECOND), 1400);
+        Assert.assertEquals(tokenBucket.getIssuedPermits(), 2000);
+    }
+
+    @Test
+    public void testRampUp() {
+        TokenBucket tokenBucket = new TokenBucket(1000, 2000, -1, -1, 100000);
+        tokenBucket.start(0);
+        Assert.assertEquals(tokenBucket.getCurrentRate(SECOND), 500.0);
+        // half the target rate on average during the ramp up
+        Assert.assertEquals(tokenBucket.tryAcquire(100000, 2 * SECOND), 1000);
+        Assert.assertEquals(tokenBucket.tryAcquire(100000, 3 * SECOND), 1000);
+        Assert.assertEquals(tokenBucket.getCurrentRate(3 * SECOND), 1000.0);
+    }
+
+    @Test
+    public void testBurstSizeAndLimits() {
+        TokenBucket tokenBucket = new TokenBucket(1000, 0, 5000, 2500, 100);
+        tokenBucket.start(0);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, 2 * SECOND), 100);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, 3 * SECOND), 100);
+        tokenBucket.pause(3 * SECOND);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, 10 * SECOND), 0);
+        tokenBucket.resume(10 * SECOND);
+        Assert.assertEquals(tokenBucket.getElapsedNanos(10 * SECOND), 3 * SECOND);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, 10 * SECOND + SECOND / 10), 100);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, 12 * SECOND), TokenBucket.FINISHED);
+
+        tokenBucket = new TokenBucket(1000, 0, -1, 150, 1000);
+        tokenBucket.start(0);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, SECOND), 150);
+        Assert.assertEquals(tokenBucket.tryAcquire(1000, 2 * SECOND), TokenBucket.FINISHED);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.streaming.integrator.common.EventStreamService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class EventBatchTest {
+
+    @Test
+    public void testFlushWhenFull() {
+        RecordingEventStreamService eventStreamService = new RecordingEventStreamService();
+        EventBatch batch = new EventBatch(eventStreamService, 3);
+        EventGenerator generator = new StreamGenerator("A");
+        int[] pushed = new int[7];
+        for (int i = 0; i < pushed.length; i++) {
+            pushed[i] = batch.add(generator, new Event(i, new Object[]{i}));
+        }
+        Assert.assertEquals(pushed, new int[]{0, 0, 3, 0, 0, 3, 0});
+        Assert.assertEquals(eventStreamService.pushes, Arrays.asList("A[0, 1, 2]", "A[3, 4, 5]"));
+        Assert.assertEquals(batch.flush(), 1);
+        Assert.assertEquals(batch.flush(), 0);
+        Assert.assertEquals(eventStreamService.pushes, Arrays.asList("A[0, 1, 2]", "A[3, 4, 5]", "A6"));
+    }
+
+    @Test
+    public void testFlushWhenGeneratorChanges() {
+        RecordingEventStreamService eventStreamService = new RecordingEventStreamService();
+        EventBatch batch = new EventBatch(eventStreamService, 3);
+        EventGenerator first = new StreamGenerator("A");
+        EventGenerator second = new StreamGenerator("B");
+        Assert.assertEquals(batch.add(first, new Event(0, new Object[]{0})), 0);
+        Assert.assertEquals(batch.add(first, new Event(1, new Object[]{1})), 0);
+        Assert.assertEquals(batch.add(second, new Event(2, new Object[]{2})), 2);
+        Assert.assertEquals(batch.add(first, new Event(3, new Object[]{3})), 1);
+        Assert.assertEquals(batch.flush(), 1);
+        Assert.assertEquals(eventStreamService.pushes, Arrays.asList("A[0, 1]", "B2", "A3"));
+    }
+
+    private static class StreamGenerator implements EventGenerator {
+        private final String streamName;
+
+        private StreamGenerator(String streamName) {
+            this.streamName = streamName;
+        }
+
+        @Override
+        public void init(JSONObject sourceConfig, long startTimestamp, long endTimestamp, String simulationName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public Event poll() {
+            return null;
+        }
+
+        @Override
+        public Event peek() {
+            return null;
+        }
+
+        @Override
+        public void getNextEvent() {
+        }
+
+        @Override
+        public String getStreamName() {
+            return streamName;
+        }
+
+        @Override
+        public String getSiddhiAppName() {
+            return "TestSiddhiApp";
+        }
+
+        @Override
+        public void validateSourceConfiguration(JSONObject sourceConfig, String simulationName) {
+        }
+
+        @Override
+        public void setStartTimestamp(long startTimestamp) {
+        }
+    }
+
+    /**
+     * Records each push as the stream name followed by the timestamps of the events pushed
+     */
+    private static class RecordingEventStreamService implements EventStreamService {
+        private final List<String> pushes = new ArrayList<>();
+
+        @Override
+        public List<String> getStreamNames(String siddhiAppName) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Attribute> getStreamAttributes(String siddhiAppName, String streamName) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void pushEvent(String siddhiAppName, String streamName, Event event) {
+            pushes.add(streamName + event.getTimestamp());
+        }
+
+        @Override
+        public void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+            List<Long> timestamps = new ArrayList<>();
+            for (Event event : events) {
+                timestamps.add(event.getTimestamp());
+            }
+            pushes.add(streamName + timestamps);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c)  2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.SimulationPropertiesDTO;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.event.simulator.core.service.bean.LoadGenerationStatistics;
+import org.wso2.carbon.streaming.integrator.common.EventStreamService;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testEventsSentOnceAtTargetRate() throws InterruptedException {
+        RecordingEventStreamService eventStreamService = new RecordingEventStreamService();
+        // three streams of 600 events each, with interleaved timestamps
+        LoadGenerator loadGenerator = new LoadGenerator("LoadTest", getProperties(1800, -1, 2),
+                () -> Arrays.asList(new TimestampGenerator("A", 0, 600), new TimestampGenerator("B", 1, 600),
+                        new TimestampGenerator("C", 2, 600)),
+                () -> eventStreamService);
+        long start = System.nanoTime();
+        loadGenerator.run();
+        long elapsed = System.nanoTime() - start;
+
+        for (String stream : Arrays.asList("A", "B", "C")) {
+            Assert.assertEquals(eventStreamService.getTimestamps(stream),
+                    TimestampGenerator.getTimestamps(stream.charAt(0) - 'A', 600), stream);
+        }
+        LoadGenerationStatistics statistics = loadGenerator.getStatistics();
+        Assert.assertEquals(statistics.getEventsSent(), 1800);
+        // the bucket starts empty, hence sending 1800 events at 1800 events per second takes about a second
+        Assert.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(900), "elapsed " + elapsed);
+        Assert.assertTrue(statistics.getAverageEventsPerSecond() <= 1800 * 1.05,
+                "rate " + statistics.getAverageEventsPerSecond());
+        Assert.assertTrue(statistics.getAverageEventsPerSecond() >= 1800 * 0.5,
+                "rate " + statistics.getAverageEventsPerSecond());
+    }
+
+    @Test
+    public void testRequiredNumberOfEvents() throws InterruptedException {
+        RecordingEventStreamService eventStreamService = new RecordingEventStreamService();
+        LoadGenerator loadGenerator = new LoadGenerator("LoadTest", getProperties(10000, 300, 4),
+                () -> Arrays.asList(new TimestampGenerator("A", 0, 1000), new TimestampGenerator("B", 1, 1000)),
+                () -> eventStreamService);
+        loadGenerator.run();
+
+        List<Long> timestamps = eventStreamService.getTimestamps("A");
+        Assert.assertEquals(timestamps, TimestampGenerator.getTimestamps(0, timestamps.size()));
+        Assert.assertEquals(timestamps.size() + eventStreamService.getTimestamps("B").size(), 300);
+        Assert.assertEquals(loadGenerator.getStatistics().getEventsSent(), 300);
+    }
+
+    private static SimulationPropertiesDTO getProperties(double targetEventsPerSecond, int noOfEventsRequired,
+                                                         int threadCount) {
+        SimulationPropertiesDTO simulationProperties = new SimulationPropertiesDTO();
+        simulationProperties.setTargetEventsPerSecond(targetEventsPerSecond);
+        simulationProperties.setNoOfEventsRequired(noOfEventsRequired);
+        simulationProperties.setThreadCount(threadCount);
+        return simulationProperties;
+    }
+
+    /**
+     * Generates events with the timestamps offset, offset + 3, offset + 6 and so on
+     */
+    private static class TimestampGenerator implements EventGenerator {
+        private final String streamName;
+        private final Deque<Event> events = new ArrayDeque<>();
+
+        private TimestampGenerator(String streamName, int offset, int count) {
+            this.streamName = streamName;
+            for (long timestamp : getTimestamps(offset, count)) {
+                events.add(new Event(timestamp, new Object[]{timestamp}));
+            }
+        }
+
+        private static List<Long> getTimestamps(int offset, int count) {
+            List<Long> timestamps = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                timestamps.add(offset + 3L * i);
+            }
+            return timestamps;
+        }
+
+        @Override
+        public void init(JSONObject sourceConfig, long startTimestamp, long endTimestamp, String simulationName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public Event poll() {
+            return events.poll();
+        }
+
+        @Override
+        public Event peek() {
+            return events.peek();
+        }
+
+        @Override
+        public void getNextEvent() {
+        }
+
+        @Override
+        public String getStreamName() {
+            return streamName;
+        }
+
+        @Override
+        public String getSiddhiAppName() {
+            return "TestSiddhiApp";
+        }
+
+        @Override
+        public void validateSourceConfiguration(JSONObject sourceConfig, String simulationName) {
+        }
+
+        @Override
+        public void setStartTimestamp(long startTimestamp) {
+        }
+    }
+
+    /**
+     * Records the timestamps of the events pushed to each stream, in the order they were received
+     */
+    private static class RecordingEventStreamService implements EventStreamService {
+        private final Map<String, List<Long>> timestamps = new HashMap<>();
+
+        @Override
+        public List<String> getStreamNames(String siddhiAppName) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Attribute> getStreamAttributes(String siddhiAppName, String streamName) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public synchronized void pushEvent(String siddhiAppName, String streamName, Event event) {
+            timestamps.computeIfAbsent(streamName, stream -> new ArrayList<>()).add(event.getTimestamp());
+        }
+
+        private synchronized List<Long> getTimestamps(String streamName) {
+            return new ArrayList<>(timestamps.getOrDefault(streamName, Collections.emptyList()));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.si.metrics.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, laid out like an HdrHistogram with two significant digits. Every
+ * power of two range is split into {@value #SUB_BUCKET_HALF_COUNT} linear buckets, so a recorded value is off by less
+ * than 1% from the value reported for its bucket. Recording is a single array increment and never allocates.
+ * <p>
+ * An instance must be recorded to by one thread only, while any thread may read it.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    /**
+     * Values of 2^40 nanoseconds (about 18 minutes) or more are counted in the last bucket.
+     */
+    static final long HIGHEST_TRACKABLE_VALUE = (1L << 40) - 1;
+    static final int BUCKET_COUNT = indexOf(HIGHEST_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong intervalMax = new AtomicLong();
+
+    /**
+     * Records a latency. Must only be called by the thread owning this histogram.
+     *
+     * @param value latency in nanoseconds.
+     */
+    public void recordValue(long value) {
+        int index = indexOf(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        long max = intervalMax.get();
+        if (value > max) {
+            // Only races with a reader resetting the interval, in which case this value still belongs to it.
+            intervalMax.compareAndSet(max, value);
+        }
+    }
+
+    /**
+     * Adds the counts recorded so far to the given array.
+     *
+     * @param target array of {@link #BUCKET_COUNT} counts.
+     */
+    void addTo(long[] target) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            target[i] += counts.get(i);
+        }
+    }
+
+    /**
+     * @return the highest value recorded since the previous call, or 0 when nothing was recorded.
+     */
+    long takeIntervalMax() {
+        return intervalMax.getAndSet(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value < 0 ? 0 : (int) value;
+        }
+        if (value > HIGHEST_TRACKABLE_VALUE) {
+            value = HIGHEST_TRACKABLE_VALUE;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the highest value that is counted in the bucket at the given index.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >> (SUB_BUCKET_BITS - 1)) - 1;
+        long subBucket = index - ((long) shift << (SUB_BUCKET_BITS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Finds the value at the given percentile of a merged set of counts.
+     *
+     * @param counts     bucket counts.
+     * @param totalCount sum of the bucket counts.
+     * @param percentile percentile between 0 and 100.
+     * @return the value at the percentile, or 0 when the counts are empty.
+     */
+    static long valueAtPercentile(long[] counts, long totalCount, double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= countAtPercentile) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return highestEquivalentValue(counts.length - 1);
+    }
+}
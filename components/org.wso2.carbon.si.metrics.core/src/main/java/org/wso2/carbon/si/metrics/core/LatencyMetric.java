@@ -19,38 +19,86 @@
 
 package org.wso2.carbon.si.metrics.core;
 
+import org.wso2.carbon.metrics.core.Gauge;
 import org.wso2.carbon.metrics.core.Level;
 import org.wso2.carbon.metrics.core.MetricService;
-import org.wso2.carbon.metrics.core.Timer;
 import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
 import io.siddhi.core.util.statistics.LatencyTracker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Siddhi Latency metrics tracker.
+ * <p>
+ * Each thread records into its own {@link LatencyHistogram}, so measuring an event takes one thread local lookup per
+ * mark and no allocation. The histograms are merged when the gauges are read. The tracker name holds the number of
+ * measured events, while the {@link #P50}, {@link #P99}, {@link #P999} and {@link #MAX} gauges under it report, in
+ * seconds, the latencies measured since the previous snapshot. A snapshot is reused for a second, so that all the
+ * gauges read by one report describe the same interval.
  */
 public class LatencyMetric implements LatencyTracker {
-    // Using thread local variables to keep the timer track
-    // the time of the same execution path by different threads.
-    private ThreadLocal<Timer> execLatencyTimer;
-    private ThreadLocal<Timer.Context> context;
-    private String latencyTrackerId;
+    public static final String P50 = "p50";
+    public static final String P99 = "p99";
+    public static final String P999 = "p999";
+    public static final String MAX = "max";
+
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+    private static final long SNAPSHOT_REUSE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final Set<String> latencyTrackerIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // Using thread local recorders to track the time of the same execution path by different threads.
+    private final ThreadLocal<Recorder> recorder;
+    private final List<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+    private final String latencyTrackerId;
+    private final List<String> metricNames = new ArrayList<>();
+
+    private long[] mergedCounts = new long[LatencyHistogram.BUCKET_COUNT];
+    private long[] previousCounts = new long[LatencyHistogram.BUCKET_COUNT];
+    private final long[] intervalCounts = new long[LatencyHistogram.BUCKET_COUNT];
+    private long lastSnapshotTime = System.nanoTime() - SNAPSHOT_REUSE_INTERVAL;
+    private long totalCount;
+    private double p50;
+    private double p99;
+    private double p999;
+    private double max;
 
     public LatencyMetric(String latencyTrackerId, MetricService metricService) {
         this.latencyTrackerId = latencyTrackerId;
-        Timer timer = metricService.timer(this.latencyTrackerId, Level.INFO);
-        execLatencyTimer = new ThreadLocal<Timer>() {
-            protected Timer initialValue() {
+        this.recorder = new ThreadLocal<Recorder>() {
+            protected Recorder initialValue() {
                 MetricsDataHolder.getInstance().getMetricManagementService().setMetricLevel
                         (LatencyMetric.this.latencyTrackerId, Level.INFO);
-                return timer;
+                Recorder recorder = new Recorder();
+                histograms.add(recorder.histogram);
+                return recorder;
             }
         };
-        context = new ThreadLocal<Timer.Context>() {
-            protected Timer.Context initialValue() {
-                return null;
+        register(metricService, latencyTrackerId, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                synchronized (LatencyMetric.this) {
+                    snapshot();
+                    return totalCount;
+                }
             }
-        };
-
+        });
+        for (String quantile : Arrays.asList(P50, P99, P999, MAX)) {
+            register(metricService, MetricService.name(latencyTrackerId, quantile), new Gauge<Double>() {
+                @Override
+                public Double getValue() {
+                    return getSnapshotValue(quantile);
+                }
+            });
+        }
+        latencyTrackerIds.add(latencyTrackerId);
     }
 
     /**
@@ -58,11 +106,12 @@ public class LatencyMetric implements LatencyTracker {
      * ProcessStreamReceiver#receive before the event is passed into process chain.
      */
     public void markIn() {
-        if (context.get() != null) {
+        Recorder recorder = this.recorder.get();
+        if (recorder.startTime != NOT_STARTED) {
             throw new IllegalStateException("MarkIn consecutively called without calling markOut in " +
                     this.latencyTrackerId);
         }
-        context.set(execLatencyTimer.get().start());
+        recorder.startTime = System.nanoTime();
     }
 
     /**
@@ -73,9 +122,10 @@ public class LatencyMetric implements LatencyTracker {
      */
     @Override
     public void markOut() {
-        if (context.get() != null) {
-            context.get().stop();
-            context.set(null);
+        Recorder recorder = this.recorder.get();
+        if (recorder.startTime != NOT_STARTED) {
+            recorder.histogram.recordValue(System.nanoTime() - recorder.startTime);
+            recorder.startTime = NOT_STARTED;
         }
     }
 
@@ -87,4 +137,85 @@ public class LatencyMetric implements LatencyTracker {
         return latencyTrackerId;
     }
 
+    /**
+     * @return Names of all the metrics registered by this tracker.
+     */
+    public List<String> getMetricNames() {
+        return Collections.unmodifiableList(metricNames);
+    }
+
+    /**
+     * @param name Metric name.
+     * @return Whether the given name is the name of a registered latency tracker.
+     */
+    public static boolean isLatencyTracker(String name) {
+        return latencyTrackerIds.contains(name);
+    }
+
+    /**
+     * Forgets the given latency tracker name once its metrics are removed.
+     *
+     * @param name Metric name.
+     */
+    public static void unregister(String name) {
+        latencyTrackerIds.remove(name);
+    }
+
+    private void register(MetricService metricService, String name, Gauge<?> gauge) {
+        // Replace the gauge of a previous deployment of the same Siddhi app.
+        metricService.remove(name);
+        metricService.gauge(name, Level.INFO, gauge);
+        metricNames.add(name);
+    }
+
+    private synchronized double getSnapshotValue(String quantile) {
+        snapshot();
+        switch (quantile) {
+            case P50:
+                return p50;
+            case P99:
+                return p99;
+            case P999:
+                return p999;
+            default:
+                return max;
+        }
+    }
+
+    private void snapshot() {
+        long now = System.nanoTime();
+        if (now - lastSnapshotTime < SNAPSHOT_REUSE_INTERVAL) {
+            return;
+        }
+        lastSnapshotTime = now;
+        Arrays.fill(mergedCounts, 0);
+        long intervalMax = 0;
+        for (LatencyHistogram histogram : histograms) {
+            histogram.addTo(mergedCounts);
+            intervalMax = Math.max(intervalMax, histogram.takeIntervalMax());
+        }
+        long intervalCount = 0;
+        totalCount = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            intervalCounts[i] = mergedCounts[i] - previousCounts[i];
+            intervalCount += intervalCounts[i];
+            totalCount += mergedCounts[i];
+        }
+        p50 = toSeconds(LatencyHistogram.valueAtPercentile(intervalCounts, intervalCount, 50));
+        p99 = toSeconds(LatencyHistogram.valueAtPercentile(intervalCounts, intervalCount, 99));
+        p999 = toSeconds(LatencyHistogram.valueAtPercentile(intervalCounts, intervalCount, 99.9));
+        max = toSeconds(intervalMax);
+        long[] counts = previousCounts;
+        previousCounts = mergedCounts;
+        mergedCounts = counts;
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    private static class Recorder {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long startTime = NOT_STARTED;
+    }
 }
@@ -23,13 +23,13 @@ import org.wso2.carbon.metrics.core.Level;
 import org.wso2.carbon.metrics.core.MetricService;
 import org.wso2.carbon.si.metrics.core.internal.MetricsManagement;
 import io.siddhi.core.util.statistics.MemoryUsageTracker;
-import io.siddhi.core.util.statistics.memory.ObjectSizeCalculator;
 
+import java.lang.ref.WeakReference;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 /**
- * Siddhi Memory usage MMetrics Tracker.
+ * Siddhi Memory usage MMetrics Tracker. The gauges report the sizes cached by the {@link MemoryUsageSampler}.
  */
 public class MemoryUsageMetric implements MemoryUsageTracker {
     private ConcurrentMap<Object, ObjectMetric> registeredObjects = new ConcurrentHashMap<Object, ObjectMetric>();
@@ -60,6 +60,7 @@ public class MemoryUsageMetric implements MemoryUsageTracker {
         for (ConcurrentMap.Entry<Object, ObjectMetric> entry :
                 registeredObjects.entrySet()) {
             metricService.gauge(entry.getValue().getName(), Level.INFO,  entry.getValue().getGauge());
+            MemoryUsageSampler.getInstance().register(entry.getValue());
         }
     }
 
@@ -68,6 +69,7 @@ public class MemoryUsageMetric implements MemoryUsageTracker {
         for (ConcurrentMap.Entry<Object, ObjectMetric> entry :
                 registeredObjects.entrySet()) {
             metricService.remove(entry.getValue().getName());
+            MemoryUsageSampler.getInstance().unregister(entry.getValue());
         }
     }
 
@@ -86,20 +88,21 @@ public class MemoryUsageMetric implements MemoryUsageTracker {
     class ObjectMetric {
         private String name;
         private Gauge<Long> gauge;
+        private WeakReference<Object> objectReference;
+        private volatile long size;
+        private volatile long lastRefreshTime;
 
         public ObjectMetric(final Object object, String name) {
             this.name = name;
+            this.objectReference = new WeakReference<>(object);
             this.gauge = new Gauge<Long>() {
                 @Override
                 public Long getValue() {
-                    try {
-                        return ObjectSizeCalculator.getObjectSize(object);
-                    } catch (UnsupportedOperationException e) {
-                        return 0L;
-                    }
+                    return size;
                 }
             };
             metricService.gauge(name, Level.INFO, gauge);
+            MemoryUsageSampler.getInstance().register(this);
         }
 
         public String getName() {
@@ -109,5 +112,22 @@ public class MemoryUsageMetric implements MemoryUsageTracker {
         public Gauge<Long> getGauge() {
             return gauge;
         }
+
+        Object getObject() {
+            return objectReference.get();
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastRefreshTime() {
+            return lastRefreshTime;
+        }
+
+        void setSize(long size, long refreshTime) {
+            this.size = size;
+            this.lastRefreshTime = refreshTime;
+        }
     }
 }
@@ -0,0 +1,115 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.si.metrics.core;
+
+import io.siddhi.core.util.statistics.memory.ObjectSizeCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.si.metrics.core.config.MemoryUsageConfig;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the cached memory usage of the registered objects on a low priority background thread, so that reporters
+ * only read the cached values. Each object is measured once per refresh interval of the {@link MemoryUsageConfig}.
+ */
+public class MemoryUsageSampler {
+    private static final Logger log = LoggerFactory.getLogger(MemoryUsageSampler.class);
+    private static final long TICK_INTERVAL_MILLIS = 1000;
+    private static final MemoryUsageSampler instance = new MemoryUsageSampler();
+
+    private final Set<MemoryUsageMetric.ObjectMetric> metrics = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService executorService;
+
+    private MemoryUsageSampler() {
+    }
+
+    public static MemoryUsageSampler getInstance() {
+        return instance;
+    }
+
+    void register(MemoryUsageMetric.ObjectMetric metric) {
+        metrics.add(metric);
+        startIfNotStarted();
+    }
+
+    void unregister(MemoryUsageMetric.ObjectMetric metric) {
+        metrics.remove(metric);
+    }
+
+    private synchronized void startIfNotStarted() {
+        if (executorService == null) {
+            executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MemoryUsageSampler");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            executorService.scheduleWithFixedDelay(this::refreshDueMetrics, 0, TICK_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refreshDueMetrics() {
+        MemoryUsageConfig config = MetricsDataHolder.getInstance().getMemoryUsageConfig();
+        long refreshIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getRefreshInterval()));
+        for (MemoryUsageMetric.ObjectMetric metric : metrics) {
+            Object object = metric.getObject();
+            if (object == null) {
+                metrics.remove(metric);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (metric.getLastRefreshTime() != 0 && now - metric.getLastRefreshTime() < refreshIntervalNanos) {
+                continue;
+            }
+            try {
+                metric.setSize(measure(object, config, metric.getName()), now);
+            } catch (RuntimeException e) {
+                // Objects are measured while Siddhi modifies them, the previous size is kept until the next refresh
+                metric.setSize(metric.getSize(), now);
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to measure the memory usage of " + metric.getName() + ". " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private long measure(Object object, MemoryUsageConfig config, String name) {
+        if (MemoryUsageConfig.MODE_EXACT.equalsIgnoreCase(config.getMode())) {
+            try {
+                return ObjectSizeCalculator.getObjectSize(object);
+            } catch (UnsupportedOperationException e) {
+                return 0L;
+            }
+        }
+        ObjectSizeEstimator.Estimate estimate = ObjectSizeEstimator.estimate(object, config.getSampleSize(),
+                TimeUnit.MILLISECONDS.toNanos(config.getTimeBudget()));
+        if (estimate.isPartial() && log.isDebugEnabled()) {
+            log.debug("Measuring the memory usage of " + name + " exceeded the time budget of " +
+                    config.getTimeBudget() + " ms, the reported size is a lower bound.");
+        }
+        return estimate.getSize();
+    }
+}
@@ -47,15 +47,18 @@ public class MetricsFactory implements StatisticsTrackerFactory {
     public LatencyTracker createLatencyTracker(String name, StatisticsManager statisticsManager) {
         MetricsManager metricsManager = (MetricsManager) statisticsManager;
         LatencyMetric latencyMetric = new LatencyMetric(name, this.metricService);
-        this.metricsManagement.addComponent(metricsManager.getComponentName(), latencyMetric.getName());
+        for (String metricName : latencyMetric.getMetricNames()) {
+            this.metricsManagement.addComponent(metricsManager.getComponentName(), metricName);
+        }
         return latencyMetric;
     }
 
     public ThroughputTracker createThroughputTracker(String name, StatisticsManager statisticsManager) {
         MetricsManager metricsManager = (MetricsManager) statisticsManager;
         ThroughputMetric throughputMetric = new ThroughputMetric(name, this.metricService);
-        this.metricsManagement.addComponent(metricsManager.getComponentName(),
-                throughputMetric.getName());
+        for (String metricName : throughputMetric.getMetricNames()) {
+            this.metricsManagement.addComponent(metricsManager.getComponentName(), metricName);
+        }
         return throughputMetric;
     }
 
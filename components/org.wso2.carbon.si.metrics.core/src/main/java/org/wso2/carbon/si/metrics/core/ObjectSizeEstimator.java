@@ -0,0 +1,279 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.si.metrics.core;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the retained size of an object graph. Collections, maps and reference arrays larger than the sample size
+ * are not walked fully, the size of their elements is extrapolated from evenly spread samples. The walk stops once the
+ * time budget is spent, and the size measured until then is returned.
+ */
+public class ObjectSizeEstimator {
+    private static final boolean IS_64_BIT = System.getProperty("os.arch", "").contains("64");
+    private static final boolean COMPRESSED_OOPS = IS_64_BIT &&
+            Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024;
+    private static final int REFERENCE_SIZE = IS_64_BIT && !COMPRESSED_OOPS ? 8 : 4;
+    private static final int OBJECT_HEADER_SIZE = !IS_64_BIT ? 8 : COMPRESSED_OOPS ? 12 : 16;
+    private static final int ARRAY_HEADER_SIZE = OBJECT_HEADER_SIZE + 4;
+    // Size of the node a linked or hashed collection keeps per element, a header with a hash and three references
+    private static final int ENTRY_OVERHEAD = align(OBJECT_HEADER_SIZE + 4 + 3 * REFERENCE_SIZE);
+    private static final int DEADLINE_CHECK_MASK = 1023;
+    private static final Map<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+
+    private final int sampleSize;
+    private final long deadline;
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long visitCount;
+    private boolean budgetExceeded;
+
+    private ObjectSizeEstimator(int sampleSize, long timeBudgetNanos) {
+        this.sampleSize = Math.max(1, sampleSize);
+        this.deadline = System.nanoTime() + timeBudgetNanos;
+    }
+
+    /**
+     * Estimates the size in bytes of the objects reachable from the given object.
+     *
+     * @param object          root of the object graph.
+     * @param sampleSize      number of elements measured of each large collection or array.
+     * @param timeBudgetNanos time after which the walk stops.
+     * @return the estimated size, which is a lower bound if the time budget was exceeded.
+     */
+    public static Estimate estimate(Object object, int sampleSize, long timeBudgetNanos) {
+        ObjectSizeEstimator estimator = new ObjectSizeEstimator(sampleSize, timeBudgetNanos);
+        long size = estimator.measure(object);
+        return new Estimate(size, estimator.budgetExceeded);
+    }
+
+    private long measure(Object root) {
+        long size = 0;
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            if ((++visitCount & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+                budgetExceeded = true;
+            }
+            if (budgetExceeded) {
+                break;
+            }
+            Object object = pending.pop();
+            if (!visited.add(object)) {
+                continue;
+            }
+            Class<?> objectClass = object.getClass();
+            if (objectClass.isArray()) {
+                size += measureArray(object, pending);
+                continue;
+            }
+            ClassLayout layout = layoutOf(objectClass);
+            if (object instanceof Collection && isMeasuredByIteration(object, ((Collection<?>) object).size(),
+                    layout)) {
+                size += layout.shallowSize + measureSampled((Collection<?>) object,
+                        object instanceof RandomAccess ? REFERENCE_SIZE : ENTRY_OVERHEAD);
+            } else if (object instanceof Map && isMeasuredByIteration(object, ((Map<?, ?>) object).size(), layout)) {
+                size += layout.shallowSize + measureSampled(((Map<?, ?>) object).entrySet(),
+                        ENTRY_OVERHEAD + REFERENCE_SIZE);
+            } else {
+                size += layout.shallowSize;
+                for (Field field : layout.referenceFields) {
+                    Object value = getFieldValue(field, object);
+                    if (value != null && !(value instanceof Class)) {
+                        pending.push(value);
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Large linked or hashed collections are sampled through their iterators, array backed ones are walked and their
+     * arrays sampled. Collections whose fields can not be read are always measured through their iterators.
+     */
+    private boolean isMeasuredByIteration(Object collection, int collectionSize, ClassLayout layout) {
+        return layout.opaque || (collectionSize > sampleSize && !(collection instanceof RandomAccess));
+    }
+
+    private long measureArray(Object array, Deque<Object> pending) {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (componentType.isPrimitive()) {
+            return align(ARRAY_HEADER_SIZE + (long) length * primitiveSize(componentType));
+        }
+        long size = align(ARRAY_HEADER_SIZE + (long) length * REFERENCE_SIZE);
+        Object[] elements = (Object[]) array;
+        if (length <= sampleSize) {
+            for (Object element : elements) {
+                if (element != null) {
+                    pending.push(element);
+                }
+            }
+            return size;
+        }
+        int stride = length / sampleSize;
+        long sampledSize = 0;
+        int sampledCount = 0;
+        int nonNullCount = 0;
+        for (int i = 0; i < length; i++) {
+            Object element = elements[i];
+            if (element != null) {
+                nonNullCount++;
+                if (nonNullCount % stride == 0 && !budgetExceeded) {
+                    sampledSize += measureElement(element);
+                    sampledCount++;
+                }
+            }
+        }
+        return size + extrapolate(sampledSize, sampledCount, nonNullCount);
+    }
+
+    private long measureSampled(Collection<?> elements, int entryOverhead) {
+        int count = elements.size();
+        int stride = Math.max(1, count / sampleSize);
+        long sampledSize = 0;
+        int sampledCount = 0;
+        int index = 0;
+        Iterator<?> iterator = elements.iterator();
+        while (iterator.hasNext()) {
+            Object element = iterator.next();
+            if (++index % stride == 0 && !budgetExceeded) {
+                if (element instanceof Map.Entry) {
+                    sampledSize += measureElement(((Map.Entry<?, ?>) element).getKey()) +
+                            measureElement(((Map.Entry<?, ?>) element).getValue());
+                } else {
+                    sampledSize += measureElement(element);
+                }
+                sampledCount++;
+            }
+        }
+        return (long) index * entryOverhead + extrapolate(sampledSize, sampledCount, index);
+    }
+
+    private long measureElement(Object element) {
+        return element == null || element instanceof Class ? 0 : measure(element);
+    }
+
+    private static long extrapolate(long sampledSize, int sampledCount, int count) {
+        return sampledCount == 0 ? 0 : (long) ((double) sampledSize / sampledCount * count);
+    }
+
+    private static Object getFieldValue(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static ClassLayout layoutOf(Class<?> objectClass) {
+        ClassLayout layout = layouts.get(objectClass);
+        if (layout == null) {
+            layout = new ClassLayout(objectClass);
+            layouts.putIfAbsent(objectClass, layout);
+        }
+        return layout;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static int align(long size) {
+        return (int) ((size + 7) & ~7L);
+    }
+
+    /**
+     * Shallow size and reference fields of a class.
+     */
+    private static class ClassLayout {
+        private final long shallowSize;
+        private final List<Field> referenceFields = new ArrayList<>();
+        private boolean opaque;
+
+        ClassLayout(Class<?> objectClass) {
+            long fieldsSize = 0;
+            for (Class<?> type = objectClass; type != null; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        fieldsSize += primitiveSize(field.getType());
+                    } else {
+                        fieldsSize += REFERENCE_SIZE;
+                        try {
+                            field.setAccessible(true);
+                            referenceFields.add(field);
+                        } catch (RuntimeException e) {
+                            // Fields of classes that can not be opened are counted shallowly
+                            opaque = true;
+                        }
+                    }
+                }
+            }
+            shallowSize = align(OBJECT_HEADER_SIZE + fieldsSize);
+        }
+    }
+
+    /**
+     * Estimated size of an object graph.
+     */
+    public static class Estimate {
+        private final long size;
+        private final boolean partial;
+
+        Estimate(long size, boolean partial) {
+            this.size = size;
+            this.partial = partial;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return true if the time budget was exceeded, and the size is a lower bound.
+         */
+        public boolean isPartial() {
+            return partial;
+        }
+    }
+}
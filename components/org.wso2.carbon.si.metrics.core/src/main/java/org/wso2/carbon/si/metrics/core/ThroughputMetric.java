@@ -18,22 +18,85 @@
  */
 package org.wso2.carbon.si.metrics.core;
 
+import org.wso2.carbon.metrics.core.Gauge;
 import org.wso2.carbon.metrics.core.Level;
-import org.wso2.carbon.metrics.core.Meter;
 import org.wso2.carbon.metrics.core.MetricService;
 import io.siddhi.core.util.statistics.ThroughputTracker;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
 
 /**
  * Siddhi throughput metric tracker.
+ * <p>
+ * Events are counted in a striped {@link LongAdder}, so that threads publishing to the same stream do not contend.
+ * The {@link ThroughputTicker} records the total once a second, and the {@link #RATE_1S}, {@link #RATE_10S} and
+ * {@link #RATE_60S} gauges under the tracker name report the events per second between those records. The tracker
+ * name holds the total number of events.
  */
 public class ThroughputMetric implements ThroughputTracker {
-    private Meter eventMeter = null;
-    private String throughputTrackerId;
+    public static final String RATE_1S = "rate1s";
+    public static final String RATE_10S = "rate10s";
+    public static final String RATE_60S = "rate60s";
+
+    private static final int MAX_WINDOW_SECONDS = 60;
+    private static final int HISTORY_SIZE = MAX_WINDOW_SECONDS + 2;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final ConcurrentMap<String, ThroughputMetric> throughputTrackers = new ConcurrentHashMap<>();
+
+    private final LongAdder events = new LongAdder();
+    private final String throughputTrackerId;
+    private final List<String> metricNames = new ArrayList<>();
+    // Ring of the totals recorded by the ticker, which is the only writer.
+    private final AtomicLongArray tickTotals = new AtomicLongArray(HISTORY_SIZE);
+    private final AtomicLongArray tickTimes = new AtomicLongArray(HISTORY_SIZE);
+    private final AtomicLong ticks = new AtomicLong();
 
     public ThroughputMetric(String throughputTrackerId, MetricService metricService) {
+        this(throughputTrackerId, metricService, ThroughputTicker.getInstance());
+    }
+
+    /**
+     * @param ticker Ticker recording the totals of the tracker, or null if the totals are recorded by the caller.
+     */
+    ThroughputMetric(String throughputTrackerId, MetricService metricService, ThroughputTicker ticker) {
         this.throughputTrackerId = throughputTrackerId;
-        eventMeter = metricService.meter(this.throughputTrackerId, Level.INFO);
+        register(metricService, throughputTrackerId, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getTotal();
+            }
+        });
+        register(metricService, MetricService.name(throughputTrackerId, RATE_1S), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return getRate(1);
+            }
+        });
+        register(metricService, MetricService.name(throughputTrackerId, RATE_10S), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return getRate(10);
+            }
+        });
+        register(metricService, MetricService.name(throughputTrackerId, RATE_60S), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return getRate(60);
+            }
+        });
+        throughputTrackers.put(throughputTrackerId, this);
+        if (ticker != null) {
+            ticker.register(this);
+        }
     }
 
     /**
@@ -41,7 +104,7 @@ public class ThroughputMetric implements ThroughputTracker {
      */
     @Override
     public void eventIn() {
-        eventMeter.mark();
+        events.increment();
     }
 
     /**
@@ -51,7 +114,7 @@ public class ThroughputMetric implements ThroughputTracker {
      */
     @Override
     public void eventsIn(int eventCount) {
-        eventMeter.mark(eventCount);
+        events.add(eventCount);
     }
 
     /**
@@ -62,4 +125,77 @@ public class ThroughputMetric implements ThroughputTracker {
         return throughputTrackerId;
     }
 
+    /**
+     * @return Names of all the metrics registered by this tracker.
+     */
+    public List<String> getMetricNames() {
+        return Collections.unmodifiableList(metricNames);
+    }
+
+    /**
+     * @return Total number of events received.
+     */
+    public long getTotal() {
+        return events.sum();
+    }
+
+    /**
+     * @param windowSeconds Window length, up to 60 seconds.
+     * @return Events per second received within the last window, or over the time tracked so far when shorter.
+     */
+    public double getRate(int windowSeconds) {
+        while (true) {
+            // Read the head once. The slot the ticker writes next is never read, since the ring has a spare slot,
+            // and the head is checked again afterwards in case several ticks overlap the read.
+            long tickCount = ticks.get();
+            long window = Math.min(Math.min(windowSeconds, MAX_WINDOW_SECONDS), tickCount - 1);
+            if (window <= 0) {
+                return 0;
+            }
+            int latest = (int) ((tickCount - 1) % HISTORY_SIZE);
+            int earliest = (int) ((tickCount - 1 - window) % HISTORY_SIZE);
+            long elapsed = tickTimes.get(latest) - tickTimes.get(earliest);
+            long count = tickTotals.get(latest) - tickTotals.get(earliest);
+            if (ticks.get() != tickCount) {
+                // A tick completed while reading, hence the next one may have overwritten the earliest slot
+                continue;
+            }
+            return elapsed <= 0 ? 0 : count * NANOS_PER_SECOND / elapsed;
+        }
+    }
+
+    /**
+     * @param name Metric name.
+     * @return The throughput tracker registered with the given name, or null.
+     */
+    public static ThroughputMetric getThroughputTracker(String name) {
+        return throughputTrackers.get(name);
+    }
+
+    /**
+     * Stops tracking the given throughput tracker once its metrics are removed.
+     *
+     * @param name Metric name.
+     */
+    public static void unregister(String name) {
+        ThroughputMetric throughputMetric = throughputTrackers.remove(name);
+        if (throughputMetric != null) {
+            ThroughputTicker.getInstance().unregister(throughputMetric);
+        }
+    }
+
+    void tick(long now) {
+        long tickCount = ticks.get();
+        int index = (int) (tickCount % HISTORY_SIZE);
+        tickTotals.set(index, events.sum());
+        tickTimes.set(index, now);
+        ticks.set(tickCount + 1);
+    }
+
+    private void register(MetricService metricService, String name, Gauge<?> gauge) {
+        // Replace the gauge of a previous deployment of the same Siddhi app.
+        metricService.remove(name);
+        metricService.gauge(name, Level.INFO, gauge);
+        metricNames.add(name);
+    }
 }
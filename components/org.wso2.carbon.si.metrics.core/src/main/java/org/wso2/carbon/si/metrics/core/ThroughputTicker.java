@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.si.metrics.core;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the once a second event totals of the registered {@link ThroughputMetric}s on a background thread, so that
+ * the windowed rates are computed from the recorded totals instead of on the event path.
+ */
+public class ThroughputTicker {
+    private static final long TICK_INTERVAL_MILLIS = 1000;
+    private static final ThroughputTicker instance = new ThroughputTicker();
+
+    private final Set<ThroughputMetric> metrics = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService executorService;
+
+    private ThroughputTicker() {
+    }
+
+    public static ThroughputTicker getInstance() {
+        return instance;
+    }
+
+    void register(ThroughputMetric metric) {
+        metrics.add(metric);
+        startIfNotStarted();
+    }
+
+    void unregister(ThroughputMetric metric) {
+        metrics.remove(metric);
+    }
+
+    private synchronized void startIfNotStarted() {
+        if (executorService == null) {
+            executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ThroughputTicker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executorService.scheduleAtFixedRate(this::tick, 0, TICK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (ThroughputMetric metric : metrics) {
+            metric.tick(now);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.si.metrics.core.config;
+
+import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Configuration of the memory usage metrics of Siddhi apps.
+ */
+@Configuration(namespace = "metrics.siddhi.memory", description = "Siddhi memory usage metrics config")
+public class MemoryUsageConfig {
+    public static final String MODE_SAMPLED = "sampled";
+    public static final String MODE_EXACT = "exact";
+
+    @Element(description = "Memory accounting mode. 'sampled' extrapolates the size of large collections and " +
+            "arrays from a sample of their elements, 'exact' walks the whole object graph")
+    private String mode = MODE_SAMPLED;
+    @Element(description = "Interval in seconds at which the memory usage of an object is recomputed")
+    private int refreshInterval = 60;
+    @Element(description = "Number of elements measured of each large collection or array in the sampled mode")
+    private int sampleSize = 1000;
+    @Element(description = "Maximum time in milliseconds spent measuring one object, the size measured until then " +
+            "is reported when it is exceeded")
+    private long timeBudget = 500;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+}
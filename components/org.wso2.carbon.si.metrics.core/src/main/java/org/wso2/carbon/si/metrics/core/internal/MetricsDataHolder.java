@@ -21,6 +21,7 @@ package org.wso2.carbon.si.metrics.core.internal;
 
 import org.wso2.carbon.metrics.core.MetricManagementService;
 import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.config.MemoryUsageConfig;
 
 /**
  * Class which holds the OSGI Service references.
@@ -30,6 +31,7 @@ public class MetricsDataHolder {
 
     private MetricService metricService;
     private MetricManagementService metricManagementService;
+    private MemoryUsageConfig memoryUsageConfig = new MemoryUsageConfig();
 
     private MetricsDataHolder() {
 
@@ -79,4 +81,22 @@ public class MetricsDataHolder {
     public void setMetricManagementService(MetricManagementService metricManagementService) {
         this.metricManagementService = metricManagementService;
     }
+
+    /**
+     * Return the configuration of the memory usage metrics.
+     *
+     * @return the memory usage config.
+     */
+    public MemoryUsageConfig getMemoryUsageConfig() {
+        return memoryUsageConfig;
+    }
+
+    /**
+     * Set the configuration of the memory usage metrics.
+     *
+     * @param memoryUsageConfig the memory usage config read from the deployment configuration.
+     */
+    public void setMemoryUsageConfig(MemoryUsageConfig memoryUsageConfig) {
+        this.memoryUsageConfig = memoryUsageConfig;
+    }
 }
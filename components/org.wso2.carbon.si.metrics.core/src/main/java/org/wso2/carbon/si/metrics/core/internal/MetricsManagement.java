@@ -22,6 +22,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.metrics.core.MetricManagementService;
 import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.LatencyMetric;
+import org.wso2.carbon.si.metrics.core.ThroughputMetric;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -52,7 +54,7 @@ public class MetricsManagement {
         return instance;
     }
 
-    public void addComponent(String siddhiAppName, String componentMetricsName) {
+    public synchronized void addComponent(String siddhiAppName, String componentMetricsName) {
         List<String> registeredComponent = componentMap.get(siddhiAppName);
         if (registeredComponent == null) {
             List<String> newComponentAppList = new ArrayList<>();
@@ -89,16 +91,27 @@ public class MetricsManagement {
         }
     }
 
-    public void cleanUpMetrics(String siddhiAppName) {
+    public synchronized void cleanUpMetrics(String siddhiAppName) {
         if (componentMap.containsKey(siddhiAppName)) {
             List<String> registeredComponents = componentMap.get(siddhiAppName);
             for (String component : registeredComponents) {
                 metricService.remove(component);
+                LatencyMetric.unregister(component);
+                ThroughputMetric.unregister(component);
             }
             componentMap.remove(siddhiAppName);
         }
     }
 
+    /**
+     * @param siddhiAppName Name of the Siddhi app.
+     * @return Names of the metrics registered for the Siddhi app.
+     */
+    public synchronized List<String> getComponents(String siddhiAppName) {
+        List<String> registeredComponents = componentMap.get(siddhiAppName);
+        return registeredComponents == null ? new ArrayList<>() : new ArrayList<>(registeredComponents);
+    }
+
     public Map<String, List<String>> getComponentMap() {
         return componentMap;
     }
@@ -27,8 +27,11 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.config.ConfigurationException;
+import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.metrics.core.MetricManagementService;
 import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.config.MemoryUsageConfig;
 import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
 import org.wso2.carbon.si.metrics.core.internal.MetricsManagement;
 
@@ -109,4 +112,29 @@ public class MetricsServiceComponent {
     protected void unsetMetricManagementService(MetricManagementService metricManagementService) {
         MetricsDataHolder.getInstance().setMetricManagementService(null);
     }
+
+    @Reference(
+            name = "carbon.config.provider",
+            service = ConfigProvider.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetConfigProvider"
+    )
+    protected void setConfigProvider(ConfigProvider configProvider) {
+        try {
+            MetricsDataHolder.getInstance().setMemoryUsageConfig(
+                    configProvider.getConfigurationObject(MemoryUsageConfig.class));
+        } catch (ConfigurationException e) {
+            log.warn("Error loading the memory usage metrics configuration. Default configuration will be used.", e);
+        }
+    }
+
+    /**
+     * This is the unbind method for the unbound ConfigProvider service.
+     *
+     * @param configProvider the ConfigProvider service that get unregistered.
+     */
+    protected void unsetConfigProvider(ConfigProvider configProvider) {
+        MetricsDataHolder.getInstance().setMemoryUsageConfig(new MemoryUsageConfig());
+    }
 }
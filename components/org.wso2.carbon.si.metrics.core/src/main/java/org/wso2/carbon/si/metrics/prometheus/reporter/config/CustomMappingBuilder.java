@@ -20,16 +20,41 @@ package org.wso2.carbon.si.metrics.prometheus.reporter.config;
 import io.prometheus.client.Collector;
 import io.prometheus.client.dropwizard.samplebuilder.DefaultSampleBuilder;
 import io.prometheus.client.dropwizard.samplebuilder.SampleBuilder;
+import org.wso2.carbon.si.metrics.core.LatencyMetric;
+import org.wso2.carbon.si.metrics.core.ThroughputMetric;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * SampleBuilder implementation to allow Dropwizard metrics to be translated to Prometheus metrics including
- * custom labels and names.
+ * custom labels and names. The quantile gauges of a {@link LatencyMetric} are exported as samples with a quantile
+ * label, and its event count and maximum with the _count and _max suffixes. The total of a {@link ThroughputMetric}
+ * is exported with the _total suffix and its windowed rates with the _rate suffix and a window label. The samples
+ * sharing a name are exported as one family by {@link MetricFamilyMerger}, which makes the quantiles and the count of
+ * a latency tracker one summary.
  */
 public class CustomMappingBuilder implements SampleBuilder {
+    static final String QUANTILE_LABEL = "quantile";
+    static final String COUNT_SUFFIX = "_count";
+    private static final String MAX_SUFFIX = "_max";
+    private static final String WINDOW_LABEL = "window";
+    private static final String TOTAL_SUFFIX = "_total";
+    private static final String RATE_SUFFIX = "_rate";
+    private static final Map<String, String> LATENCY_QUANTILES = new HashMap<>();
+    private static final Map<String, String> THROUGHPUT_WINDOWS = new HashMap<>();
+
+    static {
+        LATENCY_QUANTILES.put(LatencyMetric.P50, "0.5");
+        LATENCY_QUANTILES.put(LatencyMetric.P99, "0.99");
+        LATENCY_QUANTILES.put(LatencyMetric.P999, "0.999");
+        THROUGHPUT_WINDOWS.put(ThroughputMetric.RATE_1S, "1s");
+        THROUGHPUT_WINDOWS.put(ThroughputMetric.RATE_10S, "10s");
+        THROUGHPUT_WINDOWS.put(ThroughputMetric.RATE_60S, "60s");
+    }
+
     private final List<CustomMappingBuilder.CompiledMapperConfig> compiledMapperConfigs;
     private final DefaultSampleBuilder defaultMetricSampleBuilder = new DefaultSampleBuilder();
 
@@ -50,6 +75,47 @@ public class CustomMappingBuilder implements SampleBuilder {
             throw new IllegalArgumentException("Dropwizard metric name cannot be null");
         }
 
+        if (LatencyMetric.isLatencyTracker(dropwizardName)) {
+            return mapSample(dropwizardName, COUNT_SUFFIX + nameSuffix, additionalLabelNames,
+                    additionalLabelValues, value);
+        }
+        int separatorIndex = dropwizardName.lastIndexOf('.');
+        if (separatorIndex > 0 && LatencyMetric.isLatencyTracker(dropwizardName.substring(0, separatorIndex))) {
+            String trackerName = dropwizardName.substring(0, separatorIndex);
+            String quantile = LATENCY_QUANTILES.get(dropwizardName.substring(separatorIndex + 1));
+            if (quantile == null) {
+                return mapSample(trackerName, MAX_SUFFIX + nameSuffix, additionalLabelNames,
+                        additionalLabelValues, value);
+            }
+            List<String> labelNames = new ArrayList<>(additionalLabelNames);
+            List<String> labelValues = new ArrayList<>(additionalLabelValues);
+            labelNames.add(QUANTILE_LABEL);
+            labelValues.add(quantile);
+            return mapSample(trackerName, nameSuffix, labelNames, labelValues, value);
+        }
+        if (ThroughputMetric.getThroughputTracker(dropwizardName) != null) {
+            return mapSample(dropwizardName, TOTAL_SUFFIX + nameSuffix, additionalLabelNames,
+                    additionalLabelValues, value);
+        }
+        if (separatorIndex > 0 &&
+                ThroughputMetric.getThroughputTracker(dropwizardName.substring(0, separatorIndex)) != null) {
+            String window = THROUGHPUT_WINDOWS.get(dropwizardName.substring(separatorIndex + 1));
+            if (window != null) {
+                List<String> labelNames = new ArrayList<>(additionalLabelNames);
+                List<String> labelValues = new ArrayList<>(additionalLabelValues);
+                labelNames.add(WINDOW_LABEL);
+                labelValues.add(window);
+                return mapSample(dropwizardName.substring(0, separatorIndex), RATE_SUFFIX + nameSuffix, labelNames,
+                        labelValues, value);
+            }
+        }
+        return mapSample(dropwizardName, nameSuffix, additionalLabelNames, additionalLabelValues, value);
+    }
+
+    private Collector.MetricFamilySamples.Sample mapSample(final String dropwizardName, final String nameSuffix,
+                                                           final List<String> additionalLabelNames,
+                                                           final List<String> additionalLabelValues,
+                                                           final double value) {
         CustomMappingBuilder.CompiledMapperConfig matchingConfig = null;
         for (CustomMappingBuilder.CompiledMapperConfig config : this.compiledMapperConfigs) {
             if (config.pattern.matches(dropwizardName)) {
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.si.metrics.prometheus.reporter.config;
+
+import io.prometheus.client.Collector;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collector which merges the metric families of another collector that have the same name. Dropwizard exports each
+ * gauge as a family of its own, so the gauges which {@link CustomMappingBuilder} maps to one name would otherwise be
+ * written as several families with the same name. The quantile gauges of a latency tracker and its event count are
+ * merged into one summary, and the windowed rates of a throughput tracker into one gauge.
+ */
+public class MetricFamilyMerger extends Collector {
+    private final Collector collector;
+
+    public MetricFamilyMerger(Collector collector) {
+        this.collector = collector;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        List<MetricFamilySamples> families = collector.collect();
+        Set<String> summaryNames = new HashSet<>();
+        for (MetricFamilySamples family : families) {
+            for (MetricFamilySamples.Sample sample : family.samples) {
+                if (sample.labelNames.contains(CustomMappingBuilder.QUANTILE_LABEL)) {
+                    summaryNames.add(family.name);
+                }
+            }
+        }
+
+        Map<String, MetricFamilySamples> mergedFamilies = new LinkedHashMap<>();
+        for (MetricFamilySamples family : families) {
+            String name = family.name;
+            if (name.endsWith(CustomMappingBuilder.COUNT_SUFFIX) && summaryNames.contains(
+                    name.substring(0, name.length() - CustomMappingBuilder.COUNT_SUFFIX.length()))) {
+                name = name.substring(0, name.length() - CustomMappingBuilder.COUNT_SUFFIX.length());
+            }
+            MetricFamilySamples mergedFamily = mergedFamilies.get(name);
+            if (mergedFamily == null) {
+                Type type = summaryNames.contains(name) ? Type.SUMMARY : family.type;
+                mergedFamilies.put(name, new MetricFamilySamples(name, type, family.help,
+                        new ArrayList<>(family.samples)));
+            } else {
+                mergedFamily.samples.addAll(family.samples);
+            }
+        }
+        return new ArrayList<>(mergedFamilies.values());
+    }
+}
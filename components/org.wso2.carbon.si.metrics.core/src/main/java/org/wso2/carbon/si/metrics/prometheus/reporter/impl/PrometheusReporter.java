@@ -38,6 +38,7 @@ import org.apache.log4j.Logger;
 import org.wso2.carbon.metrics.core.reporter.impl.AbstractReporter;
 import org.wso2.carbon.si.metrics.prometheus.reporter.config.CustomMapperConfig;
 import org.wso2.carbon.si.metrics.prometheus.reporter.config.CustomMappingBuilder;
+import org.wso2.carbon.si.metrics.prometheus.reporter.config.MetricFamilyMerger;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.CustomClassLoaderConstructor;
 import org.yaml.snakeyaml.introspector.BeanAccess;
@@ -87,7 +88,7 @@ public class PrometheusReporter extends AbstractReporter {
             List<CustomMapperConfig> metricsMappings = new ArrayList<>(
                                                                 metricsLabelsMapping.getMetricsLabelMapping().values());
             SampleBuilder sampleBuilder = new CustomMappingBuilder(metricsMappings);
-            Collector collector = new DropwizardExports(metricRegistry, sampleBuilder);
+            Collector collector = new MetricFamilyMerger(new DropwizardExports(metricRegistry, sampleBuilder));
             collectorRegistry.register(collector);
         } catch (IOException e) {
             log.error("Unable to read the metrics labels mappings for 'Prometheus Reporter'. " +
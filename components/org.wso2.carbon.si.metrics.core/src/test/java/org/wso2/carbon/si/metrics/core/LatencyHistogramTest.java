@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.si.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for the latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            Assert.assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            Assert.assertTrue(index == 0 || LatencyHistogram.highestEquivalentValue(index - 1) < value);
+        }
+        Assert.assertEquals(LatencyHistogram.indexOf(Long.MAX_VALUE), LatencyHistogram.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long micros = 1; micros <= 100000; micros++) {
+            (micros % 2 == 0 ? first : second).recordValue(micros * 1000);
+        }
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        first.addTo(counts);
+        second.addTo(counts);
+        assertPercentile(counts, 50, 50000000);
+        assertPercentile(counts, 99, 99000000);
+        assertPercentile(counts, 99.9, 99900000);
+        Assert.assertEquals(Math.max(first.takeIntervalMax(), second.takeIntervalMax()), 100000000);
+        Assert.assertEquals(first.takeIntervalMax(), 0);
+    }
+
+    private void assertPercentile(long[] counts, double percentile, long expected) {
+        long value = LatencyHistogram.valueAtPercentile(counts, 100000, percentile);
+        Assert.assertTrue(Math.abs(value - expected) <= expected / LatencyHistogram.SUB_BUCKET_HALF_COUNT,
+                "Percentile " + percentile + " was " + value);
+    }
+}
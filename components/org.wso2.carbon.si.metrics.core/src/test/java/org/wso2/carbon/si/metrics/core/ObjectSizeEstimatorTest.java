@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.si.metrics.core;
+
+import io.siddhi.core.util.statistics.memory.ObjectSizeCalculator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test case for the sampled object size estimation.
+ */
+public class ObjectSizeEstimatorTest {
+
+    @Test
+    public void testSampledEstimateOfLargeCollections() {
+        List<Long> list = new ArrayList<>();
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            list.add((long) i * 1000);
+            map.put(i, "value-" + i);
+        }
+        assertEstimate(list);
+        assertEstimate(map);
+    }
+
+    @Test
+    public void testTimeBudget() {
+        List<Object[]> list = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            list.add(new Object[]{new Object(), new Object()});
+        }
+        ObjectSizeEstimator.Estimate estimate = ObjectSizeEstimator.estimate(list, Integer.MAX_VALUE, 0);
+        Assert.assertTrue(estimate.isPartial());
+    }
+
+    private void assertEstimate(Object object) {
+        long exactSize = ObjectSizeCalculator.getObjectSize(object);
+        ObjectSizeEstimator.Estimate estimate = ObjectSizeEstimator.estimate(object, 1000,
+                TimeUnit.SECONDS.toNanos(30));
+        Assert.assertFalse(estimate.isPartial());
+        Assert.assertEquals(estimate.getSize(), exactSize, exactSize * 0.25);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.si.metrics.core;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.dropwizard.DropwizardExports;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.prometheus.reporter.config.CustomMapperConfig;
+import org.wso2.carbon.si.metrics.prometheus.reporter.config.CustomMappingBuilder;
+import org.wso2.carbon.si.metrics.prometheus.reporter.config.MetricFamilyMerger;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test case for the Prometheus export of the latency and throughput metrics.
+ */
+public class PrometheusExportTest {
+    private static final String STREAM_PREFIX = "io.siddhi.SiddhiApps.TestApp.Siddhi.Streams.TestStream.";
+    private static final String LATENCY_TRACKER_NAME = STREAM_PREFIX + "latency";
+    private static final String THROUGHPUT_TRACKER_NAME = STREAM_PREFIX + "throughput";
+
+    @AfterMethod
+    public void cleanUp() {
+        LatencyMetric.unregister(LATENCY_TRACKER_NAME);
+        ThroughputMetric.unregister(THROUGHPUT_TRACKER_NAME);
+    }
+
+    @Test
+    public void testSingleFamilyPerName() throws IOException {
+        new LatencyMetric(LATENCY_TRACKER_NAME, mock(MetricService.class));
+        new ThroughputMetric(THROUGHPUT_TRACKER_NAME, mock(MetricService.class), null);
+        MetricRegistry metricRegistry = new MetricRegistry();
+        registerGauge(metricRegistry, LATENCY_TRACKER_NAME, 10L);
+        for (String quantile : Arrays.asList(LatencyMetric.P50, LatencyMetric.P99, LatencyMetric.P999,
+                LatencyMetric.MAX)) {
+            registerGauge(metricRegistry, MetricRegistry.name(LATENCY_TRACKER_NAME, quantile), 0.5);
+        }
+        registerGauge(metricRegistry, THROUGHPUT_TRACKER_NAME, 100L);
+        for (String window : Arrays.asList(ThroughputMetric.RATE_1S, ThroughputMetric.RATE_10S,
+                ThroughputMetric.RATE_60S)) {
+            registerGauge(metricRegistry, MetricRegistry.name(THROUGHPUT_TRACKER_NAME, window), 1.0);
+        }
+        Map<String, String> labels = new LinkedHashMap<>();
+        labels.put("app", "${0}");
+        labels.put("element", "${1}");
+        CustomMappingBuilder sampleBuilder = new CustomMappingBuilder(Collections.singletonList(
+                new CustomMapperConfig("io.siddhi.SiddhiApps.*.Siddhi.Streams.*.*", "siddhi.stream.${2}", labels)));
+        CollectorRegistry collectorRegistry = new CollectorRegistry();
+        collectorRegistry.register(new MetricFamilyMerger(new DropwizardExports(metricRegistry, sampleBuilder)));
+
+        StringWriter writer = new StringWriter();
+        TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        String text = writer.toString();
+        Set<String> typedNames = new HashSet<>();
+        for (String line : text.split("\n")) {
+            if (line.startsWith("# TYPE ")) {
+                Assert.assertTrue(typedNames.add(line.split(" ")[2]), "Duplicate family in\n" + text);
+            }
+        }
+        Assert.assertTrue(text.contains("# TYPE siddhi_stream_latency summary"), text);
+        Assert.assertTrue(text.contains("siddhi_stream_latency{app=\"TestApp\",element=\"TestStream\"," +
+                "quantile=\"0.99\",} 0.5"), text);
+        Assert.assertTrue(text.contains("siddhi_stream_latency_count{app=\"TestApp\",element=\"TestStream\",} 10.0"),
+                text);
+        Assert.assertTrue(text.contains("# TYPE siddhi_stream_throughput_rate gauge"), text);
+        Assert.assertTrue(text.contains("siddhi_stream_throughput_rate{app=\"TestApp\",element=\"TestStream\"," +
+                "window=\"60s\",} 1.0"), text);
+    }
+
+    private void registerGauge(MetricRegistry metricRegistry, String name, Object value) {
+        metricRegistry.register(name, (Gauge<Object>) () -> value);
+    }
+}
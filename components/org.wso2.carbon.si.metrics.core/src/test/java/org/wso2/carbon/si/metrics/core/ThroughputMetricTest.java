@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.si.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.MetricService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test case for the windowed rates of the throughput metric.
+ */
+public class ThroughputMetricTest {
+    private static final String TRACKER_NAME = "io.siddhi.SiddhiApps.TestApp.Siddhi.Streams.TestStream.throughput";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double DELTA = 0.0001;
+
+    @AfterMethod
+    public void cleanUp() {
+        ThroughputMetric.unregister(TRACKER_NAME);
+    }
+
+    @Test
+    public void testWindowedRates() {
+        ThroughputMetric metric = new ThroughputMetric(TRACKER_NAME, mock(MetricService.class), null);
+        Assert.assertEquals(metric.getRate(1), 0, DELTA);
+        // 100 events a second for 100 seconds, followed by 1000 events within the last second
+        for (int second = 0; second <= 100; second++) {
+            metric.tick(second * SECOND);
+            metric.eventsIn(100);
+        }
+        metric.eventsIn(900);
+        metric.tick(101 * SECOND);
+
+        Assert.assertEquals(metric.getTotal(), 11000);
+        Assert.assertEquals(metric.getRate(1), 1000, DELTA);
+        Assert.assertEquals(metric.getRate(10), (9 * 100 + 1000) / 10.0, DELTA);
+        Assert.assertEquals(metric.getRate(60), (59 * 100 + 1000) / 60.0, DELTA);
+        Assert.assertEquals(metric.getRate(120), metric.getRate(60), DELTA);
+    }
+
+    @Test
+    public void testRateBeforeWindowIsTracked() {
+        ThroughputMetric metric = new ThroughputMetric(TRACKER_NAME, mock(MetricService.class), null);
+        for (int second = 0; second < 5; second++) {
+            metric.tick(second * SECOND);
+            metric.eventsIn(50);
+        }
+        // Only 4 seconds are tracked so far
+        Assert.assertEquals(metric.getRate(60), 50, DELTA);
+        Assert.assertEquals(metric.getRate(2), 50, DELTA);
+    }
+
+    @Test
+    public void testRatesReadWhileTicking() throws InterruptedException {
+        ThroughputMetric metric = new ThroughputMetric(TRACKER_NAME, mock(MetricService.class), null);
+        metric.tick(0);
+        metric.eventsIn(100);
+        metric.tick(SECOND);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Double> invalidRate = new AtomicReference<>();
+        Thread ticker = new Thread(() -> {
+            for (long second = 2; running.get(); second++) {
+                metric.eventsIn(100);
+                metric.tick(second * SECOND);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        });
+        ticker.start();
+        long deadline = System.nanoTime() + SECOND;
+        while (System.nanoTime() < deadline && invalidRate.get() == null) {
+            double rate = metric.getRate(60);
+            if (Math.abs(rate - 100) > DELTA) {
+                invalidRate.set(rate);
+            }
+        }
+        running.set(false);
+        ticker.join();
+        Assert.assertNull(invalidRate.get(), "Rate read while ticking was " + invalidRate.get());
+    }
+}
@@ -30,6 +30,7 @@ public class ValidationRequest {
     private List<String> missingAggregationDefinitions;
     private List<List<String>> missingInnerStreams;
     private Map<String, String> variables;
+    private String mode;
 
     public String getSiddhiApp() {
 
@@ -78,4 +79,12 @@ public class ValidationRequest {
     public void setVariables(Map<String, String> variables) {
         this.variables = variables;
     }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
 }
@@ -77,4 +77,17 @@ public class DebuggerEventStreamService implements EventStreamService {
             }
         }
     }
+
+    @Override
+    public void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+
+        DebugRuntime runtimeHolder = EditorDataHolder.getSiddhiAppMap().get(siddhiAppName);
+        if (runtimeHolder != null) {
+            try {
+                runtimeHolder.getInputHandler(streamName).send(events);
+            } catch (Exception e) {
+                log.error("Error when pushing events to Siddhi debugger engine ", e);
+            }
+        }
+    }
 }
@@ -33,6 +33,7 @@ public class EditorDataHolder {
 
     private static EditorDataHolder instance = new EditorDataHolder();
     private static SiddhiManager siddhiManager;
+    private static SiddhiManager validationSiddhiManager;
     private static BundleContext bundleContext;
     private static DebugProcessorService debugProcessorService;
     private static Map<String, DebugRuntime> siddhiAppMap = new ConcurrentHashMap<>();
@@ -58,6 +59,22 @@ public class EditorDataHolder {
         EditorDataHolder.siddhiManager = siddhiManager;
     }
 
+    /**
+     * Get the Siddhi manager of the runtimes created to validate Siddhi apps, which is kept apart from the Siddhi
+     * manager of the editor, so that validation does not replace or remove the runtimes of the editor.
+     *
+     * @return Siddhi manager used for validation
+     */
+    public static SiddhiManager getValidationSiddhiManager() {
+
+        return validationSiddhiManager;
+    }
+
+    public static void setValidationSiddhiManager(SiddhiManager validationSiddhiManager) {
+
+        EditorDataHolder.validationSiddhiManager = validationSiddhiManager;
+    }
+
     public static DebugProcessorService getDebugProcessorService() {
 
         return debugProcessorService;
@@ -65,13 +65,11 @@ import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.siddhi.editor.core.EditorSiddhiAppRuntimeService;
 import org.wso2.carbon.siddhi.editor.core.Workspace;
 import org.wso2.carbon.siddhi.editor.core.commons.configs.DockerBuildConfig;
-import org.wso2.carbon.siddhi.editor.core.commons.metadata.MetaData;
 import org.wso2.carbon.siddhi.editor.core.commons.request.AppStartRequest;
 import org.wso2.carbon.siddhi.editor.core.commons.request.ExportAppsRequest;
 import org.wso2.carbon.siddhi.editor.core.commons.request.ValidationRequest;
 import org.wso2.carbon.siddhi.editor.core.commons.response.DebugRuntimeResponse;
 import org.wso2.carbon.siddhi.editor.core.commons.response.GeneralResponse;
-import org.wso2.carbon.siddhi.editor.core.commons.response.MetaDataResponse;
 import org.wso2.carbon.siddhi.editor.core.commons.response.Status;
 import org.wso2.carbon.siddhi.editor.core.commons.response.ValidationSuccessResponse;
 import org.wso2.carbon.siddhi.editor.core.exception.DockerGenerationException;
@@ -86,12 +84,14 @@ import org.wso2.carbon.siddhi.editor.core.model.SiddhiAppStatus;
 import org.wso2.carbon.siddhi.editor.core.util.Constants;
 import org.wso2.carbon.siddhi.editor.core.util.DebugCallbackEvent;
 import org.wso2.carbon.siddhi.editor.core.util.DebugStateHolder;
+import org.wso2.carbon.siddhi.editor.core.util.ExtensionMetaDataCache;
 import org.wso2.carbon.siddhi.editor.core.util.FileJsonObjectReaderUtil;
 import org.wso2.carbon.siddhi.editor.core.util.LogEncoder;
 import org.wso2.carbon.siddhi.editor.core.util.MetaInfoRetrieverUtils;
 import org.wso2.carbon.siddhi.editor.core.util.MimeMapper;
 import org.wso2.carbon.siddhi.editor.core.util.SampleEventGenerator;
 import org.wso2.carbon.siddhi.editor.core.util.SecurityUtil;
+import org.wso2.carbon.siddhi.editor.core.util.SiddhiAppValidator;
 import org.wso2.carbon.siddhi.editor.core.util.SourceEditorUtils;
 import org.wso2.carbon.siddhi.editor.core.util.designview.beans.EventFlow;
 import org.wso2.carbon.siddhi.editor.core.util.designview.beans.ToolTip;
@@ -158,6 +158,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.xml.stream.XMLStreamException;
@@ -183,6 +184,7 @@ public class EditorMicroservice implements Microservice {
     private static final String EXPORT_REQUEST_TYPE_DOWNLOAD_ONLY = "downloadOnly";
     private static final String EXPORT_REQUEST_TYPE_BUILD_ONLY = "buildOnly";
     private static final String EXPORT_REQUEST_GET_STATUS_HEADER = "Siddhi-Docker-Key";
+    private static final String SYNTAX_VALIDATION_MODE = "syntax";
     private ServiceRegistration serviceRegistration;
     private Workspace workspace;
     private ExecutorService executorService = Executors
@@ -267,14 +269,20 @@ public class EditorMicroservice implements Microservice {
                 siddhiApp = SourceEditorUtils.populateSiddhiAppWithVars(validationRequest.getVariables(), siddhiApp);
             }
             if (EditorDataHolder.getSiddhiManager() != null) {
-                SiddhiAppRuntime siddhiAppRuntime =
-                        EditorDataHolder.getSiddhiManager().createSiddhiAppRuntime(siddhiApp);
-                String siddhiAppName = siddhiAppRuntime.getName();
-                DebugRuntime debugRuntime = EditorDataHolder.getSiddhiAppMap().get(siddhiAppName);
+                // Only the syntax is checked in the syntax mode, without creating a runtime
+                SiddhiAppValidator.Result result = SYNTAX_VALIDATION_MODE.equalsIgnoreCase(validationRequest.getMode())
+                        ? SiddhiAppValidator.parse(siddhiApp) : SiddhiAppValidator.validate(siddhiApp);
+                if (result.getError() != null) {
+                    throw result.getError();
+                }
+                DebugRuntime debugRuntime = result.getSiddhiAppName() == null ? null :
+                        EditorDataHolder.getSiddhiAppMap().get(result.getSiddhiAppName());
                 if (debugRuntime != null && debugRuntime.getMode() != DebugRuntime.Mode.RUN) {
-                    debugRuntime.setSiddhiAppRuntime(siddhiAppRuntime);
+                    // The debug runtime needs the sources and sinks, hence it is created from the app as it is
+                    debugRuntime.setSiddhiAppRuntime(
+                            EditorDataHolder.getSiddhiManager().createSiddhiAppRuntime(siddhiApp));
                     debugRuntime.setMode(DebugRuntime.Mode.STOP);
-                    EditorDataHolder.getSiddhiAppMap().put(siddhiAppName, debugRuntime);
+                    EditorDataHolder.getSiddhiAppMap().put(result.getSiddhiAppName(), debugRuntime);
                 }
 
                 // Status SUCCESS to indicate that the siddhi app is valid
@@ -282,16 +290,13 @@ public class EditorMicroservice implements Microservice {
 
                 // Getting requested stream definitions
                 if (validationRequest.getMissingStreams() != null) {
-                    response.setStreams(SourceEditorUtils.getStreamDefinitions(
-                            siddhiAppRuntime, validationRequest.getMissingStreams()
-                    ));
+                    response.setStreams(result.getStreamDefinitions(validationRequest.getMissingStreams()));
                 }
 
                 // Getting requested aggregation definitions
                 if (validationRequest.getMissingAggregationDefinitions() != null) {
-                    response.setAggregationDefinitions(SourceEditorUtils.getAggregationDefinitions(
-                            siddhiAppRuntime, validationRequest.getMissingAggregationDefinitions()
-                    ));
+                    response.setAggregationDefinitions(
+                            result.getAggregationDefinitions(validationRequest.getMissingAggregationDefinitions()));
                 }
                 jsonString = new Gson().toJson(response);
             }
@@ -762,14 +767,17 @@ public class EditorMicroservice implements Microservice {
 
     @GET
     @Path("/metadata")
-    public Response getMetaData() {
+    public Response getMetaData(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
 
-        MetaDataResponse response = new MetaDataResponse(Status.SUCCESS);
-        Map<String, MetaData> extensions = SourceEditorUtils.getExtensionProcessorMetaData();
-        response.setInBuilt(extensions.remove(""));
-        response.setExtensions(extensions);
-        String jsonString = new Gson().toJson(response);
-        return Response.ok(jsonString, MediaType.APPLICATION_JSON)
+        ExtensionMetaDataCache.CachedMetaData metaData = ExtensionMetaDataCache.getMetaData();
+        if (ExtensionMetaDataCache.matches(ifNoneMatch, metaData.getEntityTag())) {
+            return Response.notModified()
+                    .header(HttpHeaders.ETAG, metaData.getEntityTag())
+                    .build();
+        }
+        return Response.ok(metaData.getJson(), MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ETAG, metaData.getEntityTag())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
                 .build();
     }
 
@@ -1441,13 +1449,13 @@ public class EditorMicroservice implements Microservice {
                                                 @PathParam("type") String eventType)
             throws NotFoundException {
 
-        SiddhiAppRuntime siddhiAppRuntime = EditorDataHolder.getSiddhiManager().getSiddhiAppRuntime(appName);
+        Map<String, StreamDefinition> streamDefinitionMap = getStreamDefinitionMap(appName);
         JSONObject errorResponse = new JSONObject();
-        if (siddhiAppRuntime == null) {
+        if (streamDefinitionMap == null) {
             errorResponse.put("error", "There is no Siddhi App exist with provided name : " + appName);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorResponse.toString()).build();
         } else {
-            StreamDefinition streamDefinition = siddhiAppRuntime.getStreamDefinitionMap().get(streamName);
+            StreamDefinition streamDefinition = streamDefinitionMap.get(streamName);
             if (streamDefinition == null) {
                 errorResponse.put("error", "There is no Stream called " + streamName + " in " +
                         appName + " Siddhi App.");
@@ -1468,6 +1476,27 @@ public class EditorMicroservice implements Microservice {
         }
     }
 
+    /**
+     * Get the stream definitions of a Siddhi app, preferring the last validated version of the app over the debug
+     * runtime and the deployed runtime of the editor.
+     *
+     * @param appName Siddhi app name
+     * @return Stream definitions by stream name, or null if the Siddhi app is not known
+     */
+    private static Map<String, StreamDefinition> getStreamDefinitionMap(String appName) {
+
+        Map<String, StreamDefinition> streamDefinitionMap = SiddhiAppValidator.getStreamDefinitionMap(appName);
+        if (streamDefinitionMap != null) {
+            return streamDefinitionMap;
+        }
+        DebugRuntime debugRuntime = EditorDataHolder.getSiddhiAppMap().get(appName);
+        if (debugRuntime != null && debugRuntime.getSiddhiAppRuntime() != null) {
+            return debugRuntime.getSiddhiAppRuntime().getStreamDefinitionMap();
+        }
+        SiddhiAppRuntime siddhiAppRuntime = EditorDataHolder.getSiddhiManager().getSiddhiAppRuntime(appName);
+        return siddhiAppRuntime == null ? null : siddhiAppRuntime.getStreamDefinitionMap();
+    }
+
     @POST
     @Path("/retrieveFileDataAttributes")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -2154,12 +2183,24 @@ public class EditorMicroservice implements Microservice {
         FileConfigManager fileConfigManager = new FileConfigManager(configProvider);
         siddhiManager.setConfigManager(fileConfigManager);
         EditorDataHolder.setSiddhiManager(siddhiManager);
+        SiddhiManager validationSiddhiManager = new SiddhiManager();
+        validationSiddhiManager.setConfigManager(fileConfigManager);
+        EditorDataHolder.setValidationSiddhiManager(validationSiddhiManager);
         EditorDataHolder.setBundleContext(bundleContext);
         siddhiAppRuntimeServiceRegistration = bundleContext.registerService(SiddhiAppRuntimeService.class.getName(),
                 new EditorSiddhiAppRuntimeService(), null);
         serviceRegistration = bundleContext.registerService(EventStreamService.class.getName(),
                 new DebuggerEventStreamService(), null);
         loadSampleFiles();
+        Thread metaDataLoader = new Thread(() -> {
+            try {
+                ExtensionMetaDataCache.getMetaData();
+            } catch (Throwable e) {
+                log.debug("Failed to load the extension meta data at startup.", e);
+            }
+        }, "EditorMetaDataLoader");
+        metaDataLoader.setDaemon(true);
+        metaDataLoader.start();
     }
 
     /**
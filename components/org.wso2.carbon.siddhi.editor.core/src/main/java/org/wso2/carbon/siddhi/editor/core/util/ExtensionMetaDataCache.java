@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.editor.core.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.siddhi.editor.core.commons.metadata.MetaData;
+import org.wso2.carbon.siddhi.editor.core.commons.response.MetaDataResponse;
+import org.wso2.carbon.siddhi.editor.core.commons.response.Status;
+import org.wso2.carbon.siddhi.editor.core.internal.EditorDataHolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the serialized meta data response of the extensions known to the Siddhi manager, so that the extension
+ * classes are only reflected over when the set of extensions changes. The response is also kept on disk, keyed by the
+ * jars the extensions are loaded from, so that a restart with the same jars does not generate it again. The meta data
+ * of the in-built processors, found by scanning the jars of the class path, is kept the same way.
+ */
+public class ExtensionMetaDataCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ExtensionMetaDataCache.class);
+    // Changing the meta data model requires a new version, so that cached responses of older versions are not used.
+    private static final String CACHE_VERSION = "2";
+    private static final String CACHE_FILE_PREFIX = "extension-metadata-";
+    private static final String IN_BUILT_CACHE_FILE_PREFIX = "inbuilt-metadata-";
+    private static final String CACHE_FILE_SUFFIX = ".json";
+    private static final String WEAK_ENTITY_TAG_PREFIX = "W/";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static volatile Path cacheDirectory;
+    private static volatile CachedMetaData cachedMetaData;
+    private static volatile MetaData inBuiltMetaData;
+
+    private ExtensionMetaDataCache() {
+
+    }
+
+    /**
+     * Returns the meta data of the current extensions, generating it only if the extensions have changed.
+     *
+     * @return Cached meta data response
+     */
+    public static CachedMetaData getMetaData() {
+
+        Map<String, Class> extensions = EditorDataHolder.getSiddhiManager().getExtensions();
+        long fingerprint = getFingerprint(extensions);
+        CachedMetaData current = cachedMetaData;
+        if (current != null && current.fingerprint == fingerprint) {
+            return current;
+        }
+        synchronized (ExtensionMetaDataCache.class) {
+            current = cachedMetaData;
+            if (current == null || current.fingerprint != fingerprint) {
+                current = load(extensions, fingerprint);
+                cachedMetaData = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Fingerprint of the loaded extension classes, which changes when an extension is installed or removed.
+     */
+    static long getFingerprint(Map<String, Class> extensions) {
+
+        long fingerprint = extensions.size();
+        for (Map.Entry<String, Class> entry : extensions.entrySet()) {
+            fingerprint += 31L * entry.getKey().hashCode() + System.identityHashCode(entry.getValue());
+        }
+        return fingerprint;
+    }
+
+    private static CachedMetaData load(Map<String, Class> extensions, long fingerprint) {
+
+        Path cacheFile = getCacheDirectory().resolve(CACHE_FILE_PREFIX + getJarKey(extensions) + CACHE_FILE_SUFFIX);
+        String json = read(cacheFile);
+        if (json == null) {
+            MetaDataResponse response = new MetaDataResponse(Status.SUCCESS);
+            Map<String, MetaData> metaData = SourceEditorUtils.getExtensionProcessorMetaData(extensions);
+            response.setInBuilt(metaData.remove(""));
+            response.setExtensions(metaData);
+            json = new Gson().toJson(response);
+            store(CACHE_FILE_PREFIX, cacheFile, json);
+        }
+        return new CachedMetaData(fingerprint, json);
+    }
+
+    /**
+     * Returns the meta data of the in-built processors, scanning the class path only if the jars of the class path
+     * have changed since the meta data was cached on disk.
+     *
+     * @return In-built processor meta data
+     */
+    public static MetaData getInBuiltMetaData() {
+
+        MetaData current = inBuiltMetaData;
+        if (current == null) {
+            synchronized (ExtensionMetaDataCache.class) {
+                current = inBuiltMetaData;
+                if (current == null) {
+                    current = loadInBuiltMetaData();
+                    inBuiltMetaData = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static MetaData loadInBuiltMetaData() {
+
+        List<String> entries = new ArrayList<>();
+        for (String classPathName : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPathName.endsWith(".jar")) {
+                entries.add(getFileKey(new File(classPathName)));
+            }
+        }
+        Path cacheFile = getCacheDirectory().resolve(IN_BUILT_CACHE_FILE_PREFIX + hash(entries) + CACHE_FILE_SUFFIX);
+        String json = read(cacheFile);
+        if (json != null) {
+            try {
+                MetaData metaData = new Gson().fromJson(json, MetaData.class);
+                if (metaData != null) {
+                    return metaData;
+                }
+            } catch (JsonParseException e) {
+                LOGGER.debug("Failed to parse the cached in-built meta data " + cacheFile, e);
+            }
+        }
+        MetaData metaData = SourceEditorUtils.getInBuiltProcessorMetaData();
+        store(IN_BUILT_CACHE_FILE_PREFIX, cacheFile, new Gson().toJson(metaData));
+        return metaData;
+    }
+
+    /**
+     * Whether the entity tag matches the If-None-Match header, which is a list of entity tags or '*'. Tags are
+     * compared weakly, so a weak tag matches the same strong tag.
+     *
+     * @param ifNoneMatch Value of the If-None-Match header, may be null
+     * @param entityTag   Current entity tag
+     * @return Whether the current representation is one the client already has
+     */
+    public static boolean matches(String ifNoneMatch, String entityTag) {
+
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(entityTag);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String entityTag) {
+
+        return entityTag.startsWith(WEAK_ENTITY_TAG_PREFIX) ?
+                entityTag.substring(WEAK_ENTITY_TAG_PREFIX.length()) : entityTag;
+    }
+
+    /**
+     * Key of the jars the extensions are loaded from, made of their locations, sizes and modification times.
+     */
+    private static String getJarKey(Map<String, Class> extensions) {
+
+        Map<Class, Boolean> visitedClasses = new IdentityHashMap<>();
+        TreeSet<String> entries = new TreeSet<>();
+        for (Map.Entry<String, Class> extension : extensions.entrySet()) {
+            entries.add(extension.getKey() + "=" + extension.getValue().getName());
+            if (visitedClasses.put(extension.getValue(), Boolean.TRUE) == null) {
+                entries.add(getLocation(extension.getValue()));
+            }
+        }
+        return hash(entries);
+    }
+
+    private static String getLocation(Class<?> extensionClass) {
+
+        CodeSource codeSource = extensionClass.getProtectionDomain().getCodeSource();
+        URL location = codeSource == null ? null : codeSource.getLocation();
+        if (location == null) {
+            return "";
+        }
+        try {
+            File file = new File(location.toURI());
+            if (file.isFile()) {
+                return getFileKey(file);
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // Not a file location, e.g. a bundle resource
+        }
+        return location.toString();
+    }
+
+    private static String getFileKey(File file) {
+
+        return file.getPath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    /**
+     * @return Hex encoded SHA-256 digest of the cache version and the given entries.
+     */
+    static String hash(Collection<String> entries) {
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        digest.update(CACHE_VERSION.getBytes(StandardCharsets.UTF_8));
+        for (String entry : entries) {
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        byte[] bytes = digest.digest();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static Path getCacheDirectory() {
+
+        Path directory = cacheDirectory;
+        if (directory == null) {
+            directory = Paths.get(Constants.RUNTIME_PATH, "tmp", "editor-metadata");
+            cacheDirectory = directory;
+        }
+        return directory;
+    }
+
+    /**
+     * Sets the directory of the cached meta data, and drops the meta data cached in memory.
+     */
+    static synchronized void setCacheDirectory(Path directory) {
+
+        cacheDirectory = directory;
+        cachedMetaData = null;
+        inBuiltMetaData = null;
+    }
+
+    private static String read(Path cacheFile) {
+
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                return new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                LOGGER.debug("Failed to read the cached meta data " + cacheFile, e);
+            }
+        }
+        return null;
+    }
+
+    private static void store(String prefix, Path cacheFile, String json) {
+
+        Path directory = cacheFile.getParent();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> staleFiles = Files.newDirectoryStream(directory,
+                    prefix + "*" + CACHE_FILE_SUFFIX)) {
+                for (Path staleFile : staleFiles) {
+                    Files.deleteIfExists(staleFile);
+                }
+            }
+            Path tempFile = Files.createTempFile(directory, prefix, ".tmp");
+            Files.write(tempFile, json.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.debug("Failed to cache the meta data in " + cacheFile, e);
+        }
+    }
+
+    /**
+     * Serialized meta data response with its entity tag, which is the digest of the response.
+     */
+    public static class CachedMetaData {
+
+        private final long fingerprint;
+        private final String entityTag;
+        private final String json;
+
+        private CachedMetaData(long fingerprint, String json) {
+
+            this.fingerprint = fingerprint;
+            this.entityTag = "\"" + hash(Collections.singletonList(json)) + "\"";
+            this.json = json;
+        }
+
+        public String getEntityTag() {
+
+            return entityTag;
+        }
+
+        public String getJson() {
+
+            return json;
+        }
+    }
+}
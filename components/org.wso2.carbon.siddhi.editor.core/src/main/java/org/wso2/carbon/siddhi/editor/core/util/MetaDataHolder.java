@@ -25,19 +25,17 @@ import org.wso2.carbon.siddhi.editor.core.commons.metadata.MetaData;
  */
 public class MetaDataHolder {
 
-    private static MetaData inBuiltProcessorMetaData = SourceEditorUtils.getInBuiltProcessorMetaData();
-
     private MetaDataHolder() {
 
     }
 
     /**
-     * Returns the in built processor meta data.
+     * Returns the in built processor meta data, which is loaded on the first call.
      *
      * @return In-built processor meta data
      */
     public static MetaData getInBuiltProcessorMetaData() {
 
-        return inBuiltProcessorMetaData;
+        return ExtensionMetaDataCache.getInBuiltMetaData();
     }
 }
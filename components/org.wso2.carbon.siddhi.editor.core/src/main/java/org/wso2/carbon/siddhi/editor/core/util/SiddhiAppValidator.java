@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.editor.core.util;
+
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.util.config.ConfigManager;
+import io.siddhi.query.api.SiddhiApp;
+import io.siddhi.query.api.annotation.Annotation;
+import io.siddhi.query.api.definition.AbstractDefinition;
+import io.siddhi.query.api.definition.StreamDefinition;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+import io.siddhi.query.compiler.SiddhiCompiler;
+import org.wso2.carbon.siddhi.editor.core.internal.EditorDataHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Validates Siddhi apps for the editor in two tiers. Every app is first parsed, which reports syntax errors without
+ * creating a runtime. Apps which parse are then checked by creating a runtime in which the sources, sinks and stores
+ * are removed, so that validation never connects to external systems. Their types, map types and mandatory options are
+ * checked against the extensions instead, before the runtime is created. That runtime is created in the validation
+ * Siddhi manager, so that it does not replace a runtime of the editor with the same name, and is shut down right after
+ * the definitions are read from it. Results are cached by the app content and the available extensions, as the editor
+ * validates the same content repeatedly, and the last valid result of each app is kept to serve its definitions.
+ */
+public class SiddhiAppValidator {
+
+    private static final int CACHE_SIZE = 64;
+    private static final String SOURCE = "source";
+    private static final String SINK = "sink";
+    private static final String STORE = "store";
+    private static final String MAP = "map";
+    private static final String TYPE = "type";
+    private static final String DISTRIBUTION = "distribution";
+    private static final String SOURCE_MAPPER = "sourceMapper";
+    private static final String SINK_MAPPER = "sinkMapper";
+    private static final Map<String, Result> parseResults = new LruCache<>();
+    private static final Map<String, Result> runtimeResults = new LruCache<>();
+    private static final Map<String, Result> validatedApps = new LruCache<>();
+
+    private SiddhiAppValidator() {
+
+    }
+
+    /**
+     * Checks the syntax of the given Siddhi app.
+     *
+     * @param siddhiApp Siddhi app string
+     * @return Validation result, without definitions
+     */
+    public static Result parse(String siddhiApp) {
+
+        Result result = getCached(parseResults, siddhiApp);
+        if (result == null) {
+            try {
+                SiddhiCompiler.parse(SiddhiCompiler.updateVariables(siddhiApp));
+                result = new Result(null, null, null, null);
+            } catch (Throwable t) {
+                result = new Result(null, null, null, t);
+            }
+            putCached(parseResults, siddhiApp, result);
+        }
+        return result;
+    }
+
+    /**
+     * Checks the syntax and semantics of the given Siddhi app, without connecting to any external system.
+     *
+     * @param siddhiApp Siddhi app string
+     * @return Validation result, with the stream and aggregation definitions of the app when it is valid
+     */
+    public static Result validate(String siddhiApp) {
+
+        Result result = parse(siddhiApp);
+        if (result.getError() != null) {
+            return result;
+        }
+        SiddhiManager siddhiManager = getValidationSiddhiManager();
+        // A runtime result depends on the extensions, which may be installed or removed while the editor is running
+        String key = Long.toHexString(ExtensionMetaDataCache.getFingerprint(siddhiManager.getExtensions())) + ":" +
+                siddhiApp;
+        result = getCached(runtimeResults, key);
+        if (result == null) {
+            result = createStubbedRuntime(siddhiManager, siddhiApp);
+            putCached(runtimeResults, key, result);
+        }
+        if (result.getError() == null) {
+            putCached(validatedApps, result.getSiddhiAppName(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the stream definitions of the last version of the given Siddhi app which was found to be valid.
+     *
+     * @param siddhiAppName Siddhi app name
+     * @return Stream definitions by stream name, or null if no valid version of the app was validated
+     */
+    public static Map<String, StreamDefinition> getStreamDefinitionMap(String siddhiAppName) {
+
+        Result result = getCached(validatedApps, siddhiAppName);
+        return result == null ? null : result.streamDefinitions;
+    }
+
+    private static SiddhiManager getValidationSiddhiManager() {
+
+        synchronized (SiddhiAppValidator.class) {
+            SiddhiManager siddhiManager = EditorDataHolder.getValidationSiddhiManager();
+            if (siddhiManager == null) {
+                siddhiManager = new SiddhiManager();
+                EditorDataHolder.setValidationSiddhiManager(siddhiManager);
+            }
+            return siddhiManager;
+        }
+    }
+
+    private static Result createStubbedRuntime(SiddhiManager siddhiManager, String siddhiApp) {
+
+        SiddhiAppRuntime siddhiAppRuntime = null;
+        try {
+            SiddhiApp parsedSiddhiApp = SiddhiCompiler.parse(SiddhiCompiler.updateVariables(siddhiApp));
+            validateTransports(siddhiManager, parsedSiddhiApp.getStreamDefinitionMap().values());
+            validateTransports(siddhiManager, parsedSiddhiApp.getTableDefinitionMap().values());
+            validateTransports(siddhiManager, parsedSiddhiApp.getAggregationDefinitionMap().values());
+            removeTransports(parsedSiddhiApp.getStreamDefinitionMap().values());
+            removeTransports(parsedSiddhiApp.getTableDefinitionMap().values());
+            removeTransports(parsedSiddhiApp.getAggregationDefinitionMap().values());
+            siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(parsedSiddhiApp);
+            return new Result(siddhiAppRuntime.getName(),
+                    new HashMap<>(siddhiAppRuntime.getStreamDefinitionMap()),
+                    new HashMap<>(siddhiAppRuntime.getAggregationDefinitionMap()), null);
+        } catch (Throwable t) {
+            return new Result(null, null, null, t);
+        } finally {
+            if (siddhiAppRuntime != null) {
+                siddhiAppRuntime.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Checks the transports which are removed from the validation runtime, as the runtime would have done when
+     * initializing them: their types and map types must be available extensions, and their mandatory options must be
+     * given either in the annotation or in the configuration of the extension.
+     */
+    private static void validateTransports(SiddhiManager siddhiManager,
+                                           Collection<? extends AbstractDefinition> definitions) {
+
+        Map<String, Class> extensions = siddhiManager.getExtensions();
+        ConfigManager configManager = siddhiManager.getSiddhiContext().getConfigManager();
+        for (AbstractDefinition definition : definitions) {
+            for (Annotation annotation : definition.getAnnotations()) {
+                if (!isTransport(annotation)) {
+                    continue;
+                }
+                String namespace = annotation.getName().toLowerCase(Locale.ENGLISH);
+                validateExtension(extensions, configManager, namespace, annotation, definition);
+                for (Annotation mapAnnotation : annotation.getAnnotations()) {
+                    if (MAP.equalsIgnoreCase(mapAnnotation.getName())) {
+                        validateExtension(extensions, configManager, SOURCE.equals(namespace) ? SOURCE_MAPPER :
+                                SINK_MAPPER, mapAnnotation, definition);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void validateExtension(Map<String, Class> extensions, ConfigManager configManager,
+                                          String namespace, Annotation annotation, AbstractDefinition definition) {
+
+        String type = annotation.getElement(TYPE);
+        if (type == null) {
+            throw new SiddhiAppValidationException("Attribute '" + TYPE + "' is not specified in the @" +
+                    annotation.getName() + " annotation of '" + definition.getId() + "'.");
+        }
+        String key = namespace + ":" + type;
+        Class extensionClass = extensions.get(key);
+        if (extensionClass == null) {
+            throw new SiddhiAppValidationException("No extension exist for " + key + " in '" +
+                    definition.getId() + "'.");
+        }
+        Extension extension = (Extension) extensionClass.getAnnotation(Extension.class);
+        if (extension == null || hasDistribution(annotation)) {
+            // Options of distributed sinks are given per destination, and are checked when the sink is created
+            return;
+        }
+        for (Parameter parameter : extension.parameters()) {
+            if (!parameter.optional() && annotation.getElement(parameter.name()) == null &&
+                    configManager.generateConfigReader(namespace, type).readConfig(parameter.name(), null) == null) {
+                throw new SiddhiAppValidationException("Option '" + parameter.name() + "' does not exist in the " +
+                        "configuration of '" + key + "' in '" + definition.getId() + "'.");
+            }
+        }
+    }
+
+    private static boolean hasDistribution(Annotation annotation) {
+
+        for (Annotation nestedAnnotation : annotation.getAnnotations()) {
+            if (DISTRIBUTION.equalsIgnoreCase(nestedAnnotation.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void removeTransports(Collection<? extends AbstractDefinition> definitions) {
+
+        for (AbstractDefinition definition : definitions) {
+            definition.getAnnotations().removeIf(SiddhiAppValidator::isTransport);
+        }
+    }
+
+    private static boolean isTransport(Annotation annotation) {
+
+        return SOURCE.equalsIgnoreCase(annotation.getName()) || SINK.equalsIgnoreCase(annotation.getName())
+                || STORE.equalsIgnoreCase(annotation.getName());
+    }
+
+    private static Result getCached(Map<String, Result> cache, String siddhiApp) {
+
+        synchronized (cache) {
+            return cache.get(siddhiApp);
+        }
+    }
+
+    private static void putCached(Map<String, Result> cache, String siddhiApp, Result result) {
+
+        synchronized (cache) {
+            cache.put(siddhiApp, result);
+        }
+    }
+
+    /**
+     * Outcome of validating a Siddhi app.
+     */
+    public static class Result {
+
+        private final String siddhiAppName;
+        private final Map<String, StreamDefinition> streamDefinitions;
+        private final Map<String, ? extends AbstractDefinition> aggregationDefinitions;
+        private final Throwable error;
+
+        private Result(String siddhiAppName, Map<String, StreamDefinition> streamDefinitions,
+                       Map<String, ? extends AbstractDefinition> aggregationDefinitions, Throwable error) {
+
+            this.siddhiAppName = siddhiAppName;
+            this.streamDefinitions = streamDefinitions;
+            this.aggregationDefinitions = aggregationDefinitions;
+            this.error = error;
+        }
+
+        /**
+         * @return Name of the Siddhi app, or null when only the syntax was checked
+         */
+        public String getSiddhiAppName() {
+
+            return siddhiAppName;
+        }
+
+        /**
+         * @return Error that made the Siddhi app invalid, or null when it is valid
+         */
+        public Throwable getError() {
+
+            return error;
+        }
+
+        /**
+         * Get the definitions of the requested streams.
+         *
+         * @param streamNames Required stream names
+         * @return The stream definitions
+         */
+        public List<AbstractDefinition> getStreamDefinitions(List<String> streamNames) {
+
+            return getDefinitions(streamDefinitions, streamNames);
+        }
+
+        /**
+         * Get the definitions of the requested aggregations.
+         *
+         * @param aggregationNames Required aggregation names
+         * @return The aggregation definitions
+         */
+        public List<AbstractDefinition> getAggregationDefinitions(List<String> aggregationNames) {
+
+            return getDefinitions(aggregationDefinitions, aggregationNames);
+        }
+
+        private static List<AbstractDefinition> getDefinitions(Map<String, ? extends AbstractDefinition> definitionMap,
+                                                               List<String> names) {
+
+            List<AbstractDefinition> definitions = new ArrayList<>();
+            if (definitionMap == null) {
+                return definitions;
+            }
+            for (String name : names) {
+                AbstractDefinition definition = definitionMap.get(name);
+                if (definition != null) {
+                    definitions.add(definition);
+                }
+            }
+            return definitions;
+        }
+    }
+
+    private static class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private LruCache() {
+
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+
+            return size() > CACHE_SIZE;
+        }
+    }
+}
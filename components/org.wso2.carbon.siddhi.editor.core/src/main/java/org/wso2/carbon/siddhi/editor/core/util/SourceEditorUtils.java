@@ -207,14 +207,13 @@ public class SourceEditorUtils {
     }
 
     /**
-     * Returns the extension processor meta data.
-     * Gets the meta data from the siddhi manager
+     * Returns the meta data of the given extensions.
      *
+     * @param extensionsMap Extension names to classes map
      * @return Extension processor meta data
      */
-    public static Map<String, MetaData> getExtensionProcessorMetaData() {
+    public static Map<String, MetaData> getExtensionProcessorMetaData(Map<String, Class> extensionsMap) {
 
-        Map<String, Class> extensionsMap = EditorDataHolder.getSiddhiManager().getExtensions();
         return generateExtensionsMetaData(extensionsMap);
     }
 
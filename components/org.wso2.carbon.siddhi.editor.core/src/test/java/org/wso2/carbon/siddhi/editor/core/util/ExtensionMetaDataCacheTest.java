@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.editor.core.util;
+
+import com.google.gson.Gson;
+import io.siddhi.core.SiddhiManager;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.siddhi.editor.core.commons.metadata.MetaData;
+import org.wso2.carbon.siddhi.editor.core.internal.EditorDataHolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+public class ExtensionMetaDataCacheTest {
+
+    private Path cacheDirectory;
+    private SiddhiManager siddhiManager;
+
+    @BeforeClass
+    public void init() throws IOException {
+
+        Path carbonHome = Files.createTempDirectory("editor-carbon-home");
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", carbonHome.toString());
+        }
+        if (System.getProperty("wso2.runtime.path") == null) {
+            System.setProperty("wso2.runtime.path", carbonHome.resolve("wso2").resolve("server").toString());
+        }
+        siddhiManager = new SiddhiManager();
+        EditorDataHolder.setSiddhiManager(siddhiManager);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+
+        siddhiManager.shutdown();
+        EditorDataHolder.setSiddhiManager(null);
+    }
+
+    @BeforeMethod
+    public void resetCache() throws IOException {
+
+        cacheDirectory = Files.createTempDirectory("editor-metadata");
+        ExtensionMetaDataCache.setCacheDirectory(cacheDirectory);
+    }
+
+    @Test
+    public void testEntityTagIsContentDigest() {
+
+        ExtensionMetaDataCache.CachedMetaData metaData = ExtensionMetaDataCache.getMetaData();
+        Assert.assertEquals(metaData.getEntityTag(),
+                "\"" + ExtensionMetaDataCache.hash(Collections.singletonList(metaData.getJson())) + "\"");
+        Assert.assertSame(ExtensionMetaDataCache.getMetaData(), metaData);
+    }
+
+    @Test
+    public void testMetaDataLoadedFromDisk() {
+
+        ExtensionMetaDataCache.CachedMetaData metaData = ExtensionMetaDataCache.getMetaData();
+        Assert.assertEquals(countCacheFiles("extension-metadata-"), 1);
+
+        // Drops the meta data held in memory, so that it is read from the cache file
+        ExtensionMetaDataCache.setCacheDirectory(cacheDirectory);
+        ExtensionMetaDataCache.CachedMetaData loadedMetaData = ExtensionMetaDataCache.getMetaData();
+        Assert.assertNotSame(loadedMetaData, metaData);
+        Assert.assertEquals(loadedMetaData.getJson(), metaData.getJson());
+        Assert.assertEquals(loadedMetaData.getEntityTag(), metaData.getEntityTag());
+    }
+
+    @Test
+    public void testInBuiltMetaDataLoadedFromDisk() {
+
+        MetaData metaData = ExtensionMetaDataCache.getInBuiltMetaData();
+        Assert.assertSame(MetaDataHolder.getInBuiltProcessorMetaData(), metaData);
+        Assert.assertEquals(countCacheFiles("inbuilt-metadata-"), 1);
+
+        ExtensionMetaDataCache.setCacheDirectory(cacheDirectory);
+        MetaData loadedMetaData = ExtensionMetaDataCache.getInBuiltMetaData();
+        Assert.assertNotSame(loadedMetaData, metaData);
+        Assert.assertEquals(new Gson().toJson(loadedMetaData), new Gson().toJson(metaData));
+    }
+
+    @Test
+    public void testIfNoneMatch() {
+
+        String entityTag = "\"abc\"";
+        Assert.assertTrue(ExtensionMetaDataCache.matches("\"abc\"", entityTag));
+        Assert.assertTrue(ExtensionMetaDataCache.matches("W/\"abc\"", entityTag));
+        Assert.assertTrue(ExtensionMetaDataCache.matches("\"xyz\", W/\"abc\"", entityTag));
+        Assert.assertTrue(ExtensionMetaDataCache.matches("\"xyz\",\"abc\"", entityTag));
+        Assert.assertTrue(ExtensionMetaDataCache.matches("*", entityTag));
+        Assert.assertFalse(ExtensionMetaDataCache.matches(null, entityTag));
+        Assert.assertFalse(ExtensionMetaDataCache.matches("", entityTag));
+        Assert.assertFalse(ExtensionMetaDataCache.matches("\"xyz\", W/\"abcd\"", entityTag));
+        Assert.assertFalse(ExtensionMetaDataCache.matches("abc", entityTag));
+    }
+
+    private int countCacheFiles(String prefix) {
+
+        int count = 0;
+        File[] files = cacheDirectory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(prefix) && file.getName().endsWith(".json")) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
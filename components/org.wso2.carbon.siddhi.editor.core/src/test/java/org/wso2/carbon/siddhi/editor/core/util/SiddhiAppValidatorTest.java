@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.editor.core.util;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.siddhi.editor.core.internal.EditorDataHolder;
+import org.wso2.carbon.siddhi.editor.core.internal.EditorMicroservice;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import javax.ws.rs.core.Response;
+
+public class SiddhiAppValidatorTest {
+
+    private static final String SIDDHI_APP = "@App:name('SweetFactoryApp') " +
+            "@source(type='inMemory', topic='production', @map(type='passThrough')) " +
+            "define stream SweetProductionStream (name string, amount double); " +
+            "@sink(type='log') " +
+            "define stream TotalProductionStream (name string, total double); " +
+            "from SweetProductionStream select name, sum(amount) as total group by name " +
+            "insert into TotalProductionStream;";
+
+    private SiddhiManager siddhiManager;
+    private SiddhiManager validationSiddhiManager;
+
+    @BeforeClass
+    public void init() throws IOException {
+
+        Path carbonHome = Files.createTempDirectory("editor-carbon-home");
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", carbonHome.toString());
+        }
+        if (System.getProperty("wso2.runtime.path") == null) {
+            System.setProperty("wso2.runtime.path", carbonHome.resolve("wso2").resolve("server").toString());
+        }
+        siddhiManager = new SiddhiManager();
+        validationSiddhiManager = new SiddhiManager();
+        EditorDataHolder.setSiddhiManager(siddhiManager);
+        EditorDataHolder.setValidationSiddhiManager(validationSiddhiManager);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+
+        siddhiManager.shutdown();
+        validationSiddhiManager.shutdown();
+        EditorDataHolder.setSiddhiManager(null);
+        EditorDataHolder.setValidationSiddhiManager(null);
+    }
+
+    @Test
+    public void testSampleEventOfValidatedApp() {
+
+        EditorMicroservice editorMicroservice = new EditorMicroservice();
+        JsonObject validationRequest = new JsonObject();
+        validationRequest.addProperty("siddhiApp", SIDDHI_APP);
+        validationRequest.add("variables", new JsonObject());
+        Response validationResponse = editorMicroservice.validateSiddhiApp(validationRequest.toString());
+        Assert.assertEquals(new JsonParser().parse((String) validationResponse.getEntity()).getAsJsonObject()
+                .get("status").getAsString(), "SUCCESS", String.valueOf(validationResponse.getEntity()));
+
+        Response sampleEventResponse = editorMicroservice.getDefaultSampleStreamEvent("SweetFactoryApp",
+                "SweetProductionStream", Constants.TYPE_JSON);
+        Assert.assertEquals(sampleEventResponse.getStatus(), Response.Status.OK.getStatusCode(),
+                String.valueOf(sampleEventResponse.getEntity()));
+        String sampleEvent = (String) sampleEventResponse.getEntity();
+        Assert.assertTrue(sampleEvent.contains("name") && sampleEvent.contains("amount"), sampleEvent);
+
+        Response missingStreamResponse = editorMicroservice.getDefaultSampleStreamEvent("SweetFactoryApp",
+                "UnknownStream", Constants.TYPE_JSON);
+        Assert.assertEquals(missingStreamResponse.getStatus(),
+                Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+    }
+
+    @Test
+    public void testValidationKeepsEditorRuntime() {
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@App:name('RunningApp') " +
+                "define stream InputStream (name string); from InputStream select name insert into OutputStream;");
+        try {
+            SiddhiAppValidator.Result result = SiddhiAppValidator.validate("@App:name('RunningApp') " +
+                    "define stream InputStream (name string, amount int); " +
+                    "from InputStream select name, amount insert into OutputStream;");
+            Assert.assertNull(result.getError());
+            Assert.assertSame(siddhiManager.getSiddhiAppRuntime("RunningApp"), siddhiAppRuntime);
+            Assert.assertNull(validationSiddhiManager.getSiddhiAppRuntime("RunningApp"));
+            Assert.assertEquals(SiddhiAppValidator.getStreamDefinitionMap("RunningApp").get("InputStream")
+                    .getAttributeList().size(), 2);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void testResultsCached() {
+
+        SiddhiAppValidator.Result result = SiddhiAppValidator.validate(SIDDHI_APP);
+        Assert.assertNull(result.getError());
+        Assert.assertSame(SiddhiAppValidator.validate(SIDDHI_APP), result);
+        Assert.assertEquals(result.getStreamDefinitions(Collections.singletonList("TotalProductionStream")).size(),
+                1);
+
+        String invalidSiddhiApp = "@App:name('InvalidApp') define stream InputStream (name string) " +
+                "from InputStream select name insert into OutputStream;";
+        SiddhiAppValidator.Result invalidResult = SiddhiAppValidator.validate(invalidSiddhiApp);
+        Assert.assertNotNull(invalidResult.getError());
+        Assert.assertSame(SiddhiAppValidator.parse(invalidSiddhiApp), invalidResult);
+        Assert.assertNull(SiddhiAppValidator.getStreamDefinitionMap("InvalidApp"));
+    }
+
+    @Test
+    public void testInvalidTransportsRejected() {
+
+        SiddhiAppValidator.Result invalidSinkResult = SiddhiAppValidator.validate(
+                SIDDHI_APP.replace("@sink(type='log')", "@sink(type='lgo')"));
+        Assert.assertNotNull(invalidSinkResult.getError());
+        Assert.assertTrue(invalidSinkResult.getError().getMessage().contains("sink:lgo"),
+                invalidSinkResult.getError().getMessage());
+
+        SiddhiAppValidator.Result invalidMapperResult = SiddhiAppValidator.validate(
+                SIDDHI_APP.replace("@map(type='passThrough')", "@map(type='jsn')"));
+        Assert.assertNotNull(invalidMapperResult.getError());
+        Assert.assertTrue(invalidMapperResult.getError().getMessage().contains("sourceMapper:jsn"),
+                invalidMapperResult.getError().getMessage());
+
+        SiddhiAppValidator.Result missingOptionResult = SiddhiAppValidator.validate(
+                SIDDHI_APP.replace("topic='production', ", ""));
+        Assert.assertNotNull(missingOptionResult.getError());
+        Assert.assertTrue(missingOptionResult.getError().getMessage().contains("topic"),
+                missingOptionResult.getError().getMessage());
+    }
+}
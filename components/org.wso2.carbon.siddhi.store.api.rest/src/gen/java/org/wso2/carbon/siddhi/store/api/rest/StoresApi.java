@@ -29,6 +29,7 @@ import org.wso2.carbon.config.ConfigurationException;
 import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.siddhi.store.api.rest.factories.StoresApiServiceFactory;
 import org.wso2.carbon.siddhi.store.api.rest.model.ModelApiResponse;
+import org.wso2.carbon.siddhi.store.api.rest.model.PreparedQuery;
 import org.wso2.carbon.siddhi.store.api.rest.model.Query;
 import org.wso2.carbon.streaming.integrator.common.HAStateChangeListener;
 import org.wso2.carbon.streaming.integrator.common.SiddhiAppRuntimeService;
@@ -66,7 +67,7 @@ public class StoresApi implements HAStateChangeListener {
     @POST
     @Path("/query")
     @Consumes({"application/json"})
-    @Produces({"application/json"})
+    @Produces({"application/json", "application/x-ndjson"})
     @io.swagger.annotations.ApiOperation(value = "Submit a Siddhi query and get the result records from a store",
             notes = "", response = ModelApiResponse.class, tags = {"store",})
     @io.swagger.annotations.ApiResponses(value = {
@@ -82,6 +83,24 @@ public class StoresApi implements HAStateChangeListener {
         return delegate.query(body);
     }
 
+    @POST
+    @Path("/query/prepared")
+    @Consumes({"application/json"})
+    @Produces({"application/json", "application/x-ndjson"})
+    @io.swagger.annotations.ApiOperation(value = "Submit a parameterized Siddhi query and get the result records " +
+            "from a store", notes = "", response = ModelApiResponse.class, tags = {"store",})
+    @io.swagger.annotations.ApiResponses(value = {
+            @io.swagger.annotations.ApiResponse(code = 200, message = "OK, query was successfully submitted",
+                    response = ModelApiResponse.class),
+
+            @io.swagger.annotations.ApiResponse(code = 400, message = "Invalid parameters",
+                    response = ModelApiResponse.class)})
+    public Response preparedQuery(@ApiParam(value = "Query object which contains the parameterized query and " +
+            "its parameters", required = true) PreparedQuery body)
+            throws NotFoundException {
+        return delegate.preparedQuery(body);
+    }
+
     /**
      * This is the activation method of ServiceComponent. This will be called when its references are
      * satisfied.
@@ -19,6 +19,7 @@
 
 package org.wso2.carbon.siddhi.store.api.rest;
 
+import org.wso2.carbon.siddhi.store.api.rest.model.PreparedQuery;
 import org.wso2.carbon.siddhi.store.api.rest.model.Query;
 
 import javax.ws.rs.core.Response;
@@ -28,4 +29,7 @@ import javax.ws.rs.core.Response;
 public abstract class StoresApiService {
     public abstract Response query(Query body
     ) throws NotFoundException;
+
+    public abstract Response preparedQuery(PreparedQuery body
+    ) throws NotFoundException;
 }
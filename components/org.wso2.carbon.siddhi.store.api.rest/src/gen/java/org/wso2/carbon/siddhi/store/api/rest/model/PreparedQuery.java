@@ -0,0 +1,96 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class represents the bean class of the prepared query request body
+ */
+public class PreparedQuery extends Query {
+    @JsonProperty("parameters")
+    private Map<String, Object> parameters = new HashMap<>();
+
+    public PreparedQuery query(String appName, String query, Map<String, Object> parameters) {
+        query(appName, query);
+        this.parameters = parameters;
+        return this;
+    }
+
+    @Override
+    @ApiModelProperty(example = "from SweetProductionTable on name == ${name} select name, amount")
+    public String getQuery() {
+        return super.getQuery();
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, Object> parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PreparedQuery)) {
+            return false;
+        }
+        PreparedQuery preparedQuery = (PreparedQuery) o;
+        return super.equals(o) && Objects.equals(parameters, preparedQuery.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), parameters);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class PreparedQuery {\n");
+
+        sb.append("    appName: ").append(toIndentedString(getAppName())).append("\n");
+        sb.append("    query: ").append(toIndentedString(getQuery())).append("\n");
+        sb.append("    parameters: ").append(toIndentedString(parameters)).append("\n");
+        sb.append("}");
+        return sb.toString();
+    }
+
+    /**
+     * Convert the given object to string with each line indented by 4 spaces
+     * (except the first line).
+     */
+    private String toIndentedString(Object o) {
+        if (o == null) {
+            return "null";
+        }
+        return o.toString().replace("\n", "\n    ");
+    }
+}
@@ -34,6 +34,14 @@ public class Query {
     private String appName = null;
     @JsonProperty("details")
     private boolean details = false;
+    @JsonProperty("format")
+    private String format = null;
+    @JsonProperty("pageSize")
+    private int pageSize = 0;
+    @JsonProperty("pageKey")
+    private String pageKey = null;
+    @JsonProperty("cursor")
+    private String cursor = null;
 
     public Query query(String appName, String query) {
         this.query = query;
@@ -77,6 +85,44 @@ public class Query {
         this.details = details;
     }
 
+    @ApiModelProperty(value = "Format of the result, one of json, ndjson or columnar", example = "json")
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    @ApiModelProperty(value = "Maximum number of records of a page, the records are not paginated when 0",
+            example = "1000")
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @ApiModelProperty(value = "Numeric attribute selected by the query, which uniquely identifies a record and orders "
+            + "the pages", example = "id")
+    public String getPageKey() {
+        return pageKey;
+    }
+
+    public void setPageKey(String pageKey) {
+        this.pageKey = pageKey;
+    }
+
+    @ApiModelProperty(value = "Cursor of the page to fetch, as returned with the previous page")
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,130 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import io.siddhi.query.api.definition.Attribute;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset pagination of store queries. Each page is the query ordered by a key attribute, limited to the page size and
+ * filtered to the keys after the last key of the previous page, so a page is found through the order of the key
+ * instead of skipping the records of all the previous pages, and records added or removed while paging do not shift
+ * the following pages. The key must be a numeric attribute selected by the query, which is unique for each record.
+ */
+final class KeysetPagination {
+    private static final char CURSOR_SEPARATOR = ':';
+    private static final Pattern SELECT_PATTERN = Pattern.compile("\\bselect\\b", Pattern.CASE_INSENSITIVE);
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * @param attributes Output attributes of the query.
+     * @param pageKey    Name of the key attribute.
+     * @return Index of the key attribute in the output, or -1 if the query does not select it.
+     */
+    static int getKeyIndex(Attribute[] attributes, String pageKey) {
+        for (int i = 0; i < attributes.length; i++) {
+            if (attributes[i].getName().equals(pageKey)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isSupportedKeyType(Attribute.Type keyType) {
+        return keyType == Attribute.Type.INT || keyType == Attribute.Type.LONG || keyType == Attribute.Type.FLOAT ||
+                keyType == Attribute.Type.DOUBLE;
+    }
+
+    /**
+     * @param query    Find query without a having, order by, limit or offset clause.
+     * @param pageKey  Name of the key attribute, which is selected by the query.
+     * @param pageSize Number of records of the page.
+     * @param lastKey  Last key of the previous page, or null for the first page.
+     * @return Query of the page.
+     */
+    static String getPageQuery(String query, String pageKey, int pageSize, Object lastKey) {
+        StringBuilder pageQuery = new StringBuilder(query.trim());
+        if (pageQuery.charAt(pageQuery.length() - 1) == ';') {
+            pageQuery.setLength(pageQuery.length() - 1);
+        }
+        if (!SELECT_PATTERN.matcher(pageQuery).find()) {
+            // The having and order by clauses are only accepted after a select clause
+            pageQuery.append(" select *");
+        }
+        if (lastKey != null) {
+            pageQuery.append(" having ").append(pageKey).append(" > ")
+                    .append(QueryParameterBinder.toLiteral(pageKey, lastKey));
+        }
+        return pageQuery.append(" order by ").append(pageKey).append(" limit ").append(pageSize).toString();
+    }
+
+    /**
+     * Cursors hold the last key of the page together with a hash of the query and the key attribute, so that a
+     * cursor is not used to page through a different query.
+     */
+    static String encodeCursor(String query, String pageKey, Object lastKey) {
+        if (lastKey == null) {
+            throw new IllegalArgumentException("The page key '" + pageKey + "' of a record is null");
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((getQueryHash(query, pageKey) +
+                CURSOR_SEPARATOR + lastKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Last key of the previous page, or null if there is no cursor.
+     * @throws IllegalArgumentException if the cursor is not a cursor of the query.
+     */
+    static Object decodeCursor(String cursor, String query, String pageKey, Attribute.Type keyType) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separatorIndex = decoded.indexOf(CURSOR_SEPARATOR);
+        if (separatorIndex < 0 || !decoded.substring(0, separatorIndex).equals(getQueryHash(query, pageKey))) {
+            throw new IllegalArgumentException("the cursor does not belong to the query");
+        }
+        String lastKey = decoded.substring(separatorIndex + 1);
+        switch (keyType) {
+            case INT:
+                return Integer.parseInt(lastKey);
+            case LONG:
+                return Long.parseLong(lastKey);
+            case FLOAT:
+            case DOUBLE:
+                double value = Double.parseDouble(lastKey);
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw new IllegalArgumentException("the last key is not finite");
+                }
+                return keyType == Attribute.Type.FLOAT ? (Object) (float) value : (Object) value;
+            default:
+                throw new IllegalArgumentException("unsupported page key type " + keyType);
+        }
+    }
+
+    private static String getQueryHash(String query, String pageKey) {
+        return Integer.toHexString(Objects.hash(query, pageKey));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.execution.query.OnDemandQuery;
+import io.siddhi.query.api.execution.query.selection.Selector;
+import io.siddhi.query.compiler.SiddhiCompiler;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of parsed on-demand queries keyed by the Siddhi app name and the query text. Siddhi keeps the
+ * runtimes of recently executed on-demand query objects, so reusing the parsed query also skips compiling it again.
+ * An entry is only used with the Siddhi app runtime it was parsed for, so redeploying an app invalidates its entries.
+ */
+class OnDemandQueryCache {
+    private static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Map<Key, CompiledQuery> cache;
+
+    OnDemandQueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    OnDemandQueryCache(final int maxSize) {
+        this.cache = new LinkedHashMap<Key, CompiledQuery>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledQuery> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed form of the given query, parsing it only if it is not cached for the given runtime.
+     *
+     * @param appName          Name of the Siddhi app.
+     * @param siddhiAppRuntime Active runtime of the Siddhi app.
+     * @param query            On-demand query text.
+     * @return Compiled query.
+     */
+    CompiledQuery get(String appName, SiddhiAppRuntime siddhiAppRuntime, String query) {
+        Key key = new Key(appName, query);
+        CompiledQuery compiledQuery;
+        synchronized (cache) {
+            compiledQuery = cache.get(key);
+        }
+        if (compiledQuery != null && compiledQuery.siddhiAppRuntime.get() == siddhiAppRuntime) {
+            return compiledQuery;
+        }
+        compiledQuery = new CompiledQuery(siddhiAppRuntime, SiddhiCompiler.parseOnDemandQuery(query));
+        synchronized (cache) {
+            cache.put(key, compiledQuery);
+        }
+        return compiledQuery;
+    }
+
+    int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * On-demand query parsed for a Siddhi app runtime.
+     */
+    static class CompiledQuery {
+        private final WeakReference<SiddhiAppRuntime> siddhiAppRuntime;
+        private final OnDemandQuery onDemandQuery;
+        private volatile Attribute[] outputAttributes;
+
+        CompiledQuery(SiddhiAppRuntime siddhiAppRuntime, OnDemandQuery onDemandQuery) {
+            this.siddhiAppRuntime = new WeakReference<>(siddhiAppRuntime);
+            this.onDemandQuery = onDemandQuery;
+        }
+
+        Event[] execute(SiddhiAppRuntime siddhiAppRuntime) {
+            return siddhiAppRuntime.query(onDemandQuery);
+        }
+
+        /**
+         * @return Whether the query can be paginated, which requires a find query without a having, order by, limit or
+         * offset clause.
+         */
+        boolean isPageable() {
+            if (onDemandQuery.getType() != OnDemandQuery.OnDemandQueryType.FIND) {
+                return false;
+            }
+            Selector selector = onDemandQuery.getSelector();
+            return selector == null || (selector.getHavingExpression() == null &&
+                    selector.getOrderByList().isEmpty() && selector.getLimit() == null &&
+                    selector.getOffset() == null);
+        }
+
+        Attribute[] getOutputAttributes(SiddhiAppRuntime siddhiAppRuntime) {
+            if (outputAttributes == null) {
+                outputAttributes = siddhiAppRuntime.getOnDemandQueryOutputAttributes(onDemandQuery);
+            }
+            return outputAttributes;
+        }
+    }
+
+    private static class Key {
+        private final String appName;
+        private final String query;
+
+        Key(String appName, String query) {
+            this.appName = appName;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return appName.equals(key.appName) && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(appName, query);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Binds the parameters of a prepared query. Placeholders are written as ${name} in the query, and each one is
+ * replaced by the Siddhi literal of its parameter value, so that a value can never change the structure of the query.
+ */
+final class QueryParameterBinder {
+    private static final String PLACEHOLDER_START = "${";
+    private static final char PLACEHOLDER_END = '}';
+    private static final String TRIPLE_QUOTE = "\"\"\"";
+
+    private QueryParameterBinder() {
+    }
+
+    /**
+     * @param query      Query with placeholders.
+     * @param parameters Values of the placeholders.
+     * @return Query with the placeholders replaced by literals.
+     * @throws IllegalArgumentException if a placeholder has no value, or a value has no Siddhi literal.
+     */
+    static String bind(String query, Map<String, Object> parameters) {
+        StringBuilder boundQuery = new StringBuilder(query.length());
+        int position = 0;
+        int start;
+        while ((start = query.indexOf(PLACEHOLDER_START, position)) >= 0) {
+            int end = query.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder at position " + start);
+            }
+            String name = query.substring(start + PLACEHOLDER_START.length(), end).trim();
+            if (parameters == null || !parameters.containsKey(name)) {
+                throw new IllegalArgumentException("No value is given for the parameter '" + name + "'");
+            }
+            boundQuery.append(query, position, start).append(toLiteral(name, parameters.get(name)));
+            position = end + 1;
+        }
+        return boundQuery.append(query, position, query.length()).toString();
+    }
+
+    /**
+     * @param name  Name of the parameter, used in errors.
+     * @param value Value of the parameter.
+     * @return Siddhi literal of the value.
+     * @throws IllegalArgumentException if the value has no Siddhi literal.
+     */
+    static String toLiteral(String name, Object value) {
+        if (value instanceof String) {
+            return toStringLiteral(name, (String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte ||
+                value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            // Siddhi has no integer type wider than long
+            return value + "L";
+        } else if (value instanceof Float && isFinite((Float) value)) {
+            return toDecimal(new BigDecimal(value.toString())) + "f";
+        } else if (value instanceof Double && isFinite((Double) value)) {
+            return toDecimal(BigDecimal.valueOf((Double) value));
+        } else if (value instanceof BigDecimal && isFinite(((BigDecimal) value).doubleValue())) {
+            return toDecimal((BigDecimal) value);
+        }
+        throw new IllegalArgumentException("Unsupported value for the parameter '" + name + "': " + value);
+    }
+
+    private static String toStringLiteral(String name, String value) {
+        // Siddhi string literals have no escapes, a value that cannot be double quoted is triple quoted.
+        boolean plain = value.indexOf('"') < 0;
+        for (int i = 0; plain && i < value.length(); i++) {
+            plain = value.charAt(i) >= ' ';
+        }
+        if (plain) {
+            return '"' + value + '"';
+        }
+        if (!value.contains(TRIPLE_QUOTE) && !value.endsWith("\"")) {
+            return TRIPLE_QUOTE + value + TRIPLE_QUOTE;
+        }
+        throw new IllegalArgumentException("The value of the parameter '" + name + "' cannot be quoted");
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    private static String toDecimal(BigDecimal value) {
+        String decimal = value.toPlainString();
+        return decimal.indexOf('.') < 0 ? decimal + ".0" : decimal;
+    }
+}
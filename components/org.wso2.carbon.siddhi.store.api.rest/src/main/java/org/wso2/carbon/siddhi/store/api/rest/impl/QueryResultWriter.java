@@ -0,0 +1,162 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes the records of a store query to the response stream one at a time, instead of building the whole response
+ * in memory. Each event is released once it is written.
+ * <p>
+ * The json format keeps the shape of the query API response, ndjson writes each record as a JSON array on its own
+ * line, and columnar writes the values of each attribute as one array.
+ */
+class QueryResultWriter implements StreamingOutput {
+    static final String FORMAT_JSON = "json";
+    static final String FORMAT_NDJSON = "ndjson";
+    static final String FORMAT_COLUMNAR = "columnar";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final Event[] events;
+    private final Attribute[] attributes;
+    private final String format;
+    private final String nextCursor;
+
+    /**
+     * @param events     Result events, may be null.
+     * @param attributes Output attributes, written as the details of the json format when not null and required by
+     *                   the columnar format.
+     * @param format     One of the supported formats.
+     * @param nextCursor Cursor of the next page, or null.
+     */
+    QueryResultWriter(Event[] events, Attribute[] attributes, String format, String nextCursor) {
+        this.events = events == null ? new Event[0] : events;
+        this.attributes = attributes;
+        this.format = format;
+        this.nextCursor = nextCursor;
+    }
+
+    static boolean isSupportedFormat(String format) {
+        return FORMAT_JSON.equals(format) || FORMAT_NDJSON.equals(format) || FORMAT_COLUMNAR.equals(format);
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        switch (format) {
+            case FORMAT_NDJSON:
+                writeLines(generator);
+                break;
+            case FORMAT_COLUMNAR:
+                writeColumns(generator);
+                break;
+            default:
+                writeRecords(generator);
+        }
+        generator.close();
+    }
+
+    private void writeRecords(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("records");
+        for (int i = 0; i < events.length; i++) {
+            writeRecord(generator, events[i].getData());
+            events[i] = null;
+            flushPeriodically(generator, i);
+        }
+        generator.writeEndArray();
+        if (attributes != null) {
+            generator.writeArrayFieldStart("details");
+            for (Attribute attribute : attributes) {
+                generator.writeStartObject();
+                generator.writeStringField("name", attribute.getName());
+                generator.writeStringField("dataType", attribute.getType().toString());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        writeNextCursor(generator);
+        generator.writeEndObject();
+    }
+
+    private void writeLines(JsonGenerator generator) throws IOException {
+        for (int i = 0; i < events.length; i++) {
+            writeRecord(generator, events[i].getData());
+            generator.writeRaw('\n');
+            events[i] = null;
+            flushPeriodically(generator, i);
+        }
+    }
+
+    private void writeColumns(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("columns");
+        for (Attribute attribute : attributes) {
+            generator.writeString(attribute.getName());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("types");
+        for (Attribute attribute : attributes) {
+            generator.writeString(attribute.getType().toString());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("data");
+        for (int column = 0; column < attributes.length; column++) {
+            generator.writeStartArray();
+            for (Event event : events) {
+                generator.writeObject(event.getData(column));
+            }
+            generator.writeEndArray();
+            generator.flush();
+        }
+        generator.writeEndArray();
+        writeNextCursor(generator);
+        generator.writeEndObject();
+    }
+
+    private void writeRecord(JsonGenerator generator, Object[] data) throws IOException {
+        generator.writeStartArray();
+        for (Object value : data) {
+            generator.writeObject(value);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeNextCursor(JsonGenerator generator) throws IOException {
+        if (nextCursor != null) {
+            generator.writeStringField("nextCursor", nextCursor);
+        }
+    }
+
+    private void flushPeriodically(JsonGenerator generator, int index) throws IOException {
+        if ((index + 1) % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+    }
+}
@@ -25,19 +25,16 @@ import org.wso2.carbon.siddhi.store.api.rest.NotFoundException;
 import org.wso2.carbon.siddhi.store.api.rest.ApiResponseMessage;
 import org.wso2.carbon.siddhi.store.api.rest.SiddhiStoreDataHolder;
 import org.wso2.carbon.siddhi.store.api.rest.StoresApiService;
-import org.wso2.carbon.siddhi.store.api.rest.model.ModelApiResponse;
+import org.wso2.carbon.siddhi.store.api.rest.model.PreparedQuery;
 import org.wso2.carbon.siddhi.store.api.rest.model.Query;
-import org.wso2.carbon.siddhi.store.api.rest.model.Record;
-import org.wso2.carbon.siddhi.store.api.rest.model.RecordDetail;
 import org.wso2.carbon.streaming.integrator.common.SiddhiAppRuntimeService;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.event.Event;
 import io.siddhi.query.api.definition.Attribute;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @javax.annotation.Generated(value = "io.swagger.codegen.languages.JavaMSF4JServerCodegen",
@@ -45,6 +42,10 @@ import java.util.Map;
 public class StoresApiServiceImpl extends StoresApiService {
 
     private static final Logger log = LoggerFactory.getLogger(StoresApiServiceImpl.class);
+    private static final String NEXT_CURSOR_HEADER = "Next-Cursor";
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private final OnDemandQueryCache queryCache = new OnDemandQueryCache();
+
     @Override
     public Response query(Query body) throws NotFoundException {
         if (body.getQuery() == null || body.getQuery().isEmpty()) {
@@ -55,28 +56,101 @@ public class StoresApiServiceImpl extends StoresApiService {
             return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
                     .ERROR, "Siddhi app name cannot be empty or null")).build();
         }
+        return executeQuery(body, body.getQuery());
+    }
+
+    @Override
+    public Response preparedQuery(PreparedQuery body) throws NotFoundException {
+        if (body.getQuery() == null || body.getQuery().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
+                    .ERROR, "Query cannot be empty or null")).build();
+        }
+        if (body.getAppName() == null || body.getAppName().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
+                    .ERROR, "Siddhi app name cannot be empty or null")).build();
+        }
+        String query;
+        try {
+            query = QueryParameterBinder.bind(body.getQuery(), body.getParameters());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
+                    .ERROR, e.getMessage())).build();
+        }
+        return executeQuery(body, query);
+    }
 
+    private Response executeQuery(Query body, String query) {
+        String appName = body.getAppName();
+        String format = body.getFormat() == null ? QueryResultWriter.FORMAT_JSON :
+                body.getFormat().toLowerCase(Locale.ENGLISH);
+        if (!QueryResultWriter.isSupportedFormat(format)) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
+                    .ERROR, "Unsupported result format: " + body.getFormat())).build();
+        }
+        if (body.getPageSize() < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
+                    .ERROR, "Page size cannot be negative")).build();
+        }
+        if (body.getPageSize() > 0 && (body.getPageKey() == null || body.getPageKey().isEmpty())) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(ApiResponseMessage
+                    .ERROR, "Page key cannot be empty or null when the page size is set")).build();
+        }
         SiddhiAppRuntimeService siddhiAppRuntimeService =
                 SiddhiStoreDataHolder.getInstance().getSiddhiAppRuntimeService();
         Map<String, SiddhiAppRuntime> siddhiAppRuntimes = siddhiAppRuntimeService.getActiveSiddhiAppRuntimes();
-        SiddhiAppRuntime siddhiAppRuntime = siddhiAppRuntimes.get(body.getAppName());
+        SiddhiAppRuntime siddhiAppRuntime = siddhiAppRuntimes.get(appName);
         if (siddhiAppRuntime == null) {
             return Response.status(Response.Status.NOT_FOUND).entity(new ApiResponseMessage(ApiResponseMessage
-                    .ERROR, "Cannot find an active SiddhiApp with name: " + body.getAppName())).build();
+                    .ERROR, "Cannot find an active SiddhiApp with name: " + appName)).build();
         } else {
             try {
-                Event[] events = siddhiAppRuntime.query(body.getQuery());
-                List<Record> records = getRecords(events);
-                ModelApiResponse response = new ModelApiResponse();
-                response.setRecords(records);
-                if (body.isDetails()) {
-                    Attribute[] attributes = siddhiAppRuntime.getStoreQueryOutputAttributes(body.getQuery());
-                    response.setDetails(getRecordDetails(attributes));
+                OnDemandQueryCache.CompiledQuery compiledQuery = queryCache.get(appName, siddhiAppRuntime, query);
+                int pageSize = body.getPageSize();
+                Event[] events;
+                String nextCursor = null;
+                if (pageSize > 0) {
+                    if (!compiledQuery.isPageable()) {
+                        return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(
+                                ApiResponseMessage.ERROR, "Only find queries without a having, order by, limit or " +
+                                "offset clause can be paginated")).build();
+                    }
+                    String pageKey = body.getPageKey();
+                    Attribute[] outputAttributes = compiledQuery.getOutputAttributes(siddhiAppRuntime);
+                    int keyIndex = KeysetPagination.getKeyIndex(outputAttributes, pageKey);
+                    if (keyIndex < 0 || !KeysetPagination.isSupportedKeyType(outputAttributes[keyIndex].getType())) {
+                        return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(
+                                ApiResponseMessage.ERROR, "Page key must be a numeric attribute selected by the " +
+                                "query: " + pageKey)).build();
+                    }
+                    Object lastKey;
+                    try {
+                        lastKey = KeysetPagination.decodeCursor(body.getCursor(), query, pageKey,
+                                outputAttributes[keyIndex].getType());
+                    } catch (IllegalArgumentException e) {
+                        return Response.status(Response.Status.BAD_REQUEST).entity(new ApiResponseMessage(
+                                ApiResponseMessage.ERROR, "Invalid cursor: " + e.getMessage())).build();
+                    }
+                    // Page queries differ by the last key, hence they are not cached
+                    events = siddhiAppRuntime.query(KeysetPagination.getPageQuery(query, pageKey, pageSize,
+                            lastKey));
+                    if (events != null && events.length == pageSize) {
+                        nextCursor = KeysetPagination.encodeCursor(query, pageKey,
+                                events[events.length - 1].getData(keyIndex));
+                    }
+                } else {
+                    events = compiledQuery.execute(siddhiAppRuntime);
+                }
+                Attribute[] attributes = null;
+                if (body.isDetails() || QueryResultWriter.FORMAT_COLUMNAR.equals(format)) {
+                    attributes = compiledQuery.getOutputAttributes(siddhiAppRuntime);
                 }
-                return Response.ok().entity(response).build();
+                return Response.ok(new QueryResultWriter(events, attributes, format, nextCursor),
+                        QueryResultWriter.FORMAT_NDJSON.equals(format) ? NDJSON_MEDIA_TYPE :
+                                MediaType.APPLICATION_JSON)
+                        .header(NEXT_CURSOR_HEADER, nextCursor).build();
             } catch (Exception e) {
-                log.error("Error while querying for siddhiApp: " + removeCRLFCharacters(body.getAppName()) +
-                        ", with query: " + removeCRLFCharacters(body.getQuery()) + " Error: " +
+                log.error("Error while querying for siddhiApp: " + removeCRLFCharacters(appName) +
+                        ", with query: " + removeCRLFCharacters(query) + " Error: " +
                         removeCRLFCharacters(e.getMessage()), e);
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity(new ApiResponseMessage(ApiResponseMessage.ERROR,
@@ -85,34 +159,6 @@ public class StoresApiServiceImpl extends StoresApiService {
         }
     }
 
-    /**
-     * Get record details.
-     *
-     * @param attributes Set of attributes
-     * @return List of record details
-     */
-    private List<RecordDetail> getRecordDetails(Attribute[] attributes) {
-        List<RecordDetail> details = new ArrayList<>();
-        for (Attribute attribute : attributes) {
-            details.add(new RecordDetail()
-                    .name(attribute.getName())
-                    .dataType(attribute.getType().toString()));
-        }
-        return details;
-    }
-
-    private List<Record> getRecords(Event[] events) {
-        List<Record> records = new ArrayList<>();
-        if (events != null) {
-            for (Event event : events) {
-                Record record = new Record();
-                record.addAll(Arrays.asList(event.getData()));
-                records.add(record);
-            }
-        }
-        return records;
-    }
-
     private static String removeCRLFCharacters(String str) {
         if (str != null) {
             str = str.replace('\n', '_').replace('\r', '_');
@@ -0,0 +1,158 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class KeysetPaginationTest {
+    private static final String QUERY = "from SweetProductionTable on amount > 0 select id, name, amount";
+    private static final String PAGE_KEY = "id";
+
+    private SiddhiManager siddhiManager;
+    private SiddhiAppRuntime siddhiAppRuntime;
+    private InputHandler inputHandler;
+
+    @BeforeMethod
+    public void init() {
+        siddhiManager = new SiddhiManager();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@App:name('SweetFactoryApp') " +
+                "define stream SweetProductionStream (id long, name string, amount double); " +
+                "define table SweetProductionTable (id long, name string, amount double); " +
+                "from SweetProductionStream insert into SweetProductionTable;");
+        siddhiAppRuntime.start();
+        inputHandler = siddhiAppRuntime.getInputHandler("SweetProductionStream");
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        siddhiManager.shutdown();
+    }
+
+    @Test
+    public void testPageQuery() {
+        Assert.assertEquals(KeysetPagination.getPageQuery(QUERY + ";", PAGE_KEY, 10, null),
+                QUERY + " order by id limit 10");
+        Assert.assertEquals(KeysetPagination.getPageQuery(QUERY, PAGE_KEY, 10, 25L),
+                QUERY + " having id > 25L order by id limit 10");
+        Assert.assertEquals(KeysetPagination.getPageQuery("from SweetProductionTable", PAGE_KEY, 10, 25L),
+                "from SweetProductionTable select * having id > 25L order by id limit 10");
+    }
+
+    @Test
+    public void testRecordsPaginated() throws InterruptedException {
+        for (long id = 10; id > 0; id--) {
+            inputHandler.send(new Object[]{id, "Sweet" + id, 10.0});
+        }
+        inputHandler.send(new Object[]{11L, "Sweet11", 0.0});
+
+        Assert.assertEquals(fetchAll(3), Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+        Assert.assertEquals(fetchAll(5), Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+    }
+
+    @Test
+    public void testPagesNotShiftedByInsertedRecords() throws InterruptedException {
+        for (long id = 10; id <= 100; id += 10) {
+            inputHandler.send(new Object[]{id, "Sweet" + id, 10.0});
+        }
+        List<Long> ids = new ArrayList<>();
+        String cursor = fetchPage(4, null, ids);
+        Assert.assertEquals(ids, Arrays.asList(10L, 20L, 30L, 40L));
+
+        // Records inserted before the cursor are neither returned again nor shift the next page
+        inputHandler.send(new Object[]{5L, "Sweet5", 10.0});
+        inputHandler.send(new Object[]{15L, "Sweet15", 10.0});
+        inputHandler.send(new Object[]{45L, "Sweet45", 10.0});
+        ids.clear();
+        fetchPage(4, cursor, ids);
+        Assert.assertEquals(ids, Arrays.asList(45L, 50L, 60L, 70L));
+    }
+
+    @Test
+    public void testCursor() {
+        String cursor = KeysetPagination.encodeCursor(QUERY, PAGE_KEY, 25L);
+        Assert.assertEquals(KeysetPagination.decodeCursor(cursor, QUERY, PAGE_KEY, Attribute.Type.LONG), 25L);
+        Assert.assertEquals(KeysetPagination.decodeCursor(KeysetPagination.encodeCursor(QUERY, PAGE_KEY, 2.5f),
+                QUERY, PAGE_KEY, Attribute.Type.FLOAT), 2.5f);
+        Assert.assertNull(KeysetPagination.decodeCursor(null, QUERY, PAGE_KEY, Attribute.Type.LONG));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCursorOfOtherQuery() {
+        String cursor = KeysetPagination.encodeCursor(QUERY, PAGE_KEY, 25L);
+        KeysetPagination.decodeCursor(cursor, "from SweetProductionTable select id", PAGE_KEY, Attribute.Type.LONG);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCursorOfOtherPageKey() {
+        String cursor = KeysetPagination.encodeCursor(QUERY, PAGE_KEY, 25L);
+        KeysetPagination.decodeCursor(cursor, QUERY, "amount", Attribute.Type.DOUBLE);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTamperedCursor() {
+        String cursor = KeysetPagination.encodeCursor(QUERY, PAGE_KEY, "25L or true");
+        KeysetPagination.decodeCursor(cursor, QUERY, PAGE_KEY, Attribute.Type.LONG);
+    }
+
+    @Test
+    public void testKeyIndex() {
+        Attribute[] attributes = siddhiAppRuntime.getOnDemandQueryOutputAttributes(QUERY);
+        Assert.assertEquals(KeysetPagination.getKeyIndex(attributes, PAGE_KEY), 0);
+        Assert.assertEquals(KeysetPagination.getKeyIndex(attributes, "price"), -1);
+        Assert.assertTrue(KeysetPagination.isSupportedKeyType(attributes[0].getType()));
+        Assert.assertFalse(KeysetPagination.isSupportedKeyType(attributes[1].getType()));
+    }
+
+    private List<Long> fetchAll(int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            cursor = fetchPage(pageSize, cursor, ids);
+            pages++;
+        } while (cursor != null && pages < 100);
+        return ids;
+    }
+
+    private String fetchPage(int pageSize, String cursor, List<Long> ids) {
+        Object lastKey = KeysetPagination.decodeCursor(cursor, QUERY, PAGE_KEY, Attribute.Type.LONG);
+        Event[] events = siddhiAppRuntime.query(KeysetPagination.getPageQuery(QUERY, PAGE_KEY, pageSize, lastKey));
+        if (events == null) {
+            return null;
+        }
+        for (Event event : events) {
+            ids.add((Long) event.getData(0));
+        }
+        return events.length == pageSize ?
+                KeysetPagination.encodeCursor(QUERY, PAGE_KEY, events[events.length - 1].getData(0)) : null;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *   Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import io.siddhi.query.compiler.SiddhiCompiler;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class QueryParameterBinderTest {
+    private static final String QUERY = "from SweetProductionTable on name == ${name} select name, amount";
+
+    @DataProvider(name = "literals")
+    public Object[][] literals() {
+        return new Object[][]{
+                {"Cake", "\"Cake\""},
+                {"", "\"\""},
+                {"Toffee's", "\"Toffee's\""},
+                {"Toffee \"Deluxe\" Bar", "\"\"\"Toffee \"Deluxe\" Bar\"\"\""},
+                {"Toffee\nBar", "\"\"\"Toffee\nBar\"\"\""},
+                {10, "10"},
+                {(short) 10, "10"},
+                {(byte) 10, "10"},
+                {-10, "-10"},
+                {true, "true"},
+                {10L, "10L"},
+                {BigInteger.valueOf(Long.MAX_VALUE), Long.MAX_VALUE + "L"},
+                {BigInteger.valueOf(-5), "-5L"},
+                {1.5f, "1.5f"},
+                {2f, "2.0f"},
+                {1.5, "1.5"},
+                {1e20, "100000000000000000000.0"},
+                {new BigDecimal("12.25"), "12.25"},
+                {new BigDecimal("12"), "12.0"}
+        };
+    }
+
+    @Test(dataProvider = "literals")
+    public void testLiterals(Object value, String literal) {
+        String boundQuery = QueryParameterBinder.bind(QUERY, Collections.singletonMap("name", value));
+        Assert.assertEquals(boundQuery, "from SweetProductionTable on name == " + literal + " select name, amount");
+        SiddhiCompiler.parseOnDemandQuery(boundQuery);
+    }
+
+    @Test
+    public void testQuotedValueKeepsQueryStructure() {
+        String value = "Cake\" or amount > 0 or name == \"";
+        String boundQuery = QueryParameterBinder.bind(QUERY, Collections.singletonMap("name", value));
+        Assert.assertEquals(boundQuery, "from SweetProductionTable on name == \"\"\"" + value + "\"\"\" " +
+                "select name, amount");
+        Assert.assertEquals(SiddhiCompiler.parseOnDemandQuery(boundQuery),
+                SiddhiCompiler.parseOnDemandQuery("from SweetProductionTable on name == '" + value + "' " +
+                        "select name, amount"));
+    }
+
+    @Test
+    public void testMultiplePlaceholders() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("name", "Cake");
+        parameters.put("amount", 100.5);
+        Assert.assertEquals(QueryParameterBinder.bind("from SweetProductionTable on name == ${name} and " +
+                        "amount > ${ amount } or name == ${name} select name", parameters),
+                "from SweetProductionTable on name == \"Cake\" and amount > 100.5 or name == \"Cake\" select name");
+    }
+
+    @Test
+    public void testQueryWithoutPlaceholders() {
+        Assert.assertEquals(QueryParameterBinder.bind("from SweetProductionTable select name", null),
+                "from SweetProductionTable select name");
+    }
+
+    @DataProvider(name = "invalidValues")
+    public Object[][] invalidValues() {
+        return new Object[][]{
+                {null},
+                {new Object()},
+                {Collections.singletonList("Cake")},
+                {Double.NaN},
+                {Double.POSITIVE_INFINITY},
+                {Float.NEGATIVE_INFINITY},
+                {BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)},
+                {BigInteger.valueOf(Long.MIN_VALUE).subtract(BigInteger.ONE)},
+                {new BigDecimal("1e400")},
+                {"Toffee \"\"\" Bar"},
+                {"Toffee\n\"Bar\""}
+        };
+    }
+
+    @Test(dataProvider = "invalidValues", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidValues(Object value) {
+        QueryParameterBinder.bind(QUERY, Collections.singletonMap("name", value));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMissingParameter() {
+        QueryParameterBinder.bind(QUERY, Collections.singletonMap("amount", 10));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMissingParameters() {
+        QueryParameterBinder.bind(QUERY, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnterminatedPlaceholder() {
+        QueryParameterBinder.bind("from SweetProductionTable on name == ${name select name",
+                Collections.singletonMap("name", "Cake"));
+    }
+}
@@ -35,4 +35,18 @@ public interface EventStreamService {
             ResourceNotFoundException;
 
     public void pushEvent(String siddhiAppName, String streamName, Event event);
+
+    /**
+     * Pushes a batch of events to a stream in one call. Implementations resolve the input handler of the stream
+     * once for the batch, and send the events to it together.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @param streamName    name of the stream
+     * @param events        events in the order they are to be received
+     */
+    public default void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+        for (Event event : events) {
+            pushEvent(siddhiAppName, streamName, event);
+        }
+    }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
 import io.siddhi.core.util.statistics.metrics.Level;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -25,6 +26,9 @@ public class SiddhiAppMetrics {
 
   private Level siddhiStatEnabledLevel = Level.OFF;
 
+  @JsonProperty("throughput")
+  private List<ThroughputStatistics> throughput = null;
+
   public SiddhiAppMetrics appName(String appName) {
     this.appName = appName;
     return this;
@@ -102,6 +106,24 @@ public class SiddhiAppMetrics {
     this.isStatEnabled = isStatEnabled.toString();
   }
 
+  public SiddhiAppMetrics throughput(List<ThroughputStatistics> throughput) {
+    this.throughput = throughput;
+    return this;
+  }
+
+   /**
+   * Throughput of the streams, queries and sinks of the siddhi app
+   * @return throughput
+  **/
+  @ApiModelProperty(value = "Throughput of the streams, queries and sinks of the siddhi app")
+  public List<ThroughputStatistics> getThroughput() {
+    return throughput;
+  }
+
+  public void setThroughput(List<ThroughputStatistics> throughput) {
+    this.throughput = throughput;
+  }
+
 
   @Override
   public boolean equals(Object o) {
@@ -115,12 +137,13 @@ public class SiddhiAppMetrics {
     return Objects.equals(this.appName, siddhiAppMetrics.appName) &&
         Objects.equals(this.status, siddhiAppMetrics.status) &&
         Objects.equals(this.age, siddhiAppMetrics.age) &&
-        Objects.equals(this.isStatEnabled, siddhiAppMetrics.isStatEnabled);
+        Objects.equals(this.isStatEnabled, siddhiAppMetrics.isStatEnabled) &&
+        Objects.equals(this.throughput, siddhiAppMetrics.throughput);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(appName, status, age, isStatEnabled);
+    return Objects.hash(appName, status, age, isStatEnabled, throughput);
   }
 
   @Override
@@ -132,6 +155,7 @@ public class SiddhiAppMetrics {
     sb.append("    status: ").append(toIndentedString(status)).append("\n");
     sb.append("    age: ").append(toIndentedString(age)).append("\n");
     sb.append("    enabledSiddhiStatLevel: ").append(toIndentedString(isStatEnabled.toString())).append("\n");
+    sb.append("    throughput: ").append(toIndentedString(throughput)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -0,0 +1,181 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.streaming.integrator.core.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.Objects;
+
+/**
+ * ThroughputStatistics
+ */
+public class ThroughputStatistics {
+  @JsonProperty("name")
+  private String name = null;
+
+  @JsonProperty("total")
+  private long total = 0;
+
+  @JsonProperty("rate1s")
+  private double rate1s = 0;
+
+  @JsonProperty("rate10s")
+  private double rate10s = 0;
+
+  @JsonProperty("rate60s")
+  private double rate60s = 0;
+
+  public ThroughputStatistics name(String name) {
+    this.name = name;
+    return this;
+  }
+
+   /**
+   * Name of the throughput metric
+   * @return name
+  **/
+  @ApiModelProperty(value = "Name of the throughput metric")
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public ThroughputStatistics total(long total) {
+    this.total = total;
+    return this;
+  }
+
+   /**
+   * Total number of events
+   * @return total
+  **/
+  @ApiModelProperty(value = "Total number of events")
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public ThroughputStatistics rate1s(double rate1s) {
+    this.rate1s = rate1s;
+    return this;
+  }
+
+   /**
+   * Events per second within the last second
+   * @return rate1s
+  **/
+  @ApiModelProperty(value = "Events per second within the last second")
+  public double getRate1s() {
+    return rate1s;
+  }
+
+  public void setRate1s(double rate1s) {
+    this.rate1s = rate1s;
+  }
+
+  public ThroughputStatistics rate10s(double rate10s) {
+    this.rate10s = rate10s;
+    return this;
+  }
+
+   /**
+   * Events per second within the last 10 seconds
+   * @return rate10s
+  **/
+  @ApiModelProperty(value = "Events per second within the last 10 seconds")
+  public double getRate10s() {
+    return rate10s;
+  }
+
+  public void setRate10s(double rate10s) {
+    this.rate10s = rate10s;
+  }
+
+  public ThroughputStatistics rate60s(double rate60s) {
+    this.rate60s = rate60s;
+    return this;
+  }
+
+   /**
+   * Events per second within the last 60 seconds
+   * @return rate60s
+  **/
+  @ApiModelProperty(value = "Events per second within the last 60 seconds")
+  public double getRate60s() {
+    return rate60s;
+  }
+
+  public void setRate60s(double rate60s) {
+    this.rate60s = rate60s;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ThroughputStatistics throughputStatistics = (ThroughputStatistics) o;
+    return Objects.equals(this.name, throughputStatistics.name) &&
+        Objects.equals(this.total, throughputStatistics.total) &&
+        Objects.equals(this.rate1s, throughputStatistics.rate1s) &&
+        Objects.equals(this.rate10s, throughputStatistics.rate10s) &&
+        Objects.equals(this.rate60s, throughputStatistics.rate60s);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, total, rate1s, rate10s, rate60s);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class ThroughputStatistics {\n");
+    
+    sb.append("    name: ").append(toIndentedString(name)).append("\n");
+    sb.append("    total: ").append(toIndentedString(total)).append("\n");
+    sb.append("    rate1s: ").append(toIndentedString(rate1s)).append("\n");
+    sb.append("    rate10s: ").append(toIndentedString(rate10s)).append("\n");
+    sb.append("    rate60s: ").append(toIndentedString(rate60s)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.streaming.integrator.core.event.queue;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.si.metrics.core.ThroughputMetric;
 import org.wso2.carbon.streaming.integrator.core.ha.HACoordinationSourceHandler;
@@ -26,31 +27,51 @@ import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.SiddhiAppData;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
 import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 import io.siddhi.core.event.Event;
 import io.siddhi.core.stream.input.source.Source;
+import io.siddhi.core.stream.input.source.SourceHandler;
 import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.query.api.definition.Attribute;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps the events synced from the active node in a per Siddhi app {@link EventReplayLog}, trims them as the active
+ * node persists the apps and replays the remaining events when this node becomes active.
+ */
 public class EventListMapManager {
-    private static ConcurrentSkipListMap<Long,QueuedEvent> eventListMap;
-    private static Map<String,Long> perAppLastControlMessageSequenceNumberList = new HashMap<>();
+    private static final int DEFAULT_REPLAY_SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static ConcurrentMap<String, EventReplayLog> eventReplayLogMap = new ConcurrentHashMap<>();
+    private static int replaySegmentSize = DEFAULT_REPLAY_SEGMENT_SIZE;
     private static final Logger log = Logger.getLogger(EventListMapManager.class);
     private static long startTime = new Date().getTime();;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_THRESHOLD = 100000;
+    private static final int REPLAY_METRICS_BATCH_SIZE = 1000;
+    private static final long REPLAY_PROGRESS_LOG_INTERVAL_MILLIS = 5000;
     private ThroughputMetric throughputTracker = null;
+    private ThroughputMetric replayThroughputTracker = null;
+    private final AtomicLong replayedEventCount = new AtomicLong();
 
     public EventListMapManager() {
         if (throughputTracker == null) {
@@ -61,10 +82,31 @@ public class EventListMapManager {
                                             SiddhiAppProcessorConstants.HA_METRICS_RECEIVING_THROUGHPUT,
                                     StreamProcessorDataHolder.getStatisticsManager());
         }
+        if (replayThroughputTracker == null) {
+            replayThroughputTracker =
+                    (ThroughputMetric) StreamProcessorDataHolder.getStatisticsConfiguration().getFactory().
+                            createThroughputTracker(SiddhiAppProcessorConstants.HA_METRICS_PREFIX +
+                                            SiddhiConstants.METRIC_DELIMITER +
+                                            SiddhiAppProcessorConstants.HA_METRICS_REPLAY_THROUGHPUT,
+                                    StreamProcessorDataHolder.getStatisticsManager());
+        }
     }
 
     public static void initializeEventListMap() {
-        eventListMap = new ConcurrentSkipListMap<Long, QueuedEvent>();
+        DeploymentConfig deploymentConfig = StreamProcessorDataHolder.getDeploymentConfig();
+        if (deploymentConfig != null) {
+            replaySegmentSize = deploymentConfig.getEventReplaySegmentSize();
+        }
+        ConcurrentMap<String, EventReplayLog> previousEventReplayLogMap = eventReplayLogMap;
+        eventReplayLogMap = new ConcurrentHashMap<>();
+        for (EventReplayLog eventReplayLog : previousEventReplayLogMap.values()) {
+            eventReplayLog.close();
+        }
+    }
+
+    private static EventReplayLog getEventReplayLog(String siddhiAppName) {
+        return eventReplayLogMap.computeIfAbsent(siddhiAppName,
+                appName -> new EventReplayLog(appName, replaySegmentSize));
     }
 
     public void parseControlMessage(byte[] controlMessageContentByteArray) throws UnsupportedEncodingException {
@@ -88,7 +130,6 @@ public class EventListMapManager {
             if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
                 throughputTracker.eventsIn(noOfEvents);
             }
-            QueuedEvent queuedEvent;
             Event[] events = new Event[noOfEvents];
             for (int i = 0; i < noOfEvents; i++) {
                 String sourceHandlerElementId;
@@ -124,31 +165,24 @@ public class EventListMapManager {
                         }
                     }
                 }
-                long lastSequenceIdForApp = -1;
-
-                if (perAppLastControlMessageSequenceNumberList.size() != 0) {
-                    if (perAppLastControlMessageSequenceNumberList.get(siddhiAppName) != null) {
-                        lastSequenceIdForApp = perAppLastControlMessageSequenceNumberList.get(siddhiAppName);
-                    }
+                String attributes;
+                int attributeLength = eventContent.getInt();
+                if (attributeLength == 0) {
+                    throw new InvalidByteMessageException("Invalid attributeLength size = 0");
+                } else {
+                    attributes = BinaryMessageConverterUtil.getString(eventContent, attributeLength);
                 }
-                synchronized (this) {
-                    //we need this block synchronized to ensure if last remembered siddhi app id is smaller than the
-                    // event id then add it to the tree map synchronously, else older event may add to the tree map
-                    if (sequenceID > lastSequenceIdForApp) {
-                        String attributes;
-                        int attributeLength = eventContent.getInt();
-                        if (attributeLength == 0) {
-                            throw new InvalidByteMessageException("Invalid attributeLength size = 0");
-                        } else {
-                            attributes = BinaryMessageConverterUtil.getString(eventContent, attributeLength);
-                        }
-                        String[] attributeTypes = attributes.substring(1, attributes.length() - 1).split(", ");
-                        events[i] = SiddhiEventConverter.getEvent(eventContent, attributeTypes);
-                        queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceID, events[i],
-                                transportSyncProperties);
-                        this.addToEventListMap(sequenceID, queuedEvent);
-                    }
-                    if (log.isDebugEnabled()) {
+                String[] attributeTypes = attributes.substring(1, attributes.length() - 1).split(", ");
+                events[i] = SiddhiEventConverter.getEvent(eventContent, attributeTypes);
+                Attribute.Type[] types = new Attribute.Type[attributeTypes.length];
+                for (int j = 0; j < attributeTypes.length; j++) {
+                    types[j] = attributeTypes[j].isEmpty() ? Attribute.Type.OBJECT :
+                            Attribute.Type.valueOf(attributeTypes[j]);
+                }
+                getEventReplayLog(siddhiAppName).append(new EventSchema(siddhiAppName, sourceHandlerElementId,
+                        types), sequenceID, events[i], transportSyncProperties);
+                if (log.isDebugEnabled()) {
+                    synchronized (EventListMapManager.class) {
                         count++;
                         if (count % TPS_EVENT_THRESHOLD == 0) {
                             endTime = new Date().getTime();
@@ -156,97 +190,206 @@ public class EventListMapManager {
                                     " end time stamp : " + endTime + " Throughput is (events / sec) : " +
                                     (((TPS_EVENT_THRESHOLD * 1000) / (endTime - startTime))) +
                                     " Total Event Count : " + count +
-                                    ". current eventListMap size: " + eventListMap.size());
+                                    ". current replay log size: " + getEventReplayLog(siddhiAppName).size());
                             startTime = new Date().getTime();
                         }
                     }
                 }
-
-
             }
         } catch (UnsupportedEncodingException e) {
             log.error("Error when converting bytes " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Parses an event frame of the schema aware wire format.
+     *
+     * @param eventContent frame content positioned after the message type
+     * @param schemas      schemas announced on the connection the frame arrived from
+     */
+    public void parseMessage(ByteBuffer eventContent, Map<Integer, EventSchema> schemas) {
+        int noOfEvents = eventContent.getInt();
+        if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+            throughputTracker.eventsIn(noOfEvents);
+        }
+        for (int i = 0; i < noOfEvents; i++) {
+            int schemaId = eventContent.getInt();
+            EventSchema schema = schemas.get(schemaId);
+            if (schema == null) {
+                throw new InvalidByteMessageException("Event refers to unknown schema id " + schemaId);
+            }
+            long sequenceID = eventContent.getLong();
+            int eventBodyLength = SiddhiEventConverter.getEventBodyLength(eventContent, schema);
+            ByteBuffer eventBody = eventContent.duplicate();
+            eventBody.limit(eventContent.position() + eventBodyLength);
+            eventContent.position(eventContent.position() + eventBodyLength);
+            getEventReplayLog(schema.getSiddhiAppName()).append(schema, sequenceID, eventBody);
+        }
+    }
+
+    /**
+     * Replays the events which are not covered by the persisted revisions. Events of different sources are replayed
+     * in parallel, while the events of a source are replayed in the order they were received by the active node.
+     */
     public void trimAndSendToInputHandler() throws InterruptedException {
         Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
                 getSiddhiAppMap();
-
-        for(Map.Entry<Long,QueuedEvent> listMapValue : eventListMap.entrySet()) {
-            long key = listMapValue.getKey();
-            QueuedEvent queuedEvent = listMapValue.getValue();
-            SiddhiAppData siddhiAppData = siddhiAppMap.get(queuedEvent.getSiddhiAppName());
-            if (siddhiAppData != null) {
-                Collection<List<Source>> sourceCollection = siddhiAppData.getSiddhiAppRuntime().getSources();
-                for (List<Source> sources : sourceCollection) {
-                    boolean isFound = false;
-                    for (Source source : sources) {
-                        if(queuedEvent.getSourceHandlerElementId().equals(source.getMapper().
-                                getHandler().getId())){
-                            source.getMapper().getHandler().sendEvent(queuedEvent.getEvent(),
-                                    queuedEvent.getTransportSyncProperties());
-                            if (null != queuedEvent.getTransportSyncProperties() &&
-                                    queuedEvent.getTransportSyncProperties().length != 0) {
-                                if (source.getMapper().getHandler() instanceof HACoordinationSourceHandler) {
-                                    ((HACoordinationSourceHandler)source.getMapper().getHandler()).
-                                            updateTransportSyncProperties(queuedEvent.getTransportSyncProperties());
-                                }
-                            }
-                            eventListMap.remove(key);
-                            isFound = true;
-                            break;
-                        }
+        List<SourceReplayTask> replayTasks = new ArrayList<>();
+        long totalEvents = 0;
+        for (Map.Entry<String, EventReplayLog> entry : eventReplayLogMap.entrySet()) {
+            List<QueuedEvent> queuedEvents = entry.getValue().drain();
+            SiddhiAppData siddhiAppData = siddhiAppMap.get(entry.getKey());
+            if (queuedEvents.isEmpty() || siddhiAppData == null || siddhiAppData.getSiddhiAppRuntime() == null) {
+                continue;
+            }
+            Map<String, SourceHandler> sourceHandlers = new HashMap<>();
+            for (List<Source> sources : siddhiAppData.getSiddhiAppRuntime().getSources()) {
+                for (Source source : sources) {
+                    SourceHandler sourceHandler = source.getMapper().getHandler();
+                    if (sourceHandler != null) {
+                        sourceHandlers.put(sourceHandler.getId(), sourceHandler);
                     }
-                    if (isFound) {
+                }
+            }
+            Map<String, List<QueuedEvent>> eventsPerSource = new LinkedHashMap<>();
+            for (QueuedEvent queuedEvent : queuedEvents) {
+                eventsPerSource.computeIfAbsent(queuedEvent.getSourceHandlerElementId(),
+                        sourceHandlerId -> new ArrayList<>()).add(queuedEvent);
+            }
+            for (Map.Entry<String, List<QueuedEvent>> sourceEvents : eventsPerSource.entrySet()) {
+                SourceHandler sourceHandler = sourceHandlers.get(sourceEvents.getKey());
+                if (sourceHandler == null) {
+                    log.warn("Source handler '" + sourceEvents.getKey() + "' of Siddhi app '" + entry.getKey() +
+                            "' is not available. Hence dropping " + sourceEvents.getValue().size() +
+                            " synced events.");
+                    continue;
+                }
+                replayTasks.add(new SourceReplayTask(entry.getKey(), sourceHandler, sourceEvents.getValue()));
+                totalEvents += sourceEvents.getValue().size();
+            }
+        }
+        initializeEventListMap();
+        if (replayTasks.isEmpty()) {
+            return;
+        }
+
+        int threadPoolSize = HAConstants.EVENT_REPLAY_THREAD_POOL_SIZE;
+        DeploymentConfig deploymentConfig = StreamProcessorDataHolder.getDeploymentConfig();
+        if (deploymentConfig != null) {
+            threadPoolSize = deploymentConfig.getEventReplayThreadPoolSize();
+        }
+        replay(replayTasks, totalEvents, threadPoolSize);
+    }
+
+    /**
+     * Runs the replay tasks on a pool of at most the given number of threads, and waits for the pool to terminate.
+     */
+    public void replay(List<SourceReplayTask> replayTasks, long totalEvents, int threadPoolSize)
+            throws InterruptedException {
+        threadPoolSize = Math.max(1, Math.min(threadPoolSize, replayTasks.size()));
+        log.info("Replaying " + totalEvents + " synced events of " + replayTasks.size() + " sources using " +
+                threadPoolSize + " threads");
+        ExecutorService replayExecutorService = Executors.newFixedThreadPool(threadPoolSize,
+                new ThreadFactoryBuilder().setNameFormat("EventReplayer-%d").build());
+        long startTimestamp = System.currentTimeMillis();
+        try {
+            List<Future<?>> futures = new ArrayList<>(replayTasks.size());
+            for (SourceReplayTask replayTask : replayTasks) {
+                futures.add(replayExecutorService.submit(replayTask));
+            }
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(REPLAY_PROGRESS_LOG_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        log.info("Replayed " + replayedEventCount.get() + " of " + totalEvents + " synced events");
+                    } catch (ExecutionException e) {
+                        log.error("Error when replaying synced events. " + e.getCause().getMessage(), e.getCause());
                         break;
                     }
                 }
             }
+        } finally {
+            replayExecutorService.shutdownNow();
+            if (!replayExecutorService.awaitTermination(REPLAY_PROGRESS_LOG_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("Event replay threads did not terminate within " + REPLAY_PROGRESS_LOG_INTERVAL_MILLIS +
+                        " ms");
+            }
         }
-        eventListMap.clear();
-        perAppLastControlMessageSequenceNumberList.clear();
+        long duration = Math.max(1, System.currentTimeMillis() - startTimestamp);
+        log.info("Replayed " + replayedEventCount.get() + " synced events in " + duration + " ms (" +
+                (replayedEventCount.get() * 1000 / duration) + " events / sec)");
+        replayedEventCount.set(0);
     }
 
-    public void trimQueue(String[] persistedAppDetails){
-        synchronized (this) {
-            //need to synchronize to make sure to finish remembering last control message seq id for siddhi app and
-            // trim accordingly
-            if (eventListMap.size() != 0 && persistedAppDetails.length != 0){
-                long eventListMapSize = eventListMap.size();
-                if (log.isDebugEnabled()) {
-                    log.debug("eventListMapSize before trimming:  " + eventListMapSize);
-                }
-                for(String appDetail : persistedAppDetails) {
-                    String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
-                    long seqId = Long.parseLong(details[0].trim());
-                    String appName = details[2].trim();
-                    if (perAppLastControlMessageSequenceNumberList.get(appName) != null) {
-                        long existingId = perAppLastControlMessageSequenceNumberList.get(appName);
-                        if (existingId < seqId) {
-                            perAppLastControlMessageSequenceNumberList.put(appName, seqId);
-                        }
-                    } else {
-                        perAppLastControlMessageSequenceNumberList.put(appName, seqId);
+    public void trimQueue(String[] persistedAppDetails) {
+        for (String appDetail : persistedAppDetails) {
+            String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
+            long seqId = Long.parseLong(details[0].trim());
+            String appName = details[2].trim();
+            EventReplayLog eventReplayLog = getEventReplayLog(appName);
+            if (log.isDebugEnabled()) {
+                int sizeBeforeTrimming = eventReplayLog.size();
+                eventReplayLog.trim(seqId);
+                log.debug("Trimmed " + (sizeBeforeTrimming - eventReplayLog.size()) + " events of Siddhi app '" +
+                        appName + "'. Current replay log size: " + eventReplayLog.size());
+            } else {
+                eventReplayLog.trim(seqId);
+            }
+        }
+    }
+
+    /**
+     * Replays the events of a single source, in order.
+     */
+    public class SourceReplayTask implements Runnable {
+        private final String siddhiAppName;
+        private final SourceHandler sourceHandler;
+        private final List<QueuedEvent> queuedEvents;
+
+        public SourceReplayTask(String siddhiAppName, SourceHandler sourceHandler, List<QueuedEvent> queuedEvents) {
+            this.siddhiAppName = siddhiAppName;
+            this.sourceHandler = sourceHandler;
+            this.queuedEvents = queuedEvents;
+        }
+
+        @Override
+        public void run() {
+            int replayed = 0;
+            try {
+                for (QueuedEvent queuedEvent : queuedEvents) {
+                    String[] transportSyncProperties = queuedEvent.getTransportSyncProperties();
+                    sourceHandler.sendEvent(queuedEvent.getEvent(), transportSyncProperties);
+                    if (null != transportSyncProperties && transportSyncProperties.length != 0 &&
+                            sourceHandler instanceof HACoordinationSourceHandler) {
+                        ((HACoordinationSourceHandler) sourceHandler).updateTransportSyncProperties(
+                                transportSyncProperties);
                     }
-                    Iterator<Map.Entry<Long, QueuedEvent>> iterator = eventListMap.entrySet().iterator();
-                    while (iterator.hasNext()) {
-                        Map.Entry<Long, QueuedEvent> listMapValue = iterator.next();
-                        long key = listMapValue.getKey();
-                        if (appName.equals(listMapValue.getValue().getSiddhiAppName()) && seqId > key) {
-                            iterator.remove();
-                        }
+                    replayed++;
+                    if (replayed % REPLAY_METRICS_BATCH_SIZE == 0) {
+                        onReplayed(REPLAY_METRICS_BATCH_SIZE);
                     }
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("Trimmed " + (eventListMapSize - eventListMap.size()) +
-                            " messages from eventListMap. Current eventListMap:" + eventListMap.size());
-                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Replaying synced events of source '" + sourceHandler.getId() + "' of Siddhi app '" +
+                        siddhiAppName + "' is interrupted after " + replayed + " events");
+            } finally {
+                onReplayed(replayed % REPLAY_METRICS_BATCH_SIZE);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Replayed " + replayed + " synced events of source '" + sourceHandler.getId() +
+                        "' of Siddhi app '" + siddhiAppName + "'");
             }
         }
-    }
 
-    public void addToEventListMap(long sequenceNum, QueuedEvent queuedEvent){
-        eventListMap.put(sequenceNum, queuedEvent);
+        private void onReplayed(int eventCount) {
+            replayedEventCount.addAndGet(eventCount);
+            if (replayThroughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                replayThroughputTracker.eventsIn(eventCount);
+            }
+        }
     }
 }
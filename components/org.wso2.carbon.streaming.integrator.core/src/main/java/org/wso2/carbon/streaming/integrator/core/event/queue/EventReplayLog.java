@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.event.queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.siddhi.core.event.Event;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Off-heap log of the events synced to the passive node for a single Siddhi app. Events are kept as raw event bodies
+ * in direct memory segments, indexed by sequence id, and are only deserialized when they are replayed.
+ */
+public class EventReplayLog {
+    private static final int INITIAL_SEGMENT_SIZE = 64 * 1024;
+    private static final int INITIAL_INDEX_SIZE = 1024;
+    private final String siddhiAppName;
+    private final int maxSegmentSize;
+    private final List<EventSchema> schemas = new ArrayList<>();
+    private final Map<EventSchema, Integer> schemaRefs = new HashMap<>();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long lastPersistedSequenceId = -1;
+    private long lastAppendedSequenceId = -1;
+    private boolean inSequenceOrder = true;
+    private boolean closed;
+    private int size;
+
+    public EventReplayLog(String siddhiAppName, int maxSegmentSize) {
+        this.siddhiAppName = siddhiAppName;
+        this.maxSegmentSize = Math.max(INITIAL_SEGMENT_SIZE, maxSegmentSize);
+    }
+
+    /**
+     * Appends an event body received through the schema aware wire format, copying the bytes as they are.
+     *
+     * @param schema     schema of the event
+     * @param sequenceId sequence id of the event
+     * @param eventBody  buffer holding exactly the event body
+     * @return false if the event was dropped since it is already covered by a persisted revision
+     */
+    public synchronized boolean append(EventSchema schema, long sequenceId, ByteBuffer eventBody) {
+        if (closed || sequenceId <= lastPersistedSequenceId) {
+            return false;
+        }
+        Segment segment = segmentFor(4 + eventBody.remaining());
+        segment.add(sequenceId, getSchemaRef(schema));
+        segment.buffer.writeBytes(eventBody);
+        onAppended(sequenceId);
+        return true;
+    }
+
+    /**
+     * Appends an event already deserialized from the legacy wire format.
+     *
+     * @return false if the event was dropped since it is already covered by a persisted revision
+     */
+    public synchronized boolean append(EventSchema schema, long sequenceId, Event event,
+                                       String[] transportSyncProperties) {
+        if (sequenceId <= lastPersistedSequenceId) {
+            return false;
+        }
+        ByteBuf eventBody = Unpooled.buffer();
+        try {
+            BinaryEventConverter.writeEventBody(eventBody, schema, event, transportSyncProperties);
+            return append(schema, sequenceId, eventBody.nioBuffer());
+        } finally {
+            eventBody.release();
+        }
+    }
+
+    /**
+     * Drops the events covered by the persisted revision. Whole segments are released; events of the partially
+     * covered segment are skipped when replaying.
+     *
+     * @param persistedSequenceId sequence id of the control message sent after persisting the app
+     */
+    public synchronized void trim(long persistedSequenceId) {
+        if (persistedSequenceId <= lastPersistedSequenceId) {
+            return;
+        }
+        lastPersistedSequenceId = persistedSequenceId;
+        while (!segments.isEmpty() && segments.peekFirst().maxSequenceId < persistedSequenceId) {
+            Segment segment = segments.pollFirst();
+            size -= segment.count;
+            segment.buffer.release();
+        }
+    }
+
+    /**
+     * Deserializes the events which are not yet persisted, in sequence id order, and clears the log.
+     *
+     * @return events to be replayed
+     */
+    public synchronized List<QueuedEvent> drain() {
+        List<QueuedEvent> queuedEvents = new ArrayList<>(size);
+        for (Segment segment : segments) {
+            for (int i = 0; i < segment.count; i++) {
+                if (segment.sequenceIds[i] < lastPersistedSequenceId) {
+                    continue;
+                }
+                int start = segment.offsets[i];
+                int end = i + 1 < segment.count ? segment.offsets[i + 1] : segment.buffer.writerIndex();
+                ByteBuffer record = segment.buffer.nioBuffer(start, end - start);
+                EventSchema schema = schemas.get(record.getInt());
+                long timestamp = record.getLong();
+                String[] transportSyncProperties = SiddhiEventConverter.getTransportSyncProperties(record);
+                Object[] data = SiddhiEventConverter.getData(record, schema);
+                queuedEvents.add(new QueuedEvent(siddhiAppName, schema.getSourceHandlerElementId(),
+                        segment.sequenceIds[i], new Event(timestamp, data), transportSyncProperties));
+            }
+        }
+        if (!inSequenceOrder) {
+            queuedEvents.sort(Comparator.comparingLong(QueuedEvent::getSequenceID));
+        }
+        clear();
+        return queuedEvents;
+    }
+
+    /**
+     * Releases all the segments.
+     */
+    public synchronized void clear() {
+        for (Segment segment : segments) {
+            segment.buffer.release();
+        }
+        segments.clear();
+        size = 0;
+        inSequenceOrder = true;
+        lastAppendedSequenceId = -1;
+    }
+
+    /**
+     * Releases all the segments and drops any event appended afterwards.
+     */
+    public synchronized void close() {
+        clear();
+        closed = true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getLastPersistedSequenceId() {
+        return lastPersistedSequenceId;
+    }
+
+    private void onAppended(long sequenceId) {
+        if (sequenceId < lastAppendedSequenceId) {
+            inSequenceOrder = false;
+        }
+        lastAppendedSequenceId = sequenceId;
+        size++;
+    }
+
+    private int getSchemaRef(EventSchema schema) {
+        Integer schemaRef = schemaRefs.get(schema);
+        if (schemaRef == null) {
+            schemaRef = schemas.size();
+            schemas.add(schema);
+            schemaRefs.put(schema, schemaRef);
+        }
+        return schemaRef;
+    }
+
+    private Segment segmentFor(int recordLength) {
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.writableBytes() < recordLength) {
+            // Segments start small so that apps with a low event rate do not hold large buffers
+            int capacity = segment == null ? INITIAL_SEGMENT_SIZE :
+                    Math.min(maxSegmentSize, segment.buffer.capacity() * 2);
+            segment = new Segment(Math.max(capacity, recordLength));
+            segments.addLast(segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Direct memory buffer holding [schema ref][event body] records, with the sequence id and offset of each record.
+     */
+    private static class Segment {
+        private final ByteBuf buffer;
+        private long[] sequenceIds = new long[INITIAL_INDEX_SIZE];
+        private int[] offsets = new int[INITIAL_INDEX_SIZE];
+        private int count;
+        private long maxSequenceId = -1;
+
+        Segment(int capacity) {
+            buffer = PooledByteBufAllocator.DEFAULT.directBuffer(capacity, capacity);
+        }
+
+        void add(long sequenceId, int schemaRef) {
+            if (count == sequenceIds.length) {
+                sequenceIds = Arrays.copyOf(sequenceIds, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            sequenceIds[count] = sequenceId;
+            offsets[count] = buffer.writerIndex();
+            count++;
+            maxSequenceId = Math.max(maxSequenceId, sequenceId);
+            buffer.writeInt(schemaRef);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.event.queue;
+
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.Arrays;
+
+/**
+ * Describes the events synced by a single source handler. A schema is announced once per event sync connection and
+ * events refer to it by the integer id assigned on that connection.
+ */
+public class EventSchema {
+    private final String siddhiAppName;
+    private final String sourceHandlerElementId;
+    private final Attribute.Type[] attributeTypes;
+
+    public EventSchema(String siddhiAppName, String sourceHandlerElementId, Attribute.Type[] attributeTypes) {
+        this.siddhiAppName = siddhiAppName;
+        this.sourceHandlerElementId = sourceHandlerElementId;
+        this.attributeTypes = attributeTypes.clone();
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    public String getSourceHandlerElementId() {
+        return sourceHandlerElementId;
+    }
+
+    public Attribute.Type[] getAttributeTypes() {
+        return attributeTypes.clone();
+    }
+
+    public int getAttributeCount() {
+        return attributeTypes.length;
+    }
+
+    public Attribute.Type getAttributeType(int index) {
+        return attributeTypes[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EventSchema that = (EventSchema) o;
+        return siddhiAppName.equals(that.siddhiAppName) &&
+                sourceHandlerElementId.equals(that.sourceHandlerElementId) &&
+                Arrays.equals(attributeTypes, that.attributeTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = siddhiAppName.hashCode();
+        result = 31 * result + sourceHandlerElementId.hashCode();
+        result = 31 * result + Arrays.hashCode(attributeTypes);
+        return result;
+    }
+}
@@ -27,15 +27,19 @@ import io.siddhi.core.stream.input.source.SourceSyncCallback;
 import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateFactory;
 import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.definition.StreamDefinition;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
 import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncBatchSender;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CoordinationConstants;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
 
 import java.io.IOException;
@@ -61,6 +65,9 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
     private String sourceType;
     private AtomicBoolean isWaitingForPassiveNode = new AtomicBoolean(false);
     private AtomicLong lastConnRefusedTimestamp = new AtomicLong(-1);
+    private Attribute.Type[] attributeTypes;
+    private volatile EventSchema eventSchema;
+    private boolean schemaAwareSync;
 
     private static final Logger log = Logger.getLogger(HACoordinationSourceHandler.class);
 
@@ -68,6 +75,9 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
         this.sequenceIDGenerator = EventSyncConnectionPoolManager.getSequenceID();
         this.throughputTracker = throughputTracker;
         this.sourceType = sourceType;
+        DeploymentConfig deploymentConfig = StreamProcessorDataHolder.getDeploymentConfig();
+        this.schemaAwareSync = deploymentConfig == null ||
+                deploymentConfig.getEventSyncProtocolVersion() >= HAConstants.PROTOCOL_VERSION_SCHEMA;
     }
 
     @Override
@@ -75,6 +85,10 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
                                           StreamDefinition streamDefinition, SiddhiAppContext siddhiAppContext) {
         this.siddhiAppName = siddhiAppName;
         this.sourceSyncCallback = sourceSyncCallback;
+        this.attributeTypes = new Attribute.Type[streamDefinition.getAttributeList().size()];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = streamDefinition.getAttributeList().get(i).getType();
+        }
         return SourceState::new;
     }
 
@@ -145,6 +159,12 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
     private void sendEventsToPassiveNode(Event event, String[] transportSyncProperties) {
         if (!isWaitingForPassiveNode.get() || lastConnRefusedTimestamp.get() + 5000 < System.currentTimeMillis()) {
             isWaitingForPassiveNode.set(false);
+            EventSyncBatchSender batchSender = EventSyncConnectionPoolManager.getBatchSender();
+            if (batchSender != null) {
+                sendEventsToBatchSender(batchSender, new QueuedEvent[]{new QueuedEvent(siddhiAppName, getId(),
+                        sequenceIDGenerator.incrementAndGet(), event, transportSyncProperties)});
+                return;
+            }
             GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
             if (objectPool != null) {
                 EventSyncConnection.Connection connection = null;
@@ -154,6 +174,18 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
                     if (connection != null) {
                         QueuedEvent queuedEvent = new QueuedEvent(siddhiAppName, getId(),
                                 sequenceIDGenerator.incrementAndGet(), event, transportSyncProperties);
+                        if (schemaAwareSync) {
+                            try {
+                                connection.sendEvents(getEventSchema(), new QueuedEvent[]{queuedEvent});
+                                if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                                    throughputTracker.eventIn();
+                                }
+                            } catch (ConnectionUnavailableException e) {
+                                log.error("Connection unavailable to sending events to the passive node. " +
+                                        e.getMessage(), e);
+                            }
+                            return;
+                        }
                         ByteBuffer messageBuffer = null;
                         try {
                             messageBuffer = BinaryEventConverter.convertToBinaryMessage(new QueuedEvent[]{queuedEvent});
@@ -207,6 +239,16 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
     private void sendEventsToPassiveNode(Event[] events, String[] transportSyncProperties) {
         if (!isWaitingForPassiveNode.get() || lastConnRefusedTimestamp.get() + 5000 < System.currentTimeMillis()) {
             isWaitingForPassiveNode.set(false);
+            EventSyncBatchSender batchSender = EventSyncConnectionPoolManager.getBatchSender();
+            if (batchSender != null) {
+                QueuedEvent[] queuedEvents = new QueuedEvent[events.length];
+                for (int i = 0; i < events.length; i++) {
+                    queuedEvents[i] = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator.incrementAndGet(),
+                            events[i], i == 0 ? transportSyncProperties : null);
+                }
+                sendEventsToBatchSender(batchSender, queuedEvents);
+                return;
+            }
             GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
             if (objectPool != null) {
                 EventSyncConnection.Connection connection = null;
@@ -228,6 +270,18 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
                             queuedEvents[i] = queuedEvent;
                             i++;
                         }
+                        if (schemaAwareSync) {
+                            try {
+                                connection.sendEvents(getEventSchema(), queuedEvents);
+                                if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                                    throughputTracker.eventsIn(events.length);
+                                }
+                            } catch (ConnectionUnavailableException e) {
+                                log.error("Connection unavailable to sending events to the passive node. " +
+                                        e.getMessage(), e);
+                            }
+                            return;
+                        }
                         ByteBuffer messageBuffer = null;
                         try {
                             messageBuffer = BinaryEventConverter.convertToBinaryMessage(queuedEvents);
@@ -278,6 +332,33 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
         }
     }
 
+    private void sendEventsToBatchSender(EventSyncBatchSender batchSender, QueuedEvent[] queuedEvents) {
+        try {
+            batchSender.send(getEventSchema(), queuedEvents);
+            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                throughputTracker.eventsIn(queuedEvents.length);
+            }
+        } catch (ConnectionUnavailableException e) {
+            synchronized (this) {
+                if (!isWaitingForPassiveNode.get()) {
+                    log.warn("Error in sending events to the passive node." +
+                            " Event syncing will start to retry again in 5 seconds. " + e.getMessage(), e);
+                    lastConnRefusedTimestamp.set(System.currentTimeMillis());
+                    isWaitingForPassiveNode.set(true);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error in sending events to the passive node." + e.getMessage(), e);
+        }
+    }
+
+    private EventSchema getEventSchema() {
+        if (eventSchema == null) {
+            eventSchema = new EventSchema(siddhiAppName, getId(), attributeTypes);
+        }
+        return eventSchema;
+    }
+
     public void updateTransportSyncProperties(String[] transportSyncProperties) {
         if (null != sourceSyncCallback) {
             sourceSyncCallback.update(transportSyncProperties);
@@ -204,13 +204,11 @@ public class HAManager {
             syncState();
 
             //Give time for byte buffer queue to be empty
-            if (null != tcpServerInstance.getEventSyncServer().getEventByteBufferQueue()) {
-                while (tcpServerInstance.getEventSyncServer().getEventByteBufferQueue().peek() != null) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        log.warn("Error in checking byte buffer queue empty");
-                    }
+            while (tcpServerInstance.getEventSyncServer().getPendingMessageCount() > 0) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    log.warn("Error in checking byte buffer queue empty");
                 }
             }
             log.info("Successfully retrieved all the events from event sync server");
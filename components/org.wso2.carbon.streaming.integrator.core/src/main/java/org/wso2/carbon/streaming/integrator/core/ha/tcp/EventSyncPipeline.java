@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.wso2.carbon.streaming.integrator.core.ha.tcp;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.metrics.core.Timer;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncMessage;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands the frames decoded by the I/O threads over to a fixed set of partitions. Each partition has its own bounded
+ * {@link MpscRingBuffer} and a single consumer thread, so the frames of a partition are processed in the order they
+ * were published without any shared lock.
+ */
+public class EventSyncPipeline {
+    private static final Logger log = Logger.getLogger(EventSyncPipeline.class);
+    private static final int CONSUMER_SPIN_COUNT = 100;
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Partition[] partitions;
+    private final Consumer<EventSyncMessage> messageProcessor;
+    private final Timer stallTimer;
+    private volatile boolean running = true;
+
+    public EventSyncPipeline(int partitionCount, int capacity, Consumer<EventSyncMessage> messageProcessor,
+                             ThreadFactory threadFactory, Timer stallTimer) {
+        this.messageProcessor = messageProcessor;
+        this.stallTimer = stallTimer;
+        this.partitions = new Partition[Math.max(1, partitionCount)];
+        int partitionCapacity = Math.max(1, capacity / partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(partitionCapacity);
+        }
+        for (Partition partition : partitions) {
+            partition.consumerThread = threadFactory.newThread(partition);
+            partition.consumerThread.start();
+        }
+    }
+
+    /**
+     * Publishes the message to the partition selected by the given key. Blocks the calling thread while the
+     * partition is full.
+     *
+     * @return false if the pipeline was shut down before the message could be published
+     */
+    public boolean publish(int partitionKey, EventSyncMessage message) {
+        if (!running) {
+            return false;
+        }
+        Partition partition = partitions[(partitionKey & Integer.MAX_VALUE) % partitions.length];
+        if (!partition.ring.offer(message)) {
+            long stallStartNanos = System.nanoTime();
+            while (!partition.ring.offer(message)) {
+                if (!running) {
+                    return false;
+                }
+                LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+            }
+            if (stallTimer != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                stallTimer.update(System.nanoTime() - stallStartNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (partition.parked) {
+            LockSupport.unpark(partition.consumerThread);
+        }
+        return true;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * @return number of messages published but not yet taken by the partition consumers
+     */
+    public int size() {
+        int size = 0;
+        for (Partition partition : partitions) {
+            size += partition.ring.size();
+        }
+        return size;
+    }
+
+    public void shutdown() {
+        running = false;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.consumerThread);
+        }
+    }
+
+    /**
+     * Ring buffer of a partition together with its consumer.
+     */
+    private class Partition implements Runnable {
+        private final MpscRingBuffer<EventSyncMessage> ring;
+        private volatile boolean parked;
+        private Thread consumerThread;
+
+        Partition(int capacity) {
+            this.ring = new MpscRingBuffer<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            int idleCount = 0;
+            while (running) {
+                EventSyncMessage message = ring.poll();
+                if (message == null) {
+                    if (++idleCount < CONSUMER_SPIN_COUNT) {
+                        Thread.yield();
+                        continue;
+                    }
+                    parked = true;
+                    // Check again as a producer may have published before seeing the parked flag
+                    message = ring.poll();
+                    if (message == null) {
+                        LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+                        parked = false;
+                        continue;
+                    }
+                    parked = false;
+                }
+                idleCount = 0;
+                try {
+                    messageProcessor.accept(message);
+                } catch (Throwable t) {
+                    log.error("Error occurred while processing the message received by the event sync server. " +
+                            t.getMessage(), t);
+                } finally {
+                    message.release();
+                }
+            }
+            // Release the frames left behind by the shutdown
+            EventSyncMessage message;
+            while ((message = ring.poll()) != null) {
+                message.release();
+            }
+        }
+    }
+}
@@ -28,24 +28,24 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.siddhi.core.util.SiddhiConstants;
 import org.apache.log4j.Logger;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.metrics.core.Timer;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncMessage;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageDecoder;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncServerConfig;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
 import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -61,17 +61,31 @@ public class EventSyncServer {
     private EventSyncServerConfig serverConfig;
     private static final Logger log = Logger.getLogger(EventSyncServer.class);
     private EventListMapManager eventListMapManager = new EventListMapManager();
-    private BlockingQueue<ByteBuffer> eventByteBufferQueue;
-    private ExecutorService eventBufferExtractorExecutorService;
-    private EventBufferExtractor eventBufferExtractor = new EventBufferExtractor();
+    private volatile EventSyncPipeline eventSyncPipeline;
+    private Timer stallTimer;
+
+    public EventSyncServer() {
+        MetricService metricService = MetricsDataHolder.getInstance().getMetricService();
+        if (metricService != null) {
+            String prefix = SiddhiAppProcessorConstants.HA_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER;
+            metricService.gauge(prefix + SiddhiAppProcessorConstants.HA_METRICS_RECEIVING_QUEUE_DEPTH, Level.INFO,
+                    new Gauge<Integer>() {
+                        @Override
+                        public Integer getValue() {
+                            return getPendingMessageCount();
+                        }
+                    });
+            stallTimer = metricService.timer(prefix + SiddhiAppProcessorConstants.HA_METRICS_RECEIVING_STALL_TIME,
+                    Level.INFO);
+        }
+    }
 
     public void start(DeploymentConfig deploymentConfig) {
         ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
                 .setNameFormat("EventSyncServer-%d").build();
-        eventBufferExtractorExecutorService = Executors.newFixedThreadPool(
-                HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE, namedThreadFactory);
-        eventByteBufferQueue = new LinkedBlockingQueue<>(deploymentConfig.
-                getEventByteBufferQueueCapacity());
+        eventSyncPipeline = new EventSyncPipeline(deploymentConfig.getByteBufferExtractorThreadPoolSize(),
+                deploymentConfig.getEventByteBufferQueueCapacity(), this::processMessage, namedThreadFactory,
+                stallTimer);
         serverConfig = deploymentConfig.eventSyncServerConfigs();
         bossGroup = new NioEventLoopGroup(serverConfig.getBossThreads());
         workerGroup = new NioEventLoopGroup(serverConfig.getWorkerThreads());
@@ -85,7 +99,7 @@ public class EventSyncServer {
                     @Override
                     protected void initChannel(Channel channel) throws Exception {
                         ChannelPipeline p = channel.pipeline();
-                        p.addLast(new MessageDecoder(eventByteBufferQueue));
+                        p.addLast(new MessageDecoder(eventSyncPipeline));
                     }
                 })
                 .option(ChannelOption.TCP_NODELAY, true)
@@ -94,9 +108,6 @@ public class EventSyncServer {
         try {
             // Bind and start to accept incoming connections.
             channelFuture = bootstrap.bind(serverConfig.getHost(), serverConfig.getPort()).sync();
-            for (int i = 0; i < HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE; i++) {
-                eventBufferExtractorExecutorService.submit(eventBufferExtractor);
-            }
             log.info("EventSyncServer started in " + hostAndPort + "");
         } catch (InterruptedException e) {
             log.error("Error when booting up EventSyncServer on '" + hostAndPort + "' " + e.getMessage(), e);
@@ -119,52 +130,47 @@ public class EventSyncServer {
     }
 
     public void clearResources() {
-        eventBufferExtractor.run = false;
-        eventBufferExtractorExecutorService.shutdownNow();
-        eventByteBufferQueue.clear();
+        if (eventSyncPipeline != null) {
+            eventSyncPipeline.shutdown();
+        }
     }
 
     /**
-     * This {@link Runnable} class is executed by the {@link ScheduledExecutorService}
+     * Processes a frame taken from the {@link EventSyncPipeline}. Frames of a partition are processed by a single
+     * thread.
      */
-    private class EventBufferExtractor implements Runnable {
-        volatile boolean run = true;
-        @Override
-        public void run() {
-            try {
-                while (run) {
-                    ByteBuffer in = eventByteBufferQueue.take();
-                    try {
-                        int channelIdSize = in.getInt();
-                        String channelId = BinaryMessageConverterUtil.getString(in, channelIdSize);
-                        int dataLength = in.getInt();
-                        byte[] bytes = new byte[dataLength];
-                        in.get(bytes);
-                        if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
-                            eventListMapManager.parseControlMessage(bytes);
-                        } else if (channelId.equals(HAConstants.CHANNEL_ID_MESSAGE)) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Received a event message");
-                            }
-                            eventListMapManager.parseMessage(bytes);
-                        }
-                    } catch (UnsupportedEncodingException e) {
-                        log.warn("Error when converting bytes " + e.getMessage(), e);
-                    } catch (Throwable t) {
-                        log.error("Error occurred while processing eventByteBufferQueue " + t.getMessage(), t);
-                    }
+    private void processMessage(EventSyncMessage message) {
+        ByteBuffer in = message.getContent();
+        try {
+            if (message.getProtocolVersion() == HAConstants.PROTOCOL_VERSION_SCHEMA) {
+                if (in.get() == HAConstants.MESSAGE_TYPE_EVENTS) {
+                    eventListMapManager.parseMessage(in, message.getSchemas());
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                if (!run) {
-                    log.error("EventSyncServer EventBufferExtractor Job is interrupted");
+                return;
+            }
+            int channelIdSize = in.getInt();
+            String channelId = BinaryMessageConverterUtil.getString(in, channelIdSize);
+            int dataLength = in.getInt();
+            byte[] bytes = new byte[dataLength];
+            in.get(bytes);
+            if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
+                eventListMapManager.parseControlMessage(bytes);
+            } else if (channelId.equals(HAConstants.CHANNEL_ID_MESSAGE)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Received a event message");
                 }
-
+                eventListMapManager.parseMessage(bytes);
             }
+        } catch (UnsupportedEncodingException e) {
+            log.warn("Error when converting bytes " + e.getMessage(), e);
         }
     }
 
-    public BlockingQueue<ByteBuffer> getEventByteBufferQueue() {
-        return eventByteBufferQueue;
+    /**
+     * @return number of received frames which are yet to be processed
+     */
+    public int getPendingMessageCount() {
+        EventSyncPipeline pipeline = eventSyncPipeline;
+        return pipeline == null ? 0 : pipeline.size();
     }
 }
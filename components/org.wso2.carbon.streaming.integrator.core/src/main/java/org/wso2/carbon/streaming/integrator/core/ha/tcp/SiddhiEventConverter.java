@@ -19,15 +19,18 @@ package org.wso2.carbon.streaming.integrator.core.ha.tcp;
 
 
 import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
@@ -105,4 +108,128 @@ public class SiddhiEventConverter {//todo
         }
     }
 
+    /**
+     * Reads a schema announced through the schema aware wire format.
+     *
+     * @param byteBuffer buffer positioned at the start of the schema body
+     * @return the announced schema
+     */
+    public static EventSchema getEventSchema(ByteBuffer byteBuffer) {
+        String siddhiAppName = getString(byteBuffer);
+        String sourceHandlerElementId = getString(byteBuffer);
+        Attribute.Type[] attributeTypes = new Attribute.Type[byteBuffer.getInt()];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = Attribute.Type.valueOf(getString(byteBuffer));
+        }
+        return new EventSchema(siddhiAppName, sourceHandlerElementId, attributeTypes);
+    }
+
+    /**
+     * Reads the transport sync properties of an event written through the schema aware wire format.
+     */
+    public static String[] getTransportSyncProperties(ByteBuffer byteBuffer) {
+        int size = byteBuffer.getInt();
+        if (size < 0) {
+            return null;
+        }
+        String[] transportSyncProperties = new String[size];
+        for (int i = 0; i < size; i++) {
+            transportSyncProperties[i] = getString(byteBuffer);
+        }
+        return transportSyncProperties;
+    }
+
+    /**
+     * Reads the event data written through the schema aware wire format.
+     */
+    public static Object[] getData(ByteBuffer byteBuffer, EventSchema schema) {
+        int attributeCount = schema.getAttributeCount();
+        int nullBitmapIndex = byteBuffer.position();
+        byteBuffer.position(nullBitmapIndex + ((attributeCount + 7) >>> 3));
+        Object[] objects = new Object[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            if ((byteBuffer.get(nullBitmapIndex + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            switch (schema.getAttributeType(i)) {
+                case STRING:
+                    objects[i] = getString(byteBuffer);
+                    break;
+                case INT:
+                    objects[i] = byteBuffer.getInt();
+                    break;
+                case LONG:
+                    objects[i] = byteBuffer.getLong();
+                    break;
+                case FLOAT:
+                    objects[i] = byteBuffer.getFloat();
+                    break;
+                case DOUBLE:
+                    objects[i] = byteBuffer.getDouble();
+                    break;
+                case BOOL:
+                    objects[i] = byteBuffer.get() == 1;
+                    break;
+                default:
+                    // will not occur
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Computes the length of the event body (timestamp, transport sync properties and data) starting at the current
+     * position, without decoding it and without moving the position.
+     */
+    public static int getEventBodyLength(ByteBuffer byteBuffer, EventSchema schema) {
+        int start = byteBuffer.position();
+        int index = start + 8;
+        int propertiesSize = byteBuffer.getInt(index);
+        index += 4;
+        for (int i = 0; i < propertiesSize; i++) {
+            index += 4 + byteBuffer.getInt(index);
+        }
+        int attributeCount = schema.getAttributeCount();
+        int nullBitmapIndex = index;
+        index += (attributeCount + 7) >>> 3;
+        for (int i = 0; i < attributeCount; i++) {
+            if ((byteBuffer.get(nullBitmapIndex + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            switch (schema.getAttributeType(i)) {
+                case STRING:
+                    index += 4 + byteBuffer.getInt(index);
+                    break;
+                case INT:
+                case FLOAT:
+                    index += 4;
+                    break;
+                case LONG:
+                case DOUBLE:
+                    index += 8;
+                    break;
+                case BOOL:
+                    index += 1;
+                    break;
+                default:
+                    // will not occur
+            }
+        }
+        return index - start;
+    }
+
+    private static String getString(ByteBuffer byteBuffer) {
+        int length = byteBuffer.getInt();
+        String value;
+        if (byteBuffer.hasArray()) {
+            value = new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length,
+                    StandardCharsets.UTF_8);
+            byteBuffer.position(byteBuffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            byteBuffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
 }
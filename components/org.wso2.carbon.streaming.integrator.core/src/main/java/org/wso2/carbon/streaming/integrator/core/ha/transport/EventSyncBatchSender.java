@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.util.SiddhiConstants;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.metrics.core.Timer;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncBatchConfig;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the events of all the source handlers of the active node to the passive node in size and time bounded
+ * batches, through a small set of long lived connections. Events of a schema always go through the same connection,
+ * hence they reach the passive node in the order they were sent.
+ */
+public class EventSyncBatchSender {
+    private static final Logger log = Logger.getLogger(EventSyncBatchSender.class);
+    private final String host;
+    private final int port;
+    private final EventSyncBatchConfig batchConfig;
+    private final EventSyncConnection eventSyncConnection;
+    private final Lane[] lanes;
+    private final ScheduledExecutorService flushExecutorService;
+    private Histogram batchSizeHistogram;
+    private Timer flushLatencyTimer;
+    private Counter droppedEventsCounter;
+
+    public EventSyncBatchSender(String host, int port, EventSyncBatchConfig batchConfig) {
+        this.host = host;
+        this.port = port;
+        this.batchConfig = batchConfig;
+        this.eventSyncConnection = new EventSyncConnection();
+        this.lanes = new Lane[Math.max(1, batchConfig.getConnections())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+        MetricService metricService = MetricsDataHolder.getInstance().getMetricService();
+        if (metricService != null) {
+            String prefix = SiddhiAppProcessorConstants.HA_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER;
+            batchSizeHistogram = metricService.histogram(prefix +
+                    SiddhiAppProcessorConstants.HA_METRICS_SENDING_BATCH_SIZE, Level.INFO);
+            flushLatencyTimer = metricService.timer(prefix +
+                    SiddhiAppProcessorConstants.HA_METRICS_SENDING_FLUSH_LATENCY, Level.INFO);
+            droppedEventsCounter = metricService.counter(prefix +
+                    SiddhiAppProcessorConstants.HA_METRICS_SENDING_DROPPED_EVENTS, Level.INFO);
+        }
+        flushExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("EventSyncBatchSender-%d").setDaemon(true).build());
+        long delay = Math.max(1, batchConfig.getMaxBatchDelayMillis());
+        flushExecutorService.scheduleWithFixedDelay(this::flushExpiredBatches, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the events to the batch of the connection assigned to the Siddhi app of the schema. A frame only holds
+     * events of a single Siddhi app so that the passive node can partition the frames by Siddhi app.
+     *
+     * @param schema       schema of the events
+     * @param queuedEvents events to be sent
+     * @throws ConnectionUnavailableException if the passive node cannot be reached
+     */
+    public void send(EventSchema schema, QueuedEvent[] queuedEvents) throws ConnectionUnavailableException {
+        lanes[(schema.getSiddhiAppName().hashCode() & Integer.MAX_VALUE) % lanes.length].append(schema,
+                queuedEvents);
+    }
+
+    public void shutdown() {
+        flushExecutorService.shutdownNow();
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+        eventSyncConnection.shutdown();
+    }
+
+    private void flushExpiredBatches() {
+        long expiryNanos = TimeUnit.MILLISECONDS.toNanos(batchConfig.getMaxBatchDelayMillis());
+        for (Lane lane : lanes) {
+            try {
+                lane.flushIfExpired(expiryNanos);
+            } catch (Throwable t) {
+                log.error("Error when flushing the events batched to the passive node. " + t.getMessage(), t);
+            }
+        }
+    }
+
+    /**
+     * Batch under construction together with the connection it is written to.
+     */
+    private class Lane {
+        private EventSyncConnection.Connection connection;
+        private long lastConnectFailureTimestamp = -1;
+        private ByteBuf frame;
+        private int frameSizeIndex;
+        private int eventCountIndex;
+        private int eventCount;
+        private long frameOpenedNanos;
+        private String frameSiddhiAppName;
+
+        synchronized void append(EventSchema schema, QueuedEvent[] queuedEvents)
+                throws ConnectionUnavailableException {
+            EventSyncConnection.Connection activeConnection = getConnection();
+            int schemaId = activeConnection.announceSchema(schema);
+            if (frame != null && !frameSiddhiAppName.equals(schema.getSiddhiAppName())) {
+                writeFrame();
+            }
+            for (QueuedEvent queuedEvent : queuedEvents) {
+                if (frame == null) {
+                    openFrame(activeConnection);
+                    frameSiddhiAppName = schema.getSiddhiAppName();
+                }
+                BinaryEventConverter.writeEvent(frame, schemaId, schema, queuedEvent);
+                eventCount++;
+                if (eventCount >= batchConfig.getMaxBatchSize() ||
+                        frame.writerIndex() >= batchConfig.getMaxBatchBytes()) {
+                    writeFrame();
+                    flush();
+                }
+            }
+        }
+
+        synchronized void flushIfExpired(long expiryNanos) {
+            if (frame != null && System.nanoTime() - frameOpenedNanos >= expiryNanos) {
+                writeFrame();
+                flush();
+            }
+        }
+
+        synchronized void close() {
+            if (frame != null) {
+                dropFrame("the sender is shutting down");
+            }
+            if (connection != null) {
+                connection.shutdown();
+                connection = null;
+            }
+        }
+
+        private EventSyncConnection.Connection getConnection() throws ConnectionUnavailableException {
+            if (connection != null && connection.isActive()) {
+                return connection;
+            }
+            if (connection != null) {
+                // The batch was meant for the lost connection and refers to its schema ids, hence it cannot be
+                // re-sent through a new connection
+                if (frame != null) {
+                    dropFrame("the connection to the passive node was lost");
+                }
+                connection.shutdown();
+                connection = null;
+            }
+            if (lastConnectFailureTimestamp + batchConfig.getReconnectIntervalMillis() > System.currentTimeMillis()) {
+                throw new ConnectionUnavailableException("Connection refused by passive node '" + host + ":" + port +
+                        "', retrying after " + batchConfig.getReconnectIntervalMillis() + " milliseconds");
+            }
+            try {
+                connection = eventSyncConnection.connect(host, port);
+                lastConnectFailureTimestamp = -1;
+                return connection;
+            } catch (ConnectionUnavailableException e) {
+                lastConnectFailureTimestamp = System.currentTimeMillis();
+                throw e;
+            }
+        }
+
+        private void openFrame(EventSyncConnection.Connection activeConnection) {
+            frame = activeConnection.alloc().buffer();
+            frameSizeIndex = BinaryEventConverter.writeFrameHeader(frame, HAConstants.MESSAGE_TYPE_EVENTS);
+            eventCountIndex = frame.writerIndex();
+            frame.writeInt(0);
+            eventCount = 0;
+            frameOpenedNanos = System.nanoTime();
+        }
+
+        private void dropFrame(String reason) {
+            frame.release();
+            frame = null;
+            recordDroppedEvents(eventCount, frameSiddhiAppName, reason, null);
+        }
+
+        /**
+         * Writes the frame to the connection. The write is timed from here until the frame has been written to the
+         * socket, which happens once the connection is flushed.
+         */
+        private void writeFrame() {
+            frame.setInt(eventCountIndex, eventCount);
+            BinaryEventConverter.completeFrame(frame, frameSizeIndex);
+            int frameEventCount = eventCount;
+            String siddhiAppName = frameSiddhiAppName;
+            long writeStartNanos = System.nanoTime();
+            ChannelFuture writeFuture = connection.write(frame);
+            writeFuture.addListener(future -> {
+                if (future.isSuccess()) {
+                    if (StreamProcessorDataHolder.isStatisticsEnabled() && flushLatencyTimer != null) {
+                        flushLatencyTimer.update(System.nanoTime() - writeStartNanos, TimeUnit.NANOSECONDS);
+                    }
+                } else {
+                    recordDroppedEvents(frameEventCount, siddhiAppName, "writing to the passive node failed",
+                            future.cause());
+                }
+            });
+            frame = null;
+            if (StreamProcessorDataHolder.isStatisticsEnabled() && batchSizeHistogram != null) {
+                batchSizeHistogram.update(frameEventCount);
+            }
+        }
+
+        private void flush() {
+            connection.flush();
+        }
+    }
+
+    private void recordDroppedEvents(int count, String siddhiAppName, String reason, Throwable cause) {
+        if (droppedEventsCounter != null) {
+            droppedEventsCounter.inc(count);
+        }
+        String message = "Dropped " + count + " events of Siddhi app '" + siddhiAppName + "' batched to the " +
+                "passive node '" + host + ":" + port + "' as " + reason;
+        if (cause != null) {
+            log.error(message, cause);
+        } else {
+            log.warn(message);
+        }
+    }
+}
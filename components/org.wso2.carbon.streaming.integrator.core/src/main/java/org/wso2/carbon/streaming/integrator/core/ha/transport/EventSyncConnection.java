@@ -19,6 +19,8 @@
 package org.wso2.carbon.streaming.integrator.core.ha.transport;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -30,9 +32,14 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageEncoder;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -63,6 +70,10 @@ public class EventSyncConnection {
                 });
     }
 
+    public void shutdown() {
+        group.shutdownGracefully();
+    }
+
     public Connection connect(String host, int port) throws ConnectionUnavailableException {
         // Start the connection attempt.
         String hostAndPort = host + ":" + port;
@@ -78,6 +89,8 @@ public class EventSyncConnection {
         private String hostAndPort;
         private Channel channel;
         private String sessionId;
+        private Map<EventSchema, Integer> announcedSchemas = new HashMap<>();
+        private int nextSchemaId = 0;
 
         public Connection (String hostAndPort, Channel channel, String sessionId) {
             this.hostAndPort = hostAndPort;
@@ -105,6 +118,89 @@ public class EventSyncConnection {
             return future;
         }
 
+        /**
+         * Sends the events using the schema aware wire format. The schema is announced on this connection the first
+         * time it is used, and the events are written straight into a pooled buffer of the channel.
+         *
+         * @param schema       schema of the events
+         * @param queuedEvents events to be sent
+         * @return future of the write
+         */
+        public synchronized ChannelFuture sendEvents(EventSchema schema, QueuedEvent[] queuedEvents)
+                throws ConnectionUnavailableException {
+            int schemaId = announceSchema(schema);
+            ByteBuf byteBuf = channel.alloc().buffer();
+            try {
+                BinaryEventConverter.writeEventFrame(byteBuf, schemaId, schema, queuedEvents);
+            } catch (RuntimeException e) {
+                byteBuf.release();
+                throw e;
+            }
+            return writeAndFlush(byteBuf);
+        }
+
+        /**
+         * Returns the id of the schema on this connection. The schema announcement is written, but not flushed, the
+         * first time the schema is seen, hence it is sent ahead of anything written afterwards.
+         *
+         * @param schema schema of the events to be sent
+         * @return connection scoped id of the schema
+         */
+        public synchronized int announceSchema(EventSchema schema) throws ConnectionUnavailableException {
+            Integer schemaId = announcedSchemas.get(schema);
+            if (schemaId == null) {
+                schemaId = nextSchemaId;
+                ByteBuf byteBuf = channel.alloc().buffer();
+                try {
+                    BinaryEventConverter.writeSchemaFrame(byteBuf, schemaId, schema);
+                } catch (RuntimeException e) {
+                    byteBuf.release();
+                    throw e;
+                }
+                ChannelFuture future = channel.write(byteBuf);
+                if (future.isDone() && !future.isSuccess()) {
+                    throw new ConnectionUnavailableException("Error sending event schema to '" + hostAndPort + "', "
+                            + future.cause().getMessage(), future.cause());
+                }
+                announcedSchemas.put(schema, schemaId);
+                nextSchemaId++;
+            }
+            return schemaId;
+        }
+
+        /**
+         * Writes an already encoded frame without flushing it.
+         */
+        public ChannelFuture write(ByteBuf byteBuf) {
+            return channel.write(byteBuf);
+        }
+
+        public void flush() {
+            channel.flush();
+        }
+
+        public ByteBufAllocator alloc() {
+            return channel.alloc();
+        }
+
+        public ChannelFuture writeAndFlush(ByteBuf byteBuf) throws ConnectionUnavailableException {
+            ChannelFuture future = channel.writeAndFlush(byteBuf);
+            future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (!future.isSuccess()) {
+                        log.error("Error sending events to '" + hostAndPort + "', " + future.cause() +
+                                ", dropping events ", future.cause());
+                    }
+                }
+            });
+            if (future.isDone() && !future.isSuccess()) {
+                throw new ConnectionUnavailableException("Error sending events to '" + hostAndPort + "', " +
+                        future.cause().getMessage(), future.cause());
+            }
+            return future;
+        }
+
         public boolean isActive() {
             return channel != null && channel.isActive();
         }
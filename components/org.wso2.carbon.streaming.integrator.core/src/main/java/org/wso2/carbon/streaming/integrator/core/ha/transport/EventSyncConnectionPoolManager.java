@@ -20,6 +20,8 @@ package org.wso2.carbon.streaming.integrator.core.ha.transport;
 
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncBatchConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncClientPoolConfig;
 
 import java.util.concurrent.atomic.AtomicLong;
@@ -30,6 +32,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 public class EventSyncConnectionPoolManager {
     private static GenericKeyedObjectPool connectionPool;
+    private static EventSyncBatchSender batchSender;
     private static AtomicLong sequenceID = new AtomicLong();
 
 
@@ -39,6 +42,18 @@ public class EventSyncConnectionPoolManager {
         initializeConnectionPool(eventSyncConnectionPoolFactory, eventSyncClientPoolConfig.getMaxActive(), eventSyncClientPoolConfig.getMaxTotal(),
                 eventSyncClientPoolConfig.getMaxIdle(), eventSyncClientPoolConfig.getMaxWait(),
                 eventSyncClientPoolConfig.getMinEvictableIdleTimeMillis());
+        EventSyncBatchConfig eventSyncBatchConfig = deploymentConfig.getEventSyncBatchConfig();
+        if (eventSyncBatchConfig != null && eventSyncBatchConfig.isEnabled() &&
+                deploymentConfig.getEventSyncProtocolVersion() >= HAConstants.PROTOCOL_VERSION_SCHEMA) {
+            initializeBatchSender(host, port, eventSyncBatchConfig);
+        }
+    }
+
+    private synchronized static void initializeBatchSender(String host, int port,
+                                                           EventSyncBatchConfig eventSyncBatchConfig) {
+        if (batchSender == null) {
+            batchSender = new EventSyncBatchSender(host, port, eventSyncBatchConfig);
+        }
     }
 
     public synchronized static void initializeConnectionPool(EventSyncConnectionPoolFactory factory,
@@ -65,8 +80,19 @@ public class EventSyncConnectionPoolManager {
         return connectionPool;
     }
 
-    public static void uninitializeConnectionPool() {
+    /**
+     * @return the batching sender, or null if events are sent through the connection pool
+     */
+    public static EventSyncBatchSender getBatchSender() {
+        return batchSender;
+    }
+
+    public synchronized static void uninitializeConnectionPool() {
         connectionPool = null;
+        if (batchSender != null) {
+            batchSender.shutdown();
+            batchSender = null;
+        }
     }
 
     public static AtomicLong getSequenceID() {
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import io.netty.buffer.ByteBuf;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Frame received by the event sync server, together with the schemas announced on the connection it arrived from.
+ * The content is a retained slice of the inbound buffer and must be released once the frame is processed.
+ */
+public class EventSyncMessage {
+    private final byte protocolVersion;
+    private final ByteBuf content;
+    private final Map<Integer, EventSchema> schemas;
+
+    public EventSyncMessage(byte protocolVersion, ByteBuf content, Map<Integer, EventSchema> schemas) {
+        this.protocolVersion = protocolVersion;
+        this.content = content;
+        this.schemas = schemas;
+    }
+
+    public byte getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * @return view of the frame content, positioned at its start
+     */
+    public ByteBuffer getContent() {
+        return content.nioBuffer();
+    }
+
+    public Map<Integer, EventSchema> getSchemas() {
+        return schemas;
+    }
+
+    public void release() {
+        content.release();
+    }
+}
@@ -22,27 +22,37 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.EventSyncPipeline;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncMessage;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 
 import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Byte to message decoder.
+ * Byte to message decoder. A decoder instance is bound to a single connection, hence it also holds the schemas
+ * announced on that connection. Frames are handed over to the {@link EventSyncPipeline} as retained slices of the
+ * inbound buffer, partitioned by the Siddhi app of their events.
  */
 public class MessageDecoder extends ByteToMessageDecoder {
-    private BlockingQueue<ByteBuffer> byteBufferQueue;
+    private static final AtomicInteger connectionCount = new AtomicInteger();
+    private EventSyncPipeline eventSyncPipeline;
+    private Map<Integer, EventSchema> schemas = new ConcurrentHashMap<>();
+    private final int connectionPartitionKey = connectionCount.getAndIncrement();
     private static long startTime;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_BATCH_THRESHOLD = 10000;
     private static final Logger log = Logger.getLogger(MessageDecoder.class);
 
-    public MessageDecoder(BlockingQueue<ByteBuffer> byteBufferQueue) {
-        this.byteBufferQueue = byteBufferQueue;
+    public MessageDecoder(EventSyncPipeline eventSyncPipeline) {
+        this.eventSyncPipeline = eventSyncPipeline;
     }
 
     @Override
@@ -50,23 +60,42 @@ public class MessageDecoder extends ByteToMessageDecoder {
         if (in.readableBytes() < 5) {
             return;
         }
-        int protocol = in.readByte();
+        in.markReaderIndex();
+        byte protocol = in.readByte();
         int messageSize = in.readInt();
-        if (protocol != 2 || messageSize > in.readableBytes()) {
+        if ((protocol != HAConstants.PROTOCOL_VERSION_LEGACY && protocol != HAConstants.PROTOCOL_VERSION_SCHEMA)
+                || messageSize > in.readableBytes()) {
             in.resetReaderIndex();
             return;
         }
-        byte[] bytes = new byte[messageSize];
-        in.readBytes(bytes);
-        in.markReaderIndex();
-        in.resetReaderIndex();
-        try {
-            byteBufferQueue.put(ByteBuffer.wrap(bytes));
-        } catch (InterruptedException e) {
-            log.error("Error while waiting for the insertion of ByteBufferQueue " + e.getMessage(), e);
+        int partitionKey = connectionPartitionKey;
+        if (protocol == HAConstants.PROTOCOL_VERSION_SCHEMA) {
+            int contentIndex = in.readerIndex();
+            byte messageType = in.getByte(contentIndex);
+            if (messageType == HAConstants.MESSAGE_TYPE_SCHEMA) {
+                // Schemas are registered on the I/O thread so that they are visible before any event frame
+                // referring to them is processed.
+                ByteBuffer content = in.nioBuffer(contentIndex + 1, messageSize - 1);
+                int schemaId = content.getInt();
+                schemas.put(schemaId, SiddhiEventConverter.getEventSchema(content));
+                in.skipBytes(messageSize);
+                return;
+            }
+            if (messageType == HAConstants.MESSAGE_TYPE_EVENTS && messageSize >= 9 &&
+                    in.getInt(contentIndex + 1) > 0) {
+                EventSchema schema = schemas.get(in.getInt(contentIndex + 5));
+                if (schema != null) {
+                    partitionKey = schema.getSiddhiAppName().hashCode();
+                }
+            }
+        }
+        EventSyncMessage message = new EventSyncMessage(protocol, in.readRetainedSlice(messageSize), schemas);
+        if (!eventSyncPipeline.publish(partitionKey, message)) {
+            message.release();
+            return;
         }
         if (log.isDebugEnabled()) {
-            synchronized (this) {
+            synchronized (MessageDecoder.class) {
                 if (startTime == 0L) {
                     startTime = new Date().getTime();
                 }
@@ -79,6 +108,5 @@ public class MessageDecoder extends ByteToMessageDecoder {
                 }
             }
         }
-        in.markReaderIndex();
     }
 }
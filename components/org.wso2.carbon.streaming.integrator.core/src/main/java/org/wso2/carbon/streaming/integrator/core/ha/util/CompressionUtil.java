@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.streaming.integrator.core.ha.util;
 
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotBufferPool;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -26,7 +28,8 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 /**
- * CompressionUtil class that holds compression and decompression algorithms.
+ * CompressionUtil class that holds compression and decompression algorithms. Persistence stores encode snapshots
+ * through {@link org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs} instead.
  */
 public class CompressionUtil {
 
@@ -40,17 +43,16 @@ public class CompressionUtil {
     }
 
     public static byte[] decompressGZIP(byte[] data) throws IOException {
-        byte[] uncompressedBytes = new byte[1000000];
-        InputStream inputStream = new ByteArrayInputStream(data);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        GZIPInputStream gzip = new GZIPInputStream(inputStream);
-        int len;
-        while ((len = gzip.read(uncompressedBytes)) > 0) {
-            out.write(uncompressedBytes, 0, len);
+        byte[] uncompressedBytes = SnapshotBufferPool.acquireBuffer();
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data), SnapshotBufferPool.BUFFER_SIZE)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            int len;
+            while ((len = gzip.read(uncompressedBytes)) > 0) {
+                out.write(uncompressedBytes, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            SnapshotBufferPool.releaseBuffer(uncompressedBytes);
         }
-        gzip.close();
-        inputStream.close();
-        return out.toByteArray();
     }
 }
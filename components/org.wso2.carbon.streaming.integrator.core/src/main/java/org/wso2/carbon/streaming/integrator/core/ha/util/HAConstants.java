@@ -20,6 +20,7 @@ package org.wso2.carbon.streaming.integrator.core.ha.util;
 public class HAConstants {
 
     public static final int EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE = 5;
+    public static final int EVENT_REPLAY_THREAD_POOL_SIZE = 4;
     public static final String CHANNEL_ID_MESSAGE = "eventMessage";
     public static final String CHANNEL_ID_CONTROL_MESSAGE = "controlMessage";
     public static final String PERSISTED_APP_SPLIT_DELIMITER = "__";
@@ -30,6 +31,10 @@ public class HAConstants {
     public static final String PORT = "port";
     public static final String ADVERTISED_HOST = "advertisedHost";
     public static final String ADVERTISED_PORT = "advertisedPort";
+    public static final byte PROTOCOL_VERSION_LEGACY = 2;
+    public static final byte PROTOCOL_VERSION_SCHEMA = 3;
+    public static final byte MESSAGE_TYPE_SCHEMA = 1;
+    public static final byte MESSAGE_TYPE_EVENTS = 2;
 
 
 }
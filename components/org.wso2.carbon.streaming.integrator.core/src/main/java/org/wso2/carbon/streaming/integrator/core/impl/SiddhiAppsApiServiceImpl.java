@@ -46,6 +46,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.analytics.permissions.PermissionProvider;
 import org.wso2.carbon.analytics.permissions.bean.Permission;
+import org.wso2.carbon.si.metrics.core.ThroughputMetric;
+import org.wso2.carbon.si.metrics.core.internal.MetricsManagement;
 import org.wso2.carbon.streaming.integrator.core.api.ApiResponseMessage;
 import org.wso2.carbon.streaming.integrator.core.api.ApiResponseMessageWithCode;
 import org.wso2.carbon.streaming.integrator.core.api.NotFoundException;
@@ -61,6 +63,7 @@ import org.wso2.carbon.streaming.integrator.core.model.SiddhiAppContent;
 import org.wso2.carbon.streaming.integrator.core.model.SiddhiAppMetrics;
 import org.wso2.carbon.streaming.integrator.core.model.SiddhiAppRevision;
 import org.wso2.carbon.streaming.integrator.core.model.SiddhiAppStatus;
+import org.wso2.carbon.streaming.integrator.core.model.ThroughputStatistics;
 import org.wso2.carbon.streaming.integrator.core.util.StatsEnable;
 import org.wso2.msf4j.Request;
 
@@ -439,6 +442,8 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
                         appMetrics.setAge(age);
                         appMetrics.appName(siddhiAppFileEntry.getKey());
                         appMetrics.isStatEnabled(siddiAppData.getSiddhiAppRuntime().getStatisticsLevel());
+                        appMetrics.throughput(getThroughputStatistics(siddhiAppFileEntry.getKey(),
+                                siddiAppData.getSiddhiAppRuntime().getStatisticsLevel()));
                         appMetrics.status(siddiAppData.isActive() ?
                                 SiddhiAppProcessorConstants.SIDDHI_APP_STATUS_ACTIVE :
                                 SiddhiAppProcessorConstants.SIDDHI_APP_STATUS_INACTIVE);
@@ -458,6 +463,8 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
                     appMetrics.appName(siddhiAppFileEntry.getKey());
                     if (siddiAppData.isActive()) {
                         appMetrics.isStatEnabled(siddiAppData.getSiddhiAppRuntime().getStatisticsLevel());
+                        appMetrics.throughput(getThroughputStatistics(siddhiAppFileEntry.getKey(),
+                                siddiAppData.getSiddhiAppRuntime().getStatisticsLevel()));
                     } else {
                         appMetrics.isStatEnabled(Level.OFF);
                     }
@@ -475,6 +482,25 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
         }
     }
 
+    private List<ThroughputStatistics> getThroughputStatistics(String siddhiAppName, Level statisticsLevel) {
+        List<ThroughputStatistics> throughputStatistics = new ArrayList<>();
+        if (statisticsLevel == Level.OFF) {
+            return throughputStatistics;
+        }
+        for (String metricName : MetricsManagement.getInstance().getComponents(siddhiAppName)) {
+            ThroughputMetric throughputMetric = ThroughputMetric.getThroughputTracker(metricName);
+            if (throughputMetric != null) {
+                throughputStatistics.add(new ThroughputStatistics()
+                        .name(metricName)
+                        .total(throughputMetric.getTotal())
+                        .rate1s(throughputMetric.getRate(1))
+                        .rate10s(throughputMetric.getRate(10))
+                        .rate60s(throughputMetric.getRate(60)));
+            }
+        }
+        return throughputStatistics;
+    }
+
     public Response siddhiAppStatsEnable(String appFileName, StatsEnable statsEnabled) throws NotFoundException {
         String jsonString;
         Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService()
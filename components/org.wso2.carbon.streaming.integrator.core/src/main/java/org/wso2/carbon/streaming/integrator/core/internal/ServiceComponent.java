@@ -147,15 +147,17 @@ public class ServiceComponent {
                 throw new PersistenceStoreConfigurationException("Persistence Store class with name "
                         + persistenceStoreClassName + " is invalid. ", e);
             }
-            int persistenceInterval = persistenceConfigurations.getIntervalInMin();
+            int schedulingInterval = PersistenceManager.getSchedulingInterval(persistenceConfigurations);
             scheduledExecutorService = Executors.newScheduledThreadPool(1,
                     new ThreadFactoryBuilder().setPriority(7).setNameFormat("SchedulePersistence-%d").build());
-            if (persistenceInterval > 0) {
-                scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(new PersistenceManager(),
-                        persistenceInterval, persistenceInterval, TimeUnit.MINUTES);
+            if (schedulingInterval > 0) {
+                scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(
+                        new PersistenceManager(persistenceConfigurations), schedulingInterval, schedulingInterval,
+                        TimeUnit.MINUTES);
             }
+            StreamProcessorDataHolder.setPersistenceConfigurations(persistenceConfigurations);
             StreamProcessorDataHolder.setIsPersistenceEnabled(true);
-            log.info("Periodic state persistence started with an interval of " + String.valueOf(persistenceInterval) +
+            log.info("Periodic state persistence started with an interval of " + String.valueOf(schedulingInterval) +
                     " using " + persistenceStoreClassName);
         } else {
             if (log.isDebugEnabled()) {
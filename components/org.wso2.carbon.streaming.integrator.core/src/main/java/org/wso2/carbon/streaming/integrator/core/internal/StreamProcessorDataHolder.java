@@ -38,6 +38,7 @@ import org.wso2.carbon.streaming.integrator.common.SiddhiAppDeploymentListener;
 import org.wso2.carbon.streaming.integrator.core.NodeInfo;
 import org.wso2.carbon.streaming.integrator.core.ha.HAManager;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceConfigurations;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -57,6 +58,7 @@ public class StreamProcessorDataHolder {
     private static SourceHandlerManager sourceHandlerManager;
     private static HAManager haManager;
     private static DeploymentConfig deploymentConfig;
+    private static PersistenceConfigurations persistenceConfigurations;
     private static NodeInfo nodeInfo;
     private static RecordTableHandlerManager recordTableHandlerManager;
     private static PermissionProvider permissionProvider;
@@ -170,6 +172,14 @@ public class StreamProcessorDataHolder {
         StreamProcessorDataHolder.deploymentConfig = deploymentConfig;
     }
 
+    public static PersistenceConfigurations getPersistenceConfigurations() {
+        return persistenceConfigurations;
+    }
+
+    public static void setPersistenceConfigurations(PersistenceConfigurations persistenceConfigurations) {
+        StreamProcessorDataHolder.persistenceConfigurations = persistenceConfigurations;
+    }
+
     public static NodeInfo getNodeInfo() {
         return StreamProcessorDataHolder.nodeInfo;
     }
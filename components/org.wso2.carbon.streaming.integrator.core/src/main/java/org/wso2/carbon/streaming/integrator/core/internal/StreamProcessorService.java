@@ -47,6 +47,7 @@ import org.wso2.carbon.streaming.integrator.core.internal.exception.SiddhiAppCon
 import org.wso2.carbon.streaming.integrator.core.internal.exception.SiddhiAppDeploymentException;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppFilesystemInvoker;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.PersistenceManager;
 import org.wso2.carbon.streaming.integrator.core.persistence.beans.AsyncAPIServiceCatalogueConfigs;
 
 import java.util.Collection;
@@ -256,6 +257,7 @@ public class StreamProcessorService {
                 log.error("Configuration exception occurred when deleting Async API definition.", e);
             }
             siddhiAppMap.remove(siddhiAppName);
+            PersistenceManager.removeSiddhiApp(siddhiAppName);
             log.info("Siddhi App File " + siddhiAppName + " undeployed successfully.");
         }
     }
@@ -35,8 +35,20 @@ public class DeploymentConfig {
     private int eventByteBufferQueueCapacity = 20000;
     @Element(description = "Event sync client pool configurations", required = false)
     private EventSyncClientPoolConfig eventSyncClientPool = new EventSyncClientPoolConfig();
-    @Element(description = "Pool of threads to retrieve bytes from byte buffer queue", required = false)
+    @Element(description = "Number of partitions, each with its own thread, to retrieve bytes from byte " +
+            "buffer queue", required = false)
     private int byteBufferExtractorThreadPoolSize = 5;
+    @Element(description = "Wire format version used to sync events to the passive node. Use 2 when the passive " +
+            "node does not support schema aware event sync", required = false)
+    private int eventSyncProtocolVersion = 3;
+    @Element(description = "Configurations of the batching event sync sender", required = false)
+    private EventSyncBatchConfig eventSyncBatch = new EventSyncBatchConfig();
+    @Element(description = "Maximum size in bytes of the off-heap segments the passive node keeps the synced " +
+            "events in", required = false)
+    private int eventReplaySegmentSize = 4194304;
+    @Element(description = "Number of threads replaying the synced events when the passive node becomes active",
+            required = false)
+    private int eventReplayThreadPoolSize = 4;
 
     public String getType() {
         return type;
@@ -78,6 +90,38 @@ public class DeploymentConfig {
         this.byteBufferExtractorThreadPoolSize = byteBufferExtractorThreadPoolSize;
     }
 
+    public int getEventSyncProtocolVersion() {
+        return eventSyncProtocolVersion;
+    }
+
+    public void setEventSyncProtocolVersion(int eventSyncProtocolVersion) {
+        this.eventSyncProtocolVersion = eventSyncProtocolVersion;
+    }
+
+    public EventSyncBatchConfig getEventSyncBatchConfig() {
+        return eventSyncBatch;
+    }
+
+    public void setEventSyncBatchConfig(EventSyncBatchConfig eventSyncBatch) {
+        this.eventSyncBatch = eventSyncBatch;
+    }
+
+    public int getEventReplaySegmentSize() {
+        return eventReplaySegmentSize;
+    }
+
+    public void setEventReplaySegmentSize(int eventReplaySegmentSize) {
+        this.eventReplaySegmentSize = eventReplaySegmentSize;
+    }
+
+    public int getEventReplayThreadPoolSize() {
+        return eventReplayThreadPoolSize;
+    }
+
+    public void setEventReplayThreadPoolSize(int eventReplayThreadPoolSize) {
+        this.eventReplayThreadPoolSize = eventReplayThreadPoolSize;
+    }
+
     public long getPassiveNodeDetailsWaitTimeOutMillis() {
 
         return passiveNodeDetailsWaitTimeOutMillis;
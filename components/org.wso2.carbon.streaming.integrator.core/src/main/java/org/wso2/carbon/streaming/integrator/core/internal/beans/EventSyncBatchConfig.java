@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.internal.beans;
+
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Bean class for the configurations of the batching event sync sender used by the active node.
+ */
+public class EventSyncBatchConfig {
+    @Element(description = "Batch the events synced to the passive node", required = false)
+    private boolean enabled = true;
+    @Element(description = "Number of long lived connections the batches are written through", required = false)
+    private int connections = 2;
+    @Element(description = "Maximum number of events in a batch", required = false)
+    private int maxBatchSize = 1000;
+    @Element(description = "Maximum size of a batch in bytes", required = false)
+    private int maxBatchBytes = 262144;
+    @Element(description = "Maximum time in milliseconds an event waits in a batch before it is flushed",
+            required = false)
+    private long maxBatchDelayMillis = 10;
+    @Element(description = "Time in milliseconds to wait before reconnecting to the passive node", required = false)
+    private long reconnectIntervalMillis = 5000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    public long getMaxBatchDelayMillis() {
+        return maxBatchDelayMillis;
+    }
+
+    public void setMaxBatchDelayMillis(long maxBatchDelayMillis) {
+        this.maxBatchDelayMillis = maxBatchDelayMillis;
+    }
+
+    public long getReconnectIntervalMillis() {
+        return reconnectIntervalMillis;
+    }
+
+    public void setReconnectIntervalMillis(long reconnectIntervalMillis) {
+        this.reconnectIntervalMillis = reconnectIntervalMillis;
+    }
+}
@@ -58,6 +58,14 @@ public class SiddhiAppProcessorConstants {
     public static final String HA_METRICS_PREFIX = "org.wso2.ha";
     public static final String HA_METRICS_SENDING_THROUGHPUT = "sending.throughput";
     public static final String HA_METRICS_RECEIVING_THROUGHPUT = "receiving.throughput";
+    public static final String HA_METRICS_RECEIVING_QUEUE_DEPTH = "receiving.queue.depth";
+    public static final String HA_METRICS_RECEIVING_STALL_TIME = "receiving.stall.time";
+    public static final String HA_METRICS_REPLAY_THROUGHPUT = "replay.throughput";
+    public static final String HA_METRICS_SENDING_BATCH_SIZE = "sending.batch.size";
+    public static final String HA_METRICS_SENDING_FLUSH_LATENCY = "sending.flush.latency";
+    public static final String HA_METRICS_SENDING_DROPPED_EVENTS = "sending.dropped.events";
+    public static final String PERSISTENCE_METRICS_PREFIX = "org.wso2.persistence";
+    public static final String PERSISTENCE_METRICS_LATENCY = "latency";
     public static final int SIDDHI_APP_REDEPLOY_RETRY_COUNT = 5;
     public static final long SIDDHI_APP_REDEPLOY_SLEEP_TIMEOUT = 3000;
 
@@ -21,8 +21,11 @@ package org.wso2.carbon.streaming.integrator.core.persistence;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.EncodedSnapshot;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.GZIPSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
 import org.wso2.carbon.streaming.integrator.core.persistence.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatasourceConfigurationException;
@@ -30,6 +33,7 @@ import org.wso2.carbon.streaming.integrator.core.persistence.util.DBPersistenceS
 import org.wso2.carbon.streaming.integrator.core.persistence.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.RDBMSConfiguration;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotWriteBatcher;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.PersistenceStore;
 
@@ -41,7 +45,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.sql.DataSource;
 import javax.sql.rowset.serial.SerialBlob;
 
@@ -61,52 +68,60 @@ public class DBPersistenceStore implements PersistenceStore {
     private int numberOfRevisionsToKeep;
     private String databaseType;
     private String databaseVersion;
+    private SnapshotCodec codec = new GZIPSnapshotCodec();
+    private SnapshotWriteBatcher writeBatcher;
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
         createTableIfNotExist();
 
-        byte[] compressedSnapshot;
+        EncodedSnapshot encodedSnapshot;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
+            encodedSnapshot = SnapshotCodecs.encodeChunked(snapshot, codec);
         } catch (IOException e) {
             log.error("Error occurred while trying to compress the snapshot. Failed to " +
                     "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
             return;
         }
-        Connection con = null;
-        PreparedStatement stmt = null;
         try {
-            try {
-                con = datasource.getConnection();
-            } catch (SQLException e) {
-                log.error("Cannot establish connection to datasource " + datasourceName +
-                        " while saving revision " + revision, e);
-                return;
-            }
-            con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setString(1, siddhiAppName);
-            stmt.setString(2, revision);
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
-            } else {
-                Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
-                stmt.setBlob(3, blob);
-            }
-            stmt.executeUpdate();
-            con.commit();
+            writeBatcher.write(siddhiAppName, revision, encodedSnapshot);
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
             }
         } catch (SQLException e) {
             log.error("Error while saving revision" + revision + " of the siddhiApp " +
                     siddhiAppName + " to the database with datasource name " + datasourceName, e);
-        } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while saving revision " + revision + " of the siddhiApp " + siddhiAppName, e);
+        }
+    }
+
+    /**
+     * Inserts the snapshots as one JDBC batch, and removes the revisions beyond the number of revisions to keep of
+     * their Siddhi apps, within the transaction of the batch.
+     */
+    private void writeSnapshots(Connection con, List<SnapshotWriteBatcher.PendingSnapshot> snapshots)
+            throws SQLException {
+        Set<String> siddhiAppNames = new LinkedHashSet<>();
+        try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement())) {
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                stmt.setString(1, snapshot.getSiddhiAppName());
+                stmt.setString(2, snapshot.getRevision());
+                EncodedSnapshot encodedSnapshot = snapshot.getEncodedSnapshot();
+                if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
+                    stmt.setBlob(3, new SerialBlob(encodedSnapshot.toByteArray()));
+                } else {
+                    stmt.setBinaryStream(3, encodedSnapshot.newInputStream(), encodedSnapshot.getLength());
+                }
+                stmt.addBatch();
+                siddhiAppNames.add(snapshot.getSiddhiAppName());
+            }
+            stmt.executeBatch();
+        }
+        for (String siddhiAppName : siddhiAppNames) {
+            cleanOldRevisions(con, siddhiAppName);
         }
-        cleanOldRevisions(siddhiAppName);
     }
 
     @Override
@@ -150,6 +165,7 @@ public class DBPersistenceStore implements PersistenceStore {
             }
         }
 
+        codec = SnapshotCodecs.getCodec(configurationMap);
         try {
             datasource = (HikariDataSource) StreamProcessorDataHolder.getDataSourceService().
                     getDataSource(datasourceName);
@@ -170,13 +186,17 @@ public class DBPersistenceStore implements PersistenceStore {
         }
 
         initializeDatabaseExecutionInfo();
+        if (writeBatcher != null) {
+            writeBatcher.shutdown();
+        }
+        writeBatcher = new SnapshotWriteBatcher(tableName, datasource, datasourceName, this::writeSnapshots,
+                configurationMap);
     }
 
     @Override
     public byte[] load(String siddhiAppName, String revision) {
         PreparedStatement stmt = null;
         Connection con = null;
-        byte[] blobAsBytes = null;
         byte[] decompressedSnapshot = null;
         try {
             try {
@@ -199,10 +219,8 @@ public class DBPersistenceStore implements PersistenceStore {
                     } else {
                         blobSnapshot = resultSet.getBlob("snapshot");
                     }
-                    int blobLength = (int) blobSnapshot.length();
-                    blobAsBytes = blobSnapshot.getBytes(1, blobLength);
                     try {
-                        decompressedSnapshot = CompressionUtil.decompressGZIP(blobAsBytes);
+                        decompressedSnapshot = SnapshotCodecs.decode(blobSnapshot.getBinaryStream());
                     } catch (IOException e) {
                         throw new RuntimeException("Error occurred while trying to decompress the snapshot. " +
                                 "Failed to load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
@@ -317,54 +335,31 @@ public class DBPersistenceStore implements PersistenceStore {
     /**
      * Method to remove revisions that are older than the user specified amount
      *
+     * @param con           is the connection of the transaction saving the latest revisions
      * @param siddhiAppName is the name of the Siddhi Application whose old revisions to remove
      */
-    private void cleanOldRevisions(String siddhiAppName) {
-        PreparedStatement stmt = null;
-        Connection con = null;
+    private void cleanOldRevisions(Connection con, String siddhiAppName) throws SQLException {
         int count = 0;
-
-        try {
-            con = datasource.getConnection();
-            con.setAutoCommit(false);
-        } catch (SQLException e) {
-            log.error("Cannot establish connection to data source " + datasourceName +
-                    " to clean old revisions", e);
-            return;
-        }
-        try {
-            stmt = con.prepareStatement(executionInfo.getPreparedCountStatement());
+        try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedCountStatement())) {
             stmt.setString(1, siddhiAppName);
             try (ResultSet resultSet = stmt.executeQuery()) {
                 if (resultSet.next()) {
                     count = resultSet.getInt(1);
                 }
-                int numberOfRevisionsToClean = count - numberOfRevisionsToKeep;
-                if (numberOfRevisionsToClean > 0) {
-                    stmt = con.prepareStatement(executionInfo.getPreparedDeleteStatement());
-                    if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
-                        stmt.setInt(1, numberOfRevisionsToClean);
-                        stmt.setString(2, siddhiAppName);
-                    } else {
-                        stmt.setString(1, siddhiAppName);
-                        stmt.setInt(2, numberOfRevisionsToClean);
-                    }
-                    stmt.executeUpdate();
-                    con.commit();
-                }
             }
-        } catch (SQLException e) {
-            log.error("Error in cleaning old revisions of siddhiApp: " +
-                    siddhiAppName + "from the database with datasource " + datasourceName, e);
-        } finally {
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    log.error("Unable to close statement." + e.getMessage(), e);
+        }
+        int numberOfRevisionsToClean = count - numberOfRevisionsToKeep;
+        if (numberOfRevisionsToClean > 0) {
+            try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedDeleteStatement())) {
+                if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
+                    stmt.setInt(1, numberOfRevisionsToClean);
+                    stmt.setString(2, siddhiAppName);
+                } else {
+                    stmt.setString(1, siddhiAppName);
+                    stmt.setInt(2, numberOfRevisionsToClean);
                 }
+                stmt.executeUpdate();
             }
-            cleanupConnections(stmt, con);
         }
     }
 
@@ -20,13 +20,22 @@ package org.wso2.carbon.streaming.integrator.core.persistence;
 
 import com.google.common.io.Files;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.GZIPSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotBufferPool;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.PersistenceStore;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
@@ -37,21 +46,23 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     private static final Logger log = Logger.getLogger(FileSystemPersistenceStore.class);
     private int numberOfRevisionsToSave;
     private String folder;
+    private SnapshotCodec codec = new GZIPSnapshotCodec();
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
-            return;
-        }
         try {
             Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file),
+                    SnapshotBufferPool.BUFFER_SIZE)) {
+                SnapshotCodecs.encode(snapshot, codec, out);
+            } catch (IOException e) {
+                if (file.exists() && !file.delete()) {
+                    log.error("Cannot delete the partially persisted revision " + revision + " of SiddhiApp: " +
+                            siddhiAppName);
+                }
+                throw e;
+            }
             cleanOldRevisions(siddhiAppName);
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
@@ -93,27 +104,28 @@ public class FileSystemPersistenceStore implements PersistenceStore {
                 log.debug("File system persistence config not set. Default persistence location will be used.");
             }
         }
+        codec = SnapshotCodecs.getCodec(configurationMap);
     }
 
     @Override
     public byte[] load(String siddhiAppName, String revision) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
+        InputStream in;
         try {
-            byte[] bytes = Files.toByteArray(file);
-            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
-            byte[] decompressedSnapshot;
-            try {
-                decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
-            } catch (IOException e) {
-                throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
-                        "load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
-            }
-            return decompressedSnapshot;
+            in = new BufferedInputStream(new FileInputStream(file), SnapshotBufferPool.BUFFER_SIZE);
         } catch (IOException e) {
             log.error("Cannot load the revision " + revision + " of SiddhiApp: " + siddhiAppName +
                     " from file system.", e);
+            return null;
+        }
+        try {
+            byte[] decompressedSnapshot = SnapshotCodecs.decode(in);
+            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
+            return decompressedSnapshot;
+        } catch (IOException e) {
+            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
+                    "load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
         }
-        return null;
     }
 
     @Override
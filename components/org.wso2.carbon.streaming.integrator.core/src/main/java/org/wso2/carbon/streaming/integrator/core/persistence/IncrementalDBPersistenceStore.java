@@ -21,8 +21,11 @@ package org.wso2.carbon.streaming.integrator.core.persistence;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.EncodedSnapshot;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.GZIPSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
 import org.wso2.carbon.streaming.integrator.core.persistence.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatasourceConfigurationException;
@@ -30,6 +33,7 @@ import org.wso2.carbon.streaming.integrator.core.persistence.util.DBPersistenceS
 import org.wso2.carbon.streaming.integrator.core.persistence.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.RDBMSConfiguration;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotWriteBatcher;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
@@ -37,7 +41,9 @@ import io.siddhi.core.util.persistence.util.PersistenceHelper;
 
 import javax.sql.DataSource;
 import javax.sql.rowset.serial.SerialBlob;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -46,8 +52,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IncrementalDBPersistenceStore implements IncrementalPersistenceStore {
     private static final Logger log = Logger.getLogger(IncrementalDBPersistenceStore.class);
@@ -60,13 +71,16 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
     private DataSource datasource;
     private String databaseType;
     private String databaseVersion;
+    private SnapshotCodec codec = new GZIPSnapshotCodec();
     private String tableName;
+    private SnapshotWriteBatcher writeBatcher;
+    private final Map<String, SnapshotCursor> snapshotCursors = new ConcurrentHashMap<>();
 
     @Override
     public void save(IncrementalSnapshotInfo incrementalSnapshotInfo, byte[] bytes) {
-        byte[] compressedSnapshot;
+        EncodedSnapshot encodedSnapshot;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(bytes);
+            encodedSnapshot = SnapshotCodecs.encodeChunked(bytes, codec);
         } catch (IOException e) {
             log.error("Error occurred while trying to compress the snapshot. Failed to " +
                     "persist revision: " + incrementalSnapshotInfo.getRevision() +
@@ -74,40 +88,80 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             return;
         }
         DBPersistenceStoreUtils.createTableIfNotExist(executionInfo, datasource, datasourceName, tableName);
-
-        Connection con = null;
-        PreparedStatement stmt = null;
         try {
-            try {
-                con = datasource.getConnection();
-            } catch (SQLException e) {
-                log.error("Cannot establish connection to datasource " + datasourceName +
-                        " while saving revision " + incrementalSnapshotInfo.getRevision(), e);
-                return;
-            }
-            con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setString(1, incrementalSnapshotInfo.getSiddhiAppId());
-            stmt.setString(2, incrementalSnapshotInfo.getRevision());
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
-            } else {
-                Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
-                stmt.setBlob(3, blob);
-            }
-            stmt.executeUpdate();
-            con.commit();
+            writeBatcher.write(incrementalSnapshotInfo.getSiddhiAppId(), incrementalSnapshotInfo.getRevision(),
+                    encodedSnapshot);
             if (log.isDebugEnabled()) {
-                log.debug("Periodic persistence of " + incrementalSnapshotInfo.getSiddhiAppId() + " persisted successfully.");
+                log.debug("Periodic persistence of " + incrementalSnapshotInfo.getSiddhiAppId() +
+                        " persisted successfully.");
             }
         } catch (SQLException e) {
             log.error("Error while saving revision" + incrementalSnapshotInfo.getRevision() + " of the siddhiApp " +
-                    incrementalSnapshotInfo.getSiddhiAppId() + " to the database with datasource name " + datasourceName, e);
-        } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+                    incrementalSnapshotInfo.getSiddhiAppId() + " to the database with datasource name " +
+                    datasourceName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while saving revision " + incrementalSnapshotInfo.getRevision() +
+                    " of the siddhiApp " + incrementalSnapshotInfo.getSiddhiAppId(), e);
+        }
+    }
+
+    /**
+     * Inserts the snapshots as one JDBC batch, and deletes the revisions superseded by the base and periodic
+     * snapshots among them, within the transaction of the batch.
+     */
+    private void writeSnapshots(Connection con, List<SnapshotWriteBatcher.PendingSnapshot> snapshots)
+            throws SQLException {
+        Map<String, List<IncrementalSnapshotInfo>> cleanupSnapshots = new LinkedHashMap<>();
+        try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement())) {
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                stmt.setString(1, snapshot.getSiddhiAppName());
+                stmt.setString(2, snapshot.getRevision());
+                EncodedSnapshot encodedSnapshot = snapshot.getEncodedSnapshot();
+                if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
+                    stmt.setBlob(3, new SerialBlob(encodedSnapshot.toByteArray()));
+                } else {
+                    stmt.setBinaryStream(3, encodedSnapshot.newInputStream(), encodedSnapshot.getLength());
+                }
+                stmt.addBatch();
+                IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(snapshot.getRevision());
+                if (snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
+                    cleanupSnapshots.computeIfAbsent(snapshot.getSiddhiAppName(), k -> new ArrayList<>())
+                            .add(snapshotInfo);
+                }
+            }
+            stmt.executeBatch();
+        }
+        if (cleanupSnapshots.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement selectStmt = con.prepareStatement(executionInfo.getPreparedSelectRevisionsStatement());
+             PreparedStatement deleteStmt = con.prepareStatement(
+                     executionInfo.getPreparedDeleteOldRevisionsStatement())) {
+            boolean hasRevisionsToClean = false;
+            for (Map.Entry<String, List<IncrementalSnapshotInfo>> entry : cleanupSnapshots.entrySet()) {
+                List<String> allRevisions = new ArrayList<>();
+                selectStmt.setString(1, entry.getKey());
+                try (ResultSet resultSet = selectStmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        allRevisions.add(String.valueOf(resultSet.getString("revision")));
+                    }
+                }
+                Set<String> revisionsToClean = new LinkedHashSet<>();
+                for (IncrementalSnapshotInfo snapshotInfo : entry.getValue()) {
+                    addRevisionsToClean(snapshotInfo, allRevisions, revisionsToClean);
+                }
+                for (String revision : revisionsToClean) {
+                    deleteStmt.setString(1, revision);
+                    deleteStmt.setString(2, entry.getKey());
+                    deleteStmt.addBatch();
+                    hasRevisionsToClean = true;
+                }
+            }
+            if (hasRevisionsToClean) {
+                deleteStmt.executeBatch();
+            }
         }
-        cleanOldRevisions(incrementalSnapshotInfo);
     }
 
     @Override
@@ -142,6 +196,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             }
         }
 
+        codec = SnapshotCodecs.getCodec(configurationMap);
         try {
             datasource = (HikariDataSource) StreamProcessorDataHolder.getDataSourceService().
                     getDataSource(datasourceName);
@@ -161,13 +216,28 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     datasourceName, e);
         }
         initializeDatabaseExecutionInfo();
+        closeSnapshotCursors();
+        if (writeBatcher != null) {
+            writeBatcher.shutdown();
+        }
+        writeBatcher = new SnapshotWriteBatcher(tableName, datasource, datasourceName, this::writeSnapshots,
+                configurationMap);
     }
 
     @Override
     public byte[] load(IncrementalSnapshotInfo incrementalSnapshotInfo) {
+        SnapshotCursor snapshotCursor = snapshotCursors.get(incrementalSnapshotInfo.getSiddhiAppId());
+        if (snapshotCursor != null) {
+            byte[] snapshot = snapshotCursor.load(incrementalSnapshotInfo);
+            if (snapshotCursor.isClosed()) {
+                snapshotCursors.remove(incrementalSnapshotInfo.getSiddhiAppId(), snapshotCursor);
+            }
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
         PreparedStatement stmt = null;
         Connection con = null;
-        byte[] blobAsBytes = null;
         byte[] decompressedSnapshot = null;
         try {
             try {
@@ -190,10 +260,8 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     } else {
                         blobSnapshot = resultSet.getBlob("snapshot");
                     }
-                    int blobLength = (int) blobSnapshot.length();
-                    blobAsBytes = blobSnapshot.getBytes(1, blobLength);
                     try {
-                        decompressedSnapshot = CompressionUtil.decompressGZIP(blobAsBytes);
+                        decompressedSnapshot = SnapshotCodecs.decode(blobSnapshot.getBinaryStream());
                     } catch (IOException e) {
                         throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
                                 "load revision: " + incrementalSnapshotInfo.getRevision() + " of Siddhi app: " +
@@ -210,27 +278,60 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         return decompressedSnapshot;
     }
 
+    /**
+     * Lists the revisions to restore, in the order of the revisions query. When the database has the ranged snapshot
+     * query, the snapshots of the listed revisions are then streamed by {@link #load} from a single query, one
+     * snapshot at a time, in the order listed. Both queries order by the revision in the database, so that the list
+     * follows the collation of the database, which may not order the revisions as Java strings do.
+     */
     @Override
     public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
         List<IncrementalSnapshotInfo> results = new ArrayList<>();
         List<String> revisions = getListOfRevisionsFromDB(siddhiAppName);
+        if (revisions == null) {
+            return results;
+        }
+        Set<String> revisionsToLoad = new HashSet<>();
         for (String revision : revisions) {
             IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
-            if (snapshotInfo.getTime() <= restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
+            if (isRevisionToLoad(snapshotInfo, restoreTime, siddhiAppName)) {
                 //Note: Here we discard the (items.length == 2) scenario which is handled
                 // by the full snapshot handling
                 if (log.isDebugEnabled()) {
                     log.debug("List of revisions to load : " + revision);
                 }
                 results.add(snapshotInfo);
+                revisionsToLoad.add(revision);
             }
         }
+        SnapshotCursor previousCursor;
+        if (executionInfo.getPreparedSelectSnapshotsStatement() != null && !revisionsToLoad.isEmpty()) {
+            previousCursor = snapshotCursors.put(siddhiAppName, new SnapshotCursor(siddhiAppName, revisionsToLoad));
+        } else {
+            previousCursor = snapshotCursors.remove(siddhiAppName);
+        }
+        if (previousCursor != null) {
+            previousCursor.close();
+        }
         return results;
     }
 
+    private boolean isRevisionToLoad(IncrementalSnapshotInfo snapshotInfo, long restoreTime, String siddhiAppName) {
+        return snapshotInfo.getTime() <= restoreTime &&
+                siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
+                snapshotInfo.getElementId() != null &&
+                snapshotInfo.getQueryName() != null;
+    }
+
+    private void closeSnapshotCursors() {
+        for (String siddhiAppName : snapshotCursors.keySet()) {
+            SnapshotCursor snapshotCursor = snapshotCursors.remove(siddhiAppName);
+            if (snapshotCursor != null) {
+                snapshotCursor.close();
+            }
+        }
+    }
+
     @Override
     public String getLastRevision(String siddhiAppName) {
         createTableIfNotExist();
@@ -264,6 +365,10 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     @Override
     public void clearAllRevisions(String siddhiAppName) {
+        SnapshotCursor snapshotCursor = snapshotCursors.remove(siddhiAppName);
+        if (snapshotCursor != null) {
+            snapshotCursor.close();
+        }
         PreparedStatement stmt = null;
         Connection con;
         try {
@@ -348,55 +453,11 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         executionInfo.setPreparedDeleteOldRevisionsStatement(databaseQueryEntries.getDeleteOldRevisionsQuery());
         executionInfo.setPreparedCountStatement(databaseQueryEntries.getCountQuery());
         executionInfo.setPreparedDeleteAllRevisionsStatement(databaseQueryEntries.getDeleteAllRevisionsQuery());
+        executionInfo.setPreparedSelectSnapshotsStatement(databaseQueryEntries.getSelectSnapshotsQuery());
     }
 
-    private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
-        if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
-            List<String> allRevisions = getListOfRevisionsFromDB(incrementalSnapshotInfo.getSiddhiAppId());
-            if (allRevisions != null) {
-                String revisionsToClean = getRevisionsToClean(incrementalSnapshotInfo, allRevisions);
-                if (revisionsToClean != null) {
-                    cleanOldRevisionsFromDB(revisionsToClean, incrementalSnapshotInfo.getSiddhiAppId());
-                }
-            }
-        }
-    }
-
-    private void cleanOldRevisionsFromDB(String revisionsToClean, String siddhiAppId) {
-        PreparedStatement stmt = null;
-        Connection con = null;
-        try {
-            con = datasource.getConnection();
-            con.setAutoCommit(false);
-        } catch (SQLException e) {
-            log.error("Cannot establish connection to data source " + datasourceName +
-                    " to clean old revisions", e);
-            return;
-        }
-        try {
-            stmt = con.prepareStatement(executionInfo.getPreparedDeleteOldRevisionsStatement());
-            stmt.setString(1, revisionsToClean);
-            stmt.setString(2, siddhiAppId);
-            stmt.executeUpdate();
-            con.commit();
-        } catch (SQLException e) {
-            log.error("Error in cleaning old revisions of siddhiApp: " +
-                    siddhiAppId + "from the database with datasource " + datasourceName, e);
-        } finally {
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    log.error("Unable to close statement." + e.getMessage(), e);
-                }
-            }
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
-        }
-    }
-
-    private String getRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo,
-                                       List<String> allRevisions) {
-        StringBuilder revisionsToClean = new StringBuilder();
+    private void addRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo, List<String> allRevisions,
+                                     Set<String> revisionsToClean) {
         long baseTimeStamp = (incrementalSnapshotInfo.getTime());
         for (String revision : allRevisions) {
             IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
@@ -406,17 +467,13 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
                 if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE &&
                         snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+                    revisionsToClean.add(revision);
                 } else if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
                         snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+                    revisionsToClean.add(revision);
                 }
             }
         }
-        if (revisionsToClean.length() != 0) {
-            return revisionsToClean.substring(1); //removing leading comma
-        }
-        return null;
     }
 
     /**
@@ -460,4 +517,107 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             }
         }
     }
+
+    /**
+     * Streams the snapshots of the revisions to restore of a Siddhi app, from a single query ordered by revision.
+     * Rows are read forward up to the revision requested, so only one snapshot is held in memory at a time. The
+     * connection is closed once all the revisions are loaded, or once a revision is requested out of order, in which
+     * case the remaining revisions are loaded one by one.
+     */
+    private class SnapshotCursor {
+        private final String siddhiAppName;
+        private final Set<String> revisionsToLoad;
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private boolean closed;
+
+        SnapshotCursor(String siddhiAppName, Set<String> revisionsToLoad) {
+            this.siddhiAppName = siddhiAppName;
+            this.revisionsToLoad = revisionsToLoad;
+        }
+
+        /**
+         * @return snapshot of the revision, or null if it has to be loaded by its own query
+         */
+        synchronized byte[] load(IncrementalSnapshotInfo incrementalSnapshotInfo) {
+            String revision = incrementalSnapshotInfo.getRevision();
+            if (closed || !revisionsToLoad.contains(revision)) {
+                return null;
+            }
+            try {
+                if (resultSet == null) {
+                    connection = datasource.getConnection();
+                    connection.setAutoCommit(false);
+                    statement = connection.prepareStatement(executionInfo.getPreparedSelectSnapshotsStatement());
+                    statement.setString(1, siddhiAppName);
+                    resultSet = statement.executeQuery();
+                }
+                while (resultSet.next()) {
+                    String currentRevision = String.valueOf(resultSet.getString("revision"));
+                    if (!revision.equals(currentRevision)) {
+                        if (revisionsToLoad.contains(currentRevision)) {
+                            // Requested out of order, hence the revisions passed are loaded one by one
+                            close();
+                            return null;
+                        }
+                        continue;
+                    }
+                    revisionsToLoad.remove(revision);
+                    InputStream snapshotStream;
+                    if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
+                        snapshotStream = new ByteArrayInputStream(resultSet.getBytes("snapshot"));
+                    } else {
+                        snapshotStream = resultSet.getBlob("snapshot").getBinaryStream();
+                    }
+                    byte[] snapshot;
+                    try {
+                        snapshot = SnapshotCodecs.decode(snapshotStream);
+                    } catch (IOException e) {
+                        close();
+                        throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed " +
+                                "to load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
+                    }
+                    if (revisionsToLoad.isEmpty()) {
+                        close();
+                    }
+                    return snapshot;
+                }
+                close();
+            } catch (SQLException e) {
+                log.error("Could not stream the revisions of Siddhi app: " + siddhiAppName +
+                        " from the database with datasource " + datasourceName +
+                        ". Revisions will be loaded one by one.", e);
+                close();
+            }
+            return null;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (resultSet != null) {
+                try {
+                    resultSet.close();
+                } catch (SQLException e) {
+                    log.error("Unable to close result set." + e.getMessage(), e);
+                }
+            }
+            if (connection != null) {
+                try {
+                    connection.commit();
+                } catch (SQLException e) {
+                    log.error("Unable to end the transaction on datasource " + datasourceName + ". " +
+                            e.getMessage(), e);
+                }
+            }
+            DBPersistenceStoreUtils.cleanupConnections(statement, connection);
+        }
+    }
 }
@@ -24,11 +24,20 @@ import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import io.siddhi.core.util.persistence.util.PersistenceHelper;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.GZIPSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotBufferPool;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +49,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
 
     private static final Logger log = Logger.getLogger(IncrementalFileSystemPersistenceStore.class);
     private String folder;
+    private SnapshotCodec codec = new GZIPSnapshotCodec();
 
     public IncrementalFileSystemPersistenceStore() {
     }
@@ -52,18 +62,18 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
-                    snapshotInfo.getSiddhiAppId());
-            return;
-        }
         try {
             Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file),
+                    SnapshotBufferPool.BUFFER_SIZE)) {
+                SnapshotCodecs.encode(snapshot, codec, out);
+            } catch (IOException e) {
+                if (file.exists() && !file.delete()) {
+                    log.error("Cannot delete the partially persisted revision '" + snapshotInfo.getRevision() +
+                            "' of SiddhiApp: '" + snapshotInfo.getSiddhiAppId() + "'");
+                }
+                throw e;
+            }
             cleanOldRevisions(snapshotInfo);
             if (log.isDebugEnabled()) {
                 log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
@@ -96,26 +106,28 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
                 log.debug("File system persistence config not set. Default persistence location will be used.");
             }
         }
+        codec = SnapshotCodecs.getCodec(configurationMap);
     }
 
     @Override
     public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] bytes = null;
+        InputStream in;
         try {
-            bytes = Files.toByteArray(file);
-            if (log.isDebugEnabled()) {
-                log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
-                        snapshotInfo.getRevision() + "' from file system.");
-            }
+            in = new BufferedInputStream(new FileInputStream(file), SnapshotBufferPool.BUFFER_SIZE);
         } catch (IOException e) {
             log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
                     snapshotInfo.getSiddhiAppId() + "' from file system.", e);
+            return null;
         }
         byte[] decompressedSnapshot;
         try {
-            decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
+            decompressedSnapshot = SnapshotCodecs.decode(in);
+            if (log.isDebugEnabled()) {
+                log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                        snapshotInfo.getRevision() + "' from file system.");
+            }
         } catch (IOException e) {
             throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
                     "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
@@ -0,0 +1,646 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
+import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import io.siddhi.core.util.persistence.util.PersistenceHelper;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.GZIPSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Incremental persistence store which appends the revisions of a Siddhi app to pre-allocated, memory mapped segment
+ * files under {@code location/siddhiAppName}, instead of writing a file per revision.
+ * <p>
+ * A record is {@code [int magic][int payloadLength][int crc32 of payload][payload]} where the payload is the
+ * revision name followed by the encoded snapshot. The revisions of a Siddhi app are indexed in memory when the
+ * Siddhi app is first accessed, by scanning its segments up to the first record which is missing or fails the
+ * checksum. Revisions superseded by a BASE or PERIODIC snapshot are dropped from the index, and the segments holding
+ * them are compacted in the background.
+ * <p>
+ * The store is enabled through the state persistence configuration of deployment.yaml as follows. Each revision is
+ * forced to the disk as it is saved, unless {@code segmentForceIntervalMillis} is set, in which case the saved
+ * revisions are forced together at that interval, and the revisions saved within the last interval may be lost if
+ * the operating system crashes.
+ * <pre>
+ * state.persistence:
+ *   enabled: true
+ *   intervalInMin: 1
+ *   revisionsToKeep: 2
+ *   persistenceStore: org.wso2.carbon.streaming.integrator.core.persistence.IncrementalSegmentLogPersistenceStore
+ *   config:
+ *     location: siddhi-app-persistence
+ *     segmentSize: 67108864
+ *     segmentForceIntervalMillis: 0
+ * </pre>
+ */
+public class IncrementalSegmentLogPersistenceStore implements IncrementalPersistenceStore {
+
+    private static final Logger log = Logger.getLogger(IncrementalSegmentLogPersistenceStore.class);
+    private static final int RECORD_MAGIC = 0x53494C52;
+    private static final int RECORD_HEADER_LENGTH = 12;
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private final Map<String, AppLog> appLogs = new ConcurrentHashMap<>();
+    private final ExecutorService compactionExecutorService = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("IncrementalSegmentLogCompactor-%d").setDaemon(true).build());
+    private ScheduledExecutorService forceExecutorService;
+    private String folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+    private long forceIntervalMillis = 0;
+    private SnapshotCodec codec = new GZIPSnapshotCodec();
+
+    @Override
+    public void setProperties(Map properties) {
+        Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
+        if (configurationMap != null) {
+            Object folderObject = configurationMap.get("location");
+            if (folderObject instanceof String) {
+                folder = String.valueOf(folderObject);
+            } else if (log.isDebugEnabled()) {
+                log.debug("File system persistence location not set. Default persistence location will be used.");
+            }
+            Object segmentSizeObject = configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_SEGMENT_SIZE);
+            if (segmentSizeObject instanceof Integer && (Integer) segmentSizeObject > RECORD_HEADER_LENGTH) {
+                segmentSize = (Integer) segmentSizeObject;
+            }
+            Object forceIntervalObject =
+                    configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_SEGMENT_FORCE_INTERVAL);
+            if (forceIntervalObject instanceof Number) {
+                forceIntervalMillis = ((Number) forceIntervalObject).longValue();
+            }
+        }
+        codec = SnapshotCodecs.getCodec(configurationMap);
+        if (forceIntervalMillis > 0 && forceExecutorService == null) {
+            forceExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("IncrementalSegmentLogForcer-%d").setDaemon(true).build());
+            forceExecutorService.scheduleWithFixedDelay(this::forceSegments, forceIntervalMillis,
+                    forceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+        AppLog appLog = getAppLog(snapshotInfo.getSiddhiAppId());
+        try {
+            byte[] revision = snapshotInfo.getRevision().getBytes(StandardCharsets.UTF_8);
+            byte[] encodedSnapshot = SnapshotCodecs.encode(snapshot, codec);
+            boolean compactionRequired;
+            synchronized (appLog) {
+                appLog.append(snapshotInfo, revision, encodedSnapshot);
+                compactionRequired = appLog.removeSuperseded(snapshotInfo);
+            }
+            if (compactionRequired) {
+                compactionExecutorService.execute(() -> compact(appLog));
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
+                        "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
+            }
+        } catch (IOException e) {
+            log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
+                    snapshotInfo.getSiddhiAppId() + "' to the segment log.", e);
+        }
+    }
+
+    @Override
+    public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
+        AppLog appLog = getAppLog(snapshotInfo.getSiddhiAppId());
+        byte[] encodedSnapshot;
+        synchronized (appLog) {
+            encodedSnapshot = appLog.read(snapshotInfo.getRevision());
+        }
+        if (encodedSnapshot == null) {
+            log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+                    snapshotInfo.getSiddhiAppId() + "' as it is not found in the segment log.");
+            return null;
+        }
+        try {
+            return SnapshotCodecs.decode(encodedSnapshot);
+        } catch (IOException e) {
+            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
+                    "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
+                    snapshotInfo.getSiddhiAppId(), e);
+        }
+    }
+
+    @Override
+    public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
+        AppLog appLog = getAppLog(siddhiAppName);
+        List<IncrementalSnapshotInfo> results = new ArrayList<>();
+        synchronized (appLog) {
+            for (RecordLocation recordLocation : appLog.index.values()) {
+                IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+                if (snapshotInfo.getTime() <= restoreTime && isIncrementalRevision(snapshotInfo, siddhiAppName)) {
+                    results.add(snapshotInfo);
+                }
+            }
+        }
+        return results.isEmpty() ? null : results;
+    }
+
+    @Override
+    public String getLastRevision(String siddhiAppName) {
+        AppLog appLog = getAppLog(siddhiAppName);
+        long restoreTime = -1;
+        synchronized (appLog) {
+            for (RecordLocation recordLocation : appLog.index.values()) {
+                IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+                if (snapshotInfo.getTime() > restoreTime && isIncrementalRevision(snapshotInfo, siddhiAppName)) {
+                    restoreTime = snapshotInfo.getTime();
+                }
+            }
+        }
+        if (restoreTime != -1) {
+            return restoreTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName;
+        }
+        return null;
+    }
+
+    @Override
+    public void clearAllRevisions(String siddhiAppName) {
+        AppLog appLog = appLogs.remove(siddhiAppName);
+        if (appLog == null) {
+            appLog = new AppLog(new File(folder + File.separator + siddhiAppName));
+        }
+        synchronized (appLog.compactionLock) {
+            synchronized (appLog) {
+                appLog.closed = true;
+                appLog.deleteAll();
+            }
+        }
+    }
+
+    private static boolean isIncrementalRevision(IncrementalSnapshotInfo snapshotInfo, String siddhiAppName) {
+        //Note: Here we discard the revisions without element ids, which are handled by the full snapshot handling
+        return siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) && snapshotInfo.getElementId() != null &&
+                snapshotInfo.getQueryName() != null;
+    }
+
+    private AppLog getAppLog(String siddhiAppName) {
+        return appLogs.computeIfAbsent(siddhiAppName, appName -> {
+            AppLog appLog = new AppLog(new File(folder + File.separator + appName));
+            appLog.recover();
+            return appLog;
+        });
+    }
+
+    private void compact(AppLog appLog) {
+        synchronized (appLog.compactionLock) {
+            try {
+                appLog.compact();
+            } catch (IOException e) {
+                log.error("Error when compacting the segment log of Siddhi app '" + appLog.directory.getName() +
+                        "'. " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void forceSegments() {
+        for (AppLog appLog : appLogs.values()) {
+            synchronized (appLog) {
+                for (Segment segment : appLog.segments.values()) {
+                    if (segment.dirty) {
+                        segment.dirty = false;
+                        segment.buffer.force();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the mapping of the buffer, so that the segment file can be deleted. The buffer must not be accessed
+     * afterwards. If the mapping cannot be released here, it is released when the buffer is garbage collected.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            // Java 9 onwards
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot release the mapping of a segment. " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Segments and the revision index of a Siddhi app. All the operations must be done while holding the monitor
+     * of the app log, except compaction which holds the compaction lock instead. Segments are only deleted while
+     * holding both.
+     */
+    private class AppLog {
+        private final File directory;
+        private final TreeMap<Long, Segment> segments = new TreeMap<>();
+        private final Map<String, RecordLocation> index = new HashMap<>();
+        private final Object compactionLock = new Object();
+        private Segment activeSegment;
+        private long nextSegmentId;
+        private boolean closed;
+
+        AppLog(File directory) {
+            this.directory = directory;
+        }
+
+        void append(IncrementalSnapshotInfo snapshotInfo, byte[] revision, byte[] encodedSnapshot)
+                throws IOException {
+            if (closed) {
+                throw new IOException("Revisions of the Siddhi app are cleared");
+            }
+            int payloadLength = 2 + revision.length + encodedSnapshot.length;
+            Segment segment = getSegmentFor(RECORD_HEADER_LENGTH + payloadLength);
+            int recordOffset = segment.writePosition;
+            CRC32 crc32 = new CRC32();
+            ByteBuffer buffer = segment.buffer;
+            buffer.position(recordOffset + RECORD_HEADER_LENGTH);
+            buffer.putShort((short) revision.length);
+            buffer.put(revision);
+            buffer.put(encodedSnapshot);
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(recordOffset + RECORD_HEADER_LENGTH);
+            payload.limit(recordOffset + RECORD_HEADER_LENGTH + payloadLength);
+            crc32.update(payload);
+            buffer.putInt(recordOffset + 4, payloadLength);
+            buffer.putInt(recordOffset + 8, (int) crc32.getValue());
+            // The magic is written last so that a torn record is never taken as a valid one
+            buffer.putInt(recordOffset, RECORD_MAGIC);
+            if (forceIntervalMillis > 0) {
+                segment.dirty = true;
+            } else {
+                segment.buffer.force();
+            }
+            segment.writePosition = recordOffset + RECORD_HEADER_LENGTH + payloadLength;
+            index(new RecordLocation(segment, recordOffset, RECORD_HEADER_LENGTH + payloadLength,
+                    RECORD_HEADER_LENGTH + 2 + revision.length, snapshotInfo));
+        }
+
+        byte[] read(String revision) {
+            RecordLocation recordLocation = index.get(revision);
+            if (recordLocation == null) {
+                return null;
+            }
+            ByteBuffer buffer = recordLocation.segment.buffer.duplicate();
+            buffer.position(recordLocation.offset + recordLocation.snapshotOffset);
+            byte[] encodedSnapshot = new byte[recordLocation.length - recordLocation.snapshotOffset];
+            buffer.get(encodedSnapshot);
+            return encodedSnapshot;
+        }
+
+        /**
+         * Drops the revisions superseded by the given revision from the index, following the same rules as the
+         * {@link IncrementalFileSystemPersistenceStore}.
+         *
+         * @return true if any revision is dropped
+         */
+        boolean removeSuperseded(IncrementalSnapshotInfo newSnapshotInfo) {
+            if (newSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.INCREMENT ||
+                    newSnapshotInfo.getElementId() == null || newSnapshotInfo.getQueryName() == null) {
+                return false;
+            }
+            boolean removed = false;
+            Iterator<RecordLocation> iterator = index.values().iterator();
+            while (iterator.hasNext()) {
+                RecordLocation recordLocation = iterator.next();
+                IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+                if (snapshotInfo.getTime() < newSnapshotInfo.getTime() &&
+                        newSnapshotInfo.getSiddhiAppId().equals(snapshotInfo.getSiddhiAppId()) &&
+                        newSnapshotInfo.getQueryName().equals(snapshotInfo.getQueryName()) &&
+                        newSnapshotInfo.getElementId().equals(snapshotInfo.getElementId()) &&
+                        (newSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE ?
+                                snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC :
+                                snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC)) {
+                    recordLocation.segment.liveBytes -= recordLocation.length;
+                    iterator.remove();
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Deletes the sealed segments without live revisions, and moves the live revisions of the sealed segments
+         * which are less than half live to a new segment. Sealed segments are no longer written to, hence the live
+         * revisions are copied without holding the monitor of the app log, which is only held to pick the segments
+         * and to switch the index to the new segment.
+         */
+        void compact() throws IOException {
+            List<Segment> compactedSegments = new ArrayList<>();
+            List<RecordLocation> liveRecords = new ArrayList<>();
+            long liveBytes = 0;
+            long compactedSegmentId;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                for (Segment segment : segments.values()) {
+                    if (segment == activeSegment ||
+                            (segment.liveBytes > 0 && segment.liveBytes * 2 >= segment.writePosition)) {
+                        continue;
+                    }
+                    // Keep the new segment within the size of a segment, unless a single segment exceeds it
+                    if (!compactedSegments.isEmpty() && liveBytes + segment.liveBytes > segmentSize) {
+                        break;
+                    }
+                    compactedSegments.add(segment);
+                    liveBytes += segment.liveBytes;
+                }
+                if (compactedSegments.isEmpty()) {
+                    return;
+                }
+                for (RecordLocation recordLocation : index.values()) {
+                    if (compactedSegments.contains(recordLocation.segment)) {
+                        liveRecords.add(recordLocation);
+                    }
+                }
+                compactedSegmentId = liveRecords.isEmpty() ? -1 : nextSegmentId++;
+            }
+
+            Segment compactedSegment = null;
+            List<RecordLocation> movedRecords = new ArrayList<>(liveRecords.size());
+            if (!liveRecords.isEmpty()) {
+                liveRecords.sort(Comparator.<RecordLocation>comparingLong(recordLocation ->
+                        recordLocation.segment.id).thenComparingInt(recordLocation -> recordLocation.offset));
+                int compactedSize = 0;
+                for (RecordLocation recordLocation : liveRecords) {
+                    compactedSize += recordLocation.length;
+                }
+                compactedSegment = new Segment(compactedSegmentId, getSegmentFile(compactedSegmentId),
+                        compactedSize);
+                ByteBuffer target = compactedSegment.buffer.duplicate();
+                for (RecordLocation recordLocation : liveRecords) {
+                    ByteBuffer record = recordLocation.segment.buffer.duplicate();
+                    record.position(recordLocation.offset);
+                    record.limit(recordLocation.offset + recordLocation.length);
+                    movedRecords.add(new RecordLocation(compactedSegment, target.position(), recordLocation.length,
+                            recordLocation.snapshotOffset, recordLocation.snapshotInfo));
+                    target.put(record);
+                }
+                compactedSegment.writePosition = target.position();
+                // The compacted segments are deleted only once their revisions are durable in the new segment
+                compactedSegment.buffer.force();
+            }
+
+            synchronized (this) {
+                if (compactedSegment != null) {
+                    segments.put(compactedSegment.id, compactedSegment);
+                    for (int i = 0; i < liveRecords.size(); i++) {
+                        RecordLocation recordLocation = liveRecords.get(i);
+                        // Skip the revisions superseded while they were copied
+                        if (index.get(recordLocation.snapshotInfo.getRevision()) == recordLocation) {
+                            index(movedRecords.get(i));
+                        }
+                    }
+                }
+                for (Segment segment : compactedSegments) {
+                    segments.remove(segment.id);
+                    segment.delete();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Compacted segment " + segment.file.getName() + " of Siddhi app '" +
+                                directory.getName() + "'");
+                    }
+                }
+            }
+        }
+
+        void recover() {
+            File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_FILE_PREFIX) &&
+                    name.endsWith(SEGMENT_FILE_SUFFIX));
+            if (files == null || files.length == 0) {
+                return;
+            }
+            List<RecordLocation> recordLocations = new ArrayList<>();
+            for (File file : files) {
+                String name = file.getName();
+                long segmentId;
+                try {
+                    segmentId = Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(),
+                            name.length() - SEGMENT_FILE_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring the file '" + file.getPath() + "' as it is not a segment.");
+                    continue;
+                }
+                try {
+                    Segment segment = new Segment(segmentId, file, 0);
+                    segment.scan(recordLocations);
+                    segments.put(segmentId, segment);
+                } catch (IOException e) {
+                    log.error("Cannot open the segment '" + file.getPath() + "'. Revisions in it will not be " +
+                            "restored.", e);
+                }
+            }
+            if (!segments.isEmpty()) {
+                activeSegment = segments.lastEntry().getValue();
+                nextSegmentId = segments.lastKey() + 1;
+            }
+            // Replaying in time order rebuilds the index regardless of where the compaction moved the revisions
+            recordLocations.sort(Comparator.comparingLong(recordLocation -> recordLocation.snapshotInfo.getTime()));
+            for (RecordLocation recordLocation : recordLocations) {
+                index(recordLocation);
+                removeSuperseded(recordLocation.snapshotInfo);
+            }
+            log.info("Restored the index of " + index.size() + " revisions of Siddhi app '" + directory.getName() +
+                    "' from " + segments.size() + " segments.");
+        }
+
+        void deleteAll() {
+            for (Segment segment : segments.values()) {
+                segment.delete();
+            }
+            segments.clear();
+            index.clear();
+            activeSegment = null;
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.exists() && !file.delete()) {
+                        log.error("file is not deleted successfully : " + file.getName());
+                        throw new CannotClearSiddhiAppStateException("Persistence state " +
+                                "file is not deleted : " + file.getName());
+                    }
+                }
+            }
+        }
+
+        private void index(RecordLocation recordLocation) {
+            RecordLocation previousLocation = index.put(recordLocation.snapshotInfo.getRevision(), recordLocation);
+            if (previousLocation != null) {
+                previousLocation.segment.liveBytes -= previousLocation.length;
+            }
+            recordLocation.segment.liveBytes += recordLocation.length;
+        }
+
+        private Segment getSegmentFor(int recordLength) throws IOException {
+            if (activeSegment != null && activeSegment.buffer.capacity() - activeSegment.writePosition >=
+                    recordLength) {
+                return activeSegment;
+            }
+            long segmentId = nextSegmentId++;
+            activeSegment = new Segment(segmentId, getSegmentFile(segmentId), Math.max(segmentSize, recordLength));
+            segments.put(segmentId, activeSegment);
+            return activeSegment;
+        }
+
+        private File getSegmentFile(long segmentId) throws IOException {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Cannot create the directory '" + directory.getPath() + "'");
+            }
+            return new File(directory, SEGMENT_FILE_PREFIX + String.format("%020d", segmentId) +
+                    SEGMENT_FILE_SUFFIX);
+        }
+    }
+
+    /**
+     * Memory mapped segment file.
+     */
+    private static class Segment {
+        private final long id;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long liveBytes;
+        private boolean dirty;
+
+        Segment(long id, File file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                 FileChannel fileChannel = randomAccessFile.getChannel()) {
+                long length = Math.max(size, randomAccessFile.length());
+                randomAccessFile.setLength(length);
+                // The mapping stays valid after the channel is closed
+                this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            }
+        }
+
+        /**
+         * Reads the valid records of the segment and positions the writer after the last of them.
+         */
+        void scan(List<RecordLocation> recordLocations) {
+            int position = 0;
+            CRC32 crc32 = new CRC32();
+            while (position + RECORD_HEADER_LENGTH <= buffer.capacity() && buffer.getInt(position) == RECORD_MAGIC) {
+                int payloadLength = buffer.getInt(position + 4);
+                if (payloadLength < 2 || payloadLength > buffer.capacity() - position - RECORD_HEADER_LENGTH) {
+                    break;
+                }
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(position + RECORD_HEADER_LENGTH);
+                payload.limit(position + RECORD_HEADER_LENGTH + payloadLength);
+                crc32.reset();
+                crc32.update(payload.duplicate());
+                if ((int) crc32.getValue() != buffer.getInt(position + 8)) {
+                    log.warn("Segment '" + file.getPath() + "' has a corrupted record at " + position +
+                            ". Records from there onwards are ignored.");
+                    break;
+                }
+                byte[] revision = new byte[payload.getShort()];
+                payload.get(revision);
+                IncrementalSnapshotInfo snapshotInfo =
+                        PersistenceHelper.convertRevision(new String(revision, StandardCharsets.UTF_8));
+                recordLocations.add(new RecordLocation(this, position, RECORD_HEADER_LENGTH + payloadLength,
+                        RECORD_HEADER_LENGTH + 2 + revision.length, snapshotInfo));
+                position += RECORD_HEADER_LENGTH + payloadLength;
+            }
+            writePosition = position;
+            // Clear a torn or corrupted record, and any record after it, so that they are not mistaken for valid
+            // records once later appends overwrite the space before them
+            boolean cleared = false;
+            for (int i = position; i < buffer.capacity(); i++) {
+                if (buffer.get(i) != 0) {
+                    buffer.put(i, (byte) 0);
+                    cleared = true;
+                }
+            }
+            if (cleared) {
+                buffer.force();
+            }
+        }
+
+        void delete() {
+            unmap(buffer);
+            if (file.exists() && !file.delete()) {
+                log.error("Error deleting the segment " + file.getPath());
+            }
+        }
+    }
+
+    /**
+     * Location of a revision in the segments.
+     */
+    private static class RecordLocation {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+        private final int snapshotOffset;
+        private final IncrementalSnapshotInfo snapshotInfo;
+
+        RecordLocation(Segment segment, int offset, int length, int snapshotOffset,
+                       IncrementalSnapshotInfo snapshotInfo) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.snapshotOffset = snapshotOffset;
+            this.snapshotInfo = snapshotInfo;
+        }
+    }
+}
@@ -18,36 +18,107 @@
 
 package org.wso2.carbon.streaming.integrator.core.persistence;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
 import org.wso2.carbon.streaming.integrator.core.ha.HAManager;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceConfigurations;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.snapshot.PersistenceReference;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Class that manages the periodic persistence of Siddhi Applications
+ * Class that manages the periodic persistence of Siddhi Applications. Siddhi apps are persisted concurrently, limited
+ * by the configured parallelism, and when running as the active node the control message of each Siddhi app is sent
+ * to the passive node as soon as its revision is persisted.
+ * <p>
+ * A persistence manager created with the persistence configurations only persists the Siddhi apps whose persistence
+ * interval has elapsed, hence it is scheduled with the interval returned by {@link #getSchedulingInterval}.
  */
 public class PersistenceManager implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(PersistenceManager.class);
+    private static final Map<String, Long> lastPersistedTimestamps = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> persistLatencyHistograms = new ConcurrentHashMap<>();
+    private final PersistenceConfigurations persistenceConfigurations;
+    private final boolean persistDueAppsOnly;
     private HAManager haManager;
     private AtomicLong sequenceIDGenerator;
     private GenericKeyedObjectPool tcpConnectionPool;
 
     public PersistenceManager() {
+        PersistenceConfigurations configurations = StreamProcessorDataHolder.getPersistenceConfigurations();
+        this.persistenceConfigurations = configurations != null ? configurations : new PersistenceConfigurations();
+        this.persistDueAppsOnly = false;
+    }
+
+    public PersistenceManager(PersistenceConfigurations persistenceConfigurations) {
+        this.persistenceConfigurations = persistenceConfigurations;
+        this.persistDueAppsOnly = true;
+    }
+
+    /**
+     * @return interval in minutes to schedule the persistence manager with, which is the greatest common divisor of
+     * the default and the per Siddhi app persistence intervals
+     */
+    public static int getSchedulingInterval(PersistenceConfigurations persistenceConfigurations) {
+        int interval = persistenceConfigurations.getIntervalInMin();
+        if (persistenceConfigurations.getAppIntervalsInMin() != null) {
+            for (Integer appInterval : persistenceConfigurations.getAppIntervalsInMin().values()) {
+                if (appInterval != null && appInterval > 0) {
+                    interval = interval > 0 ? gcd(interval, appInterval) : appInterval;
+                }
+            }
+        }
+        return interval;
+    }
+
+    /**
+     * Removes the persistence history and the latency metric of an undeployed Siddhi app.
+     */
+    public static void removeSiddhiApp(String siddhiAppName) {
+        lastPersistedTimestamps.remove(siddhiAppName);
+        if (persistLatencyHistograms.remove(siddhiAppName) != null) {
+            MetricService metricService = MetricsDataHolder.getInstance().getMetricService();
+            if (metricService != null) {
+                metricService.remove(getPersistLatencyMetricName(siddhiAppName));
+            }
+        }
+    }
+
+    private static String getPersistLatencyMetricName(String siddhiAppName) {
+        return SiddhiAppProcessorConstants.PERSISTENCE_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER +
+                siddhiAppName + SiddhiConstants.METRIC_DELIMITER +
+                SiddhiAppProcessorConstants.PERSISTENCE_METRICS_LATENCY;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
     }
 
     @Override
@@ -59,7 +130,7 @@ public class PersistenceManager implements Runnable {
                 if (haManager.isActiveNode()) {
                     tcpConnectionPool = EventSyncConnectionPoolManager.getConnectionPool();
                     sequenceIDGenerator = EventSyncConnectionPoolManager.getSequenceID();
-                    persistAndSendControlMessage();
+                    persist(true);
                 } else {
                     log.debug("haManager.isActiveNode() is FALSE. Passive node will not persist the state");
                     //Passive node will not persist the state
@@ -67,68 +138,133 @@ public class PersistenceManager implements Runnable {
             } else {
                 log.debug("StreamProcessorDataHolder.getHAManager() is NULL. Persisting the state without sending " +
                         "the control message");
-                persist();
+                persist(false);
             }
         } catch (Throwable t) {
             log.error("Exception occurred when running PersistenceManager. " + t.getMessage(), t);
         }
     }
 
-    private void persist() {
+    private void persist(boolean sendControlMessage) throws InterruptedException {
         ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
                 getSiddhiManager().getSiddhiAppRuntimeMap();
+        if (null == siddhiAppRuntimeMap || siddhiAppRuntimeMap.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<SiddhiAppRuntime> siddhiAppRuntimes = new ArrayList<>();
         for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-            PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-            if (log.isDebugEnabled()) {
-                log.debug("Revision " + persistenceReference.getRevision() +
-                        " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
+            if (!persistDueAppsOnly || isPersistenceDue(siddhiAppRuntime.getName(), now)) {
+                siddhiAppRuntimes.add(siddhiAppRuntime);
             }
         }
-        if (StreamProcessorDataHolder.getNodeInfo() != null) {
-            StreamProcessorDataHolder.getNodeInfo().setLastPersistedTimestamp(System.currentTimeMillis());
+        if (siddhiAppRuntimes.isEmpty()) {
+            return;
         }
-    }
-
-    private void persistAndSendControlMessage() {
-        ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
-                getSiddhiManager().getSiddhiAppRuntimeMap();
-        if (null != siddhiAppRuntimeMap && siddhiAppRuntimeMap.size() != 0) {
-            String[] siddhiRevisionArray = new String[siddhiAppRuntimeMap.size()];
-            int siddhiAppCount = 0;
-            for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-                PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-                Future fullStateFuture = persistenceReference.getFullStateFuture();
+        int parallelism = Math.max(1, Math.min(persistenceConfigurations.getParallelism(),
+                siddhiAppRuntimes.size()));
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setNameFormat("PersistenceWorker-%d").build());
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(siddhiAppRuntimes.size());
+            for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimes) {
+                futures.add(executorService.submit(() -> persist(siddhiAppRuntime, sendControlMessage)));
+            }
+            int persistedCount = 0;
+            for (Future<Boolean> future : futures) {
                 try {
-                    if (fullStateFuture != null) {
-                        fullStateFuture.get(60000, TimeUnit.MILLISECONDS);
-                    } else {
-                        for (Future future : persistenceReference.getIncrementalStateFuture()) {
-                            future.get(60000, TimeUnit.MILLISECONDS);
-                        }
+                    if (future.get()) {
+                        persistedCount++;
                     }
-                } catch (Throwable e) {
-                    log.error("Active Node: Persisting of Siddhi app is not successful. " +
-                            "Check if app deployed properly." + e.getMessage(), e);
-                }
-                siddhiRevisionArray[siddhiAppCount] = sequenceIDGenerator.incrementAndGet() + HAConstants
-                        .PERSISTED_APP_SPLIT_DELIMITER + persistenceReference.getRevision();
-                siddhiAppCount++;
-                if (log.isDebugEnabled()) {
-                    log.debug("Revision " + persistenceReference.getRevision() +
-                            " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
+                } catch (ExecutionException e) {
+                    log.error("Error occurred when persisting Siddhi app. " + e.getCause().getMessage(),
+                            e.getCause());
                 }
             }
             if (StreamProcessorDataHolder.getNodeInfo() != null) {
                 StreamProcessorDataHolder.getNodeInfo().setLastPersistedTimestamp(System.currentTimeMillis());
             }
-            log.info("Siddhi apps persisted successfully");
-            if (haManager != null && haManager.isActiveNode() && haManager.isPassiveNodeAdded()) {
-                sendControlMessageToPassiveNode(siddhiRevisionArray);
-                if (log.isDebugEnabled()) {
-                    log.debug("Control Message is sent to the passive node - " + Arrays.toString(siddhiRevisionArray));
+            log.info(persistedCount + " of " + siddhiAppRuntimes.size() + " Siddhi apps persisted successfully");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private boolean isPersistenceDue(String siddhiAppName, long now) {
+        int interval = persistenceConfigurations.getIntervalInMin();
+        Map<String, Integer> appIntervals = persistenceConfigurations.getAppIntervalsInMin();
+        if (appIntervals != null && appIntervals.get(siddhiAppName) != null) {
+            interval = appIntervals.get(siddhiAppName);
+        }
+        if (interval <= 0) {
+            return false;
+        }
+        Long lastPersistedTimestamp = lastPersistedTimestamps.get(siddhiAppName);
+        // Allow some slack so that scheduling jitter does not skip a whole scheduling interval
+        long slack = TimeUnit.MINUTES.toMillis(getSchedulingInterval(persistenceConfigurations)) / 10;
+        return lastPersistedTimestamp == null ||
+                now - lastPersistedTimestamp + slack >= TimeUnit.MINUTES.toMillis(interval);
+    }
+
+    /**
+     * Persists the Siddhi app and waits until the revision is persisted.
+     *
+     * @return true if the revision is persisted successfully
+     */
+    private boolean persist(SiddhiAppRuntime siddhiAppRuntime, boolean sendControlMessage) {
+        String siddhiAppName = siddhiAppRuntime.getName();
+        long startTime = System.currentTimeMillis();
+        // Events synced with sequence ids up to this point are processed before the snapshot is taken
+        long sequenceId = sendControlMessage ? sequenceIDGenerator.incrementAndGet() : -1;
+        PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+        long timeout = persistenceConfigurations.getPersistTimeoutMillis();
+        try {
+            Future fullStateFuture = persistenceReference.getFullStateFuture();
+            if (fullStateFuture != null) {
+                fullStateFuture.get(timeout, TimeUnit.MILLISECONDS);
+            } else if (persistenceReference.getIncrementalStateFuture() != null) {
+                for (Future future : persistenceReference.getIncrementalStateFuture()) {
+                    future.get(timeout, TimeUnit.MILLISECONDS);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Persisting revision " + persistenceReference.getRevision() + " of Siddhi app " +
+                    siddhiAppName + " is interrupted.");
+            return false;
+        } catch (Throwable e) {
+            log.error("Persisting revision " + persistenceReference.getRevision() + " of Siddhi app " +
+                    siddhiAppName + " is not successful. Check if app deployed properly." + e.getMessage(), e);
+            return false;
+        }
+        long endTime = System.currentTimeMillis();
+        lastPersistedTimestamps.put(siddhiAppName, startTime);
+        updatePersistLatency(siddhiAppName, endTime - startTime);
+        if (log.isDebugEnabled()) {
+            log.debug("Revision " + persistenceReference.getRevision() + " of siddhi App " + siddhiAppName +
+                    " persisted successfully in " + (endTime - startTime) + " ms");
+        }
+        if (sendControlMessage && haManager != null && haManager.isActiveNode() && haManager.isPassiveNodeAdded()) {
+            String[] siddhiRevisionArray = new String[]{sequenceId + HAConstants.PERSISTED_APP_SPLIT_DELIMITER +
+                    persistenceReference.getRevision()};
+            sendControlMessageToPassiveNode(siddhiRevisionArray);
+            if (log.isDebugEnabled()) {
+                log.debug("Control Message is sent to the passive node - " + Arrays.toString(siddhiRevisionArray));
+            }
         }
+        return true;
+    }
+
+    private void updatePersistLatency(String siddhiAppName, long latency) {
+        if (!StreamProcessorDataHolder.isStatisticsEnabled()) {
+            return;
+        }
+        MetricService metricService = MetricsDataHolder.getInstance().getMetricService();
+        if (metricService == null) {
+            return;
+        }
+        persistLatencyHistograms.computeIfAbsent(siddhiAppName, appName -> metricService.histogram(
+                getPersistLatencyMetricName(appName), Level.INFO)).update(latency);
     }
 
     private void sendControlMessageToPassiveNode(String[] siddhiRevisionArray) {
@@ -144,7 +280,9 @@ public class PersistenceManager implements Runnable {
                 } else {
                     connection.send(HAConstants.CHANNEL_ID_CONTROL_MESSAGE,
                             siddhiAppRevisions.getBytes(HAConstants.DEFAULT_CHARSET));
-                    log.info("Control message sent to passive node.");
+                    if (log.isDebugEnabled()) {
+                        log.debug("Control message sent to passive node.");
+                    }
                 }
             } else {
                 log.error("TCP connection pool is not initialized. " +
@@ -19,8 +19,11 @@
 package org.wso2.carbon.streaming.integrator.core.persistence.beans;
 
 import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
 import org.wso2.carbon.streaming.integrator.core.persistence.FileSystemPersistenceStore;
 
+import java.util.Map;
+
 @Configuration(namespace = "state.persistence", description = "Query configurations for state persistence")
 public class PersistenceConfigurations {
     private boolean enabled = false;
@@ -28,6 +31,13 @@ public class PersistenceConfigurations {
     private int revisionsToKeep = 3;
     private String persistenceStore = FileSystemPersistenceStore.class.getName();
     private PersistenceStoreConfigs config;
+    @Element(description = "Maximum number of Siddhi apps persisted concurrently", required = false)
+    private int parallelism = 4;
+    @Element(description = "Time to wait for the revision of a Siddhi app to be persisted", required = false)
+    private long persistTimeoutMillis = 60000;
+    @Element(description = "Persistence intervals of Siddhi apps which are persisted with an interval other than " +
+            "intervalInMin, keyed by the Siddhi app name", required = false)
+    private Map<String, Integer> appIntervalsInMin;
 
     public boolean isEnabled() {
         return enabled;
@@ -68,4 +78,28 @@ public class PersistenceConfigurations {
     public void setConfig(PersistenceStoreConfigs config) {
         this.config = config;
     }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public long getPersistTimeoutMillis() {
+        return persistTimeoutMillis;
+    }
+
+    public void setPersistTimeoutMillis(long persistTimeoutMillis) {
+        this.persistTimeoutMillis = persistTimeoutMillis;
+    }
+
+    public Map<String, Integer> getAppIntervalsInMin() {
+        return appIntervalsInMin;
+    }
+
+    public void setAppIntervalsInMin(Map<String, Integer> appIntervalsInMin) {
+        this.appIntervalsInMin = appIntervalsInMin;
+    }
 }
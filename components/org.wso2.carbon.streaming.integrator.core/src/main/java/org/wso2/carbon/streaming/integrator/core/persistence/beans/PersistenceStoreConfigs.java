@@ -27,6 +27,25 @@ public class PersistenceStoreConfigs {
     private String location = "siddhi-app-persistence";
     private String datasource;
     private String table = "PERSISTENCE_TABLE";
+    @Element(description = "Codec used to compress the snapshots. Supported values are gzip, deflate, none or " +
+            "the class name of a custom SnapshotCodec")
+    private String codec = "gzip";
+    @Element(description = "Compression level of the codec, from 0 to 9")
+    private int compressionLevel = -1;
+    @Element(description = "Size in bytes of the segment files of the IncrementalSegmentLogPersistenceStore")
+    private int segmentSize = 67108864;
+    @Element(description = "Interval at which the IncrementalSegmentLogPersistenceStore forces the saved " +
+            "revisions to the disk. When 0, each revision is forced as it is saved")
+    private long segmentForceIntervalMillis = 0;
+    @Element(description = "Group the snapshots saved to a database into JDBC batches committed together")
+    private boolean writeBehind = false;
+    @Element(description = "Maximum number of snapshots written in one batch when writeBehind is enabled")
+    private int batchSize = 100;
+    @Element(description = "Maximum time in milliseconds a snapshot waits for its batch when writeBehind is enabled")
+    private long maxBatchDelayMillis = 50;
+    @Element(description = "Maximum time in milliseconds a save waits for its batch to be committed when " +
+            "writeBehind is enabled")
+    private long writeTimeoutMillis = 60000;
     @Element(description = "Database query map")
     private List<Queries> queries;
 
@@ -54,6 +73,70 @@ public class PersistenceStoreConfigs {
         this.table = table;
     }
 
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getMaxBatchDelayMillis() {
+        return maxBatchDelayMillis;
+    }
+
+    public void setMaxBatchDelayMillis(long maxBatchDelayMillis) {
+        this.maxBatchDelayMillis = maxBatchDelayMillis;
+    }
+
+    public long getSegmentForceIntervalMillis() {
+        return segmentForceIntervalMillis;
+    }
+
+    public void setSegmentForceIntervalMillis(long segmentForceIntervalMillis) {
+        this.segmentForceIntervalMillis = segmentForceIntervalMillis;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public void setWriteTimeoutMillis(long writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
     public List<Queries> getQueries() {
         return queries;
     }
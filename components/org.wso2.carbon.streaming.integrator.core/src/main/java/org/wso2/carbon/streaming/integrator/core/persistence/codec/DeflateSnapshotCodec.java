@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Raw deflate snapshot codec which defaults to the fastest compression level. The deflaters and inflaters are taken
+ * from the {@link SnapshotBufferPool}, hence their native memory is reused across revisions.
+ */
+public class DeflateSnapshotCodec implements SnapshotCodec {
+    public static final byte ID = 2;
+    public static final String NAME = "deflate";
+    private int level = Deflater.BEST_SPEED;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        Deflater deflater = SnapshotBufferPool.acquireDeflater(level);
+        return new DeflaterOutputStream(out, deflater, SnapshotBufferPool.BUFFER_SIZE) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    SnapshotBufferPool.releaseDeflater(deflater);
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        Inflater inflater = SnapshotBufferPool.acquireInflater();
+        return new InflaterInputStream(in, inflater, SnapshotBufferPool.BUFFER_SIZE) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    SnapshotBufferPool.releaseInflater(inflater);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoded snapshot held in pooled chunks of {@link SnapshotBufferPool#BUFFER_SIZE} bytes, so that it can be streamed
+ * to a store without copying it into one contiguous array. Chunks are returned to the pool on {@link #release()}.
+ */
+public class EncodedSnapshot {
+    private final List<byte[]> chunks = new ArrayList<>();
+    private long length;
+
+    EncodedSnapshot() {
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns a new stream over the encoded bytes, the snapshot must not be released while it is being read.
+     */
+    public InputStream newInputStream() {
+        return new ChunkInputStream();
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[(int) length];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            int chunkLength = (int) Math.min(chunk.length, length - offset);
+            System.arraycopy(chunk, 0, bytes, offset, chunkLength);
+            offset += chunkLength;
+        }
+        return bytes;
+    }
+
+    public void release() {
+        for (byte[] chunk : chunks) {
+            SnapshotBufferPool.releaseBuffer(chunk);
+        }
+        chunks.clear();
+        length = 0;
+    }
+
+    OutputStream newOutputStream() {
+        return new ChunkOutputStream();
+    }
+
+    private class ChunkOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            int position = (int) (length % SnapshotBufferPool.BUFFER_SIZE);
+            if (position == 0) {
+                chunks.add(SnapshotBufferPool.acquireBuffer());
+            }
+            chunks.get(chunks.size() - 1)[position] = (byte) b;
+            length++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) {
+            while (count > 0) {
+                int position = (int) (length % SnapshotBufferPool.BUFFER_SIZE);
+                if (position == 0) {
+                    chunks.add(SnapshotBufferPool.acquireBuffer());
+                }
+                int chunkLength = Math.min(count, SnapshotBufferPool.BUFFER_SIZE - position);
+                System.arraycopy(bytes, offset, chunks.get(chunks.size() - 1), position, chunkLength);
+                offset += chunkLength;
+                count -= chunkLength;
+                length += chunkLength;
+            }
+        }
+    }
+
+    private class ChunkInputStream extends InputStream {
+        private long position;
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+            byte b = chunks.get((int) (position / SnapshotBufferPool.BUFFER_SIZE))
+                    [(int) (position % SnapshotBufferPool.BUFFER_SIZE)];
+            position++;
+            return b & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int count) {
+            if (count == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int read = 0;
+            while (read < count && position < length) {
+                int chunkPosition = (int) (position % SnapshotBufferPool.BUFFER_SIZE);
+                int chunkLength = (int) Math.min(Math.min(count - read, SnapshotBufferPool.BUFFER_SIZE -
+                        chunkPosition), length - position);
+                System.arraycopy(chunks.get((int) (position / SnapshotBufferPool.BUFFER_SIZE)), chunkPosition,
+                        bytes, offset + read, chunkLength);
+                read += chunkLength;
+                position += chunkLength;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+    }
+}
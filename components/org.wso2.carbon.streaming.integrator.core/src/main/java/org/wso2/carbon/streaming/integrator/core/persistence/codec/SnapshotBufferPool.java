@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.codec;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Pool of the scratch buffers, deflaters and inflaters used when encoding and decoding snapshots. Each pool keeps at
+ * most {@link #MAX_POOLED_ENTRIES} idle entries, entries released beyond that are discarded.
+ */
+public class SnapshotBufferPool {
+    public static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_ENTRIES = 16;
+    private static final Pool<byte[]> buffers = new Pool<>();
+    private static final Pool<Deflater> deflaters = new Pool<>();
+    private static final Pool<Inflater> inflaters = new Pool<>();
+
+    private SnapshotBufferPool() {
+    }
+
+    public static byte[] acquireBuffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    public static void releaseBuffer(byte[] buffer) {
+        if (buffer.length == BUFFER_SIZE) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public static Deflater acquireDeflater(int level) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        } else {
+            deflater.setLevel(level);
+        }
+        return deflater;
+    }
+
+    public static void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public static Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    public static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Bounded pool of idle entries.
+     */
+    private static class Pool<T> {
+        private final Queue<T> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        T poll() {
+            T entry = entries.poll();
+            if (entry != null) {
+                size.decrementAndGet();
+            }
+            return entry;
+        }
+
+        boolean offer(T entry) {
+            if (size.incrementAndGet() > MAX_POOLED_ENTRIES) {
+                size.decrementAndGet();
+                return false;
+            }
+            entries.offer(entry);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression codec used by the persistence stores to encode Siddhi app snapshots. Custom codecs can be plugged in
+ * by setting the fully qualified class name of the implementation as the codec of the persistence store, and must
+ * have a public no-argument constructor.
+ */
+public interface SnapshotCodec {
+
+    /**
+     * @return identifier recorded in the snapshot header. Identifiers below 64 are reserved for the built in codecs.
+     */
+    byte getId();
+
+    /**
+     * @return name used to refer the codec in deployment.yaml
+     */
+    String getName();
+
+    /**
+     * Sets the compression level of the codec. Codecs without levels ignore it.
+     */
+    void setLevel(int level);
+
+    /**
+     * Wraps the given stream with a stream compressing the bytes written to it. Closing the returned stream
+     * finishes the compressed content and closes the given stream.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the given stream with a stream decompressing the bytes read from it.
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
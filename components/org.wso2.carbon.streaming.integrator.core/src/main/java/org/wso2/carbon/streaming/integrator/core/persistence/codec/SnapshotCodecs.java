@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.codec;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes and decodes snapshots with the {@link SnapshotCodec}s. An encoded snapshot starts with a header holding
+ * the magic bytes, the codec id and the length of the snapshot, followed by the compressed snapshot. Snapshots
+ * without the header are GZIP compressed snapshots written by the earlier versions.
+ */
+public class SnapshotCodecs {
+    private static final Logger log = Logger.getLogger(SnapshotCodecs.class);
+    private static final byte[] MAGIC = {'S', 'I', 'S', 'C'};
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+    private static final Map<Byte, SnapshotCodec> codecsById = new ConcurrentHashMap<>();
+
+    static {
+        register(new NoneSnapshotCodec());
+        register(new GZIPSnapshotCodec());
+        register(new DeflateSnapshotCodec());
+    }
+
+    private SnapshotCodecs() {
+    }
+
+    /**
+     * Resolves the codec configured for a persistence store through the 'codec' and 'compressionLevel' properties
+     * of its config. GZIP is used when no codec is configured.
+     *
+     * @param configurationMap config of the persistence store, can be null
+     * @return the codec
+     */
+    public static SnapshotCodec getCodec(Map configurationMap) {
+        Object codecObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_CODEC);
+        Object levelObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION_LEVEL);
+        String codecName = codecObject == null ? GZIPSnapshotCodec.NAME : String.valueOf(codecObject).trim();
+        SnapshotCodec codec = createCodec(codecName);
+        if (codec == null) {
+            log.warn("Unknown snapshot codec '" + codecName + "'. Default codec '" + GZIPSnapshotCodec.NAME +
+                    "' will be used.");
+            codec = new GZIPSnapshotCodec();
+        }
+        if (levelObject instanceof Integer) {
+            codec.setLevel((Integer) levelObject);
+        }
+        register(codec);
+        return codec;
+    }
+
+    private static SnapshotCodec createCodec(String codecName) {
+        switch (codecName.toLowerCase()) {
+            case GZIPSnapshotCodec.NAME:
+                return new GZIPSnapshotCodec();
+            case DeflateSnapshotCodec.NAME:
+                return new DeflateSnapshotCodec();
+            case NoneSnapshotCodec.NAME:
+                return new NoneSnapshotCodec();
+            default:
+                try {
+                    Class<?> codecClass = Class.forName(codecName);
+                    return (SnapshotCodec) codecClass.newInstance();
+                } catch (ClassNotFoundException | InstantiationException | IllegalAccessException |
+                        ClassCastException e) {
+                    log.error("Cannot load the snapshot codec '" + codecName + "'. " + e.getMessage(), e);
+                    return null;
+                }
+        }
+    }
+
+    private static void register(SnapshotCodec codec) {
+        SnapshotCodec existingCodec = codecsById.putIfAbsent(codec.getId(), codec);
+        if (existingCodec != null && !existingCodec.getClass().equals(codec.getClass())) {
+            log.warn("Snapshot codec id " + codec.getId() + " of '" + codec.getName() + "' is already used by '" +
+                    existingCodec.getName() + "'. Snapshots encoded with '" + codec.getName() +
+                    "' cannot be loaded.");
+        }
+    }
+
+    /**
+     * Writes the header and the compressed snapshot to the given stream, and closes it.
+     */
+    public static void encode(byte[] snapshot, SnapshotCodec codec, OutputStream out) throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+        header[MAGIC.length] = codec.getId();
+        int length = snapshot.length;
+        header[MAGIC.length + 1] = (byte) (length >>> 24);
+        header[MAGIC.length + 2] = (byte) (length >>> 16);
+        header[MAGIC.length + 3] = (byte) (length >>> 8);
+        header[MAGIC.length + 4] = (byte) length;
+        out.write(header);
+        try (OutputStream compressedOut = codec.compress(out)) {
+            int offset = 0;
+            while (offset < length) {
+                int chunkLength = Math.min(SnapshotBufferPool.BUFFER_SIZE, length - offset);
+                compressedOut.write(snapshot, offset, chunkLength);
+                offset += chunkLength;
+            }
+        }
+    }
+
+    public static byte[] encode(byte[] snapshot, SnapshotCodec codec) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(HEADER_LENGTH, snapshot.length / 4));
+        encode(snapshot, codec, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes the snapshot into pooled chunks, the returned snapshot has to be released once it is written.
+     */
+    public static EncodedSnapshot encodeChunked(byte[] snapshot, SnapshotCodec codec) throws IOException {
+        EncodedSnapshot encodedSnapshot = new EncodedSnapshot();
+        try {
+            encode(snapshot, codec, encodedSnapshot.newOutputStream());
+        } catch (IOException e) {
+            encodedSnapshot.release();
+            throw e;
+        }
+        return encodedSnapshot;
+    }
+
+    /**
+     * Reads and decompresses a snapshot from the given stream, and closes it.
+     */
+    public static byte[] decode(InputStream in) throws IOException {
+        PushbackInputStream pushbackIn = new PushbackInputStream(in, HEADER_LENGTH);
+        byte[] header = new byte[HEADER_LENGTH];
+        int headerLength = readFully(pushbackIn, header, 0, HEADER_LENGTH);
+        if (headerLength < HEADER_LENGTH || !hasMagic(header)) {
+            pushbackIn.unread(header, 0, headerLength);
+            return readAll(new GZIPSnapshotCodec().decompress(pushbackIn));
+        }
+        SnapshotCodec codec = codecsById.get(header[MAGIC.length]);
+        if (codec == null) {
+            pushbackIn.close();
+            throw new IOException("Snapshot is encoded with the unknown codec id " + header[MAGIC.length]);
+        }
+        int length = ((header[MAGIC.length + 1] & 0xFF) << 24) | ((header[MAGIC.length + 2] & 0xFF) << 16) |
+                ((header[MAGIC.length + 3] & 0xFF) << 8) | (header[MAGIC.length + 4] & 0xFF);
+        byte[] snapshot = new byte[length];
+        try (InputStream decompressedIn = codec.decompress(pushbackIn)) {
+            if (readFully(decompressedIn, snapshot, 0, length) < length) {
+                throw new EOFException("Snapshot is truncated, expected " + length + " bytes");
+            }
+        }
+        return snapshot;
+    }
+
+    public static byte[] decode(byte[] encodedSnapshot) throws IOException {
+        return decode(new ByteArrayInputStream(encodedSnapshot));
+    }
+
+    private static boolean hasMagic(byte[] header) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readFully(InputStream in, byte[] bytes, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = in.read(bytes, offset + read, length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        byte[] buffer = SnapshotBufferPool.acquireBuffer();
+        try (InputStream closeableIn = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(SnapshotBufferPool.BUFFER_SIZE);
+            int length;
+            while ((length = closeableIn.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            SnapshotBufferPool.releaseBuffer(buffer);
+        }
+    }
+}
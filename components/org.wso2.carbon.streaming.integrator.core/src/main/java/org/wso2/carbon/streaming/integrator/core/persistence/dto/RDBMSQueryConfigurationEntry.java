@@ -33,6 +33,7 @@ public class RDBMSQueryConfigurationEntry {
     private String deleteOldRevisionsQuery;
     private String countQuery;
     private String deleteAllRevisionsQuery;
+    private String selectSnapshotsQuery;
 
     public String getDatabaseName() {
         return databaseName;
@@ -122,4 +123,12 @@ public class RDBMSQueryConfigurationEntry {
         this.deleteAllRevisionsQuery = deleteAllRevisionsQuery;
     }
 
+    public String getSelectSnapshotsQuery() {
+        return selectSnapshotsQuery;
+    }
+
+    public void setSelectSnapshotsQuery(String selectSnapshotsQuery) {
+        this.selectSnapshotsQuery = selectSnapshotsQuery;
+    }
+
 }
@@ -33,6 +33,7 @@ public class ExecutionInfo {
     private String preparedDeleteOldRevisionsStatement;
     private String preparedCountStatement;
     private String preparedDeleteAllRevisionsStatement;
+    private String preparedSelectSnapshotsStatement;
 
     private boolean tableExist = false;
 
@@ -124,4 +125,12 @@ public class ExecutionInfo {
         this.preparedDeleteAllRevisionsStatement = preparedDeleteAllRevisionsStatement;
     }
 
+    public String getPreparedSelectSnapshotsStatement() {
+        return preparedSelectSnapshotsStatement;
+    }
+
+    public void setPreparedSelectSnapshotsStatement(String preparedSelectSnapshotsStatement) {
+        this.preparedSelectSnapshotsStatement = preparedSelectSnapshotsStatement;
+    }
+
 }
@@ -26,6 +26,14 @@ public class PersistenceConstants {
     public static final String STATE_PERSISTENCE_NS = "state.persistence";
     public static final String STATE_PERSISTENCE_REVISIONS_TO_KEEP = "revisionsToKeep";
     public static final String STATE_PERSISTENCE_CONFIGS = "config";
+    public static final String STATE_PERSISTENCE_CODEC = "codec";
+    public static final String STATE_PERSISTENCE_COMPRESSION_LEVEL = "compressionLevel";
+    public static final String STATE_PERSISTENCE_SEGMENT_SIZE = "segmentSize";
+    public static final String STATE_PERSISTENCE_SEGMENT_FORCE_INTERVAL = "segmentForceIntervalMillis";
+    public static final String STATE_PERSISTENCE_WRITE_BEHIND = "writeBehind";
+    public static final String STATE_PERSISTENCE_BATCH_SIZE = "batchSize";
+    public static final String STATE_PERSISTENCE_MAX_BATCH_DELAY = "maxBatchDelayMillis";
+    public static final String STATE_PERSISTENCE_WRITE_TIMEOUT = "writeTimeoutMillis";
     public static final String DEFAULT_FILE_PERSISTENCE_FOLDER = "siddhi-app-persistence";
     public static final String REVISION_SEPARATOR = "__";
     public static final String DEFAULT_DB_PERSISTENCE_DATASOURCE = "WSO2_CARBON_DB";
@@ -36,6 +44,7 @@ public class PersistenceConstants {
     public static final String SELECT_SNAPSHOT = "SELECT_SNAPSHOT";
     public static final String SELECT_LAST_REVISION = "SELECT_LAST_REVISION";
     public static final String SELECT_REVISIONS = "SELECT_REVISIONS";
+    public static final String SELECT_SNAPSHOTS = "SELECT_SNAPSHOTS";
     public static final String DELETE_ROW_FROM_TABLE = "DELETE_ROW_FROM_TABLE";
     public static final String DELETE_OLD_REVISIONS = "DELETE_OLD_REVISIONS";
     public static final String COUNT_NUMBER_REVISIONS = "COUNT_NUMBER_REVISIONS";
@@ -79,6 +79,18 @@ public class RDBMSConfiguration {
             databaseQueryEntries.setDeleteAllRevisionsQuery(queryManager.
                     getQuery(PersistenceConstants.DELETE_ALL_REVISIONS).
                     replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            try {
+                databaseQueryEntries.setSelectSnapshotsQuery(queryManager.
+                        getQuery(PersistenceConstants.SELECT_SNAPSHOTS).
+                        replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            } catch (QueryMappingNotAvailableException e) {
+                // Query overrides written for the earlier versions do not have this query, revisions are then
+                // restored one by one.
+                if (log.isDebugEnabled()) {
+                    log.debug("Query " + PersistenceConstants.SELECT_SNAPSHOTS + " is not defined for database: " +
+                            databaseType + " " + databaseVersion);
+                }
+            }
 
         } catch (QueryMappingNotAvailableException | ConfigurationException | IOException e) {
             throw new DatasourceConfigurationException("Error reading queries for database: " + databaseType + " "
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.EncodedSnapshot;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes snapshots to a database through a {@link BatchWriter}, one transaction per write. When 'writeBehind' is
+ * enabled in the store config, snapshots saved concurrently are queued and written by a flusher thread in groups of
+ * up to 'batchSize' snapshots, waiting at most 'maxBatchDelayMillis' for a group to fill. A save still returns only
+ * after the transaction holding its snapshot is committed, or fails once 'writeTimeoutMillis' elapses, in which case
+ * the snapshot is removed from the queue unless it is already being written. The flusher thread is restarted if it
+ * dies, and is stopped by {@link #shutdown()}.
+ */
+public class SnapshotWriteBatcher {
+    private static final Logger log = Logger.getLogger(SnapshotWriteBatcher.class);
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 50;
+    private static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 60000;
+    private static final long FLUSHER_CHECK_INTERVAL_MILLIS = 1000;
+
+    private final String name;
+    private final DataSource datasource;
+    private final String datasourceName;
+    private final BatchWriter batchWriter;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final long maxBatchDelayNanos;
+    private final long writeTimeoutMillis;
+    private final BlockingQueue<PendingSnapshot> pendingSnapshots = new LinkedBlockingQueue<>();
+    private volatile Thread flusher;
+    private volatile boolean shutdown;
+
+    public SnapshotWriteBatcher(String name, DataSource datasource, String datasourceName, BatchWriter batchWriter,
+                                Map configurationMap) {
+        this.name = name;
+        this.datasource = datasource;
+        this.datasourceName = datasourceName;
+        this.batchWriter = batchWriter;
+        Object writeBehindObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_WRITE_BEHIND);
+        Object batchSizeObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_BATCH_SIZE);
+        Object maxBatchDelayObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_MAX_BATCH_DELAY);
+        Object writeTimeoutObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_WRITE_TIMEOUT);
+        this.writeBehind = writeBehindObject != null && Boolean.parseBoolean(String.valueOf(writeBehindObject));
+        this.batchSize = batchSizeObject instanceof Integer && (Integer) batchSizeObject > 0 ?
+                (Integer) batchSizeObject : DEFAULT_BATCH_SIZE;
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayObject instanceof Number &&
+                ((Number) maxBatchDelayObject).longValue() >= 0 ?
+                ((Number) maxBatchDelayObject).longValue() : DEFAULT_MAX_BATCH_DELAY_MILLIS);
+        this.writeTimeoutMillis = writeTimeoutObject instanceof Number &&
+                ((Number) writeTimeoutObject).longValue() > 0 ?
+                ((Number) writeTimeoutObject).longValue() : DEFAULT_WRITE_TIMEOUT_MILLIS;
+        if (log.isDebugEnabled()) {
+            log.debug("Snapshots of " + name + " are written " + (writeBehind ? "in batches of up to " +
+                    batchSize + " snapshots" : "one by one") + " to datasource " + datasourceName);
+        }
+    }
+
+    /**
+     * Writes the snapshot and returns once it is committed. The encoded snapshot is released once written.
+     */
+    public void write(String siddhiAppName, String revision, EncodedSnapshot encodedSnapshot)
+            throws SQLException, InterruptedException {
+        PendingSnapshot pendingSnapshot = new PendingSnapshot(siddhiAppName, revision, encodedSnapshot);
+        if (!writeBehind) {
+            try {
+                writeBatch(Collections.singletonList(pendingSnapshot));
+            } finally {
+                encodedSnapshot.release();
+            }
+            return;
+        }
+        if (shutdown) {
+            encodedSnapshot.release();
+            throw new SQLException("Snapshot writer of " + name + " is shut down. Revision " + revision + " of " +
+                    siddhiAppName + " is not written.");
+        }
+        pendingSnapshots.offer(pendingSnapshot);
+        long deadline = System.currentTimeMillis() + writeTimeoutMillis;
+        while (true) {
+            ensureFlusherAlive();
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                pendingSnapshot.committed.get(Math.max(1, Math.min(remaining, FLUSHER_CHECK_INTERVAL_MILLIS)),
+                        TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (remaining <= FLUSHER_CHECK_INTERVAL_MILLIS) {
+                    String message = "Timed out after " + writeTimeoutMillis + " ms while writing revision " +
+                            revision + " of " + siddhiAppName + " to datasource " + datasourceName;
+                    if (!pendingSnapshot.cancel()) {
+                        throw new SQLException(message + ". The snapshot is being written, hence it may still " +
+                                "be committed.");
+                    }
+                    pendingSnapshots.remove(pendingSnapshot);
+                    SQLException timeout = new SQLException(message + ". The snapshot is not written.");
+                    fail(Collections.singletonList(pendingSnapshot), timeout);
+                    throw timeout;
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new SQLException("Error while writing revision " + revision + " of " + siddhiAppName,
+                        e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stops the flusher thread, and fails the snapshots which are not written yet.
+     */
+    public void shutdown() {
+        Thread currentFlusher;
+        synchronized (this) {
+            shutdown = true;
+            currentFlusher = flusher;
+            flusher = null;
+        }
+        if (currentFlusher != null) {
+            currentFlusher.interrupt();
+            try {
+                currentFlusher.join(FLUSHER_CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingSnapshot> unwritten = new ArrayList<>();
+        pendingSnapshots.drainTo(unwritten);
+        fail(unwritten, new SQLException("Snapshot writer of " + name + " is shut down."));
+    }
+
+    /**
+     * Starts the flusher thread, or restarts it if it died, unless the batcher is shut down.
+     */
+    private void ensureFlusherAlive() {
+        Thread currentFlusher = flusher;
+        if (currentFlusher != null && currentFlusher.isAlive()) {
+            return;
+        }
+        synchronized (this) {
+            if (shutdown || (flusher != null && flusher.isAlive())) {
+                return;
+            }
+            if (flusher != null) {
+                log.warn("Snapshot writer thread of " + name + " has stopped, hence it is restarted.");
+            }
+            Thread thread = new Thread(this::flush, "SnapshotWriteBatcher-" + name);
+            thread.setDaemon(true);
+            thread.start();
+            flusher = thread;
+        }
+    }
+
+    private void flush() {
+        List<PendingSnapshot> batch = new ArrayList<>(batchSize);
+        try {
+            while (!shutdown) {
+                PendingSnapshot first = pendingSnapshots.take();
+                if (!first.startWriting()) {
+                    // Cancelled by its save once timed out
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSnapshot next = remaining > 0 ?
+                            pendingSnapshots.poll(remaining, TimeUnit.NANOSECONDS) : pendingSnapshots.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.startWriting()) {
+                        batch.add(next);
+                    }
+                }
+                flushBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Snapshots taken from the queue but not written are failed rather than left waiting
+            fail(batch, new SQLException("Snapshot writer of " + name + " stopped before writing the snapshot."));
+        }
+    }
+
+    private void flushBatch(List<PendingSnapshot> batch) {
+        try {
+            try {
+                writeBatch(batch);
+                for (PendingSnapshot pendingSnapshot : batch) {
+                    pendingSnapshot.committed.complete(null);
+                }
+            } catch (SQLException e) {
+                if (batch.size() == 1) {
+                    batch.get(0).committed.completeExceptionally(e);
+                } else {
+                    // One bad snapshot must not fail the others of its batch, hence retried one by one
+                    log.warn("Error while writing a batch of " + batch.size() + " snapshots to datasource " +
+                            datasourceName + ", the snapshots are retried one by one. " + e.getMessage());
+                    for (PendingSnapshot pendingSnapshot : batch) {
+                        try {
+                            writeBatch(Collections.singletonList(pendingSnapshot));
+                            pendingSnapshot.committed.complete(null);
+                        } catch (SQLException ex) {
+                            pendingSnapshot.committed.completeExceptionally(ex);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                for (PendingSnapshot pendingSnapshot : batch) {
+                    pendingSnapshot.committed.completeExceptionally(e);
+                }
+            }
+        } finally {
+            for (PendingSnapshot pendingSnapshot : batch) {
+                pendingSnapshot.encodedSnapshot.release();
+            }
+        }
+    }
+
+    private static void fail(List<PendingSnapshot> snapshots, SQLException e) {
+        for (PendingSnapshot pendingSnapshot : snapshots) {
+            if (pendingSnapshot.committed.completeExceptionally(e)) {
+                pendingSnapshot.encodedSnapshot.release();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingSnapshot> snapshots) throws SQLException {
+        Connection con = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            try {
+                batchWriter.write(con, snapshots);
+                con.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollback(con);
+                throw e;
+            }
+        } finally {
+            DBPersistenceStoreUtils.cleanupConnections(null, con);
+        }
+    }
+
+    private void rollback(Connection con) {
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            log.error("Unable to rollback the transaction on datasource " + datasourceName + ". " +
+                    e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a group of snapshots, and cleans their superseded revisions, using the given connection. The
+     * transaction is committed by the caller.
+     */
+    public interface BatchWriter {
+        void write(Connection connection, List<PendingSnapshot> snapshots) throws SQLException;
+    }
+
+    /**
+     * Snapshot waiting to be written.
+     */
+    public static class PendingSnapshot {
+        private static final int QUEUED = 0;
+        private static final int WRITING = 1;
+        private static final int CANCELLED = 2;
+
+        private final String siddhiAppName;
+        private final String revision;
+        private final EncodedSnapshot encodedSnapshot;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        PendingSnapshot(String siddhiAppName, String revision, EncodedSnapshot encodedSnapshot) {
+            this.siddhiAppName = siddhiAppName;
+            this.revision = revision;
+            this.encodedSnapshot = encodedSnapshot;
+        }
+
+        public String getSiddhiAppName() {
+            return siddhiAppName;
+        }
+
+        public String getRevision() {
+            return revision;
+        }
+
+        public EncodedSnapshot getEncodedSnapshot() {
+            return encodedSnapshot;
+        }
+
+        /**
+         * @return whether the snapshot is taken to be written, false if its save has cancelled it.
+         */
+        boolean startWriting() {
+            return state.compareAndSet(QUEUED, WRITING);
+        }
+
+        /**
+         * @return whether the snapshot is cancelled, false if it is already being written.
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+    }
+}
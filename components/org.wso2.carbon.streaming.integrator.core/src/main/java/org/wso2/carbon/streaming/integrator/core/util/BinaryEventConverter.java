@@ -18,9 +18,12 @@
 
 package org.wso2.carbon.streaming.integrator.core.util;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventDataMetaInfo;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventMetaInfo;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
 import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
 import io.siddhi.core.event.Event;
 import io.siddhi.query.api.definition.Attribute;
@@ -41,31 +44,41 @@ public class BinaryEventConverter {
 
     public static ByteBuffer convertToBinaryMessage(QueuedEvent[] queuedEvents)
             throws IOException {
-        ByteBuffer messageBuffer = null;
-        for (QueuedEvent queuedEvent : queuedEvents) {
+        // Size the whole chunk first so that all the events go into a single buffer
+        String[] attributes = new String[queuedEvents.length];
+        int messageSize = 4;
+        for (int i = 0; i < queuedEvents.length; i++) {
+            QueuedEvent queuedEvent = queuedEvents[i];
             Event event = queuedEvent.getEvent();
-            int allTrpSyncPropertiesByteLength = 0;
-            int messageSize = 4 + BinaryMessageConverterUtil.getSize(queuedEvent.getSourceHandlerElementId());
             EventMetaInfo eventMetaInfo = getEventMetaInfo(event);
-            String attributes = Arrays.toString(eventMetaInfo.getAttributeTypeOrder());
+            attributes[i] = Arrays.toString(eventMetaInfo.getAttributeTypeOrder());
 
-            messageSize += BinaryMessageConverterUtil.getSize(attributes) + BinaryMessageConverterUtil.getSize
+            messageSize += BinaryMessageConverterUtil.getSize(queuedEvent.getSourceHandlerElementId()) +
+                    BinaryMessageConverterUtil.getSize(attributes[i]) + BinaryMessageConverterUtil.getSize
                     (queuedEvent.getSequenceID()) + BinaryMessageConverterUtil.getSize(queuedEvent.getSiddhiAppName())
                     + BinaryMessageConverterUtil.getSize(queuedEvent.getEvent().getTimestamp()) + getEventSize(event) +
                     4;
 
             String[] trpSyncProperties = queuedEvent.getTransportSyncProperties();
             if (trpSyncProperties != null) {
+                messageSize += 4;
                 for (String property : trpSyncProperties) {
-                    allTrpSyncPropertiesByteLength += property.length();
-                    messageSize += 4;
+                    messageSize += 4 + property.length();
                 }
-                if (trpSyncProperties.length != 0) {
-                    messageSize += 4 + allTrpSyncPropertiesByteLength;
+            }
+        }
+        ByteBuffer messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
+        messageBuffer.putInt(queuedEvents.length);
+        for (int i = 0; i < queuedEvents.length; i++) {
+            QueuedEvent queuedEvent = queuedEvents[i];
+            Event event = queuedEvent.getEvent();
+            String[] trpSyncProperties = queuedEvent.getTransportSyncProperties();
+            int allTrpSyncPropertiesByteLength = 0;
+            if (trpSyncProperties != null) {
+                for (String property : trpSyncProperties) {
+                    allTrpSyncPropertiesByteLength += property.length();
                 }
             }
-            messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
-            messageBuffer.putInt(queuedEvents.length);
             messageBuffer.putLong(queuedEvent.getSequenceID());
             messageBuffer.putInt((queuedEvent.getSourceHandlerElementId()).length());
             messageBuffer.put(((queuedEvent.getSourceHandlerElementId()).getBytes(Charset.defaultCharset())));
@@ -82,22 +95,22 @@ public class BinaryEventConverter {
                     }
                 }
             }
-            messageBuffer.putInt(attributes.length());
-            messageBuffer.put(((attributes).getBytes(Charset.defaultCharset())));
+            messageBuffer.putInt(attributes[i].length());
+            messageBuffer.put(((attributes[i]).getBytes(Charset.defaultCharset())));
             messageBuffer.putLong(event.getTimestamp());
 
             if (event.getData() != null && event.getData().length != 0) {
                 Object[] data = event.getData();
-                for (int i = 0; i < data.length; i++) {
+                for (int j = 0; j < data.length; j++) {
                     Object aData = new Object();
-                    if (data[i] instanceof String) {
+                    if (data[j] instanceof String) {
                         try {
-                            aData = URLEncoder.encode(data[i].toString(), HAConstants.DEFAULT_CHARSET);
+                            aData = URLEncoder.encode(data[j].toString(), HAConstants.DEFAULT_CHARSET);
                         } catch (UnsupportedEncodingException e) {
                             log.error("Error occurred while encoding the data using UTF-8 ", e);
                         }
                     } else {
-                        aData = data[i];
+                        aData = data[j];
                     }
                     BinaryMessageConverterUtil.assignData(aData, messageBuffer);
                 }
@@ -106,6 +119,131 @@ public class BinaryEventConverter {
         return messageBuffer;
     }
 
+    /**
+     * Writes a schema announcement frame of the schema aware wire format into the given buffer.
+     *
+     * @param byteBuf  buffer to write into
+     * @param schemaId connection scoped id the events of the schema will refer to
+     * @param schema   schema being announced
+     */
+    public static void writeSchemaFrame(ByteBuf byteBuf, int schemaId, EventSchema schema) {
+        int frameSizeIndex = writeFrameHeader(byteBuf, HAConstants.MESSAGE_TYPE_SCHEMA);
+        byteBuf.writeInt(schemaId);
+        writeString(byteBuf, schema.getSiddhiAppName());
+        writeString(byteBuf, schema.getSourceHandlerElementId());
+        byteBuf.writeInt(schema.getAttributeCount());
+        for (int i = 0; i < schema.getAttributeCount(); i++) {
+            writeString(byteBuf, schema.getAttributeType(i).name());
+        }
+        completeFrame(byteBuf, frameSizeIndex);
+    }
+
+    /**
+     * Writes an event frame of the schema aware wire format into the given buffer. All the events are expected to
+     * conform to the given schema.
+     *
+     * @param byteBuf      buffer to write into
+     * @param schemaId     connection scoped id of the already announced schema
+     * @param schema       schema of the events
+     * @param queuedEvents events to be written
+     */
+    public static void writeEventFrame(ByteBuf byteBuf, int schemaId, EventSchema schema,
+                                       QueuedEvent[] queuedEvents) {
+        int frameSizeIndex = writeFrameHeader(byteBuf, HAConstants.MESSAGE_TYPE_EVENTS);
+        byteBuf.writeInt(queuedEvents.length);
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            writeEvent(byteBuf, schemaId, schema, queuedEvent);
+        }
+        completeFrame(byteBuf, frameSizeIndex);
+    }
+
+    /**
+     * Writes a single event record. Each record carries its schema id so that records of different schemas can share
+     * a frame.
+     */
+    public static void writeEvent(ByteBuf byteBuf, int schemaId, EventSchema schema, QueuedEvent queuedEvent) {
+        byteBuf.writeInt(schemaId);
+        byteBuf.writeLong(queuedEvent.getSequenceID());
+        writeEventBody(byteBuf, schema, queuedEvent.getEvent(), queuedEvent.getTransportSyncProperties());
+    }
+
+    /**
+     * Writes the timestamp, transport sync properties and data of an event, which is the part of an event record
+     * following the schema id and the sequence id.
+     */
+    public static void writeEventBody(ByteBuf byteBuf, EventSchema schema, Event event,
+                                      String[] trpSyncProperties) {
+        byteBuf.writeLong(event.getTimestamp());
+        if (trpSyncProperties == null) {
+            byteBuf.writeInt(-1);
+        } else {
+            byteBuf.writeInt(trpSyncProperties.length);
+            for (String property : trpSyncProperties) {
+                writeString(byteBuf, property);
+            }
+        }
+        Object[] data = event.getData();
+        int attributeCount = schema.getAttributeCount();
+        // Null bitmap, one bit per attribute. Objects are not synced and are always marked as null.
+        int nullBitmapIndex = byteBuf.writerIndex();
+        byteBuf.writeZero((attributeCount + 7) >>> 3);
+        for (int i = 0; i < attributeCount; i++) {
+            Object value = (data != null && i < data.length) ? data[i] : null;
+            Attribute.Type type = schema.getAttributeType(i);
+            if (value == null || type == Attribute.Type.OBJECT) {
+                int bitmapByteIndex = nullBitmapIndex + (i >>> 3);
+                byteBuf.setByte(bitmapByteIndex, byteBuf.getByte(bitmapByteIndex) | (1 << (i & 7)));
+                continue;
+            }
+            switch (type) {
+                case STRING:
+                    writeString(byteBuf, value.toString());
+                    break;
+                case INT:
+                    byteBuf.writeInt(((Number) value).intValue());
+                    break;
+                case LONG:
+                    byteBuf.writeLong(((Number) value).longValue());
+                    break;
+                case FLOAT:
+                    byteBuf.writeFloat(((Number) value).floatValue());
+                    break;
+                case DOUBLE:
+                    byteBuf.writeDouble(((Number) value).doubleValue());
+                    break;
+                case BOOL:
+                    byteBuf.writeByte((Boolean) value ? 1 : 0);
+                    break;
+                default:
+                    // will not occur
+            }
+        }
+    }
+
+    /**
+     * Writes the protocol version, a placeholder for the frame size and the message type.
+     *
+     * @return index of the frame size placeholder, to be passed to {@link #completeFrame(ByteBuf, int)}
+     */
+    public static int writeFrameHeader(ByteBuf byteBuf, byte messageType) {
+        byteBuf.writeByte(HAConstants.PROTOCOL_VERSION_SCHEMA);
+        int frameSizeIndex = byteBuf.writerIndex();
+        byteBuf.writeInt(0);
+        byteBuf.writeByte(messageType);
+        return frameSizeIndex;
+    }
+
+    public static void completeFrame(ByteBuf byteBuf, int frameSizeIndex) {
+        byteBuf.setInt(frameSizeIndex, byteBuf.writerIndex() - frameSizeIndex - 4);
+    }
+
+    private static void writeString(ByteBuf byteBuf, String value) {
+        int lengthIndex = byteBuf.writerIndex();
+        byteBuf.writeInt(0);
+        int length = ByteBufUtil.writeUtf8(byteBuf, value);
+        byteBuf.setInt(lengthIndex, length);
+    }
+
     private static int getEventSize(Event event) {
         int eventSize = 8;
         Object[] data = event.getData();
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.internal.CarbonEventStreamService;
+import org.wso2.carbon.streaming.integrator.core.internal.SiddhiAppData;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CarbonEventStreamServiceTest {
+    private static final String SIDDHI_APP_NAME = "PushEventsApp";
+    private static final String SIDDHI_APP = "@App:name('" + SIDDHI_APP_NAME + "') " +
+            "define stream InputStream (id int);";
+
+    private final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+    private SiddhiManager siddhiManager;
+    private SiddhiAppRuntime siddhiAppRuntime;
+
+    @BeforeClass
+    public void init() {
+        siddhiManager = new SiddhiManager();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(SIDDHI_APP);
+        siddhiAppRuntime.addCallback("InputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData(0));
+                }
+            }
+        });
+        siddhiAppRuntime.start();
+        Map<String, InputHandler> inputHandlerMap = new ConcurrentHashMap<>();
+        inputHandlerMap.put("InputStream", siddhiAppRuntime.getInputHandler("InputStream"));
+        Map<String, SiddhiAppData> siddhiAppMap = new ConcurrentHashMap<>();
+        siddhiAppMap.put(SIDDHI_APP_NAME, new SiddhiAppData(SIDDHI_APP, true, inputHandlerMap, siddhiAppRuntime));
+        StreamProcessorService streamProcessorService = mock(StreamProcessorService.class);
+        when(streamProcessorService.getSiddhiAppMap()).thenReturn(siddhiAppMap);
+        StreamProcessorDataHolder.setStreamProcessorService(streamProcessorService);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+        StreamProcessorDataHolder.setStreamProcessorService(null);
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+    }
+
+    @Test
+    public void testPushEventsInOrder() {
+        CarbonEventStreamService eventStreamService = new CarbonEventStreamService();
+        List<Object> expected = new ArrayList<>();
+        eventStreamService.pushEvent(SIDDHI_APP_NAME, "InputStream", new Event(0, new Object[]{0}));
+        expected.add(0);
+        Event[] events = new Event[100];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Event(i + 1, new Object[]{i + 1});
+            expected.add(i + 1);
+        }
+        eventStreamService.pushEvents(SIDDHI_APP_NAME, "InputStream", events);
+        eventStreamService.pushEvent(SIDDHI_APP_NAME, "InputStream", new Event(101, new Object[]{101}));
+        expected.add(101);
+        Assert.assertEquals(received, expected);
+    }
+}
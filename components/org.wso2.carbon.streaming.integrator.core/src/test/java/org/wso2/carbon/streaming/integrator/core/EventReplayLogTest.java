@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventReplayLog;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.util.List;
+
+public class EventReplayLogTest {
+    private static final EventSchema SCHEMA = new EventSchema("TestApp", "source-1",
+            new Attribute.Type[]{Attribute.Type.STRING, Attribute.Type.LONG});
+
+    @Test
+    public void testTrimAndDrain() {
+        EventReplayLog eventReplayLog = new EventReplayLog("TestApp", 0);
+        for (long sequenceId = 1; sequenceId <= 10000; sequenceId++) {
+            append(eventReplayLog, sequenceId);
+        }
+        eventReplayLog.trim(9990);
+        Assert.assertFalse(append(eventReplayLog, 9989));
+        Assert.assertTrue(append(eventReplayLog, 10001));
+
+        List<QueuedEvent> queuedEvents = eventReplayLog.drain();
+        Assert.assertEquals(queuedEvents.size(), 12);
+        Assert.assertEquals(queuedEvents.get(0).getSequenceID(), 9990);
+        Assert.assertEquals(queuedEvents.get(11).getSequenceID(), 10001);
+        Assert.assertEquals(queuedEvents.get(0).getEvent().getData(), new Object[]{"WSO2-9990", 9990L});
+        Assert.assertEquals(queuedEvents.get(0).getSourceHandlerElementId(), "source-1");
+        Assert.assertEquals(eventReplayLog.size(), 0);
+    }
+
+    @Test
+    public void testDrainInSequenceOrder() {
+        EventReplayLog eventReplayLog = new EventReplayLog("TestApp", 0);
+        append(eventReplayLog, 3);
+        append(eventReplayLog, 1);
+        append(eventReplayLog, 2);
+        List<QueuedEvent> queuedEvents = eventReplayLog.drain();
+        Assert.assertEquals(queuedEvents.get(0).getSequenceID(), 1);
+        Assert.assertEquals(queuedEvents.get(1).getSequenceID(), 2);
+        Assert.assertEquals(queuedEvents.get(2).getSequenceID(), 3);
+    }
+
+    @Test
+    public void testClosedLogDropsEvents() {
+        EventReplayLog eventReplayLog = new EventReplayLog("TestApp", 0);
+        append(eventReplayLog, 1);
+        eventReplayLog.close();
+        Assert.assertFalse(append(eventReplayLog, 2));
+        Assert.assertEquals(eventReplayLog.size(), 0);
+    }
+
+    private static boolean append(EventReplayLog eventReplayLog, long sequenceId) {
+        ByteBuf eventBody = Unpooled.buffer();
+        try {
+            BinaryEventConverter.writeEventBody(eventBody, SCHEMA,
+                    new Event(sequenceId, new Object[]{"WSO2-" + sequenceId, sequenceId}), null);
+            return eventReplayLog.append(SCHEMA, sequenceId, eventBody.nioBuffer());
+        } finally {
+            eventBody.release();
+        }
+    }
+}
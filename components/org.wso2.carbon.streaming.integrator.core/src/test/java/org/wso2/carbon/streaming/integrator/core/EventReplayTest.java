@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.config.StatisticsConfiguration;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.source.SourceHandler;
+import io.siddhi.core.util.statistics.StatisticsTrackerFactory;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EventReplayTest {
+    private static final int SOURCE_COUNT = 8;
+    private static final int EVENTS_PER_SOURCE = 5000;
+
+    @BeforeClass
+    public void init() {
+        StatisticsConfiguration statisticsConfiguration = mock(StatisticsConfiguration.class);
+        when(statisticsConfiguration.getFactory()).thenReturn(mock(StatisticsTrackerFactory.class));
+        StreamProcessorDataHolder.setStatisticsConfiguration(statisticsConfiguration);
+    }
+
+    @Test
+    public void testEventsOfEachSourceReplayedInOrder() throws Exception {
+        EventListMapManager eventListMapManager = new EventListMapManager();
+        List<EventListMapManager.SourceReplayTask> replayTasks = new ArrayList<>();
+        List<List<Long>> replayedSequenceIds = new ArrayList<>();
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            String sourceId = "source-" + i;
+            List<Long> sequenceIds = Collections.synchronizedList(new ArrayList<>());
+            replayedSequenceIds.add(sequenceIds);
+            List<QueuedEvent> queuedEvents = new ArrayList<>(EVENTS_PER_SOURCE);
+            for (long sequenceId = 0; sequenceId < EVENTS_PER_SOURCE; sequenceId++) {
+                queuedEvents.add(new QueuedEvent("TestApp", sourceId, sequenceId,
+                        new Event(sequenceId, new Object[]{sourceId, sequenceId}), null));
+            }
+            replayTasks.add(eventListMapManager.new SourceReplayTask("TestApp", mockSourceHandler(sourceId,
+                    sequenceIds), queuedEvents));
+        }
+
+        eventListMapManager.replay(replayTasks, SOURCE_COUNT * EVENTS_PER_SOURCE, 4);
+
+        for (List<Long> sequenceIds : replayedSequenceIds) {
+            Assert.assertEquals(sequenceIds.size(), EVENTS_PER_SOURCE);
+            for (int i = 0; i < EVENTS_PER_SOURCE; i++) {
+                Assert.assertEquals(sequenceIds.get(i).longValue(), i);
+            }
+        }
+        assertNoReplayThreads();
+    }
+
+    @Test
+    public void testPoolShutdownWhenReplayFails() throws Exception {
+        EventListMapManager eventListMapManager = new EventListMapManager();
+        SourceHandler failingSourceHandler = mock(SourceHandler.class);
+        when(failingSourceHandler.getId()).thenReturn("failing-source");
+        doAnswer(invocation -> {
+            throw new IllegalStateException("Input handler is not available");
+        }).when(failingSourceHandler).sendEvent(Mockito.any(Event.class), Mockito.any(String[].class));
+        List<Long> sequenceIds = Collections.synchronizedList(new ArrayList<>());
+        List<EventListMapManager.SourceReplayTask> replayTasks = new ArrayList<>();
+        replayTasks.add(eventListMapManager.new SourceReplayTask("TestApp", failingSourceHandler,
+                Collections.singletonList(new QueuedEvent("TestApp", "failing-source", 0,
+                        new Event(0, new Object[]{"failing-source", 0L}), null))));
+        replayTasks.add(eventListMapManager.new SourceReplayTask("TestApp", mockSourceHandler("source-0",
+                sequenceIds), Collections.singletonList(new QueuedEvent("TestApp", "source-0", 0,
+                new Event(0, new Object[]{"source-0", 0L}), null))));
+
+        eventListMapManager.replay(replayTasks, 2, 2);
+
+        Assert.assertEquals(sequenceIds.size(), 1);
+        assertNoReplayThreads();
+    }
+
+    private static SourceHandler mockSourceHandler(String sourceId, List<Long> sequenceIds)
+            throws InterruptedException {
+        SourceHandler sourceHandler = mock(SourceHandler.class);
+        when(sourceHandler.getId()).thenReturn(sourceId);
+        doAnswer(invocation -> {
+            Event event = (Event) invocation.getArguments()[0];
+            sequenceIds.add((Long) event.getData(1));
+            return null;
+        }).when(sourceHandler).sendEvent(Mockito.any(Event.class), Mockito.any(String[].class));
+        return sourceHandler;
+    }
+
+    private static void assertNoReplayThreads() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("EventReplayer-")) {
+                Assert.assertFalse(thread.isAlive(), "Event replay thread " + thread.getName() + " is alive");
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.nio.ByteBuffer;
+
+public class EventSyncProtocolTest {
+
+    @Test
+    public void testSchemaAndEventRoundTrip() {
+        EventSchema schema = new EventSchema("TestApp", "source-1", new Attribute.Type[]{
+                Attribute.Type.STRING, Attribute.Type.INT, Attribute.Type.LONG, Attribute.Type.FLOAT,
+                Attribute.Type.DOUBLE, Attribute.Type.BOOL, Attribute.Type.STRING});
+        QueuedEvent first = new QueuedEvent("TestApp", "source-1", 10L,
+                new Event(1000L, new Object[]{"WSO2 éè", 1, 2L, 3.5f, 4.25, true, null}),
+                new String[]{"offset", "12"});
+        QueuedEvent second = new QueuedEvent("TestApp", "source-1", 11L,
+                new Event(1001L, new Object[]{"IBM", 5, 6L, 7.5f, 8.25, false, "a%20b"}), null);
+
+        ByteBuf byteBuf = Unpooled.buffer();
+        BinaryEventConverter.writeSchemaFrame(byteBuf, 0, schema);
+        BinaryEventConverter.writeEventFrame(byteBuf, 0, schema, new QueuedEvent[]{first, second});
+
+        ByteBuffer schemaFrame = readFrame(byteBuf);
+        Assert.assertEquals(schemaFrame.get(), HAConstants.MESSAGE_TYPE_SCHEMA);
+        Assert.assertEquals(schemaFrame.getInt(), 0);
+        Assert.assertEquals(SiddhiEventConverter.getEventSchema(schemaFrame), schema);
+
+        ByteBuffer eventFrame = readFrame(byteBuf);
+        Assert.assertEquals(eventFrame.get(), HAConstants.MESSAGE_TYPE_EVENTS);
+        Assert.assertEquals(eventFrame.getInt(), 2);
+        assertEvent(eventFrame, schema, first);
+        assertEvent(eventFrame, schema, second);
+        Assert.assertFalse(eventFrame.hasRemaining());
+    }
+
+    private static ByteBuffer readFrame(ByteBuf byteBuf) {
+        Assert.assertEquals(byteBuf.readByte(), HAConstants.PROTOCOL_VERSION_SCHEMA);
+        byte[] bytes = new byte[byteBuf.readInt()];
+        byteBuf.readBytes(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static void assertEvent(ByteBuffer content, EventSchema schema, QueuedEvent expected) {
+        Assert.assertEquals(content.getInt(), 0);
+        Assert.assertEquals(content.getLong(), expected.getSequenceID());
+        Assert.assertEquals(content.getLong(), expected.getEvent().getTimestamp());
+        Assert.assertEquals(SiddhiEventConverter.getTransportSyncProperties(content),
+                expected.getTransportSyncProperties());
+        Assert.assertEquals(SiddhiEventConverter.getData(content, schema), expected.getEvent().getData());
+    }
+}
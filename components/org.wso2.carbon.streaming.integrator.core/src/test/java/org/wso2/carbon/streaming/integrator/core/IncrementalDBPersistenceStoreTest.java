@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.config.provider.ConfigProvider;
+import org.wso2.carbon.datasource.core.api.DataSourceService;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.IncrementalDBPersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceStoreConfigs;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IncrementalDBPersistenceStoreTest {
+    private static final String SIDDHI_APP_NAME = "TestApp";
+
+    private HikariDataSource dataSource;
+    private IncrementalDBPersistenceStore store;
+
+    @BeforeClass
+    public void init() throws Exception {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl("jdbc:h2:mem:incremental-persistence;DB_CLOSE_DELAY=-1");
+        hikariConfig.setUsername("wso2");
+        hikariConfig.setPassword("wso2");
+        hikariConfig.setMaximumPoolSize(5);
+        dataSource = new HikariDataSource(hikariConfig);
+        DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDataSource(any())).thenReturn(dataSource);
+        StreamProcessorDataHolder.setDataSourceService(dataSourceService);
+        PersistenceStoreConfigs persistenceStoreConfigs = new PersistenceStoreConfigs();
+        persistenceStoreConfigs.setQueries(new ArrayList<>());
+        ConfigProvider configProvider = mock(ConfigProvider.class);
+        when(configProvider.getConfigurationObject(PersistenceStoreConfigs.class))
+                .thenReturn(persistenceStoreConfigs);
+        StreamProcessorDataHolder.getInstance().setConfigProvider(configProvider);
+
+        Map<String, Object> config = new HashMap<>();
+        config.put("datasource", "TEST_DB");
+        config.put("table", "INCREMENTAL_PERSISTENCE_TABLE");
+        config.put(PersistenceConstants.STATE_PERSISTENCE_WRITE_BEHIND, true);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, config);
+        store = new IncrementalDBPersistenceStore();
+        store.setProperties(properties);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+        StreamProcessorDataHolder.setDataSourceService(null);
+        StreamProcessorDataHolder.getInstance().setConfigProvider(null);
+        dataSource.close();
+    }
+
+    @BeforeMethod
+    public void clearRevisions() {
+        store.getLastRevision(SIDDHI_APP_NAME);
+        store.clearAllRevisions(SIDDHI_APP_NAME);
+    }
+
+    @Test
+    public void testBaseRevisionDeletesOldRevisions() {
+        store.save(createSnapshotInfo("element1", 1, IncrementalSnapshotInfo.SnapshotType.BASE), createSnapshot());
+        store.save(createSnapshotInfo("element1", 2, IncrementalSnapshotInfo.SnapshotType.INCREMENT),
+                createSnapshot());
+        store.save(createSnapshotInfo("element2", 1, IncrementalSnapshotInfo.SnapshotType.BASE), createSnapshot());
+        store.save(createSnapshotInfo("element1", 3, IncrementalSnapshotInfo.SnapshotType.BASE), createSnapshot());
+
+        List<IncrementalSnapshotInfo> revisions = store.getListOfRevisionsToLoad(3, SIDDHI_APP_NAME);
+        List<String> revisionNames = new ArrayList<>();
+        for (IncrementalSnapshotInfo revision : revisions) {
+            revisionNames.add(revision.getElementId() + ":" + revision.getTime());
+        }
+        Assert.assertEquals(revisionNames.size(), 2, revisionNames.toString());
+        Assert.assertTrue(revisionNames.contains("element1:3"), revisionNames.toString());
+        Assert.assertTrue(revisionNames.contains("element2:1"), revisionNames.toString());
+        loadAll(revisions);
+    }
+
+    @Test
+    public void testRevisionsStreamedWhenLoaded() {
+        Map<String, byte[]> snapshots = new HashMap<>();
+        for (int time = 1; time <= 5; time++) {
+            IncrementalSnapshotInfo snapshotInfo = createSnapshotInfo("element1", time, time == 1 ?
+                    IncrementalSnapshotInfo.SnapshotType.BASE : IncrementalSnapshotInfo.SnapshotType.INCREMENT);
+            byte[] snapshot = createSnapshot();
+            store.save(snapshotInfo, snapshot);
+            snapshots.put(snapshotInfo.getRevision(), snapshot);
+        }
+
+        List<IncrementalSnapshotInfo> revisions = store.getListOfRevisionsToLoad(4, SIDDHI_APP_NAME);
+        Assert.assertEquals(revisions.size(), 4);
+        for (int i = 0; i < revisions.size(); i++) {
+            IncrementalSnapshotInfo revision = revisions.get(i);
+            Assert.assertEquals(store.load(revision), snapshots.get(revision.getRevision()));
+            if (i < revisions.size() - 1) {
+                Assert.assertEquals(getActiveConnections(), 1, "Snapshots are not streamed over one connection");
+            }
+        }
+        Assert.assertEquals(getActiveConnections(), 0);
+    }
+
+    @Test
+    public void testRevisionsLoadedOutOfOrder() {
+        Map<String, byte[]> snapshots = new HashMap<>();
+        for (int time = 1; time <= 3; time++) {
+            IncrementalSnapshotInfo snapshotInfo = createSnapshotInfo("element1", time, time == 1 ?
+                    IncrementalSnapshotInfo.SnapshotType.BASE : IncrementalSnapshotInfo.SnapshotType.INCREMENT);
+            byte[] snapshot = createSnapshot();
+            store.save(snapshotInfo, snapshot);
+            snapshots.put(snapshotInfo.getRevision(), snapshot);
+        }
+
+        List<IncrementalSnapshotInfo> revisions = store.getListOfRevisionsToLoad(3, SIDDHI_APP_NAME);
+        Assert.assertEquals(revisions.size(), 3);
+        for (int i = revisions.size() - 1; i >= 0; i--) {
+            IncrementalSnapshotInfo revision = revisions.get(i);
+            Assert.assertEquals(store.load(revision), snapshots.get(revision.getRevision()));
+        }
+        Assert.assertEquals(getActiveConnections(), 0);
+    }
+
+    @Test
+    public void testClearRevisionsClosesStream() {
+        store.save(createSnapshotInfo("element1", 1, IncrementalSnapshotInfo.SnapshotType.BASE), createSnapshot());
+        store.save(createSnapshotInfo("element1", 2, IncrementalSnapshotInfo.SnapshotType.INCREMENT),
+                createSnapshot());
+
+        List<IncrementalSnapshotInfo> revisions = store.getListOfRevisionsToLoad(2, SIDDHI_APP_NAME);
+        Assert.assertEquals(revisions.size(), 2);
+        Assert.assertNotNull(store.load(revisions.get(0)));
+        Assert.assertEquals(getActiveConnections(), 1);
+        store.clearAllRevisions(SIDDHI_APP_NAME);
+        Assert.assertEquals(getActiveConnections(), 0);
+        Assert.assertNull(store.load(revisions.get(1)));
+    }
+
+    private void loadAll(List<IncrementalSnapshotInfo> revisions) {
+        for (IncrementalSnapshotInfo revision : revisions) {
+            Assert.assertNotNull(store.load(revision));
+        }
+        Assert.assertEquals(getActiveConnections(), 0);
+    }
+
+    private int getActiveConnections() {
+        return dataSource.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    private static IncrementalSnapshotInfo createSnapshotInfo(String elementId, long time,
+                                                              IncrementalSnapshotInfo.SnapshotType type) {
+        return new IncrementalSnapshotInfo(SIDDHI_APP_NAME, "partition", "query", elementId, time, type, "key");
+    }
+
+    private static byte[] createSnapshot() {
+        byte[] snapshot = new byte[2000];
+        new Random().nextBytes(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.persistence.IncrementalSegmentLogPersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class IncrementalSegmentLogPersistenceStoreTest {
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final int RECORD_MAGIC = 0x53494C52;
+    private static final int RECORD_HEADER_LENGTH = 12;
+    private File folder;
+
+    @BeforeMethod
+    public void init() throws IOException {
+        folder = Files.createTempDirectory("segment-log").toFile();
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        createStore(1024 * 1024).clearAllRevisions(SIDDHI_APP_NAME);
+        Assert.assertTrue(new File(folder, SIDDHI_APP_NAME).delete());
+        Assert.assertTrue(folder.delete());
+    }
+
+    @Test
+    public void testRecoverAfterRestart() {
+        IncrementalSegmentLogPersistenceStore store = createStore(1024 * 1024);
+        byte[] snapshot1 = createSnapshot(1000);
+        byte[] snapshot2 = createSnapshot(1000);
+        store.save(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE), snapshot1);
+        store.save(createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.INCREMENT), snapshot2);
+
+        IncrementalSegmentLogPersistenceStore restartedStore = createStore(1024 * 1024);
+        Assert.assertEquals(restartedStore.getListOfRevisionsToLoad(2, SIDDHI_APP_NAME).size(), 2);
+        Assert.assertEquals(restartedStore.getLastRevision(SIDDHI_APP_NAME),
+                2 + PersistenceConstants.REVISION_SEPARATOR + SIDDHI_APP_NAME);
+        Assert.assertEquals(restartedStore.load(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE)),
+                snapshot1);
+        Assert.assertEquals(restartedStore.load(createSnapshotInfo(2,
+                IncrementalSnapshotInfo.SnapshotType.INCREMENT)), snapshot2);
+    }
+
+    @Test
+    public void testCorruptedRecordTruncatesSegment() throws IOException {
+        IncrementalSegmentLogPersistenceStore store = createStore(1024 * 1024);
+        byte[] snapshot1 = createSnapshot(1000);
+        store.save(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE), snapshot1);
+        store.save(createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.INCREMENT), createSnapshot(1000));
+        store.save(createSnapshotInfo(3, IncrementalSnapshotInfo.SnapshotType.INCREMENT), createSnapshot(1000));
+
+        File segmentFile = getSegmentFiles().get(0);
+        List<Integer> recordOffsets = getRecordOffsets(segmentFile);
+        Assert.assertEquals(recordOffsets.size(), 4);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")) {
+            // Flip a byte of the snapshot of the second record
+            long position = recordOffsets.get(2) - 1;
+            randomAccessFile.seek(position);
+            int value = randomAccessFile.read();
+            randomAccessFile.seek(position);
+            randomAccessFile.write(value ^ 0xFF);
+        }
+
+        IncrementalSegmentLogPersistenceStore restartedStore = createStore(1024 * 1024);
+        List<IncrementalSnapshotInfo> revisions = restartedStore.getListOfRevisionsToLoad(3, SIDDHI_APP_NAME);
+        Assert.assertEquals(revisions.size(), 1);
+        Assert.assertEquals(revisions.get(0).getTime(), 1);
+        Assert.assertNull(restartedStore.load(createSnapshotInfo(3, IncrementalSnapshotInfo.SnapshotType.INCREMENT)));
+
+        // Revisions saved after the recovery overwrite the corrupted records
+        byte[] snapshot4 = createSnapshot(1000);
+        restartedStore.save(createSnapshotInfo(4, IncrementalSnapshotInfo.SnapshotType.INCREMENT), snapshot4);
+        IncrementalSegmentLogPersistenceStore recoveredStore = createStore(1024 * 1024);
+        Assert.assertEquals(recoveredStore.getListOfRevisionsToLoad(4, SIDDHI_APP_NAME).size(), 2);
+        Assert.assertEquals(recoveredStore.load(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE)),
+                snapshot1);
+        Assert.assertEquals(recoveredStore.load(createSnapshotInfo(4,
+                IncrementalSnapshotInfo.SnapshotType.INCREMENT)), snapshot4);
+    }
+
+    @Test
+    public void testTornWriteRecovery() throws IOException {
+        IncrementalSegmentLogPersistenceStore store = createStore(1024 * 1024);
+        byte[] snapshot1 = createSnapshot(1000);
+        store.save(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE), snapshot1);
+
+        // A record whose header is written but whose payload is only partially written
+        File segmentFile = getSegmentFiles().get(0);
+        List<Integer> recordOffsets = getRecordOffsets(segmentFile);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")) {
+            randomAccessFile.seek(recordOffsets.get(1));
+            randomAccessFile.writeInt(RECORD_MAGIC);
+            randomAccessFile.writeInt(2000);
+            randomAccessFile.writeInt(12345);
+            randomAccessFile.write(createSnapshot(500));
+        }
+
+        IncrementalSegmentLogPersistenceStore restartedStore = createStore(1024 * 1024);
+        Assert.assertEquals(restartedStore.getListOfRevisionsToLoad(10, SIDDHI_APP_NAME).size(), 1);
+        byte[] snapshot2 = createSnapshot(10);
+        restartedStore.save(createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.INCREMENT), snapshot2);
+
+        IncrementalSegmentLogPersistenceStore recoveredStore = createStore(1024 * 1024);
+        Assert.assertEquals(recoveredStore.getListOfRevisionsToLoad(10, SIDDHI_APP_NAME).size(), 2);
+        Assert.assertEquals(recoveredStore.load(createSnapshotInfo(2,
+                IncrementalSnapshotInfo.SnapshotType.INCREMENT)), snapshot2);
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        IncrementalSegmentLogPersistenceStore store = createStore(4096);
+        // A live revision which is moved out of the segments being compacted
+        byte[] otherSnapshot = createSnapshot(500);
+        IncrementalSnapshotInfo otherSnapshotInfo = new IncrementalSnapshotInfo(SIDDHI_APP_NAME, "partition",
+                "query", "otherElement", 0, IncrementalSnapshotInfo.SnapshotType.BASE, "key");
+        store.save(otherSnapshotInfo, otherSnapshot);
+        byte[] lastSnapshot = null;
+        for (int time = 1; time <= 20; time++) {
+            lastSnapshot = createSnapshot(1500);
+            // Each base revision supersedes the previous one
+            store.save(createSnapshotInfo(time, IncrementalSnapshotInfo.SnapshotType.BASE), lastSnapshot);
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (getSegmentFiles().size() > 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(getSegmentFiles().size() <= 3, getSegmentFiles().size() + " segments are not compacted");
+        Assert.assertEquals(store.getListOfRevisionsToLoad(20, SIDDHI_APP_NAME).size(), 2);
+        Assert.assertEquals(store.load(otherSnapshotInfo), otherSnapshot);
+        Assert.assertEquals(store.load(createSnapshotInfo(20, IncrementalSnapshotInfo.SnapshotType.BASE)),
+                lastSnapshot);
+
+        IncrementalSegmentLogPersistenceStore restartedStore = createStore(4096);
+        Assert.assertEquals(restartedStore.getListOfRevisionsToLoad(20, SIDDHI_APP_NAME).size(), 2);
+        Assert.assertEquals(restartedStore.getLastRevision(SIDDHI_APP_NAME),
+                20 + PersistenceConstants.REVISION_SEPARATOR + SIDDHI_APP_NAME);
+        Assert.assertEquals(restartedStore.load(otherSnapshotInfo), otherSnapshot);
+        Assert.assertEquals(restartedStore.load(createSnapshotInfo(20, IncrementalSnapshotInfo.SnapshotType.BASE)),
+                lastSnapshot);
+    }
+
+    private IncrementalSegmentLogPersistenceStore createStore(int segmentSize) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("location", folder.getPath());
+        config.put(PersistenceConstants.STATE_PERSISTENCE_SEGMENT_SIZE, segmentSize);
+        config.put(PersistenceConstants.STATE_PERSISTENCE_CODEC, "none");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, config);
+        IncrementalSegmentLogPersistenceStore store = new IncrementalSegmentLogPersistenceStore();
+        store.setProperties(properties);
+        return store;
+    }
+
+    private static IncrementalSnapshotInfo createSnapshotInfo(long time, IncrementalSnapshotInfo.SnapshotType type) {
+        return new IncrementalSnapshotInfo(SIDDHI_APP_NAME, "partition", "query", "element", time, type, "key");
+    }
+
+    private List<File> getSegmentFiles() {
+        List<File> segmentFiles = new ArrayList<>();
+        File[] files = new File(folder, SIDDHI_APP_NAME).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith("segment-")) {
+                    segmentFiles.add(file);
+                }
+            }
+        }
+        return segmentFiles;
+    }
+
+    /**
+     * @return offsets of the records of the segment, followed by the offset where the next record is written
+     */
+    private static List<Integer> getRecordOffsets(File segmentFile) throws IOException {
+        List<Integer> recordOffsets = new ArrayList<>();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "r")) {
+            int offset = 0;
+            while (offset + RECORD_HEADER_LENGTH <= randomAccessFile.length()) {
+                randomAccessFile.seek(offset);
+                if (randomAccessFile.readInt() != RECORD_MAGIC) {
+                    break;
+                }
+                recordOffsets.add(offset);
+                offset += RECORD_HEADER_LENGTH + randomAccessFile.readInt();
+            }
+            recordOffsets.add(offset);
+        }
+        return recordOffsets;
+    }
+
+    private static byte[] createSnapshot(int size) {
+        byte[] snapshot = new byte[size];
+        new Random().nextBytes(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.MpscRingBuffer;
+
+import java.util.concurrent.CountDownLatch;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void testBounds() {
+        MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(3);
+        Assert.assertEquals(ringBuffer.capacity(), 4);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(ringBuffer.offer(i));
+        }
+        Assert.assertFalse(ringBuffer.offer(4));
+        Assert.assertEquals(ringBuffer.size(), 4);
+        Assert.assertEquals(ringBuffer.poll(), Integer.valueOf(0));
+        Assert.assertTrue(ringBuffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertEquals(ringBuffer.poll(), Integer.valueOf(i));
+        }
+        Assert.assertNull(ringBuffer.poll());
+        Assert.assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProducersKeepPerProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int elementsPerProducer = 100000;
+        MpscRingBuffer<long[]> ringBuffer = new MpscRingBuffer<>(1024);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < elementsPerProducer; i++) {
+                    long[] element = new long[]{producer, i};
+                    while (!ringBuffer.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        startLatch.countDown();
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        long deadline = System.currentTimeMillis() + 60000;
+        while (received < producers * elementsPerProducer && System.currentTimeMillis() < deadline) {
+            long[] element = ringBuffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            Assert.assertEquals(element[1], nextExpected[(int) element[0]]);
+            nextExpected[(int) element[0]]++;
+            received++;
+        }
+        Assert.assertEquals(received, producers * elementsPerProducer);
+        Assert.assertNull(ringBuffer.poll());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.util.snapshot.PersistenceReference;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.PersistenceManager;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceConfigurations;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PersistenceManagerTest {
+    private static final int APP_COUNT = 6;
+    private static final int PARALLELISM = 3;
+
+    private final ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> persistCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private final AtomicInteger maxInProgress = new AtomicInteger();
+    private PersistenceConfigurations persistenceConfigurations;
+
+    @BeforeClass
+    public void init() {
+        for (int i = 0; i < APP_COUNT; i++) {
+            String siddhiAppName = "TestApp" + i;
+            siddhiAppRuntimeMap.put(siddhiAppName, mockSiddhiAppRuntime(siddhiAppName));
+            persistCounts.put(siddhiAppName, new AtomicInteger());
+        }
+        SiddhiManager siddhiManager = mock(SiddhiManager.class);
+        when(siddhiManager.getSiddhiAppRuntimeMap()).thenReturn(siddhiAppRuntimeMap);
+        StreamProcessorDataHolder.setSiddhiManager(siddhiManager);
+        StreamProcessorDataHolder.setHaManager(null);
+        persistenceConfigurations = new PersistenceConfigurations();
+        persistenceConfigurations.setIntervalInMin(1);
+        persistenceConfigurations.setParallelism(PARALLELISM);
+    }
+
+    @AfterClass
+    public void cleanUp() {
+        for (String siddhiAppName : siddhiAppRuntimeMap.keySet()) {
+            PersistenceManager.removeSiddhiApp(siddhiAppName);
+        }
+        StreamProcessorDataHolder.setSiddhiManager(null);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        for (String siddhiAppName : siddhiAppRuntimeMap.keySet()) {
+            PersistenceManager.removeSiddhiApp(siddhiAppName);
+            persistCounts.get(siddhiAppName).set(0);
+        }
+        maxInProgress.set(0);
+    }
+
+    @Test
+    public void testConcurrentPersistence() {
+        new PersistenceManager(persistenceConfigurations).run();
+        for (AtomicInteger persistCount : persistCounts.values()) {
+            Assert.assertEquals(persistCount.get(), 1);
+        }
+        Assert.assertTrue(maxInProgress.get() > 1, "Siddhi apps are not persisted concurrently");
+        Assert.assertTrue(maxInProgress.get() <= PARALLELISM, "Siddhi apps are persisted with " +
+                maxInProgress.get() + " threads");
+    }
+
+    @Test
+    public void testOnlyDueAppsPersisted() {
+        new PersistenceManager(persistenceConfigurations).run();
+        new PersistenceManager(persistenceConfigurations).run();
+        for (AtomicInteger persistCount : persistCounts.values()) {
+            Assert.assertEquals(persistCount.get(), 1);
+        }
+
+        // An app deployed again after being undeployed is persisted without waiting for its interval
+        PersistenceManager.removeSiddhiApp("TestApp0");
+        new PersistenceManager(persistenceConfigurations).run();
+        Assert.assertEquals(persistCounts.get("TestApp0").get(), 2);
+        Assert.assertEquals(persistCounts.get("TestApp1").get(), 1);
+    }
+
+    private SiddhiAppRuntime mockSiddhiAppRuntime(String siddhiAppName) {
+        PersistenceReference persistenceReference = mock(PersistenceReference.class);
+        when(persistenceReference.getRevision()).thenReturn("1_" + siddhiAppName);
+        when(persistenceReference.getFullStateFuture()).thenReturn(CompletableFuture.completedFuture(null));
+        SiddhiAppRuntime siddhiAppRuntime = mock(SiddhiAppRuntime.class);
+        when(siddhiAppRuntime.getName()).thenReturn(siddhiAppName);
+        when(siddhiAppRuntime.persist()).thenAnswer(invocation -> {
+            int current = inProgress.incrementAndGet();
+            maxInProgress.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(100);
+            } finally {
+                inProgress.decrementAndGet();
+            }
+            persistCounts.get(siddhiAppName).incrementAndGet();
+            return persistenceReference;
+        });
+        return siddhiAppRuntime;
+    }
+}
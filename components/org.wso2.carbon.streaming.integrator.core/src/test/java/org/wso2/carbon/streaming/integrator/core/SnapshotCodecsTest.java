@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.DeflateSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.EncodedSnapshot;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class SnapshotCodecsTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] snapshot = createSnapshot(300000);
+        for (String codecName : new String[]{"gzip", "deflate", "none"}) {
+            Map<String, Object> config = new HashMap<>();
+            config.put(PersistenceConstants.STATE_PERSISTENCE_CODEC, codecName);
+            SnapshotCodec codec = SnapshotCodecs.getCodec(config);
+            Assert.assertEquals(codec.getName(), codecName);
+            byte[] encodedSnapshot = SnapshotCodecs.encode(snapshot, codec);
+            Assert.assertEquals(SnapshotCodecs.decode(encodedSnapshot), snapshot);
+        }
+        Assert.assertEquals(SnapshotCodecs.decode(SnapshotCodecs.encode(new byte[0],
+                new DeflateSnapshotCodec())), new byte[0]);
+    }
+
+    @Test
+    public void testChunkedEncode() throws IOException {
+        byte[] snapshot = createSnapshot(300000);
+        SnapshotCodec codec = SnapshotCodecs.getCodec(null);
+        EncodedSnapshot encodedSnapshot = SnapshotCodecs.encodeChunked(snapshot, codec);
+        byte[] expected = SnapshotCodecs.encode(snapshot, codec);
+        Assert.assertEquals(encodedSnapshot.getLength(), expected.length);
+        Assert.assertEquals(encodedSnapshot.toByteArray(), expected);
+        Assert.assertEquals(SnapshotCodecs.decode(encodedSnapshot.newInputStream()), snapshot);
+        encodedSnapshot.release();
+        Assert.assertEquals(encodedSnapshot.getLength(), 0);
+    }
+
+    @Test
+    public void testLoadLegacySnapshot() throws IOException {
+        byte[] snapshot = createSnapshot(2000000);
+        Assert.assertEquals(SnapshotCodecs.decode(CompressionUtil.compressGZIP(snapshot)), snapshot);
+        Assert.assertEquals(CompressionUtil.decompressGZIP(CompressionUtil.compressGZIP(snapshot)), snapshot);
+    }
+
+    @Test
+    public void testDefaultCodec() {
+        Assert.assertEquals(SnapshotCodecs.getCodec(null).getName(), "gzip");
+        Map<String, Object> config = new HashMap<>();
+        config.put(PersistenceConstants.STATE_PERSISTENCE_CODEC, "unknown");
+        Assert.assertEquals(SnapshotCodecs.getCodec(config).getName(), "gzip");
+    }
+
+    private static byte[] createSnapshot(int length) {
+        byte[] snapshot = new byte[length];
+        Random random = new Random(7);
+        for (int i = 0; i < length; i++) {
+            snapshot[i] = (byte) (random.nextInt(16) + 'a');
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.GZIPSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.codec.SnapshotCodecs;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotWriteBatcher;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SnapshotWriteBatcherTest {
+    private static final String NAME = "TestTable";
+    private static final int WRITER_COUNT = 20;
+
+    private DataSource dataSource;
+
+    @BeforeMethod
+    public void init() throws SQLException {
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    }
+
+    @Test
+    public void testConcurrentSnapshotsWrittenInBatches() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        List<String> writtenRevisions = Collections.synchronizedList(new ArrayList<>());
+        SnapshotWriteBatcher writeBatcher = createWriteBatcher((connection, snapshots) -> {
+            batchSizes.add(snapshots.size());
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                writtenRevisions.add(snapshot.getRevision());
+            }
+            sleep(50);
+        }, 60000);
+
+        List<Future<?>> writes = writeConcurrently(writeBatcher, Collections.emptyList());
+        for (Future<?> write : writes) {
+            write.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(writtenRevisions.size(), WRITER_COUNT);
+        Assert.assertTrue(batchSizes.size() < WRITER_COUNT, "Snapshots are not batched, batch sizes: " +
+                batchSizes);
+        writeBatcher.shutdown();
+    }
+
+    @Test
+    public void testFailedBatchRetriedOneByOne() throws Exception {
+        List<String> writtenRevisions = Collections.synchronizedList(new ArrayList<>());
+        SnapshotWriteBatcher writeBatcher = createWriteBatcher((connection, snapshots) -> {
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                if (snapshot.getRevision().equals("revision-0")) {
+                    throw new SQLException("Invalid revision");
+                }
+            }
+            sleep(50);
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                writtenRevisions.add(snapshot.getRevision());
+            }
+        }, 60000);
+
+        List<Future<?>> writes = writeConcurrently(writeBatcher, Collections.singletonList("revision-0"));
+        for (Future<?> write : writes) {
+            write.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(writtenRevisions.size(), WRITER_COUNT - 1);
+        Assert.assertFalse(writtenRevisions.contains("revision-0"));
+        writeBatcher.shutdown();
+    }
+
+    @Test
+    public void testStoppedFlusherRestarted() throws Exception {
+        List<String> writtenRevisions = Collections.synchronizedList(new ArrayList<>());
+        SnapshotWriteBatcher writeBatcher = createWriteBatcher((connection, snapshots) -> {
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                writtenRevisions.add(snapshot.getRevision());
+            }
+        }, 60000);
+        write(writeBatcher, "revision-0");
+
+        Thread flusher = getFlusherThread();
+        Assert.assertNotNull(flusher);
+        flusher.interrupt();
+        flusher.join(5000);
+        Assert.assertFalse(flusher.isAlive());
+
+        write(writeBatcher, "revision-1");
+        Assert.assertEquals(writtenRevisions, Arrays.asList("revision-0", "revision-1"));
+        writeBatcher.shutdown();
+    }
+
+    @Test(expectedExceptions = SQLException.class)
+    public void testWriteTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SnapshotWriteBatcher writeBatcher = createWriteBatcher((connection, snapshots) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new SQLException("Interrupted", e);
+            }
+        }, 200);
+        try {
+            write(writeBatcher, "revision-0");
+        } finally {
+            release.countDown();
+            writeBatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimedOutSnapshotNotWritten() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> writtenRevisions = Collections.synchronizedList(new ArrayList<>());
+        SnapshotWriteBatcher writeBatcher = createWriteBatcher((connection, snapshots) -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new SQLException("Interrupted", e);
+            }
+            for (SnapshotWriteBatcher.PendingSnapshot snapshot : snapshots) {
+                writtenRevisions.add(snapshot.getRevision());
+            }
+        }, 200);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> inFlight = executorService.submit(() -> {
+                write(writeBatcher, "revision-0");
+                return null;
+            });
+            Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+            try {
+                write(writeBatcher, "revision-1");
+                Assert.fail("Snapshot is written while the previous batch is being written");
+            } catch (SQLException e) {
+                // expected
+            }
+            assertFailed(inFlight);
+            release.countDown();
+            sleep(200);
+            // The in flight snapshot is committed after its save timed out, while the queued one is dropped
+            Assert.assertEquals(writtenRevisions, Collections.singletonList("revision-0"));
+        } finally {
+            release.countDown();
+            executorService.shutdownNow();
+            writeBatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdownFailsPendingSnapshots() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        SnapshotWriteBatcher writeBatcher = createWriteBatcher((connection, snapshots) -> {
+            writing.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                throw new SQLException("Interrupted", e);
+            }
+        }, 60000);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> inFlight = executorService.submit(() -> {
+                write(writeBatcher, "revision-0");
+                return null;
+            });
+            Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+            Future<?> queued = executorService.submit(() -> {
+                write(writeBatcher, "revision-1");
+                return null;
+            });
+            sleep(100);
+
+            writeBatcher.shutdown();
+            assertFailed(inFlight);
+            assertFailed(queued);
+            Assert.assertNull(getFlusherThread());
+        } finally {
+            executorService.shutdownNow();
+        }
+        try {
+            write(writeBatcher, "revision-2");
+            Assert.fail("Snapshot is written after the writer is shut down");
+        } catch (SQLException e) {
+            // expected
+        }
+    }
+
+    private SnapshotWriteBatcher createWriteBatcher(SnapshotWriteBatcher.BatchWriter batchWriter,
+                                                    long writeTimeoutMillis) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(PersistenceConstants.STATE_PERSISTENCE_WRITE_BEHIND, true);
+        config.put(PersistenceConstants.STATE_PERSISTENCE_BATCH_SIZE, WRITER_COUNT);
+        config.put(PersistenceConstants.STATE_PERSISTENCE_MAX_BATCH_DELAY, 20L);
+        config.put(PersistenceConstants.STATE_PERSISTENCE_WRITE_TIMEOUT, writeTimeoutMillis);
+        return new SnapshotWriteBatcher(NAME, dataSource, "TEST_DB", batchWriter, config);
+    }
+
+    private List<Future<?>> writeConcurrently(SnapshotWriteBatcher writeBatcher, List<String> failingRevisions) {
+        ExecutorService executorService = Executors.newFixedThreadPool(WRITER_COUNT);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            String revision = "revision-" + i;
+            writes.add(executorService.submit(() -> {
+                try {
+                    write(writeBatcher, revision);
+                    Assert.assertFalse(failingRevisions.contains(revision), revision + " is written");
+                } catch (SQLException e) {
+                    Assert.assertTrue(failingRevisions.contains(revision), revision + " is not written");
+                }
+                return null;
+            }));
+        }
+        executorService.shutdown();
+        return writes;
+    }
+
+    private static void write(SnapshotWriteBatcher writeBatcher, String revision) throws Exception {
+        writeBatcher.write("TestApp", revision, SnapshotCodecs.encodeChunked(new byte[]{1, 2, 3},
+                new GZIPSnapshotCodec()));
+    }
+
+    private static void assertFailed(Future<?> write) throws Exception {
+        try {
+            write.get(5, TimeUnit.SECONDS);
+            Assert.fail("Snapshot is written after the writer is shut down");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException, String.valueOf(e.getCause()));
+        }
+    }
+
+    private static Thread getFlusherThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("SnapshotWriteBatcher-" + NAME) && thread.isAlive()) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}